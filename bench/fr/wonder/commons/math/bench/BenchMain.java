@@ -0,0 +1,36 @@
+package fr.wonder.commons.math.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes their results as JSON.
+ * <p>
+ * Arguments are regular JMH arguments (a benchmark regex, {@code -p depth=4}...),
+ * the results go to {@code bench-results.json} unless another file is given
+ * with {@code -rff}. Comparing two such files, for example with
+ * <a href="https://jmh.morethan.io">JMH Visualizer</a>, shows throughput
+ * regressions between releases.
+ */
+public class BenchMain {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(cmd);
+		// includes are merged with those of the parent, only add the default when there are none
+		if(cmd.getIncludes().isEmpty())
+			builder.include(BenchMain.class.getPackageName() + ".*");
+		Options options = builder
+				.resultFormat(ResultFormatType.JSON)
+				.result(cmd.getResult().orElse("bench-results.json"))
+				.build();
+		new Runner(options).run();
+	}
+
+}
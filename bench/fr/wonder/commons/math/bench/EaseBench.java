@@ -0,0 +1,71 @@
+package fr.wonder.commons.math.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.wonder.commons.math.ease.Bezier;
+import fr.wonder.commons.math.ease.Transform;
+import fr.wonder.commons.math.ease.Transforms;
+
+/**
+ * Measures the evaluation of easing curves: a raw {@link Bezier}, the same
+ * curve wrapped by {@link Transforms#cubicBezier(double, double, double, double)}
+ * and a plain polynomial transform for reference, then chains of
+ * {@link Transform#andThen(Transform)} of increasing depth.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EaseBench {
+
+	private static final int SIZE = 1 << 10, MASK = SIZE-1;
+
+	/** Number of transforms chained by {@link #andThenChain()} */
+	@Param({ "1", "4", "16", "64" })
+	public int depth;
+
+	private final float[] inputs = new float[SIZE];
+	private int i;
+
+	private Bezier bezier;
+	private Transform cubicBezier, cubic, chain;
+
+	@Setup
+	public void setup() {
+		Random r = new Random(0);
+		for(int j = 0; j < SIZE; j++)
+			inputs[j] = r.nextFloat();
+		bezier = new Bezier(.65, 0, .35, 1);
+		cubicBezier = Transforms.cubicBezier(.65, 0, .35, 1);
+		cubic = Transforms.cubic(-2, 3, 0, 0);
+		// alternate two transforms so that the chain cannot be merged into a single lambda type
+		chain = Transform.identity();
+		for(int j = 0; j < depth; j++)
+			chain = chain.andThen(j % 2 == 0 ? Transforms.linear(.5f, .25f) : Transforms.smoothstep(0, 1));
+	}
+
+	private float next() {
+		return inputs[i = (i+1) & MASK];
+	}
+
+	@Benchmark public double bezier()      { return bezier.apply((double) next()); }
+	@Benchmark public float cubicBezier()  { return cubicBezier.apply(next()); }
+	@Benchmark public float cubic()        { return cubic.apply(next()); }
+	@Benchmark public float andThenChain() { return chain.apply(next()); }
+
+}
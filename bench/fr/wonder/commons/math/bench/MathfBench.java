@@ -0,0 +1,67 @@
+package fr.wonder.commons.math.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.wonder.commons.math.Mathf;
+
+/**
+ * Compares the fast {@link Mathf} functions with their {@link Math}
+ * counterparts.
+ * <p>
+ * Each invocation reads the next value of a pre-generated input array so that
+ * the JIT cannot fold the call into a constant, the array is small enough to
+ * stay in L1 so that memory accesses do not dominate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MathfBench {
+
+	private static final int SIZE = 1 << 10, MASK = SIZE-1;
+
+	/** Angles in [-2pi, 2pi], exponents in [-20, 20] and positive numbers in ]0, 1e4] */
+	private final float[] angles = new float[SIZE], exponents = new float[SIZE], positives = new float[SIZE];
+	private int i;
+
+	@Setup
+	public void setup() {
+		Random r = new Random(0);
+		for(int j = 0; j < SIZE; j++) {
+			angles[j] = (r.nextFloat()*2-1) * Mathf.TWOPI;
+			exponents[j] = (r.nextFloat()*2-1) * 20;
+			positives[j] = (1-r.nextFloat()) * 1e4f;
+		}
+	}
+
+	private int next() {
+		return i = (i+1) & MASK;
+	}
+
+	@Benchmark public float mathfSin()     { return Mathf.sin(angles[next()]); }
+	@Benchmark public float mathSin()      { return (float) Math.sin(angles[next()]); }
+	@Benchmark public float mathfCos()     { return Mathf.cos(angles[next()]); }
+	@Benchmark public float mathCos()      { return (float) Math.cos(angles[next()]); }
+	@Benchmark public float mathfExp()     { return Mathf.exp(exponents[next()]); }
+	@Benchmark public float mathfExpf()    { return Mathf.expf(exponents[next()]); }
+	@Benchmark public float mathExp()      { return (float) Math.exp(exponents[next()]); }
+	@Benchmark public float mathfLn()      { return Mathf.ln(positives[next()]); }
+	@Benchmark public float mathLog()      { return (float) Math.log(positives[next()]); }
+	@Benchmark public float mathfInvSqrt() { return Mathf.invSqrt(positives[next()]); }
+	@Benchmark public float mathInvSqrt()  { return (float) (1/Math.sqrt(positives[next()])); }
+
+}
@@ -0,0 +1,78 @@
+package fr.wonder.commons.math.bench;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.wonder.commons.math.Mathr;
+import fr.wonder.commons.math.Rng;
+
+/**
+ * Compares the seeded {@link Mathr#rand1(float)} generator with stateful
+ * generators: {@link Rng}, {@link Random}, {@link ThreadLocalRandom} and
+ * {@link Mathr#rand()}. The shared {@link Random} benchmarks run on several threads to
+ * show the cost of its atomic seed under contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomBench {
+
+	@State(Scope.Thread)
+	public static class Seed {
+		int i;
+		final Random random = new Random(0);
+		final Rng rng = new Rng(0);
+	}
+
+	@State(Scope.Benchmark)
+	public static class Shared {
+		final Random random = new Random(0);
+	}
+
+	@Benchmark
+	public float rand1(Seed seed) {
+		// a float counter would stop increasing at 2^24
+		return Mathr.rand1(seed.i = (seed.i+1) & 0xffff);
+	}
+
+	@Benchmark
+	public float random(Seed seed) {
+		return seed.random.nextFloat();
+	}
+
+	@Benchmark
+	public float rng(Seed seed) {
+		return seed.rng.nextFloat();
+	}
+
+	@Benchmark
+	public float threadLocalRandom() {
+		return ThreadLocalRandom.current().nextFloat();
+	}
+
+	@Benchmark
+	public float mathrRand() {
+		return Mathr.rand();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public float sharedRandom(Shared shared) {
+		return shared.random.nextFloat();
+	}
+
+}
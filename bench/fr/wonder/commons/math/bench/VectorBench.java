@@ -0,0 +1,91 @@
+package fr.wonder.commons.math.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.wonder.commons.math.vectors.Vec3;
+import fr.wonder.commons.math.vectors.Vec3Buffer;
+
+/**
+ * Compares the ways of running the same chain of vector operations over many
+ * vectors: {@code pos = normalize((pos + vel) * scale)}.
+ * <p>
+ * {@link #allocating} creates a new {@link Vec3} for every step, which escape
+ * analysis may or may not remove, {@link #destinations} reuses a temporary
+ * through the {@code dest} overloads, {@link #local} mutates the vectors in
+ * place and {@link #buffer} runs the same steps over a {@link Vec3Buffer}.
+ * Scores are in vectors per microsecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VectorBench {
+
+	private static final int SIZE = 1 << 12;
+	private static final float SCALE = .5f;
+
+	private final Vec3[] positions = new Vec3[SIZE], velocities = new Vec3[SIZE];
+	private Vec3Buffer positionBuffer, velocityBuffer;
+	private final Vec3 tmp = new Vec3();
+
+	@Setup
+	public void setup() {
+		Random r = new Random(0);
+		for(int i = 0; i < SIZE; i++) {
+			positions[i] = new Vec3(r.nextFloat(), r.nextFloat(), r.nextFloat()+1);
+			velocities[i] = new Vec3(r.nextFloat(), r.nextFloat(), r.nextFloat());
+		}
+		positionBuffer = new Vec3Buffer(positions);
+		velocityBuffer = new Vec3Buffer(velocities);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void allocating(Blackhole bh) {
+		for(int i = 0; i < SIZE; i++)
+			bh.consume(positions[i].add(velocities[i]).multiply(SCALE).normalized());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void destinations(Blackhole bh) {
+		for(int i = 0; i < SIZE; i++) {
+			positions[i].add(velocities[i], tmp).multiply(SCALE, tmp).normalized(tmp);
+			bh.consume(tmp.x);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public Vec3[] local() {
+		for(int i = 0; i < SIZE; i++)
+			positions[i].addLocal(velocities[i]).multiplyLocal(SCALE).normalizeLocal();
+		return positions;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public Vec3Buffer buffer() {
+		positionBuffer.add(velocityBuffer, 0, SIZE);
+		positionBuffer.multiply(SCALE, 0, SIZE);
+		positionBuffer.normalize(0, SIZE);
+		return positionBuffer;
+	}
+
+}
@@ -0,0 +1,472 @@
+package fr.wonder.commons.math;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * Measures the error of float approximations against a double precision
+ * reference, typically {@link Math}.
+ * <p>
+ * A function can either be checked on every float of a range
+ * ({@link #sweep(String, FloatFunction, DoubleUnaryOperator, float, float) sweep})
+ * or on a regular subset of its floats
+ * ({@link #sample(String, FloatFunction, DoubleUnaryOperator, float, float, long) sample}),
+ * two-argument functions are checked on a grid of such floats
+ * ({@link #grid(String, FloatBinaryFunction, DoubleBinaryOperator, float, float, float, float, long) grid}).
+ * Inputs are split across the cores of the common fork-join pool, every float
+ * of a wide range (up to 2^32 values) is checked in minutes.
+ * <p>
+ * {@link #main(String[])} runs the {@link #builtInChecks() built-in checks},
+ * which cover the approximations of this library, and prints a JSON report
+ * that can be compared between versions:
+ * <pre>
+ * java -p fr.wonder.commons.math.jar -m fr.wonder.commons.math/fr.wonder.commons.math.Accuracy [samples|sweep]
+ * </pre>
+ */
+public class Accuracy {
+
+	/** A float function to check, boxing-free */
+	@FunctionalInterface
+	public interface FloatFunction {
+
+		float apply(float x);
+
+	}
+
+	/** A two-argument float function to check, boxing-free */
+	@FunctionalInterface
+	public interface FloatBinaryFunction {
+
+		float apply(float x, float y);
+
+	}
+
+	/**
+	 * A named function paired with its reference and the range it is meant to be
+	 * used on, either a single argument function or a two-argument one checked
+	 * on a grid.
+	 */
+	public static class Check {
+
+		public final String name;
+		/** The function and reference of single argument checks, null for two-argument ones */
+		public final FloatFunction function;
+		public final DoubleUnaryOperator reference;
+		/** The function and reference of two-argument checks, null for single argument ones */
+		public final FloatBinaryFunction binaryFunction;
+		public final DoubleBinaryOperator binaryReference;
+		public final float from, to;
+		/** Range of the second argument of two-argument checks, NaN for single argument ones */
+		public final float fromY, toY;
+
+		public Check(String name, FloatFunction function, DoubleUnaryOperator reference, float from, float to) {
+			this(name, function, reference, null, null, from, to, Float.NaN, Float.NaN);
+			checkRange(from, to);
+		}
+
+		public Check(String name, FloatBinaryFunction function, DoubleBinaryOperator reference,
+				float fromX, float toX, float fromY, float toY) {
+			this(name, null, null, function, reference, fromX, toX, fromY, toY);
+			checkRange(fromX, toX);
+			checkRange(fromY, toY);
+		}
+
+		private Check(String name, FloatFunction function, DoubleUnaryOperator reference,
+				FloatBinaryFunction binaryFunction, DoubleBinaryOperator binaryReference,
+				float from, float to, float fromY, float toY) {
+			this.name = name;
+			this.function = function;
+			this.reference = reference;
+			this.binaryFunction = binaryFunction;
+			this.binaryReference = binaryReference;
+			this.from = from;
+			this.to = to;
+			this.fromY = fromY;
+			this.toY = toY;
+		}
+
+		/**
+		 * @return the result of checking every float of the range of this check,
+		 *         or a grid of {@code 2^32} pairs for two-argument checks
+		 */
+		public Result sweep() {
+			if(binaryFunction != null)
+				return grid(name, binaryFunction, binaryReference, from, to, fromY, toY, SWEEP_GRID);
+			return Accuracy.sweep(name, function, reference, from, to);
+		}
+
+		/**
+		 * @return the result of checking {@code samples} regularly spaced floats of
+		 *         the range of this check, or a grid of about {@code samples} pairs
+		 *         for two-argument checks
+		 */
+		public Result sample(long samples) {
+			if(binaryFunction != null)
+				return grid(name, binaryFunction, binaryReference, from, to, fromY, toY, samples);
+			return Accuracy.sample(name, function, reference, from, to, samples);
+		}
+
+	}
+
+	/**
+	 * The errors measured for a function.
+	 * <p>
+	 * The absolute error is {@code |f(x)-ref(x)|}, the relative error is the
+	 * absolute error divided by {@code |ref(x)|} (only measured when the
+	 * reference is a normal float) and the ULP error is the absolute error in
+	 * units in the last place of {@code (float) ref(x)}. Each maximum comes with
+	 * the input it was reached at.
+	 * <p>
+	 * Inputs for which the reference is not a finite float are not part of the
+	 * error statistics, the function must then give the same special value
+	 * (NaN, same infinity) or they are counted as mismatches. Finite references
+	 * for which the function gives NaN or an infinity are mismatches too.
+	 * <p>
+	 * For two-argument functions the inputs are pairs, their second element is
+	 * given by the {@code Y} fields, which are NaN for single argument functions.
+	 */
+	public static class Result {
+
+		public final String name;
+		public final float from, to;
+		public final float fromY, toY;
+		/** Number of inputs checked */
+		public final long count;
+		public final double maxAbsError, maxRelError, maxUlpError, meanAbsError;
+		public final float maxAbsInput, maxRelInput, maxUlpInput;
+		public final float maxAbsInputY, maxRelInputY, maxUlpInputY;
+		/** Number of inputs where special values differ, see {@link Result} */
+		public final long mismatches;
+		/** The first mismatching input, NaN if there is none */
+		public final float firstMismatch, firstMismatchY;
+
+		private Result(String name, float from, float to, Stats s) {
+			this(name, from, to, Float.NaN, Float.NaN, s);
+		}
+
+		private Result(String name, float from, float to, float fromY, float toY, Stats s) {
+			this.name = name;
+			this.from = from;
+			this.to = to;
+			this.fromY = fromY;
+			this.toY = toY;
+			this.count = s.count;
+			this.maxAbsError = s.maxAbs;
+			this.maxRelError = s.maxRel;
+			this.maxUlpError = s.maxUlp;
+			this.meanAbsError = s.measured == 0 ? 0 : s.sumAbs / s.measured;
+			this.maxAbsInput = s.maxAbsInput;
+			this.maxRelInput = s.maxRelInput;
+			this.maxUlpInput = s.maxUlpInput;
+			this.maxAbsInputY = s.maxAbsInputY;
+			this.maxRelInputY = s.maxRelInputY;
+			this.maxUlpInputY = s.maxUlpInputY;
+			this.mismatches = s.mismatches;
+			this.firstMismatch = s.firstMismatch;
+			this.firstMismatchY = s.firstMismatchY;
+		}
+
+		private boolean isBinary() {
+			return !Float.isNaN(fromY);
+		}
+
+		/** @return this result as a JSON object */
+		public String toJson() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("{\"name\":\"").append(name.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+			sb.append(",\"from\":").append(json(from));
+			sb.append(",\"to\":").append(json(to));
+			if(isBinary()) {
+				sb.append(",\"fromY\":").append(json(fromY));
+				sb.append(",\"toY\":").append(json(toY));
+			}
+			sb.append(",\"count\":").append(count);
+			sb.append(",\"maxAbsError\":").append(json(maxAbsError));
+			jsonInput(sb, "maxAbsInput", maxAbsInput, maxAbsInputY);
+			sb.append(",\"maxRelError\":").append(json(maxRelError));
+			jsonInput(sb, "maxRelInput", maxRelInput, maxRelInputY);
+			sb.append(",\"maxUlpError\":").append(json(maxUlpError));
+			jsonInput(sb, "maxUlpInput", maxUlpInput, maxUlpInputY);
+			sb.append(",\"meanAbsError\":").append(json(meanAbsError));
+			sb.append(",\"mismatches\":").append(mismatches);
+			jsonInput(sb, "firstMismatch", firstMismatch, firstMismatchY);
+			return sb.append('}').toString();
+		}
+
+		private void jsonInput(StringBuilder sb, String key, float x, float y) {
+			sb.append(",\"").append(key).append("\":").append(json(x));
+			if(isBinary())
+				sb.append(",\"").append(key).append("Y\":").append(json(y));
+		}
+
+		private String input(float x, float y) {
+			return isBinary() ? "(" + x + ", " + y + ")" : String.valueOf(x);
+		}
+
+		@Override
+		public String toString() {
+			String range = isBinary() ? "[" + from + ", " + to + "]x[" + fromY + ", " + toY + "]" : "[" + from + ", " + to + "]";
+			return String.format(Locale.ROOT, "%s on %s: abs %.2e (at %s), rel %.2e (at %s), ulp %.1f (at %s), %d mismatches",
+					name, range, maxAbsError, input(maxAbsInput, maxAbsInputY), maxRelError, input(maxRelInput, maxRelInputY),
+					maxUlpError, input(maxUlpInput, maxUlpInputY), mismatches);
+		}
+
+	}
+
+	/** Mutable accumulator of a chunk of inputs */
+	private static class Stats {
+
+		long count, measured, mismatches;
+		double maxAbs, maxRel, maxUlp, sumAbs;
+		float maxAbsInput = Float.NaN, maxRelInput = Float.NaN, maxUlpInput = Float.NaN;
+		float maxAbsInputY = Float.NaN, maxRelInputY = Float.NaN, maxUlpInputY = Float.NaN;
+		float firstMismatch = Float.NaN, firstMismatchY = Float.NaN;
+
+		/** Adds the result of a function at {@code (x, y)}, {@code y} is NaN for single argument functions */
+		void add(float x, float y, float f, double r) {
+			count++;
+			float rf = (float) r;
+			if(Double.isNaN(r) || Float.isInfinite(rf)) {
+				if(Double.isNaN(r) ? !Float.isNaN(f) : f != rf)
+					mismatch(x, y);
+				return;
+			}
+			if(Float.isNaN(f) || Float.isInfinite(f)) {
+				mismatch(x, y);
+				return;
+			}
+			double abs = Math.abs(f - r);
+			measured++;
+			sumAbs += abs;
+			if(abs > maxAbs) {
+				maxAbs = abs;
+				maxAbsInput = x;
+				maxAbsInputY = y;
+			}
+			if(Math.abs(rf) >= Float.MIN_NORMAL) {
+				double rel = abs / Math.abs(r);
+				if(rel > maxRel) {
+					maxRel = rel;
+					maxRelInput = x;
+					maxRelInputY = y;
+				}
+			}
+			double ulp = abs / Math.ulp(rf);
+			if(ulp > maxUlp) {
+				maxUlp = ulp;
+				maxUlpInput = x;
+				maxUlpInputY = y;
+			}
+		}
+
+		private void mismatch(float x, float y) {
+			if(mismatches++ == 0) {
+				firstMismatch = x;
+				firstMismatchY = y;
+			}
+		}
+
+		/** Merges the stats of a chunk that comes after this one */
+		Stats merge(Stats o) {
+			count += o.count;
+			measured += o.measured;
+			sumAbs += o.sumAbs;
+			if(o.maxAbs > maxAbs) { maxAbs = o.maxAbs; maxAbsInput = o.maxAbsInput; maxAbsInputY = o.maxAbsInputY; }
+			if(o.maxRel > maxRel) { maxRel = o.maxRel; maxRelInput = o.maxRelInput; maxRelInputY = o.maxRelInputY; }
+			if(o.maxUlp > maxUlp) { maxUlp = o.maxUlp; maxUlpInput = o.maxUlpInput; maxUlpInputY = o.maxUlpInputY; }
+			if(mismatches == 0) {
+				firstMismatch = o.firstMismatch;
+				firstMismatchY = o.firstMismatchY;
+			}
+			mismatches += o.mismatches;
+			return this;
+		}
+
+	}
+
+	/** Number of inputs checked by a single task */
+	private static final long CHUNK = 1 << 20;
+	/** Number of pairs checked by {@link Check#sweep()} for two-argument functions */
+	private static final long SWEEP_GRID = 1L << 32;
+
+	private Accuracy() {}
+
+	/** Maps floats to longs preserving their order, -0 and +0 have the same ordinal */
+	private static long ordinal(float f) {
+		int bits = Float.floatToRawIntBits(f);
+		return bits >= 0 ? bits : -(long) (bits & 0x7fffffff);
+	}
+
+	private static float fromOrdinal(long o) {
+		return o >= 0 ? Float.intBitsToFloat((int) o) : Float.intBitsToFloat((int) -o | 0x80000000);
+	}
+
+	/**
+	 * Checks a function on every float of {@code [from, to]}.
+	 * @param name the name of the function, used in reports
+	 * @param function the function to check
+	 * @param reference the exact function, computed in double precision
+	 * @throws IllegalArgumentException if the range is empty or contains NaN
+	 */
+	public static Result sweep(String name, FloatFunction function, DoubleUnaryOperator reference, float from, float to) {
+		checkRange(from, to);
+		long lo = ordinal(from), count = ordinal(to) - lo + 1;
+		long chunks = (count + CHUNK - 1) / CHUNK;
+		Stats stats = LongStream.range(0, chunks).parallel().mapToObj(c -> {
+			Stats s = new Stats();
+			long end = Math.min(count, (c+1) * CHUNK);
+			for(long i = c * CHUNK; i < end; i++) {
+				float x = fromOrdinal(lo + i);
+				s.add(x, Float.NaN, function.apply(x), reference.applyAsDouble(x));
+			}
+			return s;
+		}).reduce(Stats::merge).orElseGet(Stats::new);
+		return new Result(name, from, to, stats);
+	}
+
+	/**
+	 * Checks a function on {@code samples} floats of {@code [from, to]}, evenly
+	 * spaced in the ordering of floats: every k-th float of the range is checked
+	 * so every binade gets its share of samples, including both bounds.
+	 * @param name the name of the function, used in reports
+	 * @param function the function to check
+	 * @param reference the exact function, computed in double precision
+	 * @throws IllegalArgumentException if the range is empty or contains NaN,
+	 *         or if {@code samples} is less than 2
+	 */
+	public static Result sample(String name, FloatFunction function, DoubleUnaryOperator reference, float from, float to, long samples) {
+		checkRange(from, to);
+		if(samples < 2)
+			throw new IllegalArgumentException("At least 2 samples are required");
+		long lo = ordinal(from), span = ordinal(to) - lo;
+		if(samples > span)
+			return sweep(name, function, reference, from, to);
+		double step = (double) span / (samples-1);
+		long chunks = (samples + CHUNK - 1) / CHUNK;
+		Stats stats = LongStream.range(0, chunks).parallel().mapToObj(c -> {
+			Stats s = new Stats();
+			long end = Math.min(samples, (c+1) * CHUNK);
+			for(long i = c * CHUNK; i < end; i++) {
+				float x = fromOrdinal(lo + Math.min(span, Math.round(i*step)));
+				s.add(x, Float.NaN, function.apply(x), reference.applyAsDouble(x));
+			}
+			return s;
+		}).reduce(Stats::merge).orElseGet(Stats::new);
+		return new Result(name, from, to, stats);
+	}
+
+	/**
+	 * Checks a two-argument function on a grid of about {@code samples} pairs
+	 * of {@code [fromX, toX]x[fromY, toY]}. Both axes have the same number of
+	 * floats, evenly spaced in the ordering of floats like with
+	 * {@link #sample(String, FloatFunction, DoubleUnaryOperator, float, float, long) sample},
+	 * an axis with fewer floats than that uses all of them.
+	 * @param name the name of the function, used in reports
+	 * @param function the function to check
+	 * @param reference the exact function, computed in double precision
+	 * @throws IllegalArgumentException if a range is empty or contains NaN,
+	 *         or if {@code samples} is less than 4
+	 */
+	public static Result grid(String name, FloatBinaryFunction function, DoubleBinaryOperator reference,
+			float fromX, float toX, float fromY, float toY, long samples) {
+		checkRange(fromX, toX);
+		checkRange(fromY, toY);
+		if(samples < 4)
+			throw new IllegalArgumentException("At least 4 samples are required");
+		long side = (long) Math.sqrt((double) samples);
+		long loX = ordinal(fromX), spanX = ordinal(toX) - loX, countX = Math.min(side, spanX+1);
+		long loY = ordinal(fromY), spanY = ordinal(toY) - loY, countY = Math.min(side, spanY+1);
+		double stepX = countX == 1 ? 0 : (double) spanX / (countX-1);
+		double stepY = countY == 1 ? 0 : (double) spanY / (countY-1);
+		long count = countX * countY;
+		long chunks = (count + CHUNK - 1) / CHUNK;
+		Stats stats = LongStream.range(0, chunks).parallel().mapToObj(c -> {
+			Stats s = new Stats();
+			long end = Math.min(count, (c+1) * CHUNK);
+			for(long i = c * CHUNK; i < end; i++) {
+				float x = fromOrdinal(loX + Math.min(spanX, Math.round(i / countY * stepX)));
+				float y = fromOrdinal(loY + Math.min(spanY, Math.round(i % countY * stepY)));
+				s.add(x, y, function.apply(x, y), reference.applyAsDouble(x, y));
+			}
+			return s;
+		}).reduce(Stats::merge).orElseGet(Stats::new);
+		return new Result(name, fromX, toX, fromY, toY, stats);
+	}
+
+	private static void checkRange(float from, float to) {
+		if(!(from <= to))
+			throw new IllegalArgumentException("Invalid range: " + from + ", " + to);
+	}
+
+	/**
+	 * Returns checks for the approximations of this library on the ranges they
+	 * are meant to be used on: the {@link Mathf} functions, the {@link SinTable}
+	 * variants and every {@link Approx} tier. Powers are checked with bases and
+	 * exponents whose results are normal floats.
+	 */
+	public static List<Check> builtInChecks() {
+		float angle = 64*Mathf.PI, maxExp = 88, minExp = -87;
+		float minBase = 1e-4f, maxBase = 1e4f, maxPow = 8;
+		DoubleUnaryOperator log2 = x -> Math.log(x) / Math.log(2);
+		List<Check> checks = new ArrayList<>();
+		checks.add(new Check("Mathf.sin", Mathf::sin, Math::sin, -angle, angle));
+		checks.add(new Check("Mathf.cos", Mathf::cos, Math::cos, -angle, angle));
+		checks.add(new Check("Mathf.exp", Mathf::exp, Math::exp, minExp, maxExp));
+		checks.add(new Check("Mathf.expf", x -> Mathf.expf(x), Math::exp, minExp, maxExp));
+		checks.add(new Check("Mathf.ln", Mathf::ln, Math::log, Float.MIN_NORMAL, Float.MAX_VALUE));
+		checks.add(new Check("Mathf.invSqrt", Mathf::invSqrt, x -> 1/Math.sqrt(x), Float.MIN_NORMAL, Float.MAX_VALUE));
+		checks.add(new Check("Mathf.atan", Mathf::atan, Math::atan, -1e6f, 1e6f));
+		checks.add(new Check("Mathf.atan2", Mathf::atan2, (x, y) -> Math.atan2(y, x), -1e6f, 1e6f, -1e6f, 1e6f));
+		checks.add(new Check("Mathf.asin", Mathf::asin, Math::asin, -1, 1));
+		checks.add(new Check("Mathf.acos", Mathf::acos, Math::acos, -1, 1));
+		checks.add(new Check("Mathf.pow", Mathf::pow, Math::pow, minBase, maxBase, -maxPow, maxPow));
+		for(int size : new int[] { 1024, 4096, 65536 }) {
+			for(boolean interpolate : new boolean[] { false, true }) {
+				SinTable table = new SinTable(size, interpolate);
+				checks.add(new Check(table + ".sin", table::sin, Math::sin, -angle, angle));
+			}
+		}
+		for(Approx a : Approx.values()) {
+			checks.add(new Check("Approx." + a + ".sin", a::sin, Math::sin, -angle, angle));
+			checks.add(new Check("Approx." + a + ".cos", a::cos, Math::cos, -angle, angle));
+			checks.add(new Check("Approx." + a + ".exp", a::exp, Math::exp, minExp, maxExp));
+			checks.add(new Check("Approx." + a + ".log2", a::log2, log2, Float.MIN_NORMAL, Float.MAX_VALUE));
+			checks.add(new Check("Approx." + a + ".ln", a::ln, Math::log, Float.MIN_NORMAL, Float.MAX_VALUE));
+			checks.add(new Check("Approx." + a + ".pow", a::pow, Math::pow, minBase, maxBase, -maxPow, maxPow));
+		}
+		return checks;
+	}
+
+	/** @return the results as a JSON array, one object per line */
+	public static String toJson(List<Result> results) {
+		StringBuilder sb = new StringBuilder("[\n");
+		for(int i = 0; i < results.size(); i++)
+			sb.append("  ").append(results.get(i).toJson()).append(i == results.size()-1 ? "\n" : ",\n");
+		return sb.append(']').toString();
+	}
+
+	private static String json(double d) {
+		return Double.isFinite(d) ? String.valueOf(d) : "null";
+	}
+
+	/**
+	 * Runs the built-in checks and prints a JSON report to the standard output.
+	 * <p>
+	 * With no argument each check uses 10^7 samples, with a number it uses that
+	 * many samples and with {@code sweep} every float of the range of each check
+	 * is tested, two-argument checks then use a grid of 2^32 pairs.
+	 */
+	public static void main(String[] args) {
+		boolean sweep = args.length > 0 && args[0].equals("sweep");
+		long samples = args.length > 0 && !sweep ? Long.parseLong(args[0]) : 10_000_000;
+		List<Result> results = new ArrayList<>();
+		for(Check check : builtInChecks())
+			results.add(sweep ? check.sweep() : check.sample(samples));
+		System.out.println(toJson(results));
+	}
+
+}
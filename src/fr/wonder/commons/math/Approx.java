@@ -0,0 +1,238 @@
+package fr.wonder.commons.math;
+
+/**
+ * Polynomial approximations of transcendental functions, in three precision
+ * tiers.
+ * <p>
+ * Every tier reduces its argument the same way and evaluates a minimax
+ * polynomial over the reduced range, higher tiers use longer polynomials. The
+ * maximum errors measured against {@link Math} are:
+ * <table>
+ * <caption>maximum error by tier</caption>
+ * <tr><th></th><th>FAST</th><th>BALANCED</th><th>ACCURATE</th></tr>
+ * <tr><td>sin, cos (absolute, |x| &lt; 1e5)</td><td>2.0e-3</td><td>1.0e-5</td><td>1.4e-7</td></tr>
+ * <tr><td>exp, exp2 (relative)</td><td>7.5e-5</td><td>2.7e-6</td><td>1.2e-7</td></tr>
+ * <tr><td>ln, log2 (absolute below 1, relative above)</td><td>1.2e-5</td><td>1.4e-7</td><td>1.0e-7</td></tr>
+ * </table>
+ * Sines and cosines of angles beyond {@code 1e5} are computed by {@link Math},
+ * the reduction in float would lose the quadrant of the angle.
+ * <p>
+ * {@code pow(x, y)} is computed as {@code exp2(y*log2(x))}, its relative error
+ * is about the error of {@code exp2} plus {@code |y*ln(x)|} times the error of
+ * {@code log2}.
+ * <p>
+ * Tiers are meant to be chosen per call site and kept in a static final
+ * field, the JIT then knows the exact tier and inlines its polynomials as if
+ * they were called directly:
+ * <pre>
+ * private static final Approx MATH = Approx.FAST;
+ * ...
+ * float falloff = MATH.pow(distance, -1.5f);
+ * </pre>
+ * <p>
+ * Exponentials flush results below {@code 2^-126} to zero and logarithms of
+ * denormal numbers are computed like those of normal numbers. Special values
+ * (NaN, infinities, zeros) give the same results as {@link Math}.
+ */
+public enum Approx {
+
+	/** Shortest polynomials, about 3 decimal digits for sin/cos and 4 for exp/ln */
+	FAST {
+		@Override
+		float sinPoly(float z) { return .99961228f - .16160110f*z; }
+		@Override
+		float cosPoly(float z) { return .99807850f - .47482060f*z; }
+		@Override
+		float exp2Poly(float f) { return .99992807f + f*(.69326099f + f*(.24261112f + f*.055171669f)); }
+		@Override
+		float log2Poly(float z) { return 2.8853259f + z*.97912806f; }
+	},
+
+	/** About 5 decimal digits for sin/cos and exp, 7 for ln */
+	BALANCED {
+		@Override
+		float sinPoly(float z) { return .99999857f + z*(-.16662480f + z*.0081516356f); }
+		@Override
+		float cosPoly(float z) { return .99999003f + z*(-.49970814f + z*.040398536f); }
+		@Override
+		float exp2Poly(float f) { return .99999926f + f*(.69312181f + f*(.24024745f + f*(.055917860f + f*.0095701019f))); }
+		@Override
+		float log2Poly(float z) { return 2.8853904f + z*(.96158833f + z*.59578072f); }
+	},
+
+	/** Close to float precision */
+	ACCURATE {
+		@Override
+		float sinPoly(float z) { return 1 + z*(-.16666651f + z*(.0083320369f - z*.00019504022f)); }
+		@Override
+		float cosPoly(float z) { return .99999997f + z*(-.49999857f + z*(.041655027f - z*.0013585909f)); }
+		@Override
+		float exp2Poly(float f) {
+			return 1 + f*(.69314721f + f*(.24022647f + f*(.055503288f + f*(.0096184890f + f*(.0013399931f + f*.00015345812f)))));
+		}
+		@Override
+		float log2Poly(float z) { return 2.8853901f + z*(.96179885f + z*(.57671438f + z*.43173588f)); }
+	};
+
+	private static final double HALF_PI = Math.PI/2;
+	/** Largest angle reduced by {@link #quadrant(float)}, larger ones go through {@link Math} */
+	private static final float MAX_ANGLE = 1e5f;
+	private static final float TWO_OVER_PI = (float) (2/Math.PI);
+	private static final double LOG2_E = 1/Math.log(2);
+	private static final float LN_2 = (float) Math.log(2);
+	private static final float SQRT_2 = (float) Math.sqrt(2);
+
+	/** {@code sin(r)/r} as a polynomial of {@code z=r^2}, for {@code |r| <= pi/4} */
+	abstract float sinPoly(float z);
+	/** {@code cos(r)} as a polynomial of {@code z=r^2}, for {@code |r| <= pi/4} */
+	abstract float cosPoly(float z);
+	/** {@code 2^f} for {@code |f| <= 1/2} */
+	abstract float exp2Poly(float f);
+	/** {@code log2((1+s)/(1-s))/s} as a polynomial of {@code z=s^2}, for {@code |s| <= 3-2*sqrt(2)} */
+	abstract float log2Poly(float z);
+
+	/**
+	 * Rounds {@code x*2/pi} to the nearest integer, the quadrant of {@code x}.
+	 * Half-way values are rounded away from zero.
+	 */
+	private static int quadrant(float x) {
+		float k = x*TWO_OVER_PI;
+		return (int) (k + (k < 0 ? -.5f : .5f));
+	}
+
+	/**
+	 * Returns the sine of an angle.
+	 * @param x the angle in radians
+	 * @return the sine of {@code x}
+	 */
+	public float sin(float x) {
+		if(!(Math.abs(x) <= MAX_ANGLE))
+			return (float) Math.sin(x);
+		int k = quadrant(x);
+		// reduce in double so that k*pi/2 does not lose the low bits of x
+		float r = (float) (x - k*HALF_PI), z = r*r;
+		switch(k & 3) {
+		case 0:  return r*sinPoly(z);
+		case 1:  return cosPoly(z);
+		case 2:  return -r*sinPoly(z);
+		default: return -cosPoly(z);
+		}
+	}
+
+	/**
+	 * Returns the cosine of an angle.
+	 * @param x the angle in radians
+	 * @return the cosine of {@code x}
+	 */
+	public float cos(float x) {
+		if(!(Math.abs(x) <= MAX_ANGLE))
+			return (float) Math.cos(x);
+		int k = quadrant(x);
+		float r = (float) (x - k*HALF_PI), z = r*r;
+		switch(k & 3) {
+		case 0:  return cosPoly(z);
+		case 1:  return -r*sinPoly(z);
+		case 2:  return -cosPoly(z);
+		default: return r*sinPoly(z);
+		}
+	}
+
+	/**
+	 * Returns 2 raised to a power.
+	 * @param x the exponent
+	 * @return {@code 2^x}
+	 */
+	public float exp2(float x) {
+		return exp2d(x);
+	}
+	
+	/**
+	 * Computes {@code 2^x} from a double exponent, exponents computed as products
+	 * are kept in double so that their rounding error is not amplified by the
+	 * exponential.
+	 */
+	private float exp2d(double x) {
+		if(x >= 127.5)
+			return x >= 128 ? Float.POSITIVE_INFINITY : 2*exp2d(x-1);
+		if(x < -126)
+			return 0;
+		// x = n+f with n an integer and |f| <= 1/2, 2^n is built from its bits
+		int n = (int) (x + (x < 0 ? -.5 : .5));
+		float f = (float) (x-n);
+		return exp2Poly(f) * Float.intBitsToFloat((n+127) << 23);
+	}
+
+	/**
+	 * Returns the exponential of a number.
+	 * @param x the exponent
+	 * @return {@code e^x}
+	 */
+	public float exp(float x) {
+		return exp2d(x*LOG2_E);
+	}
+
+	/**
+	 * Returns the base 2 logarithm of a number.
+	 * @param x the number
+	 * @return {@code log2(x)}, NaN if {@code x} is negative
+	 */
+	public float log2(float x) {
+		if(!(x > 0 && x < Float.POSITIVE_INFINITY))
+			return x == 0 ? Float.NEGATIVE_INFINITY : x > 0 ? x : Float.NaN;
+		// x = m*2^e with m in [sqrt(2)/2, sqrt(2)[
+		int bits = Float.floatToRawIntBits(x);
+		int e = -127;
+		if(bits < 0x00800000) {
+			// denormal number, scale it to a normal one
+			bits = Float.floatToRawIntBits(x * 0x1p23f);
+			e -= 23;
+		}
+		e += bits >>> 23;
+		float m = Float.intBitsToFloat((bits & 0x007fffff) | 0x3f800000);
+		if(m > SQRT_2) {
+			m *= .5f;
+			e++;
+		}
+		float s = (m-1)/(m+1);
+		return e + s*log2Poly(s*s);
+	}
+
+	/**
+	 * Returns the natural logarithm of a number.
+	 * @param x the number
+	 * @return {@code ln(x)}, NaN if {@code x} is negative
+	 */
+	public float ln(float x) {
+		return log2(x)*LN_2;
+	}
+
+	/**
+	 * Returns a base raised to a power.
+	 * <p>
+	 * Finite negative bases are only supported with integer exponents. Odd
+	 * integer exponents keep the sign of negative bases, {@code -0} and
+	 * {@code -Infinity} included, as {@link Math#pow(double, double)} does.
+	 * @param base the base
+	 * @param exp the exponent
+	 * @return {@code base^exp}
+	 */
+	public float pow(float base, float exp) {
+		if(exp == 0)
+			return 1;
+		if(base > 0)
+			return exp2d((double) exp*log2(base));
+		if(exp != exp)
+			return Float.NaN;
+		float p;
+		if(base == 0)
+			p = exp > 0 ? 0 : Float.POSITIVE_INFINITY;
+		else if(exp == Math.rint(exp) || base == Float.NEGATIVE_INFINITY)
+			p = exp2d((double) exp*log2(-base));
+		else
+			return Float.NaN;
+		// floats above 2^24 are all even integers
+		boolean odd = Math.abs(exp) < 0x1p24f && (int) exp == exp && ((int) exp & 1) != 0;
+		return odd && Float.floatToRawIntBits(base) < 0 ? -p : p;
+	}
+
+}
@@ -0,0 +1,38 @@
+package fr.wonder.commons.math;
+
+/**
+ * Bulk float-array kernels backing {@link Mathv} and the array versions of
+ * the {@link Mathf} transcendental functions.
+ * <p>
+ * Implementations do not check their bounds, this is done once by
+ * {@link Mathv} before delegating.
+ */
+interface FloatKernels {
+	
+	float sum(float[] src, int off, int len);
+	
+	float min(float[] src, int off, int len);
+	
+	float max(float[] src, int off, int len);
+	
+	void clamp(float[] src, int srcOff, float[] dst, int dstOff, int len, float min, float max);
+	
+	void lerp(float[] a, int aOff, float[] b, int bOff, float[] dst, int dstOff, int len, float t);
+	
+	void abs(float[] src, int srcOff, float[] dst, int dstOff, int len);
+	
+	void mod(float[] src, int srcOff, float[] dst, int dstOff, int len, float m);
+	
+	void smoothstep(float[] src, int srcOff, float[] dst, int dstOff, int len, float edge0, float edge1);
+	
+	void sigmoid(float[] src, int srcOff, float[] dst, int dstOff, int len);
+	
+	void exp(float[] src, int srcOff, float[] dst, int dstOff, int len);
+	
+	void ln(float[] src, int srcOff, float[] dst, int dstOff, int len);
+	
+	void sqrt(float[] src, int srcOff, float[] dst, int dstOff, int len);
+	
+	void invSqrt(float[] src, int srcOff, float[] dst, int dstOff, int len);
+	
+}
@@ -1,5 +1,10 @@
 package fr.wonder.commons.math;
 
+import java.util.Objects;
+
+import fr.wonder.commons.math.vectors.Vec2i;
+import fr.wonder.commons.math.vectors.Vec4i;
+
 public class Mathb {
 
 	/**
@@ -46,5 +51,500 @@ public class Mathb {
 			x >>= 1;
 		return p;
 	}
+	
+	/* ----------------------------- Morton codes ----------------------------- */
+	
+	/**
+	 * Spreads the 16 lower bits of {@code x} so that there is one 0 bit between
+	 * each of them ({@code 0b1011 -> 0b1000101}).
+	 */
+	private static int spread2(int x) {
+		x &= 0x0000ffff;
+		x = (x | (x << 8)) & 0x00ff00ff;
+		x = (x | (x << 4)) & 0x0f0f0f0f;
+		x = (x | (x << 2)) & 0x33333333;
+		x = (x | (x << 1)) & 0x55555555;
+		return x;
+	}
+	
+	/** Inverse of {@link #spread2(int)} */
+	private static int compact2(int x) {
+		x &= 0x55555555;
+		x = (x | (x >>> 1)) & 0x33333333;
+		x = (x | (x >>> 2)) & 0x0f0f0f0f;
+		x = (x | (x >>> 4)) & 0x00ff00ff;
+		x = (x | (x >>> 8)) & 0x0000ffff;
+		return x;
+	}
+	
+	/** Spreads the 32 bits of {@code x} so that there is one 0 bit between each of them */
+	private static long spread2(long x) {
+		x &= 0xffffffffL;
+		x = (x | (x << 16)) & 0x0000ffff0000ffffL;
+		x = (x | (x << 8))  & 0x00ff00ff00ff00ffL;
+		x = (x | (x << 4))  & 0x0f0f0f0f0f0f0f0fL;
+		x = (x | (x << 2))  & 0x3333333333333333L;
+		x = (x | (x << 1))  & 0x5555555555555555L;
+		return x;
+	}
+	
+	/** Inverse of {@link #spread2(long)} */
+	private static int compact2(long x) {
+		x &= 0x5555555555555555L;
+		x = (x | (x >>> 1))  & 0x3333333333333333L;
+		x = (x | (x >>> 2))  & 0x0f0f0f0f0f0f0f0fL;
+		x = (x | (x >>> 4))  & 0x00ff00ff00ff00ffL;
+		x = (x | (x >>> 8))  & 0x0000ffff0000ffffL;
+		x = (x | (x >>> 16)) & 0x00000000ffffffffL;
+		return (int) x;
+	}
+	
+	/**
+	 * Spreads the 10 lower bits of {@code x} so that there are two 0 bits between
+	 * each of them.
+	 */
+	private static int spread3(int x) {
+		x &= 0x000003ff;
+		x = (x | (x << 16)) & 0x030000ff;
+		x = (x | (x << 8))  & 0x0300f00f;
+		x = (x | (x << 4))  & 0x030c30c3;
+		x = (x | (x << 2))  & 0x09249249;
+		return x;
+	}
+	
+	/** Inverse of {@link #spread3(int)} */
+	private static int compact3(int x) {
+		x &= 0x09249249;
+		x = (x | (x >>> 2))  & 0x030c30c3;
+		x = (x | (x >>> 4))  & 0x0300f00f;
+		x = (x | (x >>> 8))  & 0x030000ff;
+		x = (x | (x >>> 16)) & 0x000003ff;
+		return x;
+	}
+	
+	/**
+	 * Spreads the 21 lower bits of {@code x} so that there are two 0 bits between
+	 * each of them.
+	 */
+	private static long spread3(long x) {
+		x &= 0x1fffffL;
+		x = (x | (x << 32)) & 0x001f00000000ffffL;
+		x = (x | (x << 16)) & 0x001f0000ff0000ffL;
+		x = (x | (x << 8))  & 0x100f00f00f00f00fL;
+		x = (x | (x << 4))  & 0x10c30c30c30c30c3L;
+		x = (x | (x << 2))  & 0x1249249249249249L;
+		return x;
+	}
+	
+	/** Inverse of {@link #spread3(long)} */
+	private static int compact3(long x) {
+		x &= 0x1249249249249249L;
+		x = (x | (x >>> 2))  & 0x10c30c30c30c30c3L;
+		x = (x | (x >>> 4))  & 0x100f00f00f00f00fL;
+		x = (x | (x >>> 8))  & 0x001f0000ff0000ffL;
+		x = (x | (x >>> 16)) & 0x001f00000000ffffL;
+		x = (x | (x >>> 32)) & 0x00000000001fffffL;
+		return (int) x;
+	}
+	
+	/**
+	 * Returns the 2D Morton code (Z-order index) of a point by interleaving the
+	 * bits of its coordinates, the bits of {@code x} being at even positions.
+	 * <p>
+	 * Points that are close in space tend to have close codes so sorting data by
+	 * Morton code improves its memory locality in spatial loops.
+	 * <p>
+	 * Only the 16 lower bits of each coordinate are used, coordinates must be
+	 * offset beforehand if they can be negative. See {@link #morton2Long(int, int)}
+	 * for full 32 bits coordinates.
+	 * 
+	 * @return the 32 bits Morton code of {@code (x,y)}
+	 */
+	public static int morton2(int x, int y) {
+		return spread2(x) | (spread2(y) << 1);
+	}
+	
+	/** @see #morton2(int, int) */
+	public static int morton2(Vec2i v) {
+		return morton2(v.x, v.y);
+	}
+	
+	/**
+	 * Returns the 2D Morton code of a point using the 32 bits of each coordinate.
+	 * <p>
+	 * Coordinates are interpreted as unsigned integers, they must be offset
+	 * beforehand if they can be negative.
+	 * 
+	 * @return the 64 bits Morton code of {@code (x,y)}
+	 * @see #morton2(int, int)
+	 */
+	public static long morton2Long(int x, int y) {
+		return spread2((long) x) | (spread2((long) y) << 1);
+	}
+	
+	/** @see #morton2Long(int, int) */
+	public static long morton2Long(Vec2i v) {
+		return morton2Long(v.x, v.y);
+	}
+	
+	/**
+	 * Decodes a Morton code produced by {@link #morton2(int, int)}.
+	 * 
+	 * @param dest the vector to write the coordinates to
+	 * @return {@code dest}
+	 */
+	public static Vec2i decodeMorton2(int code, Vec2i dest) {
+		return dest.set(compact2(code), compact2(code >>> 1));
+	}
+	
+	/**
+	 * Decodes a Morton code produced by {@link #morton2Long(int, int)}.
+	 * 
+	 * @param dest the vector to write the coordinates to
+	 * @return {@code dest}
+	 */
+	public static Vec2i decodeMorton2(long code, Vec2i dest) {
+		return dest.set(compact2(code), compact2(code >>> 1));
+	}
+	
+	/**
+	 * Returns the 3D Morton code (Z-order index) of a point by interleaving the
+	 * bits of its coordinates, in order x, y, z from the lowest bit.
+	 * <p>
+	 * Only the 10 lower bits of each coordinate are used, coordinates must be
+	 * offset beforehand if they can be negative. See
+	 * {@link #morton3Long(int, int, int)} for 21 bits coordinates.
+	 * 
+	 * @return the 30 bits Morton code of {@code (x,y,z)}
+	 * @see #morton2(int, int)
+	 */
+	public static int morton3(int x, int y, int z) {
+		return spread3(x) | (spread3(y) << 1) | (spread3(z) << 2);
+	}
+	
+	/**
+	 * Returns the 3D Morton code of the {@code x}, {@code y} and {@code z}
+	 * components of a vector, {@code w} is ignored.
+	 * 
+	 * @see #morton3(int, int, int)
+	 */
+	public static int morton3(Vec4i v) {
+		return morton3(v.x, v.y, v.z);
+	}
+	
+	/**
+	 * Returns the 3D Morton code of a point using the 21 lower bits of each
+	 * coordinate.
+	 * 
+	 * @return the 63 bits Morton code of {@code (x,y,z)}
+	 * @see #morton3(int, int, int)
+	 */
+	public static long morton3Long(int x, int y, int z) {
+		return spread3((long) x) | (spread3((long) y) << 1) | (spread3((long) z) << 2);
+	}
+	
+	/** @see #morton3Long(int, int, int) */
+	public static long morton3Long(Vec4i v) {
+		return morton3Long(v.x, v.y, v.z);
+	}
+	
+	/**
+	 * Decodes a Morton code produced by {@link #morton3(int, int, int)}, the
+	 * {@code w} component of {@code dest} is set to 0.
+	 * 
+	 * @param dest the vector to write the coordinates to
+	 * @return {@code dest}
+	 */
+	public static Vec4i decodeMorton3(int code, Vec4i dest) {
+		return dest.set(compact3(code), compact3(code >>> 1), compact3(code >>> 2), 0);
+	}
+	
+	/**
+	 * Decodes a Morton code produced by {@link #morton3Long(int, int, int)}, the
+	 * {@code w} component of {@code dest} is set to 0.
+	 * 
+	 * @param dest the vector to write the coordinates to
+	 * @return {@code dest}
+	 */
+	public static Vec4i decodeMorton3(long code, Vec4i dest) {
+		return dest.set(compact3(code), compact3(code >>> 1), compact3(code >>> 2), 0);
+	}
+	
+	/**
+	 * Computes the Morton codes of the points {@code (x[i],y[i])} for
+	 * {@code i} in {@code [srcOff, srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #morton2(int, int)
+	 */
+	public static void morton2(int[] x, int[] y, int srcOff, int[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, x.length);
+		Objects.checkFromIndexSize(srcOff, len, y.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = morton2(x[srcOff+i], y[srcOff+i]);
+	}
+	
+	/**
+	 * Computes the 64 bits Morton codes of the points {@code (x[i],y[i])} for
+	 * {@code i} in {@code [srcOff, srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #morton2Long(int, int)
+	 */
+	public static void morton2Long(int[] x, int[] y, int srcOff, long[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, x.length);
+		Objects.checkFromIndexSize(srcOff, len, y.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = morton2Long(x[srcOff+i], y[srcOff+i]);
+	}
+	
+	/**
+	 * Computes the Morton codes of the points {@code (x[i],y[i],z[i])} for
+	 * {@code i} in {@code [srcOff, srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #morton3(int, int, int)
+	 */
+	public static void morton3(int[] x, int[] y, int[] z, int srcOff, int[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, x.length);
+		Objects.checkFromIndexSize(srcOff, len, y.length);
+		Objects.checkFromIndexSize(srcOff, len, z.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = morton3(x[srcOff+i], y[srcOff+i], z[srcOff+i]);
+	}
+	
+	/**
+	 * Computes the 64 bits Morton codes of the points {@code (x[i],y[i],z[i])}
+	 * for {@code i} in {@code [srcOff, srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #morton3Long(int, int, int)
+	 */
+	public static void morton3Long(int[] x, int[] y, int[] z, int srcOff, long[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, x.length);
+		Objects.checkFromIndexSize(srcOff, len, y.length);
+		Objects.checkFromIndexSize(srcOff, len, z.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = morton3Long(x[srcOff+i], y[srcOff+i], z[srcOff+i]);
+	}
+	
+	/* ----------------------------- Hilbert curve ---------------------------- */
+	
+	/**
+	 * Returns the index of a point along the Hilbert curve filling a square of
+	 * side {@code 2^order}.
+	 * <p>
+	 * Like Morton codes, Hilbert indices map close points to close indices but
+	 * without the long jumps of the Z-order curve, at a slightly higher cost
+	 * to compute.
+	 * <p>
+	 * Only the {@code order} lower bits of each coordinate are used.
+	 * 
+	 * @param order the number of bits per coordinate, in range {@code [1, 31]}
+	 * @return the index of {@code (x,y)} along the curve, in range {@code [0, 4^order[}
+	 * @throws IllegalArgumentException if {@code order} is not in range
+	 */
+	public static long hilbert2(int x, int y, int order) {
+		checkHilbertOrder(order);
+		int mask = (1 << order) - 1;
+		x &= mask;
+		y &= mask;
+		long d = 0;
+		for(int s = 1 << (order-1); s > 0; s >>>= 1) {
+			int rx = (x & s) != 0 ? 1 : 0;
+			int ry = (y & s) != 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			// rotate the quadrant so that the sub-curve has the right orientation
+			if(ry == 0) {
+				if(rx == 1) {
+					x = mask - x;
+					y = mask - y;
+				}
+				int t = x; x = y; y = t;
+			}
+		}
+		return d;
+	}
+	
+	/** @see #hilbert2(int, int, int) */
+	public static long hilbert2(Vec2i v, int order) {
+		return hilbert2(v.x, v.y, order);
+	}
+	
+	/**
+	 * Decodes an index produced by {@link #hilbert2(int, int, int)}.
+	 * 
+	 * @param order the number of bits per coordinate, in range {@code [1, 31]}
+	 * @param dest the vector to write the coordinates to
+	 * @return {@code dest}
+	 * @throws IllegalArgumentException if {@code order} is not in range
+	 */
+	public static Vec2i decodeHilbert2(long d, int order, Vec2i dest) {
+		checkHilbertOrder(order);
+		int x = 0, y = 0;
+		for(int i = 0; i < order; i++) {
+			int s = 1 << i;
+			int rx = (int) (d >>> 1) & 1;
+			int ry = (int) (d ^ rx) & 1;
+			if(ry == 0) {
+				if(rx == 1) {
+					x = s-1 - x;
+					y = s-1 - y;
+				}
+				int t = x; x = y; y = t;
+			}
+			x += s * rx;
+			y += s * ry;
+			d >>>= 2;
+		}
+		return dest.set(x, y);
+	}
+	
+	/**
+	 * Computes the Hilbert indices of the points {@code (x[i],y[i])} for
+	 * {@code i} in {@code [srcOff, srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #hilbert2(int, int, int)
+	 */
+	public static void hilbert2(int[] x, int[] y, int srcOff, long[] dst, int dstOff, int len, int order) {
+		Objects.checkFromIndexSize(srcOff, len, x.length);
+		Objects.checkFromIndexSize(srcOff, len, y.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		checkHilbertOrder(order);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = hilbert2(x[srcOff+i], y[srcOff+i], order);
+	}
+	
+	private static void checkHilbertOrder(int order) {
+		if(order < 1 || order > 31)
+			throw new IllegalArgumentException("Invalid curve order: " + order);
+	}
+	
+	/* --------------------------- Half precision ---------------------------- */
+	
+	/** The greatest finite half-precision value */
+	public static final float HALF_MAX = 65504f;
+	
+	/**
+	 * Converts a float to the nearest IEEE 754 half-precision float (binary16),
+	 * rounding ties to even. Half floats have 11 significant bits (about 3
+	 * decimal digits) and an exponent range of {@code [-14, 15]}: values beyond
+	 * {@link #HALF_MAX} become infinite and values below {@code 2^-24} become
+	 * zero. NaNs stay NaNs.
+	 * 
+	 * @param f the value to convert
+	 * @return the bits of the half-precision value
+	 */
+	public static short toHalf(float f) {
+		int bits = Float.floatToRawIntBits(f);
+		int sign = (bits >>> 16) & 0x8000, abs = bits & 0x7fffffff;
+		if(abs >= 0x7f800000) // infinity, or NaN with its quiet bit set
+			return (short) (sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 | (abs >>> 13) & 0x3ff : 0));
+		if(abs >= 0x477ff000) // 65520, halfway between HALF_MAX and 2^16, rounds to infinity
+			return (short) (sign | 0x7c00);
+		if(abs < 0x38800000) {
+			// subnormal half, adding 0.5 makes the FPU round abs to a multiple of 2^-24
+			return (short) (sign | (Float.floatToRawIntBits(Float.intBitsToFloat(abs) + .5f) - 0x3f000000));
+		}
+		// rebias the exponent from 127 to 15 and round the mantissa to 10 bits, ties to even
+		return (short) (sign | (abs - (112 << 23) + 0xfff + ((abs >>> 13) & 1)) >>> 13);
+	}
+	
+	/**
+	 * Converts an IEEE 754 half-precision float (binary16) to a float, this is
+	 * exact.
+	 * 
+	 * @param h the bits of the half-precision value
+	 * @return the float value
+	 */
+	public static float fromHalf(short h) {
+		int sign = (h & 0x8000) << 16, abs = h & 0x7fff;
+		if(abs >= 0x7c00)
+			return Float.intBitsToFloat(sign | 0x7f800000 | (abs & 0x3ff) << 13);
+		// shifting the bits in place and scaling by 2^(127-15) also handles subnormals
+		return Float.intBitsToFloat(sign | Float.floatToRawIntBits(Float.intBitsToFloat(abs << 13) * 0x1p112f));
+	}
+	
+	/**
+	 * Converts a float to the nearest bfloat16, rounding ties to even. Bfloat16
+	 * values are the 16 upper bits of floats: they have the range of floats but
+	 * only 8 significant bits (2 to 3 decimal digits). NaNs stay NaNs.
+	 * 
+	 * @param f the value to convert
+	 * @return the bits of the bfloat16 value
+	 */
+	public static short toBfloat16(float f) {
+		int bits = Float.floatToRawIntBits(f);
+		if((bits & 0x7fffffff) > 0x7f800000)
+			return (short) ((bits >>> 16) | 0x40);
+		return (short) ((bits + 0x7fff + ((bits >>> 16) & 1)) >>> 16);
+	}
+	
+	/**
+	 * Converts a bfloat16 to a float, this is exact.
+	 * 
+	 * @param b the bits of the bfloat16 value
+	 * @return the float value
+	 */
+	public static float fromBfloat16(short b) {
+		return Float.intBitsToFloat(b << 16);
+	}
+	
+	/**
+	 * Converts {@code src[srcOff..srcOff+len[} to half-precision floats into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #toHalf(float)
+	 */
+	public static void toHalf(float[] src, int srcOff, short[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = toHalf(src[srcOff+i]);
+	}
+	
+	/**
+	 * Converts the half-precision floats {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #fromHalf(short)
+	 */
+	public static void fromHalf(short[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = fromHalf(src[srcOff+i]);
+	}
+	
+	/**
+	 * Converts {@code src[srcOff..srcOff+len[} to bfloat16s into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #toBfloat16(float)
+	 */
+	public static void toBfloat16(float[] src, int srcOff, short[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = toBfloat16(src[srcOff+i]);
+	}
+	
+	/**
+	 * Converts the bfloat16s {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * 
+	 * @see #fromBfloat16(short)
+	 */
+	public static void fromBfloat16(short[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Float.intBitsToFloat(src[srcOff+i] << 16);
+	}
 
 }
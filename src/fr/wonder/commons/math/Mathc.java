@@ -0,0 +1,292 @@
+package fr.wonder.commons.math;
+
+import java.math.BigInteger;
+
+/**
+ * Combinatorics: factorials, binomial coefficients and their logarithms.
+ * <p>
+ * Exact values are returned as longs when they fit, from constant-time table
+ * lookups where possible, and throw an {@link ArithmeticException} instead of
+ * overflowing. The {@code *Big} variants have no limit, and the logarithmic
+ * variants ({@link #logFactorial(int)}, {@link #logBinomial(int, int)},
+ * {@link #logGamma(double)}) are meant for probabilities over large
+ * populations where exact values are not needed.
+ * <p>
+ * Tables are built on first use and are safe to use from many threads.
+ */
+public class Mathc {
+
+	/** The greatest n such that n! fits in a long */
+	public static final int MAX_LONG_FACTORIAL = 20;
+	/** The greatest n such that every binomial coefficient C(n, k) fits in a long */
+	public static final int MAX_LONG_BINOMIAL = 66;
+
+	/** Number of pre-computed log-factorials, greater values use the Stirling series */
+	private static final int LOG_FACTORIAL_TABLE_SIZE = 1024;
+	/** Number of BigInteger factorials kept in cache */
+	private static final int BIG_FACTORIAL_CACHE_SIZE = 1024;
+
+	private static final double HALF_LN_2PI = .5*Math.log(2*Math.PI);
+
+	private static class FactorialHolder {
+		private static final long[] factorials = new long[MAX_LONG_FACTORIAL+1];
+		static {
+			factorials[0] = 1;
+			for(int i = 1; i <= MAX_LONG_FACTORIAL; i++)
+				factorials[i] = factorials[i-1]*i;
+		}
+	}
+
+	private static class PascalHolder {
+		/** The rows of Pascal's triangle up to MAX_LONG_BINOMIAL, row n starts at n*(n+1)/2 */
+		private static final long[] triangle = new long[(MAX_LONG_BINOMIAL+1)*(MAX_LONG_BINOMIAL+2)/2];
+		static {
+			for(int n = 0, row = 0; n <= MAX_LONG_BINOMIAL; row += ++n) {
+				triangle[row] = triangle[row+n] = 1;
+				for(int k = 1; k < n; k++)
+					triangle[row+k] = triangle[row-n+k-1] + triangle[row-n+k];
+			}
+		}
+	}
+
+	private static class LogFactorialHolder {
+		private static final double[] logFactorials = new double[LOG_FACTORIAL_TABLE_SIZE];
+		static {
+			double sum = 0;
+			for(int i = 2; i < LOG_FACTORIAL_TABLE_SIZE; i++)
+				logFactorials[i] = sum += Math.log(i);
+		}
+	}
+
+	/** Cached BigInteger factorials, grown when needed and replaced (never modified) */
+	private static volatile BigInteger[] bigFactorials = { BigInteger.ONE };
+
+	private Mathc() {}
+
+	private static void checkNonNegative(int n) {
+		if(n < 0)
+			throw new IllegalArgumentException("Negative value given: " + n);
+	}
+
+	/**
+	 * Returns the factorial of a number, which is defined as :
+	 * <blockquote> {@code factorial(0) = 1}
+	 * <br>{@code factorial(n) = n*factorial(n-1)} </blockquote>
+	 * This is a table lookup.
+	 * @param n the value to calculate the factorial of
+	 * @return the factorial of n
+	 * @throws IllegalArgumentException if {@code n} is negative
+	 * @throws ArithmeticException if {@code n > MAX_LONG_FACTORIAL}, use
+	 *         {@link #factorialBig(int)} instead
+	 */
+	public static long factorial(int n) {
+		checkNonNegative(n);
+		if(n > MAX_LONG_FACTORIAL)
+			throw new ArithmeticException(n + "! overflows a long");
+		return FactorialHolder.factorials[n];
+	}
+
+	/**
+	 * Returns the factorial of a number of any size.
+	 * <p>
+	 * The factorials of numbers up to 1024 are cached, greater factorials are
+	 * computed by multiplying the cached value by a balanced product of the
+	 * missing terms.
+	 * @param n the value to calculate the factorial of
+	 * @return the factorial of n
+	 * @throws IllegalArgumentException if {@code n} is negative
+	 */
+	public static BigInteger factorialBig(int n) {
+		checkNonNegative(n);
+		BigInteger[] cache = bigFactorials;
+		if(n < cache.length)
+			return cache[n];
+		if(n < BIG_FACTORIAL_CACHE_SIZE)
+			return growBigFactorials(n)[n];
+		BigInteger[] full = growBigFactorials(BIG_FACTORIAL_CACHE_SIZE-1);
+		return full[BIG_FACTORIAL_CACHE_SIZE-1].multiply(product(BIG_FACTORIAL_CACHE_SIZE, n));
+	}
+
+	private static synchronized BigInteger[] growBigFactorials(int n) {
+		BigInteger[] cache = bigFactorials;
+		if(n < cache.length)
+			return cache;
+		// grow at least twice as large so that increasing requests do not copy the cache each time
+		int size = Math.min(BIG_FACTORIAL_CACHE_SIZE, Math.max(n+1, cache.length*2));
+		BigInteger[] grown = new BigInteger[size];
+		System.arraycopy(cache, 0, grown, 0, cache.length);
+		for(int i = cache.length; i < size; i++)
+			grown[i] = grown[i-1].multiply(BigInteger.valueOf(i));
+		return bigFactorials = grown;
+	}
+
+	/**
+	 * Returns the product of the integers in {@code [from, to]}, splitting the
+	 * range in halves so that the big multiplications have balanced operands.
+	 */
+	private static BigInteger product(long from, long to) {
+		if(from > to)
+			return BigInteger.ONE;
+		if(to-from < 4) {
+			// terms are below 2^31, two of them fit in a long
+			long a = 1, b = 1;
+			for(long i = from; i <= to; i++) {
+				if(i-from < 2) a *= i;
+				else b *= i;
+			}
+			return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b));
+		}
+		long m = (from+to) >>> 1;
+		return product(from, m).multiply(product(m+1, to));
+	}
+
+	/**
+	 * Returns the number of ways to choose {@code k} elements among {@code n},
+	 * {@code n!/(k!(n-k)!)}.
+	 * <p>
+	 * Coefficients with {@code n <= MAX_LONG_BINOMIAL} are looked up in a
+	 * pre-computed Pascal's triangle. Greater ones are computed with the
+	 * multiplicative formula, reducing each step by a gcd so that intermediate
+	 * values never exceed the result.
+	 * @param n the number of elements in the set
+	 * @param k the number of elements to choose
+	 * @return the binomial coefficient C(n, k), 0 if {@code k > n}
+	 * @throws IllegalArgumentException if {@code n} or {@code k} is negative
+	 * @throws ArithmeticException if the result overflows a long, use
+	 *         {@link #binomialBig(int, int)} instead
+	 */
+	public static long binomial(int n, int k) {
+		checkNonNegative(n);
+		checkNonNegative(k);
+		if(k > n)
+			return 0;
+		if(n <= MAX_LONG_BINOMIAL)
+			return PascalHolder.triangle[n*(n+1)/2 + k];
+		k = Math.min(k, n-k);
+		long r = 1;
+		for(int i = 1; i <= k; i++) {
+			// r*(n-k+i) is divisible by i, divide before multiplying
+			long g = gcd(r, i);
+			r = Math.multiplyExact(r/g, (n-k+i) / (i/g));
+		}
+		return r;
+	}
+
+	private static long gcd(long a, long b) {
+		while(b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Returns the binomial coefficient C(n, k) of any size.
+	 * @param n the number of elements in the set
+	 * @param k the number of elements to choose
+	 * @return the binomial coefficient C(n, k), 0 if {@code k > n}
+	 * @throws IllegalArgumentException if {@code n} or {@code k} is negative
+	 */
+	public static BigInteger binomialBig(int n, int k) {
+		checkNonNegative(n);
+		checkNonNegative(k);
+		if(k > n)
+			return BigInteger.ZERO;
+		if(n <= MAX_LONG_BINOMIAL)
+			return BigInteger.valueOf(PascalHolder.triangle[n*(n+1)/2 + k]);
+		k = Math.min(k, n-k);
+		return product(n-k+1, n).divide(factorialBig(k));
+	}
+
+	/**
+	 * Returns the number of ordered arrangements of {@code k} elements among
+	 * {@code n}, {@code n!/(n-k)!}.
+	 * @param n the number of elements in the set
+	 * @param k the size of the arrangements
+	 * @return the number of arrangements, 0 if {@code k > n}
+	 * @throws IllegalArgumentException if {@code n} or {@code k} is negative
+	 * @throws ArithmeticException if the result overflows a long
+	 */
+	public static long arrangements(int n, int k) {
+		checkNonNegative(n);
+		checkNonNegative(k);
+		if(k > n)
+			return 0;
+		if(n <= MAX_LONG_FACTORIAL)
+			return FactorialHolder.factorials[n] / FactorialHolder.factorials[n-k];
+		long r = 1;
+		for(int i = n-k+1; i <= n; i++)
+			r = Math.multiplyExact(r, i);
+		return r;
+	}
+
+	/**
+	 * Returns the natural logarithm of the factorial of a number. This is a
+	 * table lookup for {@code n < 1024} and a few operations otherwise.
+	 * @param n the value to calculate the factorial of
+	 * @return {@code ln(n!)}
+	 * @throws IllegalArgumentException if {@code n} is negative
+	 */
+	public static double logFactorial(int n) {
+		checkNonNegative(n);
+		if(n < LOG_FACTORIAL_TABLE_SIZE)
+			return LogFactorialHolder.logFactorials[n];
+		return stirling(n+1.);
+	}
+
+	/**
+	 * Returns the natural logarithm of a binomial coefficient, from which
+	 * probabilities such as {@code C(n,k) p^k (1-p)^(n-k)} can be computed
+	 * without overflowing.
+	 * @param n the number of elements in the set
+	 * @param k the number of elements to choose
+	 * @return {@code ln(C(n, k))}, negative infinity if {@code k > n}
+	 * @throws IllegalArgumentException if {@code n} or {@code k} is negative
+	 */
+	public static double logBinomial(int n, int k) {
+		checkNonNegative(n);
+		checkNonNegative(k);
+		if(k > n)
+			return Double.NEGATIVE_INFINITY;
+		return logFactorial(n) - logFactorial(k) - logFactorial(n-k);
+	}
+
+	/**
+	 * Returns the natural logarithm of the absolute value of the gamma function,
+	 * the extension of factorials to real numbers ({@code gamma(n+1) = n!}).
+	 * <p>
+	 * Values are computed with the Stirling series, arguments below 16 are
+	 * first shifted up with {@code gamma(x+1) = x*gamma(x)} and negative ones are
+	 * reflected. The error is below {@code 1e-13} relatively, or
+	 * {@code 1e-14} absolutely near the roots 1 and 2.
+	 * @param x the argument
+	 * @return {@code ln(|gamma(x)|)}, positive infinity if {@code x} is a
+	 *         non-positive integer
+	 */
+	public static double logGamma(double x) {
+		if(Double.isNaN(x))
+			return x;
+		if(x <= 0 && x == Math.rint(x))
+			return Double.POSITIVE_INFINITY;
+		if(x < .5) {
+			// reflection formula, gamma(x)*gamma(1-x) = pi/sin(pi*x)
+			return Math.log(Math.PI / Math.abs(Math.sin(Math.PI*x))) - logGamma(1-x);
+		}
+		if(x >= 16)
+			return stirling(x);
+		// gamma(x) = gamma(x+k) / (x*(x+1)*...*(x+k-1))
+		double p = 1;
+		while(x < 16)
+			p *= x++;
+		return stirling(x) - Math.log(p);
+	}
+
+	/** The Stirling series of {@code ln(gamma(x))}, for {@code x >= 16} */
+	private static double stirling(double x) {
+		double r = 1/x, r2 = r*r;
+		double series = r*(1/12. - r2*(1/360. - r2*(1/1260. - r2*(1/1680. - r2/1188.))));
+		return (x-.5)*Math.log(x) - x + HALF_LN_2PI + series;
+	}
+
+}
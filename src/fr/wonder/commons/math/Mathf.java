@@ -1,7 +1,9 @@
 package fr.wonder.commons.math;
 
-import java.util.Random;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
+import fr.wonder.commons.math.io.NumberParser;
 import fr.wonder.commons.math.vectors.Vec2;
 import fr.wonder.commons.math.vectors.Vec2i;
 import fr.wonder.commons.math.vectors.Vec3;
@@ -17,16 +19,13 @@ public class Mathf {
 	
 	private static class SinTableHolder {
 		/**
-		 * The float table used to calculate cosines and sines, initialized
-		 * with 360 values and a maximal error of .018
+		 * The table used to calculate cosines and sines, see {@link #getSinTable()}
 		 * @see #cos(float)
 		 * @see #sin(float)
 		 */
-		private static float[] sinTable = sinTable(360);
-	}
-	
-	private static class RandomHolder {
-		private static final Random random = new Random();
+		private static final SinTable sinTable = new SinTable(
+				Integer.getInteger("fr.wonder.commons.math.sintable.size", 4096),
+				Boolean.getBoolean("fr.wonder.commons.math.sintable.interpolate"));
 	}
 	
 	/**
@@ -39,10 +38,10 @@ public class Mathf {
 	 * <p>
 	 * This method uses an approximation of the sin function. For a size of 360 the
 	 * maximum error is .018<br>
-	 * By default the class is loaded with a sin table of size 360.<br>
 	 * The table size is rounded to the upper multiple of two if not already one.
 	 * 
 	 * @param tableSize the size of the sine table
+	 * @see SinTable
 	 */
 	public static float[] sinTable(int tableSize) {
 		tableSize = (tableSize+1)/2*2;
@@ -50,7 +49,7 @@ public class Mathf {
 		// initialize the sine table
 		for(int i = 0; i < tableSize/2; i++) {
 			for(int n = 0; n < 7; n++) {
-				table[i] += pow(-1, n%2)*pow(i/(tableSize/2f)*PI, 2*n+1)/fact(2*n+1);
+				table[i] += pow(-1, n%2)*pow(i/(tableSize/2f)*PI, 2*n+1)/Mathc.factorial(2*n+1);
 			}
 			table[i+tableSize/2] = - table[i];
 		}
@@ -79,39 +78,46 @@ public class Mathf {
 	 * Returns the factorial of a number, which is defined as :
 	 * <blockquote> {@code fact(0) = 1}
 	 * <br>{@code fact(n) = n*fact(n-1)} </blockquote>
+	 * See {@link Mathc} for factorials that do not fit in an int.
 	 * @param i the value to calculate the factorial
 	 * @return the factorial of i
+	 * @throws ArithmeticException if the result overflows an int ({@code i > 12})
 	 */
 	public static int fact(int i) {
-		int l = 1;
-		for(int j = 2; j <= i; j++)
-			l *= j;
-		return l;
+		return Math.toIntExact(Mathc.factorial(i));
 	}
 	
 	/**
 	 * Returns the number of binomial combinations for 'k in n elements'.
+	 * See {@link Mathc#binomial(int, int)} for combinations that do not fit in
+	 * an int.
 	 * @param n the number of elements in the set
 	 * @param k the size of the arrangement
 	 * @return the number of binomial combinations
+	 * @throws ArithmeticException if the result overflows an int
 	 */
 	public static int binomialCombinations(int n, int k) {
-		return fact(n)/(fact(k)*fact(n-k));
+		return Math.toIntExact(Mathc.binomial(n, k));
 	}
 	
 	/**
 	 * Returns the number of binomial arrangements for 'k in n elements'.
+	 * See {@link Mathc#arrangements(int, int)} for arrangements that do not fit
+	 * in an int.
 	 * @param n the number of elements in the set
 	 * @param k the size of the arrangement
 	 * @return the number of binomial arrangements
+	 * @throws ArithmeticException if the result overflows an int
 	 */
 	public static int binomialArrangements(int n, int k) {
-		return fact(n)/fact(n-k);
+		return Math.toIntExact(Mathc.arrangements(n, k));
 	}
 	
 	/**
 	 * Returns the base raised to the exponent, defaults to the java.lang.Math
 	 * implementation and converts the result to a float.
+	 * <p>
+	 * See {@link Approx#pow(float, float)} for faster approximations.
 	 * @param base the base
 	 * @param exp the exponent
 	 * @return base^exp
@@ -146,6 +152,40 @@ public class Mathf {
 	    return f;
 	}
 	
+	/**
+	 * Computes the square roots of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}, both ranges may be the same. Uses SIMD
+	 * instructions when available, see {@link Mathv}.
+	 * @see #sqrt(float)
+	 */
+	public static void sqrt(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		Mathv.kernels.sqrt(src, srcOff, dst, dstOff, len);
+	}
+	
+	/** Computes the square roots of {@code a[off..off+len[} in place. */
+	public static void sqrt(float[] a, int off, int len) {
+		sqrt(a, off, a, off, len);
+	}
+	
+	/**
+	 * Computes the inverse square roots of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}, both ranges may be the same. Uses SIMD
+	 * instructions when available, see {@link Mathv}.
+	 * @see #invSqrt(float)
+	 */
+	public static void invSqrt(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		Mathv.kernels.invSqrt(src, srcOff, dst, dstOff, len);
+	}
+	
+	/** Computes the inverse square roots of {@code a[off..off+len[} in place. */
+	public static void invSqrt(float[] a, int off, int len) {
+		invSqrt(a, off, a, off, len);
+	}
+	
 	/**
 	 * Returns the exponential of a number.
 	 * <p>This method uses an approximation that can be found
@@ -196,6 +236,39 @@ public class Mathf {
 		return ln(f)/ln(base);
 	}
 	
+	/**
+	 * Computes the exponentials of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}, both ranges may be the same.
+	 * @see #exp(float)
+	 */
+	public static void exp(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		Mathv.kernels.exp(src, srcOff, dst, dstOff, len);
+	}
+	
+	/** Computes the exponentials of {@code a[off..off+len[} in place. */
+	public static void exp(float[] a, int off, int len) {
+		exp(a, off, a, off, len);
+	}
+	
+	/**
+	 * Computes the natural logarithms of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}, both ranges may be the same. NaN inputs
+	 * are not supported.
+	 * @see #ln(float)
+	 */
+	public static void ln(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		Mathv.kernels.ln(src, srcOff, dst, dstOff, len);
+	}
+	
+	/** Computes the natural logarithms of {@code a[off..off+len[} in place. */
+	public static void ln(float[] a, int off, int len) {
+		ln(a, off, a, off, len);
+	}
+	
 	/**
 	 * Applies the sigmoid (or logistic) function.
 	 * <p>The expression of the sigmoid function is : <code>s(x) = 1/(1+e^(-x))</code>
@@ -239,26 +312,104 @@ public class Mathf {
 		return sigmoid(y)*(1f-sigmoid(y));
 	}
 	
+	/**
+	 * Returns the sine table used by {@link #sin(float)}, {@link #cos(float)} and
+	 * their variants.
+	 * <p>
+	 * The table is created when first used with 4096 entries and no
+	 * interpolation (maximum error 7.7e-4), this can be changed with the
+	 * {@code fr.wonder.commons.math.sintable.size} and
+	 * {@code fr.wonder.commons.math.sintable.interpolate} system properties.
+	 * Call sites that need another precision can use their own {@link SinTable}.
+	 * 
+	 * @return the default sine table
+	 */
+	public static SinTable getSinTable() {
+		return SinTableHolder.sinTable;
+	}
+	
 	/**
 	 * Calculates a cosine using a pre-calculated sine table, precision is not
-	 * perfect but the maximum delta between this method and Math.cos is around .018
-	 * <br>This method is quite faster than using Math.cos though.
+	 * perfect (see {@link #getSinTable()}) but this method is quite faster than
+	 * using Math.cos.
 	 * @param rad the angle in radians
 	 * @return the cosine of the angle
 	 */
 	public static float cos(float rad) {
-		return SinTableHolder.sinTable[(int) mod(rad/PI*180f+90f, 360)];
+		return SinTableHolder.sinTable.cos(rad);
 	}
 	
 	/**
 	 * Calculates a sine using a pre-calculated sine table, precision is not
-	 * perfect but the maximum delta between this method and Math.sin is around .018
-	 * <br>This method is quite faster than using Math.sin though.
+	 * perfect (see {@link #getSinTable()}) but this method is quite faster than
+	 * using Math.sin.
 	 * @param rad the angle in radians
 	 * @return the sine of the angle
 	 */
 	public static float sin(float rad) {
-		return SinTableHolder.sinTable[(int) mod(rad/PI*180f, 360)];
+		return SinTableHolder.sinTable.sin(rad);
+	}
+	
+	/**
+	 * Calculates both the cosine and the sine of an angle with a single table
+	 * index computation.
+	 * @param rad the angle in radians
+	 * @param dest the vector to write the cosine (x) and the sine (y) to
+	 * @return {@code dest}
+	 * @see SinTable#sinCos(float, Vec2)
+	 */
+	public static Vec2 sinCos(float rad, Vec2 dest) {
+		return SinTableHolder.sinTable.sinCos(rad, dest);
+	}
+	
+	/**
+	 * Calculates both the sine and the cosine of an angle with a single table
+	 * index computation.
+	 * @param rad the angle in radians
+	 * @param dest the array to write the sine (at {@code off}) and the cosine
+	 *        (at {@code off+1}) to
+	 * @return {@code dest}
+	 * @see SinTable#sinCos(float, float[], int)
+	 */
+	public static float[] sinCos(float rad, float[] dest, int off) {
+		return SinTableHolder.sinTable.sinCos(rad, dest, off);
+	}
+	
+	/**
+	 * Computes the sines of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * @see #sin(float)
+	 */
+	public static void sin(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		SinTableHolder.sinTable.sin(src, srcOff, dst, dstOff, len);
+	}
+	
+	/** Computes the sines of {@code a[off..off+len[} in place. */
+	public static void sin(float[] a, int off, int len) {
+		sin(a, off, a, off, len);
+	}
+	
+	/**
+	 * Computes the cosines of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * @see #cos(float)
+	 */
+	public static void cos(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		SinTableHolder.sinTable.cos(src, srcOff, dst, dstOff, len);
+	}
+	
+	/** Computes the cosines of {@code a[off..off+len[} in place. */
+	public static void cos(float[] a, int off, int len) {
+		cos(a, off, a, off, len);
+	}
+	
+	/**
+	 * Computes the sines and cosines of {@code src[srcOff..srcOff+len[} into
+	 * {@code sinDst[dstOff..dstOff+len[} and {@code cosDst[dstOff..dstOff+len[}.
+	 * @see #sinCos(float, Vec2)
+	 */
+	public static void sinCos(float[] src, int srcOff, float[] sinDst, float[] cosDst, int dstOff, int len) {
+		SinTableHolder.sinTable.sinCos(src, srcOff, sinDst, cosDst, dstOff, len);
 	}
 	
 	/**
@@ -271,14 +422,130 @@ public class Mathf {
 		return sin(rad)/cos(rad);
 	}
 	
+	/** {@code atan(t)/t} as a polynomial of {@code t^2}, for {@code |t| <= 1} */
+	private static float atanPoly(float z) {
+		return .99986633f + z*(-.33030479f + z*(.18015929f + z*(-.085156351f + z*.020845114f)));
+	}
+	
+	/** {@code acos(x)/sqrt(1-x)} as a polynomial of {@code x}, for {@code 0 <= x <= 1} */
+	private static float acosPoly(float x) {
+		return 1.5707915f + x*(-.21428061f + x*(.085638378f + x*(-.037618218f + x*.0097329697f)));
+	}
+	
 	/**
 	 * Returns the polar angle of a point in Cartesian coordinates.
+	 * <p>
+	 * This method uses a polynomial approximation with a maximum error around
+	 * 1.2e-5 radians, it is quite faster than using Math.atan2. The angle of
+	 * {@code (0,0)} is 0, infinite coordinates are not supported.
 	 * @param x first coordinate of the point
 	 * @param y second coordinate of the point
-	 * @return the angle theta of the representation of the given point in polar coordinates
+	 * @return the angle theta of the representation of the given point in polar
+	 *         coordinates, in range {@code [-PI, PI]}
 	 */
 	public static float atan2(float x, float y) {
-		return (float) Math.atan2(y, x);
+		float ax = abs(x), ay = abs(y);
+		float max = max(ax, ay);
+		if(max == 0)
+			return 0;
+		float t = min(ax, ay)/max;
+		float r = t*atanPoly(t*t);
+		if(ay > ax) r = PI/2 - r;
+		if(x < 0) r = PI - r;
+		return y < 0 ? -r : r;
+	}
+	
+	/**
+	 * Returns the arc tangent of a value using a polynomial approximation, with
+	 * a maximum error around 1.2e-5.
+	 * @param x the value
+	 * @return the arc tangent of {@code x}, in range {@code [-PI/2, PI/2]}
+	 */
+	public static float atan(float x) {
+		float ax = abs(x);
+		float r = ax <= 1 ? ax*atanPoly(ax*ax) : PI/2 - atanPoly(1/(ax*ax))/ax;
+		return x < 0 ? -r : r;
+	}
+	
+	/**
+	 * Returns the arc cosine of a value using a polynomial approximation, with
+	 * a maximum error around 5e-6.
+	 * @param x the value, in range {@code [-1, 1]}
+	 * @return the arc cosine of {@code x}, in range {@code [0, PI]}, NaN if
+	 *         {@code x} is out of range
+	 */
+	public static float acos(float x) {
+		float ax = abs(x);
+		float r = (float) Math.sqrt(1-ax) * acosPoly(ax);
+		return x < 0 ? PI - r : r;
+	}
+	
+	/**
+	 * Returns the arc sine of a value using a polynomial approximation, with
+	 * a maximum error around 5e-6 and a relative error below 1e-5. Values
+	 * below 0.5 are within 2 ulps, small values are returned unchanged.
+	 * @param x the value, in range {@code [-1, 1]}
+	 * @return the arc sine of {@code x}, in range {@code [-PI/2, PI/2]}, NaN if
+	 *         {@code x} is out of range
+	 */
+	public static float asin(float x) {
+		float ax = abs(x);
+		if(ax < .5f) {
+			// PI/2-acos(x) would cancel out near 0, the relative error would be unbounded
+			float z = x*x;
+			return x + x*z*(.166655632f + z*(.0754093581f + z*(.0400071702f + z*.0500108823f)));
+		}
+		float r = PI/2 - (float) Math.sqrt(1-ax) * acosPoly(ax);
+		return x < 0 ? -r : r;
+	}
+	
+	/**
+	 * Computes the polar angles of the points {@code (x[i],y[i])} for {@code i}
+	 * in {@code [srcOff, srcOff+len[} into {@code dst[dstOff..dstOff+len[}.
+	 * @see #atan2(float, float)
+	 */
+	public static void atan2(float[] x, float[] y, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, x.length);
+		Objects.checkFromIndexSize(srcOff, len, y.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = atan2(x[srcOff+i], y[srcOff+i]);
+	}
+	
+	/**
+	 * Computes the arc tangents of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * @see #atan(float)
+	 */
+	public static void atan(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = atan(src[srcOff+i]);
+	}
+	
+	/**
+	 * Computes the arc sines of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * @see #asin(float)
+	 */
+	public static void asin(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = asin(src[srcOff+i]);
+	}
+	
+	/**
+	 * Computes the arc cosines of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}.
+	 * @see #acos(float)
+	 */
+	public static void acos(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = acos(src[srcOff+i]);
 	}
 	
 	/**
@@ -315,21 +582,29 @@ public class Mathf {
 	
 	/**
 	 * Returns whether a string represents a float. The float may be written
-	 * using digits 0 to 9, a single decimal dot and a sign.
+	 * using digits 0 to 9, a single decimal dot, a sign and an exponent, or be
+	 * {@code NaN} or a signed {@code Infinity}. This does not allocate, see {@link NumberParser#isFloat(CharSequence)}.
 	 * @param s the string to parse
 	 * @return whether or not the string can be parsed as a float
 	 */
 	public static boolean isFloatString(String s) {
-		return s.matches("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)");
+		return NumberParser.isFloat(s);
 	}
 	
 	/**
-	 * Returns the float value a string represents. This calls Float#parseFloat
-	 * and silently ignores errors, returning -1 instead.
+	 * Returns the float value a string represents. This accepts everything
+	 * {@link Float#parseFloat(String)} does (surrounding whitespace, type
+	 * suffixes, hexadecimal floats...) and silently ignores errors, returning
+	 * -1 instead. Decimal floats are parsed by {@link NumberParser} without
+	 * allocating, prefer {@link NumberParser#parseFloat(CharSequence, float)}
+	 * with a {@code NaN} fallback if -1 is ambiguous.
 	 * @param s the string to parse
 	 * @return the float value corresponding, or -1 if it could not be parsed
 	 */
 	public static float parseFloat(String s) {
+		float f = NumberParser.parseFloat(s, Float.NaN);
+		if(f == f)
+			return f;
 		try {
 			return Float.parseFloat(s);
 		} catch(NumberFormatException x) {
@@ -338,12 +613,15 @@ public class Mathf {
 	}
 	
 	/**
-	 * Overall same as {@link Math#random()} but using {@link Random#nextFloat()} to
-	 * get a float and not a double.
+	 * Overall same as {@link Math#random()} but returns a float and not a double.
+	 * <p>
+	 * Values come from the {@link ThreadLocalRandom} of the calling thread so that
+	 * threads do not contend on a shared seed, use {@link Rng} for seeded
+	 * sequences.
 	 * @return a random float in range [0,1[
 	 */
 	public static float random() {
-		return RandomHolder.random.nextFloat();
+		return ThreadLocalRandom.current().nextFloat();
 	}
 	
 	/**
@@ -363,6 +641,16 @@ public class Mathf {
 	public static Vec3 lerp(Vec3 a, Vec3 b, float x) { return new Vec3((b.x-a.x)*x+a.x, (b.y-a.y)*x+a.y, (b.z-a.z)*x+a.z); }
 	public static Vec4 lerp(Vec4 a, Vec4 b, float x) { return new Vec4((b.x-a.x)*x+a.x, (b.y-a.y)*x+a.y, (b.z-a.z)*x+a.z, (b.w-a.w)*x+a.w); }
 	
+	/*
+	 * The following overloads write their result into the given destination
+	 * vector instead of allocating a new one, dest may be one of the operands.
+	 * They return dest so that calls can be chained.
+	 */
+	
+	public static Vec2 lerp(Vec2 a, Vec2 b, float x, Vec2 dest) { return dest.set((b.x-a.x)*x+a.x, (b.y-a.y)*x+a.y); }
+	public static Vec3 lerp(Vec3 a, Vec3 b, float x, Vec3 dest) { return dest.set((b.x-a.x)*x+a.x, (b.y-a.y)*x+a.y, (b.z-a.z)*x+a.z); }
+	public static Vec4 lerp(Vec4 a, Vec4 b, float x, Vec4 dest) { return dest.set((b.x-a.x)*x+a.x, (b.y-a.y)*x+a.y, (b.z-a.z)*x+a.z, (b.w-a.w)*x+a.w); }
+	
 	public static Vec2i mod(Vec2i v, Vec2i m) { return new Vec2i(mod(v.x, m.x), mod(v.y, m.y)); }
 	public static Vec2i mod(Vec2i v, int m) { return new Vec2i(mod(v.x, m), mod(v.y, m)); }
 	public static Vec2 mod(Vec2 v, Vec2 m) { return new Vec2(mod(v.x, m.x), mod(v.y, m.y)); }
@@ -374,6 +662,17 @@ public class Mathf {
 	public static Vec4i mod(Vec4i v, Vec4i m) { return new Vec4i(mod(v.x, m.x), mod(v.y, m.y), mod(v.z, m.z), mod(v.w, m.w)); }
 	public static Vec4i mod(Vec4i v, int m) { return new Vec4i(mod(v.x, m), mod(v.y, m), mod(v.z, m), mod(v.w, m)); }
 	
+	public static Vec2i mod(Vec2i v, Vec2i m, Vec2i dest) { return dest.set(mod(v.x, m.x), mod(v.y, m.y)); }
+	public static Vec2i mod(Vec2i v, int m, Vec2i dest) { return dest.set(mod(v.x, m), mod(v.y, m)); }
+	public static Vec2 mod(Vec2 v, Vec2 m, Vec2 dest) { return dest.set(mod(v.x, m.x), mod(v.y, m.y)); }
+	public static Vec2 mod(Vec2 v, float m, Vec2 dest) { return dest.set(mod(v.x, m), mod(v.y, m)); }
+	public static Vec3 mod(Vec3 v, Vec3 m, Vec3 dest) { return dest.set(mod(v.x, m.x), mod(v.y, m.y), mod(v.z, m.z)); }
+	public static Vec3 mod(Vec3 v, float m, Vec3 dest) { return dest.set(mod(v.x, m), mod(v.y, m), mod(v.z, m)); }
+	public static Vec4 mod(Vec4 v, Vec4 m, Vec4 dest) { return dest.set(mod(v.x, m.x), mod(v.y, m.y), mod(v.z, m.z), mod(v.w, m.w)); }
+	public static Vec4 mod(Vec4 v, float m, Vec4 dest) { return dest.set(mod(v.x, m), mod(v.y, m), mod(v.z, m), mod(v.w, m)); }
+	public static Vec4i mod(Vec4i v, Vec4i m, Vec4i dest) { return dest.set(mod(v.x, m.x), mod(v.y, m.y), mod(v.z, m.z), mod(v.w, m.w)); }
+	public static Vec4i mod(Vec4i v, int m, Vec4i dest) { return dest.set(mod(v.x, m), mod(v.y, m), mod(v.z, m), mod(v.w, m)); }
+	
 	public static int abs(int a) { return (a < 0) ? -a : a; }
 	public static float abs(float a) { return (a < 0) ? -a : a; }
 	
@@ -383,6 +682,12 @@ public class Mathf {
 	public static Vec4 abs(Vec4 v) { return new Vec4(abs(v.x), abs(v.y), abs(v.z), abs(v.w)); }
 	public static Vec4i abs(Vec4i v) { return new Vec4i(abs(v.x), abs(v.y), abs(v.z), abs(v.w)); }
 	
+	public static Vec2i abs(Vec2i v, Vec2i dest) { return dest.set(abs(v.x), abs(v.y)); }
+	public static Vec2 abs(Vec2 v, Vec2 dest) { return dest.set(abs(v.x), abs(v.y)); }
+	public static Vec3 abs(Vec3 v, Vec3 dest) { return dest.set(abs(v.x), abs(v.y), abs(v.z)); }
+	public static Vec4 abs(Vec4 v, Vec4 dest) { return dest.set(abs(v.x), abs(v.y), abs(v.z), abs(v.w)); }
+	public static Vec4i abs(Vec4i v, Vec4i dest) { return dest.set(abs(v.x), abs(v.y), abs(v.z), abs(v.w)); }
+	
 	public static int min(int a, int b) { return a < b ? a : b; }
 	public static float min(float a, float b) { return a < b ? a : b; }
 	
@@ -416,7 +721,7 @@ public class Mathf {
 		return i;
 	}
 	
-	public static float minIndex(float... floats) {
+	public static int minIndex(float... floats) {
 		if(floats == null || floats.length == 0)
 			throw new IllegalArgumentException("Null or empty array given.");
 		int i = 0;
@@ -437,6 +742,17 @@ public class Mathf {
 	public static Vec4 min(Vec4 v, float m) { return new Vec4(min(v.x, m), min(v.y, m), min(v.z, m), min(v.w, m)); }
 	public static Vec4i min(Vec4i v, Vec4i m) { return new Vec4i(min(v.x, m.x), min(v.y, m.y), min(v.z, m.z), min(v.w, m.w)); }
 	public static Vec4i min(Vec4i v, int m) { return new Vec4i(min(v.x, m), min(v.y, m), min(v.z, m), min(v.w, m)); }
+	
+	public static Vec2i min(Vec2i v, Vec2i m, Vec2i dest) { return dest.set(min(v.x, m.x), min(v.y, m.y)); }
+	public static Vec2i min(Vec2i v, int m, Vec2i dest) { return dest.set(min(v.x, m), min(v.y, m)); }
+	public static Vec2 min(Vec2 v, Vec2 m, Vec2 dest) { return dest.set(min(v.x, m.x), min(v.y, m.y)); }
+	public static Vec2 min(Vec2 v, float m, Vec2 dest) { return dest.set(min(v.x, m), min(v.y, m)); }
+	public static Vec3 min(Vec3 v, Vec3 m, Vec3 dest) { return dest.set(min(v.x, m.x), min(v.y, m.y), min(v.z, m.z)); }
+	public static Vec3 min(Vec3 v, float m, Vec3 dest) { return dest.set(min(v.x, m), min(v.y, m), min(v.z, m)); }
+	public static Vec4 min(Vec4 v, Vec4 m, Vec4 dest) { return dest.set(min(v.x, m.x), min(v.y, m.y), min(v.z, m.z), min(v.w, m.w)); }
+	public static Vec4 min(Vec4 v, float m, Vec4 dest) { return dest.set(min(v.x, m), min(v.y, m), min(v.z, m), min(v.w, m)); }
+	public static Vec4i min(Vec4i v, Vec4i m, Vec4i dest) { return dest.set(min(v.x, m.x), min(v.y, m.y), min(v.z, m.z), min(v.w, m.w)); }
+	public static Vec4i min(Vec4i v, int m, Vec4i dest) { return dest.set(min(v.x, m), min(v.y, m), min(v.z, m), min(v.w, m)); }
 	public static int min(Vec2i v) { return min(v.x, v.y); }
 	public static float min(Vec2 v) { return min(v.x, v.y); }
 	public static float min(Vec3 v) { return min(v.x, min(v.y, v.z)); }
@@ -476,7 +792,7 @@ public class Mathf {
 		return i;
 	}
 	
-	public static float maxIndex(float... floats) {
+	public static int maxIndex(float... floats) {
 		if(floats == null || floats.length == 0)
 			throw new IllegalArgumentException("Null or empty array given.");
 		int i = 0;
@@ -493,10 +809,21 @@ public class Mathf {
 	public static Vec2 max(Vec2 v, float m) { return new Vec2(max(v.x, m), max(v.y, m)); }
 	public static Vec3 max(Vec3 v, Vec3 m) { return new Vec3(max(v.x, m.x), max(v.y, m.y), max(v.z, m.z)); }
 	public static Vec3 max(Vec3 v, float m) { return new Vec3(max(v.x, m), max(v.y, m), max(v.z, m)); }
-	public static Vec4 max(Vec4 v, Vec4 m) { return new Vec4(max(v.x, m.x), max(v.y, m.y), max(v.z, m.z), max(v.w, m.z)); }
+	public static Vec4 max(Vec4 v, Vec4 m) { return new Vec4(max(v.x, m.x), max(v.y, m.y), max(v.z, m.z), max(v.w, m.w)); }
 	public static Vec4 max(Vec4 v, float m) { return new Vec4(max(v.x, m), max(v.y, m), max(v.z, m), max(v.w, m)); }
-	public static Vec4i max(Vec4i v, Vec4i m) { return new Vec4i(max(v.x, m.x), max(v.y, m.y), max(v.z, m.z), max(v.w, m.z)); }
+	public static Vec4i max(Vec4i v, Vec4i m) { return new Vec4i(max(v.x, m.x), max(v.y, m.y), max(v.z, m.z), max(v.w, m.w)); }
 	public static Vec4i max(Vec4i v, int m) { return new Vec4i(max(v.x, m), max(v.y, m), max(v.z, m), max(v.w, m)); }
+	
+	public static Vec2i max(Vec2i v, Vec2i m, Vec2i dest) { return dest.set(max(v.x, m.x), max(v.y, m.y)); }
+	public static Vec2i max(Vec2i v, int m, Vec2i dest) { return dest.set(max(v.x, m), max(v.y, m)); }
+	public static Vec2 max(Vec2 v, Vec2 m, Vec2 dest) { return dest.set(max(v.x, m.x), max(v.y, m.y)); }
+	public static Vec2 max(Vec2 v, float m, Vec2 dest) { return dest.set(max(v.x, m), max(v.y, m)); }
+	public static Vec3 max(Vec3 v, Vec3 m, Vec3 dest) { return dest.set(max(v.x, m.x), max(v.y, m.y), max(v.z, m.z)); }
+	public static Vec3 max(Vec3 v, float m, Vec3 dest) { return dest.set(max(v.x, m), max(v.y, m), max(v.z, m)); }
+	public static Vec4 max(Vec4 v, Vec4 m, Vec4 dest) { return dest.set(max(v.x, m.x), max(v.y, m.y), max(v.z, m.z), max(v.w, m.w)); }
+	public static Vec4 max(Vec4 v, float m, Vec4 dest) { return dest.set(max(v.x, m), max(v.y, m), max(v.z, m), max(v.w, m)); }
+	public static Vec4i max(Vec4i v, Vec4i m, Vec4i dest) { return dest.set(max(v.x, m.x), max(v.y, m.y), max(v.z, m.z), max(v.w, m.w)); }
+	public static Vec4i max(Vec4i v, int m, Vec4i dest) { return dest.set(max(v.x, m), max(v.y, m), max(v.z, m), max(v.w, m)); }
 	public static int max(Vec2i v) { return max(v.x, v.y); }
 	public static float max(Vec2 v) { return max(v.x, v.y); }
 	public static float max(Vec3 v) { return max(v.x, max(v.y, v.z)); }
@@ -508,7 +835,7 @@ public class Mathf {
 	
 	public static Vec2i clamp(Vec2i v, Vec2i min, Vec2i max) { return new Vec2i(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y)); }
 	public static Vec2i clamp(Vec2i v, int min, int max) { return new Vec2i(clamp(v.x, min, max), clamp(v.y, min, max)); }
-	public static Vec2 clamp(Vec2 v, Vec2 min, Vec2 max) { return new Vec2(clamp(v.x, min.x, max.y), clamp(v.y, min.y, max.y)); }
+	public static Vec2 clamp(Vec2 v, Vec2 min, Vec2 max) { return new Vec2(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y)); }
 	public static Vec2 clamp(Vec2 v, float min, float max) { return new Vec2(clamp(v.x, min, max), clamp(v.y, min, max)); }
 	public static Vec3 clamp(Vec3 v, Vec3 min, Vec3 max) { return new Vec3(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y), clamp(v.z, min.z, max.z)); }
 	public static Vec3 clamp(Vec3 v, float min, float max) { return new Vec3(clamp(v.x, min, max), clamp(v.y, min, max), clamp(v.z, min, max)); }
@@ -516,13 +843,31 @@ public class Mathf {
 	public static Vec4 clamp(Vec4 v, float min, float max) { return new Vec4(clamp(v.x, min, max), clamp(v.y, min, max), clamp(v.z, min, max), clamp(v.w, min, max)); }
 	public static Vec4i clamp(Vec4i v, Vec4i min, Vec4i max) { return new Vec4i(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y), clamp(v.z, min.z, max.z), clamp(v.w, min.w, max.w)); }
 	public static Vec4i clamp(Vec4i v, int min, int max) { return new Vec4i(clamp(v.x, min, max), clamp(v.y, min, max), clamp(v.z, min, max), clamp(v.w, min, max)); }
+	
+	public static Vec2i clamp(Vec2i v, Vec2i min, Vec2i max, Vec2i dest) { return dest.set(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y)); }
+	public static Vec2i clamp(Vec2i v, int min, int max, Vec2i dest) { return dest.set(clamp(v.x, min, max), clamp(v.y, min, max)); }
+	public static Vec2 clamp(Vec2 v, Vec2 min, Vec2 max, Vec2 dest) { return dest.set(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y)); }
+	public static Vec2 clamp(Vec2 v, float min, float max, Vec2 dest) { return dest.set(clamp(v.x, min, max), clamp(v.y, min, max)); }
+	public static Vec3 clamp(Vec3 v, Vec3 min, Vec3 max, Vec3 dest) { return dest.set(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y), clamp(v.z, min.z, max.z)); }
+	public static Vec3 clamp(Vec3 v, float min, float max, Vec3 dest) { return dest.set(clamp(v.x, min, max), clamp(v.y, min, max), clamp(v.z, min, max)); }
+	public static Vec4 clamp(Vec4 v, Vec4 min, Vec4 max, Vec4 dest) { return dest.set(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y), clamp(v.z, min.z, max.z), clamp(v.w, min.w, max.w)); }
+	public static Vec4 clamp(Vec4 v, float min, float max, Vec4 dest) { return dest.set(clamp(v.x, min, max), clamp(v.y, min, max), clamp(v.z, min, max), clamp(v.w, min, max)); }
+	public static Vec4i clamp(Vec4i v, Vec4i min, Vec4i max, Vec4i dest) { return dest.set(clamp(v.x, min.x, max.x), clamp(v.y, min.y, max.y), clamp(v.z, min.z, max.z), clamp(v.w, min.w, max.w)); }
+	public static Vec4i clamp(Vec4i v, int min, int max, Vec4i dest) { return dest.set(clamp(v.x, min, max), clamp(v.y, min, max), clamp(v.z, min, max), clamp(v.w, min, max)); }
 
 	public static int ceil(float f) {
 		return (int) Math.ceil(f);
 	}
 
+	/**
+	 * Returns the largest integer lower or equal to {@code f}, unlike a cast to
+	 * int negative values are rounded towards negative infinity.
+	 * @param f the float value
+	 * @return the floor of f
+	 */
 	public static int floor(float f) {
-		return (int) f;
+		int i = (int) f;
+		return f < i ? i-1 : i;
 	}
 	
 	public static float fract(float f) {
@@ -532,34 +877,72 @@ public class Mathf {
 	public static Vec2i random2i(int min, int max) {
 		return new Vec2i((int) (random()*(max-min)+min), (int) (random()*(max-min)+min));
 	}
+	/** @return a new unit vector, uniformly distributed over all directions */
 	public static Vec2 random2() {
-		return new Vec2(random(), random()).normalized();
+		return Mathr.randOnCircle(new Vec2());
 	}
+	/** @return a new vector of length {@code radius}, uniformly distributed over all directions */
 	public static Vec2 random2(float radius) {
-		return random2().multiply(radius);
+		return random2().multiplyLocal(radius);
 	}
 	public static Vec2 random2(float min, float max) {
 		return new Vec2(random()*(max-min)+min, random()*(max-min)+min);
 	}
+	/** @return a new unit vector, uniformly distributed over all directions */
 	public static Vec3 random3() {
-		return new Vec3(random(), random(), random()).normalized();
+		return Mathr.randOnSphere(new Vec3());
 	}
+	/** @return a new vector of length {@code radius}, uniformly distributed over all directions */
 	public static Vec3 random3(float radius) {
-		return random3().multiply(radius);
+		return random3().multiplyLocal(radius);
 	}
 	public static Vec3 random3(float min, float max) {
 		return new Vec3(random()*(max-min)+min, random()*(max-min)+min, random()*(max-min)+min);
 	}
+	/** @return a new unit vector, uniformly distributed over all directions */
 	public static Vec4 random4() {
-		return new Vec4(random(), random(), random(), random()).normalized();
+		return Mathr.randOnHypersphere(new Vec4());
 	}
+	/** @return a new vector of length {@code radius}, uniformly distributed over all directions */
 	public static Vec4 random4(float radius) {
-		return random4().multiply(radius);
+		return random4().multiplyLocal(radius);
 	}
 	public static Vec4 random4(float min, float max) {
 		return new Vec4(random()*(max-min)+min, random()*(max-min)+min,
 						random()*(max-min)+min, random()*(max-min)+min);
 	}
+	
+	public static Vec2i random2i(int min, int max, Rng rng) {
+		return new Vec2i((int) (rng.nextFloat()*(max-min)+min), (int) (rng.nextFloat()*(max-min)+min));
+	}
+	public static Vec2 random2(Rng rng) {
+		return Mathr.randOnCircle(new Vec2(), rng);
+	}
+	public static Vec2 random2(float radius, Rng rng) {
+		return random2(rng).multiplyLocal(radius);
+	}
+	public static Vec2 random2(float min, float max, Rng rng) {
+		return new Vec2(Mathr.randRange(min, max, rng), Mathr.randRange(min, max, rng));
+	}
+	public static Vec3 random3(Rng rng) {
+		return Mathr.randOnSphere(new Vec3(), rng);
+	}
+	public static Vec3 random3(float radius, Rng rng) {
+		return random3(rng).multiplyLocal(radius);
+	}
+	public static Vec3 random3(float min, float max, Rng rng) {
+		return new Vec3(Mathr.randRange(min, max, rng), Mathr.randRange(min, max, rng), Mathr.randRange(min, max, rng));
+	}
+	public static Vec4 random4(Rng rng) {
+		return Mathr.randOnHypersphere(new Vec4(), rng);
+	}
+	public static Vec4 random4(float radius, Rng rng) {
+		return random4(rng).multiplyLocal(radius);
+	}
+	public static Vec4 random4(float min, float max, Rng rng) {
+		return new Vec4(Mathr.randRange(min, max, rng), Mathr.randRange(min, max, rng),
+						Mathr.randRange(min, max, rng), Mathr.randRange(min, max, rng));
+	}
 		
 	public static int sum(int... ints) {
 		int s = 0;
@@ -568,11 +951,16 @@ public class Mathf {
 		return s;
 	}
 	
+	/**
+	 * Returns the sum of floats, accumulated in double precision.
+	 * See {@link Mathv#sum(float[], int, int)} and
+	 * {@link Mathv#sumCompensated(float[], int, int)} for large arrays.
+	 */
 	public static float sum(float... floats) {
-		float s = 0;
+		double s = 0;
 		for(float f : floats)
 			s += f;
-		return s;
+		return (float) s;
 	}
 	
 }
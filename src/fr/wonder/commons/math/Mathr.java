@@ -3,14 +3,27 @@ package fr.wonder.commons.math;
 import static fr.wonder.commons.math.Mathf.*;
 
 import java.util.List;
-import java.util.Random;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import fr.wonder.commons.math.vectors.Vec2;
+import fr.wonder.commons.math.vectors.Vec2Buffer;
+import fr.wonder.commons.math.vectors.Vec2i;
+import fr.wonder.commons.math.vectors.Vec3;
+import fr.wonder.commons.math.vectors.Vec3Buffer;
+import fr.wonder.commons.math.vectors.Vec4;
+import fr.wonder.commons.math.vectors.Vec4Buffer;
+import fr.wonder.commons.math.vectors.Vec4i;
 
 public class Mathr {
 
 	/**
 	 * Returns a random number in range [0,1[
 	 * <p>
-	 * This method uses the standard {@link Random} implementation.
+	 * This method uses the {@link ThreadLocalRandom} of the calling thread, like
+	 * every method of this class that does not take a {@link Rng}, so it can be
+	 * called from many threads without contention.
 	 * 
 	 * @return a random value in range [0,1[
 	 */
@@ -18,6 +31,16 @@ public class Mathr {
 		return Mathf.random();
 	}
 	
+	/**
+	 * Returns a random number in range [0,1[ drawn from a generator.
+	 * 
+	 * @param rng the generator to use
+	 * @return a random value in range [0,1[
+	 */
+	public static float rand(Rng rng) {
+		return rng.nextFloat();
+	}
+	
 	/**
 	 * Fast predictable PRNG.
 	 * <p>
@@ -30,12 +53,15 @@ public class Mathr {
 	 * <p>
 	 * See {@link #rand2(float)} for another similar method if another
 	 * random value is needed for every input value.
+	 * <p>
+	 * The seed is hashed with {@link #hash(int)}, every float gives an
+	 * independent value.
 	 * 
 	 * @param s the seed
-	 * @return a random number from the given seed
+	 * @return a random number in range [0,1[ from the given seed
 	 */
 	public static float rand1(float s) {
-		return fract(sin(s*12.9898f) * 43758.5453f);
+		return toUnitFloat(hash(seedBits(s)));
 	}
 	
 	/**
@@ -52,12 +78,141 @@ public class Mathr {
 	 * random value is needed for every input value.
 	 * 
 	 * @param s the seed
-	 * @return a random number from the given seed
+	 * @return a random number in range [0,1[ from the given seed
 	 */
 	public static float rand2(float s) {
-		return fract(sin(s*78.233f) * 43758.5453f);
+		return toUnitFloat(hash(seedBits(s), 1));
 	}
-
+	
+	/* ------------------------- Counter-based hashing ------------------------ */
+	
+	/*
+	 * Stateless generators: the value of a counter (a pixel, a cell, an index...)
+	 * is hashed into random bits, the same counter always gives the same bits
+	 * and counters can be processed in any order or in parallel. Like PCG the
+	 * 1D hash advances an LCG from the counter and permutes the result, here
+	 * with the lowbias32 mixer of C. Wellons. The bare PCG permutation has a
+	 * poor avalanche and lowbias32 alone correlates consecutive counters, the
+	 * combination passes the tests of RandomQuality.
+	 * Multidimensional counters are packed by pairs in 64 bits and mixed one
+	 * pair at a time into a 64-bit state with the SplitMix64 finalizer. Adding
+	 * a coordinate to the hash of the others would make every row a shifted
+	 * copy of a single 1D stream, the 64-bit mix keeps rows and seeds apart.
+	 */
+	
+	/**
+	 * Hashes an int into 32 well distributed random bits. This is a bijection,
+	 * distinct inputs give distinct outputs.
+	 * @param x the counter
+	 * @return the random bits of {@code x}
+	 */
+	public static int hash(int x) {
+		x = x*747796405 + 0xac564b05;
+		x ^= x >>> 16;
+		x *= 0x7feb352d;
+		x ^= x >>> 15;
+		x *= 0x846ca68b;
+		return x ^ (x >>> 16);
+	}
+	
+	public static int hash(int x, int y) {
+		return (int) (mix(HASH_STATE, pack(x, y)) >>> 32);
+	}
+	
+	public static int hash(int x, int y, int z) {
+		return (int) (mix(mix(HASH_STATE, pack(x, y)), z) >>> 32);
+	}
+	
+	public static int hash(int x, int y, int z, int w) {
+		return (int) (mix(mix(HASH_STATE, pack(x, y)), pack(z, w)) >>> 32);
+	}
+	
+	/** The initial state of the multidimensional hashes, an arbitrary odd constant */
+	private static final long HASH_STATE = 0x3c6ef372fe94f82bL;
+	
+	private static long pack(int x, int y) {
+		return (long) y << 32 | (x & 0xffffffffL);
+	}
+	
+	/** Mixes 64 bits of key into a state, a bijection of the key for a given state */
+	private static long mix(long state, long key) {
+		long z = (state + key) * 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+	
+	/** @return the 24 high bits of {@code h} as a float in range [0,1[ */
+	private static float toUnitFloat(int h) {
+		return (h >>> 8) * 0x1p-24f;
+	}
+	
+	/** Float seeds are hashed by their bits, +0 and -0 being the same seed */
+	private static int seedBits(float s) {
+		return Float.floatToIntBits(s + 0f);
+	}
+	
+	/** @return a random number in range [0,1[ determined by {@code x} */
+	public static float rand(int x) { return toUnitFloat(hash(x)); }
+	/** @return a random number in range [0,1[ determined by {@code (x,y)} */
+	public static float rand(int x, int y) { return toUnitFloat(hash(x, y)); }
+	/** @return a random number in range [0,1[ determined by {@code (x,y,z)} */
+	public static float rand(int x, int y, int z) { return toUnitFloat(hash(x, y, z)); }
+	/** @return a random number in range [0,1[ determined by {@code (x,y,z,w)} */
+	public static float rand(int x, int y, int z, int w) { return toUnitFloat(hash(x, y, z, w)); }
+	
+	public static float rand(Vec2i v) { return rand(v.x, v.y); }
+	public static float rand(Vec4i v) { return rand(v.x, v.y, v.z, v.w); }
+	public static float rand(Vec2 v) { return rand(seedBits(v.x), seedBits(v.y)); }
+	public static float rand(Vec3 v) { return rand(seedBits(v.x), seedBits(v.y), seedBits(v.z)); }
+	public static float rand(Vec4 v) { return rand(seedBits(v.x), seedBits(v.y), seedBits(v.z), seedBits(v.w)); }
+	
+	/**
+	 * Fills {@code dst[off..off+len[} with {@code dst[off+i] = hash(i, seed)},
+	 * large ranges are filled in parallel.
+	 * @param seed the stream, fills with different seeds are independent
+	 */
+	public static void fillHash(int[] dst, int off, int len, int seed) {
+		Objects.checkFromIndexSize(off, len, dst.length);
+		forEachChunk(len, (from, to) -> {
+			for(int i = from; i < to; i++)
+				dst[off+i] = hash(i, seed);
+		});
+	}
+	
+	/**
+	 * Fills {@code dst[off..off+len[} with {@code dst[off+i] = rand(i, seed)},
+	 * large ranges are filled in parallel.
+	 * @param seed the stream, fills with different seeds are independent
+	 */
+	public static void fillRand(float[] dst, int off, int len, int seed) {
+		Objects.checkFromIndexSize(off, len, dst.length);
+		forEachChunk(len, (from, to) -> {
+			for(int i = from; i < to; i++)
+				dst[off+i] = toUnitFloat(hash(i, seed));
+		});
+	}
+	
+	@FunctionalInterface
+	private interface ChunkAction {
+		
+		void apply(int from, int to);
+		
+	}
+	
+	/** Runs an action over {@code [0, len[} in chunks, in parallel if there are several */
+	private static void forEachChunk(int len, ChunkAction action) {
+		if(len <= FILL_CHUNK) {
+			action.apply(0, len);
+			return;
+		}
+		int chunks = (len-1) / FILL_CHUNK + 1;
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int from = c*FILL_CHUNK;
+			action.apply(from, from + Math.min(FILL_CHUNK, len-from));
+		});
+	}
+	
 	/**
 	 * Returns a random signum (either +1 or -1)
 	 * @return a random signum
@@ -125,4 +280,384 @@ public class Mathr {
 		return list.get(randRange(0, list.size()));
 	}
 	
+	/* ------------------------- Explicit generators -------------------------- */
+	
+	public static int randSign(Rng rng) {
+		return rng.nextBoolean() ? -1 : +1;
+	}
+	
+	public static float randSigned(Rng rng) {
+		return 2*rng.nextFloat()-1;
+	}
+	
+	public static float randAngle(Rng rng) {
+		return rng.nextFloat()*TWOPI;
+	}
+	
+	public static float randHalfAngle(Rng rng) {
+		return rng.nextFloat()*PI;
+	}
+	
+	/** Same as {@link #randRange(int, int)} using the given generator */
+	public static int randRange(int min, int max, Rng rng) {
+		return (int) (rng.nextFloat()*(max-min)+min);
+	}
+	
+	/** Same as {@link #randRange(float, float)} using the given generator */
+	public static float randRange(float min, float max, Rng rng) {
+		return rng.nextFloat()*(max-min)+min;
+	}
+	
+	public static <T> T randIn(List<T> list, Rng rng) {
+		return list.get(rng.nextInt(list.size()));
+	}
+	
+	/* --------------------------- Uniform sampling --------------------------- */
+	
+	/*
+	 * Samplers use rejection methods (von Neumann, Marsaglia) rather than random
+	 * angles: they need no trigonometry and are not quantized by the sine table.
+	 */
+	
+	/**
+	 * Draws a point uniformly distributed on the unit circle.
+	 * @param dest the vector to write the point to
+	 * @param rng the generator to use
+	 * @return {@code dest}
+	 */
+	public static Vec2 randOnCircle(Vec2 dest, Rng rng) {
+		float x, y, s;
+		do {
+			x = 2*rng.nextFloat()-1;
+			y = 2*rng.nextFloat()-1;
+			s = x*x + y*y;
+		} while(s >= 1 || s == 0);
+		// doubling the angle of a uniform point of the disk avoids a square root
+		return dest.set((x*x - y*y)/s, 2*x*y/s);
+	}
+	
+	/**
+	 * Draws a point uniformly distributed in the unit disk.
+	 * @param dest the vector to write the point to
+	 * @param rng the generator to use
+	 * @return {@code dest}
+	 */
+	public static Vec2 randInDisk(Vec2 dest, Rng rng) {
+		float x, y;
+		do {
+			x = 2*rng.nextFloat()-1;
+			y = 2*rng.nextFloat()-1;
+		} while(x*x + y*y >= 1);
+		return dest.set(x, y);
+	}
+	
+	/**
+	 * Draws a point uniformly distributed on the unit sphere.
+	 * @param dest the vector to write the point to
+	 * @param rng the generator to use
+	 * @return {@code dest}
+	 */
+	public static Vec3 randOnSphere(Vec3 dest, Rng rng) {
+		float x, y, s;
+		do {
+			x = 2*rng.nextFloat()-1;
+			y = 2*rng.nextFloat()-1;
+			s = x*x + y*y;
+		} while(s >= 1);
+		float k = 2*(float) Math.sqrt(1-s);
+		return dest.set(x*k, y*k, 1-2*s);
+	}
+	
+	/**
+	 * Draws a point uniformly distributed in the unit ball.
+	 * @param dest the vector to write the point to
+	 * @param rng the generator to use
+	 * @return {@code dest}
+	 */
+	public static Vec3 randInBall(Vec3 dest, Rng rng) {
+		float x, y, z;
+		do {
+			x = 2*rng.nextFloat()-1;
+			y = 2*rng.nextFloat()-1;
+			z = 2*rng.nextFloat()-1;
+		} while(x*x + y*y + z*z >= 1);
+		return dest.set(x, y, z);
+	}
+	
+	/**
+	 * Draws a point uniformly distributed on the unit 3-sphere, the unit
+	 * vectors of 4 dimensions (uniformly distributed unit quaternions for
+	 * example).
+	 * @param dest the vector to write the point to
+	 * @param rng the generator to use
+	 * @return {@code dest}
+	 */
+	public static Vec4 randOnHypersphere(Vec4 dest, Rng rng) {
+		float x, y, z, w, s1, s2;
+		do {
+			x = 2*rng.nextFloat()-1;
+			y = 2*rng.nextFloat()-1;
+			s1 = x*x + y*y;
+		} while(s1 >= 1);
+		do {
+			z = 2*rng.nextFloat()-1;
+			w = 2*rng.nextFloat()-1;
+			s2 = z*z + w*w;
+		} while(s2 >= 1 || s2 == 0);
+		float k = (float) Math.sqrt((1-s1)/s2);
+		return dest.set(x, y, z*k, w*k);
+	}
+	
+	/**
+	 * Draws a point uniformly distributed in the unit ball of 4 dimensions.
+	 * @param dest the vector to write the point to
+	 * @param rng the generator to use
+	 * @return {@code dest}
+	 */
+	public static Vec4 randInHyperball(Vec4 dest, Rng rng) {
+		randOnHypersphere(dest, rng);
+		// the radius of a uniform point of the 4-ball is distributed as u^(1/4)
+		return dest.multiplyLocal((float) Math.sqrt(Math.sqrt(rng.nextFloat())));
+	}
+	
+	/** Same as {@link #randOnCircle(Vec2, Rng)} with the generator of the current thread */
+	public static Vec2 randOnCircle(Vec2 dest) { return randOnCircle(dest, Rng.current()); }
+	/** Same as {@link #randInDisk(Vec2, Rng)} with the generator of the current thread */
+	public static Vec2 randInDisk(Vec2 dest) { return randInDisk(dest, Rng.current()); }
+	/** Same as {@link #randOnSphere(Vec3, Rng)} with the generator of the current thread */
+	public static Vec3 randOnSphere(Vec3 dest) { return randOnSphere(dest, Rng.current()); }
+	/** Same as {@link #randInBall(Vec3, Rng)} with the generator of the current thread */
+	public static Vec3 randInBall(Vec3 dest) { return randInBall(dest, Rng.current()); }
+	/** Same as {@link #randOnHypersphere(Vec4, Rng)} with the generator of the current thread */
+	public static Vec4 randOnHypersphere(Vec4 dest) { return randOnHypersphere(dest, Rng.current()); }
+	/** Same as {@link #randInHyperball(Vec4, Rng)} with the generator of the current thread */
+	public static Vec4 randInHyperball(Vec4 dest) { return randInHyperball(dest, Rng.current()); }
+	
+	/* ----------------------------- Bulk sampling ---------------------------- */
+	
+	/** Number of samples drawn by one thread during bulk fills */
+	private static final int FILL_CHUNK = 1 << 16;
+	
+	@FunctionalInterface
+	private interface RangeFill {
+		
+		void fill(int from, int to, Rng rng);
+		
+	}
+	
+	/**
+	 * Fills the samples {@code [from, to[}, in parallel for large ranges.
+	 * <p>
+	 * Large ranges are cut in chunks of fixed size, each filled with its own
+	 * generator split from {@code rng} in order. The samples only depend on the
+	 * state of {@code rng} and on the range length, not on the thread count.
+	 */
+	private static void fill(int from, int to, Rng rng, RangeFill fill) {
+		int count = to-from;
+		if(count <= FILL_CHUNK) {
+			fill.fill(from, to, rng);
+			return;
+		}
+		int chunks = (count-1) / FILL_CHUNK + 1;
+		Rng[] rngs = new Rng[chunks];
+		for(int c = 0; c < chunks; c++)
+			rngs[c] = rng.split();
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int start = from + c*FILL_CHUNK;
+			fill.fill(start, start + Math.min(FILL_CHUNK, to-start), rngs[c]);
+		});
+	}
+	
+	/**
+	 * Fills {@code dest[from..to[} with points uniformly distributed on the unit
+	 * circle. Large ranges are filled in parallel.
+	 */
+	public static void fillOnCircle(Vec2Buffer dest, int from, int to, Rng rng) {
+		Objects.checkFromToIndex(from, to, dest.size);
+		fill(from, to, rng, (f, t, r) -> {
+			Vec2 v = new Vec2();
+			for(int i = f; i < t; i++) {
+				randOnCircle(v, r);
+				dest.x[i] = v.x; dest.y[i] = v.y;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dest[from..to[} with points uniformly distributed in the unit
+	 * disk. Large ranges are filled in parallel.
+	 */
+	public static void fillInDisk(Vec2Buffer dest, int from, int to, Rng rng) {
+		Objects.checkFromToIndex(from, to, dest.size);
+		fill(from, to, rng, (f, t, r) -> {
+			Vec2 v = new Vec2();
+			for(int i = f; i < t; i++) {
+				randInDisk(v, r);
+				dest.x[i] = v.x; dest.y[i] = v.y;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dest[from..to[} with points uniformly distributed on the unit
+	 * sphere. Large ranges are filled in parallel.
+	 */
+	public static void fillOnSphere(Vec3Buffer dest, int from, int to, Rng rng) {
+		Objects.checkFromToIndex(from, to, dest.size);
+		fill(from, to, rng, (f, t, r) -> {
+			Vec3 v = new Vec3();
+			for(int i = f; i < t; i++) {
+				randOnSphere(v, r);
+				dest.x[i] = v.x; dest.y[i] = v.y; dest.z[i] = v.z;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dest[from..to[} with points uniformly distributed in the unit
+	 * ball. Large ranges are filled in parallel.
+	 */
+	public static void fillInBall(Vec3Buffer dest, int from, int to, Rng rng) {
+		Objects.checkFromToIndex(from, to, dest.size);
+		fill(from, to, rng, (f, t, r) -> {
+			Vec3 v = new Vec3();
+			for(int i = f; i < t; i++) {
+				randInBall(v, r);
+				dest.x[i] = v.x; dest.y[i] = v.y; dest.z[i] = v.z;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dest[from..to[} with points uniformly distributed on the unit
+	 * 3-sphere. Large ranges are filled in parallel.
+	 */
+	public static void fillOnHypersphere(Vec4Buffer dest, int from, int to, Rng rng) {
+		Objects.checkFromToIndex(from, to, dest.size);
+		fill(from, to, rng, (f, t, r) -> {
+			Vec4 v = new Vec4();
+			for(int i = f; i < t; i++) {
+				randOnHypersphere(v, r);
+				dest.x[i] = v.x; dest.y[i] = v.y; dest.z[i] = v.z; dest.w[i] = v.w;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dest[from..to[} with points uniformly distributed in the unit
+	 * ball of 4 dimensions. Large ranges are filled in parallel.
+	 */
+	public static void fillInHyperball(Vec4Buffer dest, int from, int to, Rng rng) {
+		Objects.checkFromToIndex(from, to, dest.size);
+		fill(from, to, rng, (f, t, r) -> {
+			Vec4 v = new Vec4();
+			for(int i = f; i < t; i++) {
+				randInHyperball(v, r);
+				dest.x[i] = v.x; dest.y[i] = v.y; dest.z[i] = v.z; dest.w[i] = v.w;
+			}
+		});
+	}
+	
+	private static void checkInterleaved(float[] dst, int off, int count, int dimension) {
+		if(off < 0 || count < 0 || off + (long) count*dimension > dst.length)
+			throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + count + "*" + dimension
+					+ ") out of bounds for length " + dst.length);
+	}
+	
+	/**
+	 * Fills {@code dst} with {@code count} points uniformly distributed on the
+	 * unit circle, interleaved ({@code x0 y0 x1 y1...}) from {@code off}. Large
+	 * fills run in parallel.
+	 */
+	public static void fillOnCircle(float[] dst, int off, int count, Rng rng) {
+		checkInterleaved(dst, off, count, 2);
+		fill(0, count, rng, (f, t, r) -> {
+			Vec2 v = new Vec2();
+			for(int i = off+2*f; i < off+2*t; i += 2) {
+				randOnCircle(v, r);
+				dst[i] = v.x; dst[i+1] = v.y;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dst} with {@code count} points uniformly distributed in the
+	 * unit disk, interleaved ({@code x0 y0 x1 y1...}) from {@code off}. Large
+	 * fills run in parallel.
+	 */
+	public static void fillInDisk(float[] dst, int off, int count, Rng rng) {
+		checkInterleaved(dst, off, count, 2);
+		fill(0, count, rng, (f, t, r) -> {
+			Vec2 v = new Vec2();
+			for(int i = off+2*f; i < off+2*t; i += 2) {
+				randInDisk(v, r);
+				dst[i] = v.x; dst[i+1] = v.y;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dst} with {@code count} points uniformly distributed on the
+	 * unit sphere, interleaved ({@code x0 y0 z0 x1...}) from {@code off}. Large
+	 * fills run in parallel.
+	 */
+	public static void fillOnSphere(float[] dst, int off, int count, Rng rng) {
+		checkInterleaved(dst, off, count, 3);
+		fill(0, count, rng, (f, t, r) -> {
+			Vec3 v = new Vec3();
+			for(int i = off+3*f; i < off+3*t; i += 3) {
+				randOnSphere(v, r);
+				dst[i] = v.x; dst[i+1] = v.y; dst[i+2] = v.z;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dst} with {@code count} points uniformly distributed in the
+	 * unit ball, interleaved ({@code x0 y0 z0 x1...}) from {@code off}. Large
+	 * fills run in parallel.
+	 */
+	public static void fillInBall(float[] dst, int off, int count, Rng rng) {
+		checkInterleaved(dst, off, count, 3);
+		fill(0, count, rng, (f, t, r) -> {
+			Vec3 v = new Vec3();
+			for(int i = off+3*f; i < off+3*t; i += 3) {
+				randInBall(v, r);
+				dst[i] = v.x; dst[i+1] = v.y; dst[i+2] = v.z;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dst} with {@code count} points uniformly distributed on the
+	 * unit 3-sphere, interleaved ({@code x0 y0 z0 w0 x1...}) from {@code off}.
+	 * Large fills run in parallel.
+	 */
+	public static void fillOnHypersphere(float[] dst, int off, int count, Rng rng) {
+		checkInterleaved(dst, off, count, 4);
+		fill(0, count, rng, (f, t, r) -> {
+			Vec4 v = new Vec4();
+			for(int i = off+4*f; i < off+4*t; i += 4) {
+				randOnHypersphere(v, r);
+				dst[i] = v.x; dst[i+1] = v.y; dst[i+2] = v.z; dst[i+3] = v.w;
+			}
+		});
+	}
+	
+	/**
+	 * Fills {@code dst} with {@code count} points uniformly distributed in the
+	 * unit ball of 4 dimensions, interleaved ({@code x0 y0 z0 w0 x1...}) from
+	 * {@code off}. Large fills run in parallel.
+	 */
+	public static void fillInHyperball(float[] dst, int off, int count, Rng rng) {
+		checkInterleaved(dst, off, count, 4);
+		fill(0, count, rng, (f, t, r) -> {
+			Vec4 v = new Vec4();
+			for(int i = off+4*f; i < off+4*t; i += 4) {
+				randInHyperball(v, r);
+				dst[i] = v.x; dst[i+1] = v.y; dst[i+2] = v.z; dst[i+3] = v.w;
+			}
+		});
+	}
+	
 }
@@ -0,0 +1,438 @@
+package fr.wonder.commons.math;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk versions of some {@link Mathf} primitives, working on ranges of float
+ * arrays.
+ * <p>
+ * When the {@code jdk.incubator.vector} module is available (run with
+ * {@code --add-modules jdk.incubator.vector}) these methods use SIMD
+ * instructions, otherwise they fall back to plain scalar loops. The backend is
+ * chosen once when this class is loaded, it can be forced to scalar by setting
+ * the {@code fr.wonder.commons.math.simd} system property to {@code false}.
+ * <p>
+ * Element-wise methods give the same results as their {@link Mathf} counterpart
+ * except where specified. NaN inputs are not supported and signed zeros may
+ * not be preserved by {@code abs}, {@code clamp}, {@code min} and {@code max}.
+ * <p>
+ * Source and destination ranges may be the same array region but must not
+ * partially overlap.
+ */
+public class Mathv {
+	
+	/** The backend, also used by the array versions of the {@link Mathf} functions */
+	static final FloatKernels kernels = loadKernels();
+	
+	private static FloatKernels loadKernels() {
+		if(!Boolean.parseBoolean(System.getProperty("fr.wonder.commons.math.simd", "true")))
+			return new ScalarKernels();
+		if(!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+			return new ScalarKernels();
+		try {
+			// loaded by name so that this class does not link against the incubator module
+			return (FloatKernels) Class.forName("fr.wonder.commons.math.VectorKernels")
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new ScalarKernels();
+		}
+	}
+	
+	private Mathv() {}
+	
+	/**
+	 * Returns whether the SIMD backend is in use.
+	 * @return true if the vector API is used, false if scalar loops are
+	 */
+	public static boolean isAccelerated() {
+		return !(kernels instanceof ScalarKernels);
+	}
+	
+	/**
+	 * Returns the sum of a range of floats.
+	 * <p>
+	 * The SIMD backend adds values in a different order than
+	 * {@link Mathf#sum(float...)}, results differ by at most
+	 * {@code len * ulp(1) * sum(|src[i]|)}. Large ranges are summed in parallel,
+	 * see {@link #sumCompensated(float[], int, int)} for an accurate sum.
+	 * @return the sum of {@code src[off..off+len[}
+	 */
+	public static float sum(float[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		int chunks = chunkCount(len);
+		if(chunks == 1)
+			return kernels.sum(src, off, len);
+		float[] partials = new float[chunks];
+		forEachChunk(len, chunks, (from, to, c) -> partials[c] = kernels.sum(src, off+from, to-from));
+		double s = 0;
+		for(float p : partials)
+			s += p;
+		return (float) s;
+	}
+	
+	/**
+	 * Returns the sum of a range of floats, with a compensated (Kahan-Babuska)
+	 * summation in double precision.
+	 * <p>
+	 * The result is the exact sum rounded to a float unless the range contains
+	 * values differing by more than 2^50, whereas the error of {@link #sum(float[], int, int)}
+	 * grows with the length of the range. This costs about twice as much as
+	 * the plain sum. Large ranges are summed in parallel.
+	 * @return the sum of {@code src[off..off+len[}
+	 */
+	public static float sumCompensated(float[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		int chunks = chunkCount(len);
+		double[] sums = new double[chunks], compensations = new double[chunks];
+		forEachChunk(len, chunks, (from, to, c) -> {
+			double s = 0, comp = 0;
+			for(int i = off+from; i < off+to; i++) {
+				double x = src[i], t = s+x;
+				comp += Math.abs(s) >= Math.abs(x) ? (s-t)+x : (x-t)+s;
+				s = t;
+			}
+			sums[c] = s;
+			compensations[c] = comp;
+		});
+		double s = 0, comp = 0;
+		for(int c = 0; c < chunks; c++) {
+			double x = sums[c], t = s+x;
+			comp += (Math.abs(s) >= Math.abs(x) ? (s-t)+x : (x-t)+s) + compensations[c];
+			s = t;
+		}
+		return (float) (s+comp);
+	}
+	
+	/**
+	 * Returns the minimum of a non-empty range of floats, large ranges are
+	 * processed in parallel.
+	 * @throws IllegalArgumentException if {@code len} is 0
+	 */
+	public static float min(float[] src, int off, int len) {
+		checkNotEmpty(src, off, len);
+		int chunks = chunkCount(len);
+		if(chunks == 1)
+			return kernels.min(src, off, len);
+		float[] partials = new float[chunks];
+		forEachChunk(len, chunks, (from, to, c) -> partials[c] = kernels.min(src, off+from, to-from));
+		return kernels.min(partials, 0, chunks);
+	}
+	
+	/**
+	 * Returns the maximum of a non-empty range of floats, large ranges are
+	 * processed in parallel.
+	 * @throws IllegalArgumentException if {@code len} is 0
+	 */
+	public static float max(float[] src, int off, int len) {
+		checkNotEmpty(src, off, len);
+		int chunks = chunkCount(len);
+		if(chunks == 1)
+			return kernels.max(src, off, len);
+		float[] partials = new float[chunks];
+		forEachChunk(len, chunks, (from, to, c) -> partials[c] = kernels.max(src, off+from, to-from));
+		return kernels.max(partials, 0, chunks);
+	}
+	
+	/**
+	 * Returns the index of the minimum of a non-empty range of floats, the first
+	 * one if there are several. Large ranges are processed in parallel.
+	 * @return the index in {@code src} of the minimum of {@code src[off..off+len[}
+	 * @throws IllegalArgumentException if {@code len} is 0
+	 */
+	public static int minIndex(float[] src, int off, int len) {
+		checkNotEmpty(src, off, len);
+		int chunks = chunkCount(len);
+		if(chunks == 1)
+			return minIndexRange(src, off, off+len);
+		int[] partials = new int[chunks];
+		forEachChunk(len, chunks, (from, to, c) -> partials[c] = minIndexRange(src, off+from, off+to));
+		int index = partials[0];
+		for(int c = 1; c < chunks; c++) {
+			if(src[partials[c]] < src[index])
+				index = partials[c];
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns the index of the maximum of a non-empty range of floats, the first
+	 * one if there are several. Large ranges are processed in parallel.
+	 * @return the index in {@code src} of the maximum of {@code src[off..off+len[}
+	 * @throws IllegalArgumentException if {@code len} is 0
+	 */
+	public static int maxIndex(float[] src, int off, int len) {
+		checkNotEmpty(src, off, len);
+		int chunks = chunkCount(len);
+		if(chunks == 1)
+			return maxIndexRange(src, off, off+len);
+		int[] partials = new int[chunks];
+		forEachChunk(len, chunks, (from, to, c) -> partials[c] = maxIndexRange(src, off+from, off+to));
+		int index = partials[0];
+		for(int c = 1; c < chunks; c++) {
+			if(src[partials[c]] > src[index])
+				index = partials[c];
+		}
+		return index;
+	}
+	
+	private static int minIndexRange(float[] src, int from, int to) {
+		int index = from;
+		float min = src[from];
+		for(int i = from+1; i < to; i++) {
+			if(src[i] < min) {
+				min = src[i];
+				index = i;
+			}
+		}
+		return index;
+	}
+	
+	private static int maxIndexRange(float[] src, int from, int to) {
+		int index = from;
+		float max = src[from];
+		for(int i = from+1; i < to; i++) {
+			if(src[i] > max) {
+				max = src[i];
+				index = i;
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * The minimum, maximum, sum and mean of a range of floats, computed in a
+	 * single pass by {@link Mathv#summarize(float[], int, int, Summary)}.
+	 */
+	public static class Summary {
+		
+		/** Number of summarized values */
+		public int count;
+		public float min, max;
+		/** Indices of the first minimum and maximum in the source array */
+		public int minIndex, maxIndex;
+		/** The compensated sum of the values */
+		public double sum;
+		/** Rounding error of {@link #sum} while chunks are being merged */
+		private double compensation;
+		
+		/** @return the mean of the summarized values */
+		public float mean() {
+			return (float) (sum/count);
+		}
+		
+		private void set(Summary s) {
+			count = s.count;
+			min = s.min;
+			max = s.max;
+			minIndex = s.minIndex;
+			maxIndex = s.maxIndex;
+			sum = s.sum;
+			compensation = s.compensation;
+		}
+		
+		/** Merges the summary of the range following the one of this summary */
+		private void append(Summary next) {
+			if(next.min < min) {
+				min = next.min;
+				minIndex = next.minIndex;
+			}
+			if(next.max > max) {
+				max = next.max;
+				maxIndex = next.maxIndex;
+			}
+			double t = sum+next.sum;
+			compensation += (Math.abs(sum) >= Math.abs(next.sum) ? (sum-t)+next.sum : (next.sum-t)+sum) + next.compensation;
+			sum = t;
+			count += next.count;
+		}
+		
+		@Override
+		public String toString() {
+			return "Summary[count=" + count + ", min=" + min + ", max=" + max + ", sum=" + sum + ", mean=" + mean() + "]";
+		}
+		
+	}
+	
+	/**
+	 * Computes the minimum, maximum (and their first indices), sum and mean of
+	 * a non-empty range of floats in a single pass. The sum is compensated like
+	 * {@link #sumCompensated(float[], int, int)}, large ranges are processed in
+	 * parallel.
+	 * @param dest the summary to write the results to
+	 * @return {@code dest}
+	 * @throws IllegalArgumentException if {@code len} is 0
+	 */
+	public static Summary summarize(float[] src, int off, int len, Summary dest) {
+		checkNotEmpty(src, off, len);
+		int chunks = chunkCount(len);
+		if(chunks == 1) {
+			summarizeRange(src, off, off+len, dest);
+		} else {
+			Summary[] partials = new Summary[chunks];
+			forEachChunk(len, chunks, (from, to, c) -> partials[c] = summarizeRange(src, off+from, off+to, new Summary()));
+			dest.set(partials[0]);
+			for(int c = 1; c < chunks; c++)
+				dest.append(partials[c]);
+		}
+		dest.sum += dest.compensation;
+		dest.compensation = 0;
+		return dest;
+	}
+	
+	private static Summary summarizeRange(float[] src, int from, int to, Summary dest) {
+		float min = src[from], max = min;
+		int minIndex = from, maxIndex = from;
+		double s = 0, comp = 0;
+		for(int i = from; i < to; i++) {
+			float f = src[i];
+			if(f < min) {
+				min = f;
+				minIndex = i;
+			}
+			if(f > max) {
+				max = f;
+				maxIndex = i;
+			}
+			double t = s+f;
+			comp += Math.abs(s) >= Math.abs(f) ? (s-t)+f : (f-t)+s;
+			s = t;
+		}
+		dest.count = to-from;
+		dest.min = min;
+		dest.max = max;
+		dest.minIndex = minIndex;
+		dest.maxIndex = maxIndex;
+		dest.sum = s;
+		dest.compensation = comp;
+		return dest;
+	}
+	
+	/** {@code dst[i] = Mathf.clamp(src[i], min, max)} */
+	public static void clamp(float[] src, int srcOff, float[] dst, int dstOff, int len, float min, float max) {
+		checkRanges(src, srcOff, dst, dstOff, len);
+		kernels.clamp(src, srcOff, dst, dstOff, len, min, max);
+	}
+	
+	/** {@code dst[i] = Mathf.lerp(a[i], b[i], t)} */
+	public static void lerp(float[] a, int aOff, float[] b, int bOff, float[] dst, int dstOff, int len, float t) {
+		checkRanges(a, aOff, dst, dstOff, len);
+		Objects.checkFromIndexSize(bOff, len, b.length);
+		kernels.lerp(a, aOff, b, bOff, dst, dstOff, len, t);
+	}
+	
+	/** {@code dst[i] = Mathf.abs(src[i])} */
+	public static void abs(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		checkRanges(src, srcOff, dst, dstOff, len);
+		kernels.abs(src, srcOff, dst, dstOff, len);
+	}
+	
+	/**
+	 * {@code dst[i] = Mathf.mod(src[i], m)}
+	 * <p>
+	 * The SIMD backend computes {@code src[i] - m*trunc(src[i]/m)} instead of
+	 * using the exact float remainder, the result may differ from the scalar one by
+	 * a few ulps of {@code src[i]} and is only defined for {@code |src[i]/m| < 2^31}.
+	 */
+	public static void mod(float[] src, int srcOff, float[] dst, int dstOff, int len, float m) {
+		checkRanges(src, srcOff, dst, dstOff, len);
+		kernels.mod(src, srcOff, dst, dstOff, len, m);
+	}
+	
+	/**
+	 * {@code dst[i] = Mathf.fract(src[i])}, see
+	 * {@link #mod(float[], int, float[], int, int, float)} for precision.
+	 */
+	public static void fract(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		mod(src, srcOff, dst, dstOff, len, 1);
+	}
+	
+	/** {@code dst[i] = Mathf.smoothstep(edge0, edge1, src[i])} */
+	public static void smoothstep(float[] src, int srcOff, float[] dst, int dstOff, int len, float edge0, float edge1) {
+		checkRanges(src, srcOff, dst, dstOff, len);
+		kernels.smoothstep(src, srcOff, dst, dstOff, len, edge0, edge1);
+	}
+	
+	/** {@code dst[i] = Mathf.sigmoid(src[i])} */
+	public static void sigmoid(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		checkRanges(src, srcOff, dst, dstOff, len);
+		kernels.sigmoid(src, srcOff, dst, dstOff, len);
+	}
+	
+	/**
+	 * A bulk operation over float array ranges, like
+	 * {@link Mathf#exp(float[], int, float[], int, int)}.
+	 */
+	@FunctionalInterface
+	public interface ArrayKernel {
+		
+		void apply(float[] src, int srcOff, float[] dst, int dstOff, int len);
+		
+	}
+	
+	/** Ranges shorter than this are not worth splitting across threads */
+	private static final int PARALLEL_CHUNK = 1 << 15;
+	
+	/**
+	 * Applies an element-wise kernel to a range in parallel, using the common
+	 * fork-join pool. The range is cut in chunks that are given to the kernel
+	 * separately, ranges too short to benefit from it are processed by the
+	 * current thread.
+	 * <pre>
+	 * Mathv.parallel(Mathf::exp, src, 0, dst, 0, src.length);
+	 * Mathv.parallel((s, so, d, doff, l) -&gt; Mathv.clamp(s, so, d, doff, l, 0, 1), src, 0, dst, 0, src.length);
+	 * </pre>
+	 * The kernel must only write {@code dst[dstOff+i]} from {@code src[srcOff+i]},
+	 * reductions cannot be computed this way.
+	 */
+	public static void parallel(ArrayKernel kernel, float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		checkRanges(src, srcOff, dst, dstOff, len);
+		int chunks = chunkCount(len);
+		if(chunks == 1)
+			kernel.apply(src, srcOff, dst, dstOff, len);
+		else
+			forEachChunk(len, chunks, (from, to, c) -> kernel.apply(src, srcOff+from, dst, dstOff+from, to-from));
+	}
+	
+	/**
+	 * Returns the number of chunks a range of length {@code len} is cut in, 1 if
+	 * it is too short to be processed in parallel.
+	 */
+	private static int chunkCount(int len) {
+		if(len < 2*PARALLEL_CHUNK)
+			return 1;
+		return Math.min(len / PARALLEL_CHUNK, 4*ForkJoinPool.getCommonPoolParallelism());
+	}
+	
+	@FunctionalInterface
+	private interface ChunkAction {
+		
+		void apply(int from, int to, int chunk);
+		
+	}
+	
+	/**
+	 * Runs an action over the {@code chunks} chunks of {@code [0, len[} in
+	 * parallel. Chunk boundaries only depend on {@code len} and {@code chunks}
+	 * so that reductions combining per-chunk results in order are deterministic.
+	 */
+	private static void forEachChunk(int len, int chunks, ChunkAction action) {
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int from = (int) ((long) len * c / chunks), to = (int) ((long) len * (c+1) / chunks);
+			action.apply(from, to, c);
+		});
+	}
+	
+	private static void checkRanges(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+	}
+	
+	private static void checkNotEmpty(float[] src, int off, int len) {
+		Objects.checkFromIndexSize(off, len, src.length);
+		if(len == 0)
+			throw new IllegalArgumentException("Empty range given.");
+	}
+	
+}
@@ -0,0 +1,283 @@
+package fr.wonder.commons.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Statistical quality tests for the random generators of this library.
+ * <p>
+ * A generator is given as a function from a counter to random bits, which is
+ * exactly what the counter-based hashes of {@link Mathr} are. Stateful
+ * generators can be tested by ignoring the counter. The tests are:
+ * <ul>
+ * <li>uniformity: chi-square of the 12 high bits over 4096 buckets</li>
+ * <li>pairs: chi-square of the 6 high bits of consecutive outputs over 4096
+ * cells, which detects correlations between neighbour counters</li>
+ * <li>bit balance: the frequency of ones of each tested bit</li>
+ * <li>serial correlation: the correlation of consecutive outputs</li>
+ * <li>avalanche, for hashes only: the probability that flipping one input
+ * bit flips each output bit, ideally 1/2</li>
+ * <li>overlap, for streams of a hash (rows of a 2D hash, fills with different
+ * seeds...): the greatest number of equal outputs found at the same shift
+ * between two streams, which detects streams that are shifted copies of each
+ * other</li>
+ * </ul>
+ * Every statistic except avalanche and overlap is reported as a z-score,
+ * values beyond {@link #Z_LIMIT} in absolute value are very unlikely for a
+ * good generator.
+ * <p>
+ * {@link #main(String[])} tests the built-in generators and prints a JSON
+ * report:
+ * <pre>
+ * java -p fr.wonder.commons.math.jar -m fr.wonder.commons.math/fr.wonder.commons.math.RandomQuality [samples]
+ * </pre>
+ */
+public class RandomQuality {
+
+	/** z-scores beyond this are failures, a good generator exceeds it about once in a million tests */
+	public static final double Z_LIMIT = 5;
+	/** Avalanche biases beyond this are failures */
+	public static final double AVALANCHE_LIMIT = .01;
+	/** Overlaps of this many values are failures, random 32 bits values rarely coincide twice at the same shift */
+	public static final int OVERLAP_LIMIT = 8;
+	/** Greatest number of coinciding values recorded by the overlap test */
+	private static final int MAX_COINCIDENCES = 1 << 22;
+
+	private static final int BUCKET_BITS = 12, BUCKETS = 1 << BUCKET_BITS;
+
+	/** The results of the tests of a generator */
+	public static class Result {
+
+		public final String name;
+		public final long samples;
+		public final double uniformityZ, pairsZ, bitBalanceZ, serialCorrelationZ;
+		/** The greatest |P(flip)-1/2| over all input/output bit pairs, NaN if not tested */
+		public final double avalancheBias;
+		/** The greatest number of equal outputs at the same shift between two streams, -1 if not tested */
+		public final int overlap;
+
+		Result(String name, long samples, double uniformityZ, double pairsZ, double bitBalanceZ,
+				double serialCorrelationZ, double avalancheBias, int overlap) {
+			this.name = name;
+			this.samples = samples;
+			this.uniformityZ = uniformityZ;
+			this.pairsZ = pairsZ;
+			this.bitBalanceZ = bitBalanceZ;
+			this.serialCorrelationZ = serialCorrelationZ;
+			this.avalancheBias = avalancheBias;
+			this.overlap = overlap;
+		}
+
+		/** @return true if every statistic is within its limit */
+		public boolean passed() {
+			return Math.abs(uniformityZ) < Z_LIMIT && Math.abs(pairsZ) < Z_LIMIT &&
+					Math.abs(bitBalanceZ) < Z_LIMIT && Math.abs(serialCorrelationZ) < Z_LIMIT &&
+					!(avalancheBias >= AVALANCHE_LIMIT) && overlap < OVERLAP_LIMIT;
+		}
+
+		public String toJson() {
+			return String.format(Locale.ROOT,
+					"{\"name\":\"%s\",\"samples\":%d,\"uniformityZ\":%.3f,\"pairsZ\":%.3f,\"bitBalanceZ\":%.3f,"
+					+ "\"serialCorrelationZ\":%.3f,\"avalancheBias\":%s,\"overlap\":%s,\"passed\":%b}",
+					name, samples, uniformityZ, pairsZ, bitBalanceZ, serialCorrelationZ,
+					Double.isNaN(avalancheBias) ? "null" : String.format(Locale.ROOT, "%.5f", avalancheBias),
+					overlap < 0 ? "null" : String.valueOf(overlap), passed());
+		}
+
+		@Override
+		public String toString() {
+			return toJson();
+		}
+
+	}
+
+	private RandomQuality() {}
+
+	/** The z-score of a chi-square statistic with {@code df} degrees of freedom */
+	private static double chiSquareZ(long[] counts, long total) {
+		double expected = (double) total / counts.length, chi2 = 0;
+		for(long c : counts)
+			chi2 += (c-expected)*(c-expected) / expected;
+		int df = counts.length-1;
+		// Wilson-Hilferty, (chi2/df)^(1/3) is nearly normal
+		double v = 2./(9*df);
+		return (Math.cbrt(chi2/df) - (1-v)) / Math.sqrt(v);
+	}
+
+	/**
+	 * Tests a generator over the counters {@code [0, samples[}.
+	 * @param name the name of the generator in the result
+	 * @param generator maps counters to random bits
+	 * @param bits the number of high bits that are random, 32 for hashes and
+	 *        24 for float outputs for example
+	 * @param samples the number of outputs to test
+	 * @return the results of the tests
+	 */
+	public static Result test(String name, IntUnaryOperator generator, int bits, int samples) {
+		if(bits < BUCKET_BITS || bits > 32)
+			throw new IllegalArgumentException("Invalid number of random bits: " + bits);
+		if(samples < 2)
+			throw new IllegalArgumentException("At least 2 samples are required");
+		long[] buckets = new long[BUCKETS], pairs = new long[BUCKETS];
+		long[] ones = new long[bits];
+		double sumX = 0, sumXX = 0, sumXY = 0;
+		int previous = generator.applyAsInt(0);
+		for(int i = 0; i < samples; i++) {
+			int h = i == 0 ? previous : generator.applyAsInt(i);
+			buckets[h >>> (32-BUCKET_BITS)]++;
+			if(i > 0)
+				pairs[(previous >>> 26 << 6) | (h >>> 26)]++;
+			for(int b = 0; b < bits; b++)
+				ones[b] += (h >>> (31-b)) & 1;
+			double x = (h >>> 8) * 0x1p-24, y = (previous >>> 8) * 0x1p-24;
+			sumX += x;
+			sumXX += x*x;
+			if(i > 0)
+				sumXY += x*y;
+			previous = h;
+		}
+		double maxBalanceZ = 0;
+		for(long o : ones) {
+			double z = (o - samples/2.) / Math.sqrt(samples/4.);
+			if(Math.abs(z) > Math.abs(maxBalanceZ))
+				maxBalanceZ = z;
+		}
+		double mean = sumX/samples, variance = sumXX/samples - mean*mean;
+		double correlation = (sumXY/(samples-1) - mean*mean) / variance;
+		return new Result(name, samples,
+				chiSquareZ(buckets, samples),
+				chiSquareZ(pairs, samples-1),
+				maxBalanceZ,
+				correlation * Math.sqrt(samples),
+				Double.NaN, -1);
+	}
+
+	/**
+	 * Tests a hash, like {@link #test(String, IntUnaryOperator, int, int)} with
+	 * 32 random bits, and measures its avalanche over {@code samples/32}
+	 * inputs.
+	 */
+	public static Result testHash(String name, IntUnaryOperator hash, int samples) {
+		Result r = test(name, hash, 32, samples);
+		int inputs = Math.max(1, samples/32);
+		long[][] flips = new long[32][32];
+		for(int i = 0; i < inputs; i++) {
+			// spread the inputs over the whole int range
+			int x = i * 0x9e3779b9, h = hash.applyAsInt(x);
+			for(int in = 0; in < 32; in++) {
+				int d = h ^ hash.applyAsInt(x ^ (1 << in));
+				for(int out = 0; out < 32; out++)
+					flips[in][out] += (d >>> out) & 1;
+			}
+		}
+		double bias = 0;
+		for(long[] row : flips)
+			for(long f : row)
+				bias = Math.max(bias, Math.abs((double) f/inputs - .5));
+		return new Result(name, samples, r.uniformityZ, r.pairsZ, r.bitBalanceZ, r.serialCorrelationZ, bias, -1);
+	}
+
+	/**
+	 * Tests streams of a hash, like {@link #test(String, IntUnaryOperator, int, int)}
+	 * over the streams laid end to end, and measures their overlap: every pair
+	 * of equal outputs, within a stream or across two streams, is counted at
+	 * its shift, the difference of the counters of the two outputs.
+	 * <p>
+	 * For a good hash few of the {@code (streams*length)^2/2^33} expected
+	 * coincidences fall at the same shift of the same streams. Two streams that
+	 * are shifted copies of each other share every value of their overlapping
+	 * part at one shift.
+	 * @param name the name of the generator in the result
+	 * @param hash maps a stream and a counter to 32 random bits
+	 * @param streams the number of streams
+	 * @param length the number of counters of each stream
+	 * @return the results of the tests
+	 */
+	public static Result testStreams(String name, IntBinaryOperator hash, int streams, int length) {
+		if(streams < 1 || length < 1 || (long) streams*length > 1 << 26)
+			throw new IllegalArgumentException("Invalid stream count or length: " + streams + "x" + length);
+		int samples = streams*length;
+		Result r = test(name, i -> hash.applyAsInt(i / length, i % length), 32, samples);
+		// sort the outputs with their positions to find the equal ones
+		long[] values = new long[samples];
+		for(int s = 0, i = 0; s < streams; s++)
+			for(int c = 0; c < length; c++, i++)
+				values[i] = (long) hash.applyAsInt(s, c) << 32 | i;
+		Arrays.sort(values);
+		long[] coincidences = new long[1024];
+		int count = 0, overlap = 0;
+		for(int start = 0, end; start < samples; start = end) {
+			long value = values[start] >>> 32;
+			for(end = start+1; end < samples && values[end] >>> 32 == value; end++);
+			if(end-start > 64) {
+				// too many equal values to list their pairs, the generator is broken anyway
+				overlap = Math.max(overlap, end-start);
+				continue;
+			}
+			for(int a = start; a < end; a++) {
+				for(int b = a+1; b < end && count < MAX_COINCIDENCES; b++) {
+					// sorted positions, pa < pb
+					int pa = (int) values[a], pb = (int) values[b];
+					int sa = pa / length, sb = pb / length, shift = pb % length - pa % length + length;
+					if(count == coincidences.length)
+						coincidences = Arrays.copyOf(coincidences, count*2);
+					coincidences[count++] = ((long) sa*streams + sb) << 32 | shift;
+				}
+			}
+		}
+		Arrays.sort(coincidences, 0, count);
+		for(int start = 0, end; start < count; start = end) {
+			for(end = start+1; end < count && coincidences[end] == coincidences[start]; end++);
+			overlap = Math.max(overlap, end-start);
+		}
+		return new Result(name, samples, r.uniformityZ, r.pairsZ, r.bitBalanceZ, r.serialCorrelationZ, Double.NaN, overlap);
+	}
+
+	/** Converts a float in range [0,1[ to 24 high random bits */
+	private static int floatBits(float f) {
+		return (int) (f * 0x1p24f) << 8;
+	}
+
+	/** @return the results of the tests of the generators of this library */
+	public static List<Result> testBuiltIns(int samples) {
+		List<Result> results = new ArrayList<>();
+		results.add(testHash("Mathr.hash(x)", Mathr::hash, samples));
+		results.add(testHash("Mathr.hash(x, 0)", x -> Mathr.hash(x, 0), samples));
+		results.add(test("Mathr.hash(x, y) rows", i -> Mathr.hash(i & 1023, i >> 10), 32, samples));
+		results.add(test("Mathr.hash(x, y, z, w) blocks", i -> Mathr.hash(i & 15, (i >> 4) & 15, (i >> 8) & 255, i >> 16), 32, samples));
+		int streams = Math.max(16, (int) Math.sqrt(samples));
+		// the rows of hash(x, y) are also the fills of fillHash with seeds y
+		results.add(testStreams("Mathr.hash(x, y) row overlap", (y, x) -> Mathr.hash(x, y), streams, streams));
+		results.add(testStreams("Mathr.hash(x, y) column overlap", Mathr::hash, streams, streams));
+		results.add(testStreams("Mathr.hash(x, y, z) column overlap", (s, z) -> Mathr.hash(s & 63, s >> 6, z), streams, streams));
+		results.add(testStreams("Mathr.hash(x, y, z, w) column overlap", (s, w) -> Mathr.hash(s & 63, s >> 6, 0, w), streams, streams));
+		results.add(test("Mathr.rand1(float)", i -> floatBits(Mathr.rand1(i)), 24, samples));
+		results.add(test("Mathr.rand1(float) small steps", i -> floatBits(Mathr.rand1(i * 1e-4f)), 24, samples));
+		results.add(test("Mathr.rand2(float)", i -> floatBits(Mathr.rand2(i)), 24, samples));
+		Rng rng = new Rng(0);
+		results.add(test("Rng.nextInt()", i -> rng.nextInt(), 32, samples));
+		return results;
+	}
+
+	/** @return the results as a JSON array, one object per line */
+	public static String toJson(List<Result> results) {
+		StringBuilder sb = new StringBuilder("[\n");
+		for(int i = 0; i < results.size(); i++)
+			sb.append("  ").append(results.get(i).toJson()).append(i == results.size()-1 ? "\n" : ",\n");
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Tests the built-in generators with 10^7 samples, or the number of samples
+	 * given as argument, and prints a JSON report to the standard output.
+	 */
+	public static void main(String[] args) {
+		int samples = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+		System.out.println(toJson(testBuiltIns(samples)));
+	}
+
+}
@@ -0,0 +1,155 @@
+package fr.wonder.commons.math;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A fast seedable and splittable pseudo-random number generator.
+ * <p>
+ * This is the SplitMix64 algorithm of {@link java.util.SplittableRandom}
+ * (64 bits of state and a per-instance odd increment, 2^64 period), with the
+ * float-oriented helpers of {@link Mathr}. Instances are not thread safe, a
+ * generator is meant to be owned by a single thread: to feed several threads
+ * from one seed, give each one a generator obtained with {@link #split()},
+ * generators split this way produce statistically independent sequences.
+ * <p>
+ * As a {@link RandomGenerator} it also works with the streams and the
+ * distributions of the JDK ({@link #ints()}, {@link #doubles()},
+ * {@link #nextGaussian()}, {@link #nextExponential()}...). {@link #nextLong()},
+ * {@link #nextInt()} and {@link #nextDouble()} give the values of
+ * {@code SplittableRandom}, {@link #nextInt(int)} is specialized with
+ * Lemire's multiply-and-reject method and gives different values than the
+ * interface default.
+ * <p>
+ * The static methods of {@link Mathf} and {@link Mathr} that do not take a
+ * generator use {@link ThreadLocalRandom} or {@link #current()}, which do not
+ * contend between threads either but cannot be seeded.
+ */
+public class Rng implements RandomGenerator {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long seed;
+	private final long gamma;
+
+	private Rng(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * Creates a generator from a seed, generators created with the same seed
+	 * produce the same sequence.
+	 */
+	public Rng(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/** Creates a generator with an unpredictable seed */
+	public Rng() {
+		this(ThreadLocalRandom.current().nextLong());
+	}
+
+	private static final ThreadLocal<Rng> CURRENT = ThreadLocal.withInitial(Rng::new);
+
+	/**
+	 * Returns the generator of the calling thread, seeded unpredictably. It
+	 * must not be handed to other threads.
+	 * @return the generator of the current thread
+	 */
+	public static Rng current() {
+		return CURRENT.get();
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	/** Derives an odd increment with enough bit transitions to be a good gamma */
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return n < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+	/**
+	 * Returns a new generator that shares no state with this one, this
+	 * generator advances by two values.
+	 * @return a new independent generator
+	 */
+	public Rng split() {
+		return new Rng(mix64(seed += gamma), mixGamma(seed += gamma));
+	}
+
+	/** @return a uniformly distributed long */
+	@Override
+	public long nextLong() {
+		return mix64(seed += gamma);
+	}
+
+	/** @return a uniformly distributed int */
+	@Override
+	public int nextInt() {
+		return mix32(seed += gamma);
+	}
+
+	/**
+	 * Returns an int in range [0,bound[, without the bias of a plain modulo.
+	 * @param bound the exclusive upper bound
+	 * @return a random int in range [0,bound[
+	 * @throws IllegalArgumentException if {@code bound} is not positive
+	 */
+	@Override
+	public int nextInt(int bound) {
+		if(bound <= 0)
+			throw new IllegalArgumentException("Non-positive bound: " + bound);
+		// Lemire's method, multiply and reject the few values that would bias the result
+		long m = (nextInt() & 0xffffffffL) * bound;
+		if((m & 0xffffffffL) < bound) {
+			long threshold = (1L << 32) % bound;
+			while((m & 0xffffffffL) < threshold)
+				m = (nextInt() & 0xffffffffL) * bound;
+		}
+		return (int) (m >>> 32);
+	}
+
+	/** @return a random boolean */
+	@Override
+	public boolean nextBoolean() {
+		return nextInt() < 0;
+	}
+
+	/** @return a random float in range [0,1[, with 24 bits of randomness */
+	@Override
+	public float nextFloat() {
+		return (nextInt() >>> 8) * 0x1p-24f;
+	}
+
+	/** @return a random double in range [0,1[, with 53 bits of randomness */
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1p-53;
+	}
+
+	/**
+	 * Fills a range of an array with random floats in range [0,1[.
+	 * @return {@code dst}
+	 */
+	public float[] nextFloats(float[] dst, int off, int len) {
+		Objects.checkFromIndexSize(off, len, dst.length);
+		for(int i = off; i < off+len; i++)
+			dst[i] = (nextInt() >>> 8) * 0x1p-24f;
+		return dst;
+	}
+
+}
@@ -0,0 +1,93 @@
+package fr.wonder.commons.math;
+
+/**
+ * Plain loops over the {@link Mathf} primitives, used when the vector API
+ * is not available.
+ */
+class ScalarKernels implements FloatKernels {
+
+	@Override
+	public float sum(float[] src, int off, int len) {
+		float s = 0;
+		for(int i = off; i < off+len; i++)
+			s += src[i];
+		return s;
+	}
+
+	@Override
+	public float min(float[] src, int off, int len) {
+		float m = src[off];
+		for(int i = off+1; i < off+len; i++)
+			m = Mathf.min(m, src[i]);
+		return m;
+	}
+
+	@Override
+	public float max(float[] src, int off, int len) {
+		float m = src[off];
+		for(int i = off+1; i < off+len; i++)
+			m = Mathf.max(m, src[i]);
+		return m;
+	}
+
+	@Override
+	public void clamp(float[] src, int srcOff, float[] dst, int dstOff, int len, float min, float max) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.clamp(src[srcOff+i], min, max);
+	}
+
+	@Override
+	public void lerp(float[] a, int aOff, float[] b, int bOff, float[] dst, int dstOff, int len, float t) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.lerp(a[aOff+i], b[bOff+i], t);
+	}
+
+	@Override
+	public void abs(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.abs(src[srcOff+i]);
+	}
+
+	@Override
+	public void mod(float[] src, int srcOff, float[] dst, int dstOff, int len, float m) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.mod(src[srcOff+i], m);
+	}
+
+	@Override
+	public void smoothstep(float[] src, int srcOff, float[] dst, int dstOff, int len, float edge0, float edge1) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.smoothstep(edge0, edge1, src[srcOff+i]);
+	}
+
+	@Override
+	public void sigmoid(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.sigmoid(src[srcOff+i]);
+	}
+
+	@Override
+	public void exp(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.exp(src[srcOff+i]);
+	}
+
+	@Override
+	public void ln(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.ln(src[srcOff+i]);
+	}
+
+	@Override
+	public void sqrt(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = (float) Math.sqrt(src[srcOff+i]);
+	}
+
+	@Override
+	public void invSqrt(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.invSqrt(src[srcOff+i]);
+	}
+
+}
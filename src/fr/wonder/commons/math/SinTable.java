@@ -0,0 +1,206 @@
+package fr.wonder.commons.math;
+
+import java.util.Objects;
+
+import fr.wonder.commons.math.vectors.Vec2;
+
+/**
+ * A table of pre-calculated sines used to compute sines and cosines quickly.
+ * <p>
+ * The table covers one period with a power-of-two number of entries so that
+ * angles are wrapped with a bit mask instead of a float modulo. Lookups either
+ * take the nearest entry or interpolate linearly between the two surrounding
+ * entries, which costs a few more operations but lowers the error
+ * drastically:
+ * <table>
+ * <caption>maximum absolute error for angles in [-20, 20]</caption>
+ * <tr><th>size</th><th>nearest</th><th>interpolated</th></tr>
+ * <tr><td>1024</td><td>3.1e-3</td><td>5.0e-6</td></tr>
+ * <tr><td>4096</td><td>7.7e-4</td><td>1.6e-6</td></tr>
+ * <tr><td>65536</td><td>4.9e-5</td><td>1.6e-6</td></tr>
+ * </table>
+ * Past a few thousand entries interpolated tables are limited by the float
+ * precision of the angle rather than by their size.
+ * <p>
+ * Angles are expected to be reasonably small, past {@code 2^31/size}
+ * periods the result is meaningless (float angles that large have lost
+ * most of their precision anyway).
+ * <p>
+ * The table used by {@link Mathf#sin(float)} and {@link Mathf#cos(float)} is
+ * returned by {@link Mathf#getSinTable()}, see there how to configure it.
+ * Tables are immutable and can be shared between threads.
+ */
+public class SinTable {
+
+	/** The table, with {@code size+1} entries so that interpolation never wraps */
+	private final float[] table;
+	private final int size, mask;
+	/** Number of table entries per radian */
+	private final float scale;
+	private final boolean interpolate;
+
+	/**
+	 * Creates a new sine table.
+	 * @param size the number of entries over one period, rounded up to the
+	 *        next power of two
+	 * @param interpolate whether lookups interpolate between entries
+	 * @throws IllegalArgumentException if {@code size} is not in range {@code [4, 2^30]}
+	 */
+	public SinTable(int size, boolean interpolate) {
+		if(size < 4 || size > 1 << 30)
+			throw new IllegalArgumentException("Invalid table size: " + size);
+		size = Integer.highestOneBit(size-1) << 1;
+		this.size = size;
+		this.mask = size-1;
+		this.scale = (float) (size / (2*Math.PI));
+		this.interpolate = interpolate;
+		this.table = new float[size+1];
+		for(int i = 0; i < size; i++)
+			table[i] = (float) Math.sin(i * 2*Math.PI / size);
+		// make the remarkable values exact
+		table[0] = table[size/2] = table[size] = 0;
+		table[size/4] = 1;
+		table[size*3/4] = -1;
+	}
+
+	/** @return the number of entries of this table over one period */
+	public int getSize() {
+		return size;
+	}
+
+	/** @return true if lookups interpolate between entries */
+	public boolean isInterpolated() {
+		return interpolate;
+	}
+
+	/**
+	 * Looks up the sine of {@code f/scale}, where {@code f} is a table position,
+	 * {@code shift} entries further. Shifting after the position is split keeps
+	 * cosines consistent with sines.
+	 */
+	private float lookup(float f, int shift) {
+		int i = (int) f;
+		if(f < i) i--; // floor for negative values
+		if(!interpolate) {
+			// round to the nearest entry
+			if(f-i >= .5f) i++;
+			return table[(i+shift) & mask];
+		}
+		int j = (i+shift) & mask;
+		float a = table[j];
+		return a + (table[j+1] - a) * (f-i);
+	}
+
+	/**
+	 * Returns the sine of an angle using this table.
+	 * @param rad the angle in radians
+	 * @return the sine of the angle
+	 */
+	public float sin(float rad) {
+		return lookup(rad*scale, 0);
+	}
+
+	/**
+	 * Returns the cosine of an angle using this table.
+	 * @param rad the angle in radians
+	 * @return the cosine of the angle
+	 */
+	public float cos(float rad) {
+		return lookup(rad*scale, size >> 2);
+	}
+
+	/**
+	 * Computes both the sine and the cosine of an angle, sharing the index
+	 * computation between both lookups.
+	 * @param rad the angle in radians
+	 * @param dest the array to write the sine (at {@code off}) and the cosine
+	 *        (at {@code off+1}) to
+	 * @return {@code dest}
+	 */
+	public float[] sinCos(float rad, float[] dest, int off) {
+		Objects.checkFromIndexSize(off, 2, dest.length);
+		float f = rad*scale;
+		int i = (int) f;
+		if(f < i) i--;
+		float t = f-i;
+		int q = size >> 2;
+		if(!interpolate) {
+			if(t >= .5f) i++;
+			dest[off] = table[i & mask];
+			dest[off+1] = table[(i+q) & mask];
+		} else {
+			int s = i & mask, c = (i+q) & mask;
+			dest[off] = table[s] + (table[s+1]-table[s]) * t;
+			dest[off+1] = table[c] + (table[c+1]-table[c]) * t;
+		}
+		return dest;
+	}
+
+	/**
+	 * Computes both the sine and the cosine of an angle, the unit vector of
+	 * polar angle {@code rad}.
+	 * @param rad the angle in radians
+	 * @param dest the vector to write the cosine (in {@code x}) and the sine (in
+	 *        {@code y}) to
+	 * @return {@code dest}
+	 */
+	public Vec2 sinCos(float rad, Vec2 dest) {
+		float f = rad*scale;
+		int i = (int) f;
+		if(f < i) i--;
+		float t = f-i;
+		int q = size >> 2;
+		if(!interpolate) {
+			if(t >= .5f) i++;
+			return dest.set(table[(i+q) & mask], table[i & mask]);
+		}
+		int s = i & mask, c = (i+q) & mask;
+		return dest.set(table[c] + (table[c+1]-table[c]) * t, table[s] + (table[s+1]-table[s]) * t);
+	}
+
+	/**
+	 * Computes the sines of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}, both ranges may be the same.
+	 */
+	public void sin(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = lookup(src[srcOff+i]*scale, 0);
+	}
+
+	/**
+	 * Computes the cosines of {@code src[srcOff..srcOff+len[} into
+	 * {@code dst[dstOff..dstOff+len[}, both ranges may be the same.
+	 */
+	public void cos(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		int q = size >> 2;
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = lookup(src[srcOff+i]*scale, q);
+	}
+
+	/**
+	 * Computes the sines and cosines of {@code src[srcOff..srcOff+len[} into
+	 * {@code sinDst[dstOff..dstOff+len[} and {@code cosDst[dstOff..dstOff+len[}.
+	 * {@code src} may be one of the destination arrays.
+	 */
+	public void sinCos(float[] src, int srcOff, float[] sinDst, float[] cosDst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, sinDst.length);
+		Objects.checkFromIndexSize(dstOff, len, cosDst.length);
+		int q = size >> 2;
+		for(int i = 0; i < len; i++) {
+			float f = src[srcOff+i]*scale;
+			sinDst[dstOff+i] = lookup(f, 0);
+			cosDst[dstOff+i] = lookup(f, q);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SinTable[" + size + (interpolate ? ", interpolated]" : "]");
+	}
+
+}
@@ -0,0 +1,213 @@
+package fr.wonder.commons.math;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels built on the incubating vector API.
+ * <p>
+ * This class must only be loaded when the {@code jdk.incubator.vector} module
+ * is resolved, see {@link Mathv}. Each kernel processes as many full vectors
+ * as possible and finishes the tail with the scalar {@link Mathf} methods.
+ * <p>
+ * Element-wise kernels use the same sequence of float operations as their
+ * scalar counterparts and give the same results for non-NaN inputs, except
+ * for the sign of zeros in {@code abs}, {@code clamp}, {@code min} and
+ * {@code max} (the lanewise operations give {@code abs(-0) = +0} and order
+ * {@code -0} before {@code +0}, {@link Mathf} does neither), for {@code mod}
+ * (see {@link Mathv#mod(float[], int, float[], int, int, float)}) and for
+ * {@code sigmoid} of values beyond about 700 in magnitude, where
+ * {@link Mathf#exp(float)} overflows and the kernel saturates to 0 or 1.
+ */
+class VectorKernels implements FloatKernels {
+	
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	
+	@Override
+	public float sum(float[] src, int off, int len) {
+		int bound = SPECIES.loopBound(len);
+		FloatVector acc = FloatVector.zero(SPECIES);
+		int i = 0;
+		for(; i < bound; i += SPECIES.length())
+			acc = acc.add(FloatVector.fromArray(SPECIES, src, off+i));
+		float s = acc.reduceLanes(VectorOperators.ADD);
+		for(; i < len; i++)
+			s += src[off+i];
+		return s;
+	}
+
+	@Override
+	public float min(float[] src, int off, int len) {
+		int bound = SPECIES.loopBound(len);
+		float m = src[off];
+		int i = 0;
+		if(bound > 0) {
+			FloatVector acc = FloatVector.fromArray(SPECIES, src, off);
+			for(i = SPECIES.length(); i < bound; i += SPECIES.length())
+				acc = acc.min(FloatVector.fromArray(SPECIES, src, off+i));
+			m = acc.reduceLanes(VectorOperators.MIN);
+		}
+		for(; i < len; i++)
+			m = Mathf.min(m, src[off+i]);
+		return m;
+	}
+
+	@Override
+	public float max(float[] src, int off, int len) {
+		int bound = SPECIES.loopBound(len);
+		float m = src[off];
+		int i = 0;
+		if(bound > 0) {
+			FloatVector acc = FloatVector.fromArray(SPECIES, src, off);
+			for(i = SPECIES.length(); i < bound; i += SPECIES.length())
+				acc = acc.max(FloatVector.fromArray(SPECIES, src, off+i));
+			m = acc.reduceLanes(VectorOperators.MAX);
+		}
+		for(; i < len; i++)
+			m = Mathf.max(m, src[off+i]);
+		return m;
+	}
+
+	@Override
+	public void clamp(float[] src, int srcOff, float[] dst, int dstOff, int len, float min, float max) {
+		int bound = SPECIES.loopBound(len);
+		int i = 0;
+		for(; i < bound; i += SPECIES.length()) {
+			FloatVector v = FloatVector.fromArray(SPECIES, src, srcOff+i);
+			v.max(min).min(max).intoArray(dst, dstOff+i);
+		}
+		for(; i < len; i++)
+			dst[dstOff+i] = Mathf.clamp(src[srcOff+i], min, max);
+	}
+
+	@Override
+	public void lerp(float[] a, int aOff, float[] b, int bOff, float[] dst, int dstOff, int len, float t) {
+		int bound = SPECIES.loopBound(len);
+		float s = 1-t;
+		int i = 0;
+		for(; i < bound; i += SPECIES.length()) {
+			FloatVector va = FloatVector.fromArray(SPECIES, a, aOff+i);
+			FloatVector vb = FloatVector.fromArray(SPECIES, b, bOff+i);
+			va.mul(s).add(vb.mul(t)).intoArray(dst, dstOff+i);
+		}
+		for(; i < len; i++)
+			dst[dstOff+i] = Mathf.lerp(a[aOff+i], b[bOff+i], t);
+	}
+
+	@Override
+	public void abs(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		int bound = SPECIES.loopBound(len);
+		int i = 0;
+		for(; i < bound; i += SPECIES.length()) {
+			FloatVector v = FloatVector.fromArray(SPECIES, src, srcOff+i);
+			v.lanewise(VectorOperators.ABS).intoArray(dst, dstOff+i);
+		}
+		for(; i < len; i++)
+			dst[dstOff+i] = Mathf.abs(src[srcOff+i]);
+	}
+
+	@Override
+	public void mod(float[] src, int srcOff, float[] dst, int dstOff, int len, float m) {
+		int bound = SPECIES.loopBound(len);
+		int i = 0;
+		for(; i < bound; i += SPECIES.length()) {
+			FloatVector v = FloatVector.fromArray(SPECIES, src, srcOff+i);
+			// truncated quotient through an int round trip, there is no float remainder lane operation
+			FloatVector q = (FloatVector) v.div(m)
+					.convert(VectorOperators.F2I, 0)
+					.convert(VectorOperators.I2F, 0);
+			FloatVector r = v.sub(q.mul(m));
+			VectorMask<Float> negative = r.compare(VectorOperators.LT, 0);
+			r.add(m, negative).intoArray(dst, dstOff+i);
+		}
+		for(; i < len; i++)
+			dst[dstOff+i] = Mathf.mod(src[srcOff+i], m);
+	}
+
+	@Override
+	public void smoothstep(float[] src, int srcOff, float[] dst, int dstOff, int len, float edge0, float edge1) {
+		int bound = SPECIES.loopBound(len);
+		float range = edge1 - edge0;
+		int i = 0;
+		for(; i < bound; i += SPECIES.length()) {
+			FloatVector x = FloatVector.fromArray(SPECIES, src, srcOff+i);
+			x = x.sub(edge0).div(range).max(0).min(1);
+			FloatVector s = FloatVector.broadcast(SPECIES, 3).sub(x.mul(2));
+			x.mul(x).mul(s).intoArray(dst, dstOff+i);
+		}
+		for(; i < len; i++)
+			dst[dstOff+i] = Mathf.smoothstep(edge0, edge1, src[srcOff+i]);
+	}
+
+	/* Mathf.exp builds its result from the bits of a float to integer conversion,
+	 * the vector API does not compile that conversion to a single instruction
+	 * and a plain vectorized loop ends up slower than the scalar one.
+	 * Between EXP_LOW and EXP_HIGH the converted value t is already an integer,
+	 * a multiple of 64. Adding EXP_SHIFT moves it exactly into [2^29, 2^30[,
+	 * where floats are 64 apart, so the float bits give t/64 without any
+	 * conversion. The shift also removes the bias between the exponents of
+	 * doubles and floats. Sigmoid only needs t in that range, exp keeps the
+	 * scalar loop since below EXP_LOW Mathf.exp returns subnormals. */
+	private static final float EXP_LOW = 0x38100000, EXP_HIGH = 0x47F00000;
+	private static final float EXP_SHIFT = 0x20000000 - 0x38000000;
+	private static final int EXP_SHIFT_ORIGIN = Float.floatToRawIntBits(0x1p29f);
+	
+	@Override
+	public void sigmoid(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		int bound = SPECIES.loopBound(len);
+		int i = 0;
+		for(; i < bound; i += SPECIES.length()) {
+			FloatVector x = FloatVector.fromArray(SPECIES, src, srcOff+i);
+			// same as Mathf.exp(-x), out of range values saturate to the smallest normal float or to infinity
+			FloatVector t = x.mul(-1512775f).add(1072632447f).max(EXP_LOW).min(EXP_HIGH).add(EXP_SHIFT);
+			FloatVector e = t.reinterpretAsInts().sub(EXP_SHIFT_ORIGIN).lanewise(VectorOperators.LSHL, 9).reinterpretAsFloats();
+			FloatVector.broadcast(SPECIES, 1).div(e.add(1)).intoArray(dst, dstOff+i);
+		}
+		for(; i < len; i++)
+			dst[dstOff+i] = Mathf.sigmoid(src[srcOff+i]);
+	}
+
+	@Override
+	public void exp(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.exp(src[srcOff+i]);
+	}
+
+	@Override
+	public void ln(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		// Mathf.ln divides in double precision, a float division would not give
+		// the same results and double lanes would halve the throughput
+		for(int i = 0; i < len; i++)
+			dst[dstOff+i] = Mathf.ln(src[srcOff+i]);
+	}
+
+	@Override
+	public void sqrt(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		int bound = SPECIES.loopBound(len);
+		int i = 0;
+		for(; i < bound; i += SPECIES.length())
+			FloatVector.fromArray(SPECIES, src, srcOff+i).lanewise(VectorOperators.SQRT).intoArray(dst, dstOff+i);
+		for(; i < len; i++)
+			dst[dstOff+i] = (float) Math.sqrt(src[srcOff+i]);
+	}
+
+	@Override
+	public void invSqrt(float[] src, int srcOff, float[] dst, int dstOff, int len) {
+		int bound = SPECIES.loopBound(len);
+		int i = 0;
+		for(; i < bound; i += SPECIES.length()) {
+			FloatVector x = FloatVector.fromArray(SPECIES, src, srcOff+i);
+			IntVector bits = x.reinterpretAsInts();
+			FloatVector y = IntVector.broadcast(bits.species(), 0x5f3759df)
+					.sub(bits.lanewise(VectorOperators.ASHR, 1)).reinterpretAsFloats();
+			FloatVector x2 = x.mul(.5f);
+			y.mul(FloatVector.broadcast(SPECIES, 1.5f).sub(x2.mul(y).mul(y))).intoArray(dst, dstOff+i);
+		}
+		for(; i < len; i++)
+			dst[dstOff+i] = Mathf.invSqrt(src[srcOff+i]);
+	}
+
+}
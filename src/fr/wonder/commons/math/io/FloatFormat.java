@@ -0,0 +1,265 @@
+package fr.wonder.commons.math.io;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * A fixed or scientific float format that appends to a {@link StringBuilder}
+ * without creating intermediate objects, unlike {@link String#format}.
+ * <p>
+ * Values are rounded half up from their exact value, the output is the same
+ * as {@code String.format(Locale.ROOT, "%.nf")} or {@code "%.ne"} except in
+ * rare ties where {@link String#format} rounds the shortest decimal
+ * representation of the value instead. The output never depends on the
+ * default locale. Only values whose scaled digits cannot be computed in a
+ * long (below about {@code 1e-20} or beyond {@code 4e18} in scientific
+ * notation) are formatted through a {@link BigDecimal}. In fixed notation,
+ * values beyond {@code 1e17} are written with all their exact digits where
+ * {@link String#format} pads with zeros.
+ * <p>
+ * Instances are immutable.
+ */
+public final class FloatFormat {
+
+	/** The greatest number of decimals, floats have about 7 significant digits */
+	public static final int MAX_PRECISION = 9;
+
+	/** The format of the {@code toString} methods of vectors, same as {@code %+.2e} */
+	public static final FloatFormat VECTOR = scientific(2).withSign();
+	/** A scientific format with enough digits to read back exactly the same floats */
+	public static final FloatFormat EXACT = scientific(8);
+
+	private static final double LOG10_2 = Math.log10(2);
+	private static final double[] DOUBLE_POWERS = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12 };
+	private static final long[] LONG_POWERS = new long[19];
+	/** Powers of 5 that fit in a long */
+	private static final long[] FIVE_POWERS = new long[28];
+	static {
+		LONG_POWERS[0] = FIVE_POWERS[0] = 1;
+		for(int i = 1; i < LONG_POWERS.length; i++)
+			LONG_POWERS[i] = LONG_POWERS[i-1]*10;
+		for(int i = 1; i < FIVE_POWERS.length; i++)
+			FIVE_POWERS[i] = FIVE_POWERS[i-1]*5;
+	}
+
+	private final boolean scientific, sign;
+	private final int precision;
+
+	private FloatFormat(boolean scientific, int precision, boolean sign) {
+		if(precision < 0 || precision > MAX_PRECISION)
+			throw new IllegalArgumentException("Invalid precision: " + precision);
+		this.scientific = scientific;
+		this.precision = precision;
+		this.sign = sign;
+	}
+
+	/**
+	 * Creates a fixed-point format, {@code 123.46} with 2 decimals.
+	 * @param decimals the number of digits after the decimal point, up to {@link #MAX_PRECISION}
+	 * @throws IllegalArgumentException if {@code decimals} is out of range
+	 */
+	public static FloatFormat fixed(int decimals) {
+		return new FloatFormat(false, decimals, false);
+	}
+
+	/**
+	 * Creates a scientific format, {@code 1.23e+02} with 2 decimals.
+	 * @param decimals the number of digits after the decimal point, up to {@link #MAX_PRECISION}
+	 * @throws IllegalArgumentException if {@code decimals} is out of range
+	 */
+	public static FloatFormat scientific(int decimals) {
+		return new FloatFormat(true, decimals, false);
+	}
+
+	/**
+	 * Returns the same format, writing a '+' before non-negative values.
+	 * Does not affect the used instance.
+	 * @return a new format
+	 */
+	public FloatFormat withSign() {
+		return new FloatFormat(scientific, precision, true);
+	}
+
+	/** @return whether values are written in scientific notation */
+	public boolean isScientific() {
+		return scientific;
+	}
+
+	/** @return the number of digits after the decimal point */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Returns {@code round(a*10^s)}, rounded half up, when it can be computed
+	 * exactly with primitives.
+	 * @param a a positive finite value
+	 * @return the rounded value, or -1 if the slow path must be used
+	 */
+	private static long scaled(float a, int s) {
+		if(s >= 0) {
+			if(s >= DOUBLE_POWERS.length)
+				return scaledWide(a, s);
+			// exact, a has 24 significant bits and 5^12 < 2^28
+			double p = a * DOUBLE_POWERS[s];
+			if(p >= 0x1p62)
+				return -1;
+			long n = (long) p;
+			return p-n >= .5 ? n+1 : n;
+		}
+		if(a >= 0x1p62 || -s >= LONG_POWERS.length)
+			return -1;
+		// the fractional part of a cannot change the rounding, 10^-s/2 is an integer
+		long i = (long) a, d = LONG_POWERS[-s];
+		return i%d >= d/2 ? i/d+1 : i/d;
+	}
+
+	/**
+	 * Same as {@link #scaled(float, int)} for scales too large for the double
+	 * product to be exact, {@code a = m*2^q} is multiplied by {@code 5^s} over
+	 * 128 bits and shifted by {@code q+s}.
+	 */
+	private static long scaledWide(float a, int s) {
+		if(s >= FIVE_POWERS.length)
+			return -1;
+		int bits = Float.floatToRawIntBits(a), exponent = bits >>> 23;
+		long m = bits & 0x7fffff;
+		if(exponent == 0)
+			exponent = 1;
+		else
+			m |= 1 << 23;
+		int shift = 150 - exponent - s;
+		long hi = Math.multiplyHigh(m, FIVE_POWERS[s]), lo = m * FIVE_POWERS[s];
+		if(shift <= 0)
+			return -1;
+		// keep one more bit than needed for the rounding
+		int k = shift-1;
+		if(k >= 64) {
+			lo = k >= 128 ? 0 : hi >>> (k-64);
+			hi = 0;
+		} else if(k > 0) {
+			lo = (lo >>> k) | (hi << (64-k));
+			hi >>>= k;
+		}
+		if(hi != 0 || lo < 0)
+			return -1;
+		return (lo >>> 1) + (lo & 1);
+	}
+
+	/** Appends the {@code width} last digits of {@code v} */
+	private static void appendDigits(StringBuilder sb, long v, int width) {
+		for(int i = width-1; i >= 0; i--)
+			sb.append((char) ('0' + v / LONG_POWERS[i] % 10));
+	}
+
+	/**
+	 * Appends a formatted value.
+	 * @param sb the builder to append to
+	 * @param f the value to format
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb, float f) {
+		if(f != f)
+			return sb.append("NaN");
+		if(Float.floatToRawIntBits(f) < 0) {
+			sb.append('-');
+			f = -f;
+		} else if(sign) {
+			sb.append('+');
+		}
+		if(f == Float.POSITIVE_INFINITY)
+			return sb.append("Infinity");
+		return scientific ? appendScientific(sb, f) : appendFixed(sb, f);
+	}
+
+	private StringBuilder appendFixed(StringBuilder sb, float a) {
+		long n = scaled(a, precision);
+		if(n < 0)
+			return sb.append(new BigDecimal(a).setScale(precision, RoundingMode.HALF_UP).toPlainString());
+		sb.append(n / LONG_POWERS[precision]);
+		if(precision > 0) {
+			sb.append('.');
+			appendDigits(sb, n, precision);
+		}
+		return sb;
+	}
+
+	private StringBuilder appendScientific(StringBuilder sb, float a) {
+		long n = 0;
+		int e = 0;
+		if(a != 0) {
+			// estimate the decimal exponent, then fix it so that n has precision+1 digits
+			e = (int) Math.floor(Math.getExponent(a) * LOG10_2);
+			while(true) {
+				n = scaled(a, precision-e);
+				if(n < 0)
+					return appendScientificSlow(sb, a);
+				if(n >= LONG_POWERS[precision+1])
+					e++;
+				else if(n < LONG_POWERS[precision])
+					e--;
+				else
+					break;
+			}
+		}
+		sb.append((char) ('0' + n / LONG_POWERS[precision]));
+		if(precision > 0) {
+			sb.append('.');
+			appendDigits(sb, n, precision);
+		}
+		return appendExponent(sb, e);
+	}
+
+	private StringBuilder appendScientificSlow(StringBuilder sb, float a) {
+		BigDecimal d = new BigDecimal(a).round(new MathContext(precision+1, RoundingMode.HALF_UP));
+		String digits = d.unscaledValue().toString();
+		sb.append(digits.charAt(0));
+		if(precision > 0) {
+			sb.append('.');
+			for(int i = 1; i <= precision; i++)
+				sb.append(i < digits.length() ? digits.charAt(i) : '0');
+		}
+		return appendExponent(sb, digits.length()-1 - d.scale());
+	}
+
+	private static StringBuilder appendExponent(StringBuilder sb, int e) {
+		sb.append('e').append(e < 0 ? '-' : '+');
+		if(e < 0)
+			e = -e;
+		if(e < 10)
+			sb.append('0');
+		return sb.append(e);
+	}
+
+	/**
+	 * Appends a formatted value to any appendable. Prefer
+	 * {@link #appendTo(StringBuilder, float)}, other appendables receive a
+	 * temporary string.
+	 * @param out the appendable to write to
+	 * @param f the value to format
+	 * @return {@code out}
+	 * @throws IOException if {@code out} throws
+	 */
+	public Appendable appendTo(Appendable out, float f) throws IOException {
+		if(out instanceof StringBuilder)
+			return appendTo((StringBuilder) out, f);
+		return out.append(appendTo(new StringBuilder(16), f));
+	}
+
+	/**
+	 * Formats a single value.
+	 * @param f the value to format
+	 * @return a new string
+	 */
+	public String format(float f) {
+		return appendTo(new StringBuilder(16), f).toString();
+	}
+
+	@Override
+	public String toString() {
+		return (sign ? "%+." : "%.") + precision + (scientific ? 'e' : 'f');
+	}
+
+}
@@ -0,0 +1,209 @@
+package fr.wonder.commons.math.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import fr.wonder.commons.math.vectors.Vec2Buffer;
+import fr.wonder.commons.math.vectors.Vec3Buffer;
+import fr.wonder.commons.math.vectors.Vec4Buffer;
+
+/**
+ * Bulk loaders of delimited numeric text files, such as point clouds exported
+ * as CSV or whitespace-separated columns.
+ * <p>
+ * Numbers are separated by any run of spaces, tabs, line breaks, commas or
+ * semicolons and are parsed with {@link NumberParser}, {@code NaN} and
+ * {@code Infinity} included. Files are memory-mapped
+ * and cut in segments of 16MB parsed in parallel, there is no limit on the
+ * file size other than the number of values fitting in an array.
+ * <p>
+ * Vectors are read component by component ({@code x0 y0 z0 x1 y1 z1...}),
+ * the line layout does not matter.
+ */
+public class NumberFiles {
+
+	/** Size of the file segments parsed in parallel */
+	private static final int SEGMENT = 1 << 24;
+	/** Longest number accepted, segments are mapped this far past their end to read their last number */
+	private static final int MAX_TOKEN = 1 << 10;
+
+	private NumberFiles() {}
+
+	private static boolean isSeparator(byte c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',' || c == ';';
+	}
+
+	/** A growable array of floats */
+	private static class FloatList {
+
+		float[] values;
+		int size;
+
+		FloatList(int capacity) {
+			values = new float[Math.max(16, capacity)];
+		}
+
+		void add(float f) {
+			if(size == values.length)
+				values = Arrays.copyOf(values, size + (size >> 1));
+			values[size++] = f;
+		}
+
+	}
+
+	/**
+	 * Parses the numbers of {@code text[from, to[} that start before {@code end}.
+	 * @param offset the position of {@code text[0]} in the file, for error messages
+	 * @param truncated whether the text is cut after {@code to}
+	 */
+	private static void parse(byte[] text, int from, int end, int to, long offset, boolean truncated, FloatList dst) {
+		int i = from;
+		while(true) {
+			while(i < end && isSeparator(text[i]))
+				i++;
+			if(i >= end)
+				return;
+			int start = i;
+			while(i < to && !isSeparator(text[i]))
+				i++;
+			if(i == to && truncated)
+				throw new NumberFormatException("Number longer than " + MAX_TOKEN + " bytes at byte " + (offset+start));
+			long bits = NumberParser.scanFloat(text, start, i);
+			if(bits == NumberParser.INVALID)
+				throw new NumberFormatException("Invalid number \"" + new String(text, start, i-start, StandardCharsets.ISO_8859_1)
+						+ "\" at byte " + (offset+start));
+			dst.add(Float.intBitsToFloat((int) bits));
+		}
+	}
+
+	/**
+	 * Parses all the numbers of a range of ASCII text.
+	 * @param text the text to parse
+	 * @param from the index of the first byte, inclusive
+	 * @param to the index of the last byte, exclusive
+	 * @return the numbers, in order
+	 * @throws NumberFormatException if the text contains an invalid number
+	 */
+	public static float[] readFloats(byte[] text, int from, int to) {
+		Objects.checkFromToIndex(from, to, text.length);
+		FloatList values = new FloatList((to-from) / 8);
+		parse(text, from, to, to, 0, false, values);
+		return Arrays.copyOf(values.values, values.size);
+	}
+
+	/** Parses the numbers starting in the {@code k}-th segment of a file */
+	private static FloatList readSegment(FileChannel channel, long fileSize, int k) throws IOException {
+		long start = (long) k*SEGMENT, end = Math.min(fileSize, start+SEGMENT);
+		// map one byte before, to know whether the segment starts in the middle of a number
+		long mapStart = Math.max(0, start-1), mapEnd = Math.min(fileSize, end+MAX_TOKEN);
+		MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, mapStart, mapEnd-mapStart);
+		byte[] text = new byte[(int) (mapEnd-mapStart)];
+		mapped.get(text);
+		int from = (int) (start-mapStart);
+		if(from > 0 && !isSeparator(text[0])) {
+			// the first number belongs to the previous segment
+			while(from < text.length && !isSeparator(text[from]))
+				from++;
+		}
+		FloatList values = new FloatList((int) (end-start) / 8);
+		parse(text, from, (int) (end-mapStart), text.length, mapStart, mapEnd < fileSize, values);
+		return values;
+	}
+
+	/**
+	 * Reads all the numbers of a text file.
+	 * @param path the file to read
+	 * @return the numbers, in order
+	 * @throws IOException if the file cannot be read
+	 * @throws NumberFormatException if the file contains an invalid number
+	 */
+	public static float[] readFloats(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int segments = (int) ((size+SEGMENT-1) / SEGMENT);
+			IntStream indices = IntStream.range(0, segments);
+			if(segments > 1)
+				indices = indices.parallel();
+			FloatList[] parts;
+			try {
+				parts = indices.mapToObj(k -> {
+					try {
+						return readSegment(channel, size, k);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}).toArray(FloatList[]::new);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			long total = 0;
+			for(FloatList p : parts)
+				total += p.size;
+			if(total > Integer.MAX_VALUE-8)
+				throw new IOException("Too many values in " + path + ": " + total);
+			float[] values = new float[(int) total];
+			int off = 0;
+			for(FloatList p : parts) {
+				System.arraycopy(p.values, 0, values, off, p.size);
+				off += p.size;
+			}
+			return values;
+		}
+	}
+
+	private static float[] readComponents(Path path, int dimension) throws IOException {
+		float[] values = readFloats(path);
+		if(values.length % dimension != 0)
+			throw new IOException(path + " contains " + values.length + " values, not a multiple of " + dimension);
+		return values;
+	}
+
+	/**
+	 * Reads a file of 2D vectors, {@code x0 y0 x1 y1...}.
+	 * @throws IOException if the file cannot be read or the number of values is odd
+	 * @throws NumberFormatException if the file contains an invalid number
+	 */
+	public static Vec2Buffer readVec2(Path path) throws IOException {
+		float[] values = readComponents(path, 2);
+		Vec2Buffer buffer = new Vec2Buffer(values.length/2);
+		for(int i = 0, j = 0; i < buffer.size; i++, j += 2)
+			buffer.set(i, values[j], values[j+1]);
+		return buffer;
+	}
+
+	/**
+	 * Reads a file of 3D vectors, {@code x0 y0 z0 x1 y1 z1...}.
+	 * @throws IOException if the file cannot be read or the number of values is not a multiple of 3
+	 * @throws NumberFormatException if the file contains an invalid number
+	 */
+	public static Vec3Buffer readVec3(Path path) throws IOException {
+		float[] values = readComponents(path, 3);
+		Vec3Buffer buffer = new Vec3Buffer(values.length/3);
+		for(int i = 0, j = 0; i < buffer.size; i++, j += 3)
+			buffer.set(i, values[j], values[j+1], values[j+2]);
+		return buffer;
+	}
+
+	/**
+	 * Reads a file of 4D vectors, {@code x0 y0 z0 w0 x1 y1 z1 w1...}.
+	 * @throws IOException if the file cannot be read or the number of values is not a multiple of 4
+	 * @throws NumberFormatException if the file contains an invalid number
+	 */
+	public static Vec4Buffer readVec4(Path path) throws IOException {
+		float[] values = readComponents(path, 4);
+		Vec4Buffer buffer = new Vec4Buffer(values.length/4);
+		for(int i = 0, j = 0; i < buffer.size; i++, j += 4)
+			buffer.set(i, values[j], values[j+1], values[j+2], values[j+3]);
+		return buffer;
+	}
+
+}
@@ -0,0 +1,358 @@
+package fr.wonder.commons.math.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Allocation-free parsers of decimal floats and ints, over ranges of
+ * {@link CharSequence}s and of ASCII {@code byte[]}s.
+ * <p>
+ * Floats follow the grammar {@code [+-]?(digits(.digits?)?|.digits)([eE][+-]?digits)?}
+ * or {@code [+-]?(NaN|Infinity)}, the way {@link Float#toString(float)} and
+ * {@link FloatFormat} write non-finite values, with no surrounding
+ * whitespace: hexadecimal floats and type suffixes are rejected. Results are exactly those of
+ * {@link Float#parseFloat(String)}: values with at most 18 significant digits
+ * and a small exponent are converted with one exact floating point operation,
+ * only the remaining ones (more digits, exponents beyond 22 or halfway
+ * cases) go through {@link Float#parseFloat(String)} and allocate a string.
+ * <p>
+ * Failures are reported without exceptions: the {@code parse*} methods taking
+ * a {@code fallback} return it when the text is not a valid number. A
+ * {@code NaN} fallback is only ambiguous for the text {@code NaN}, use
+ * {@code isFloat} to tell them apart. The methods without fallback throw a
+ * {@link NumberFormatException} instead.
+ */
+public class NumberParser {
+
+	/** Powers of 10 that are exact floats */
+	private static final float[] FLOAT_POWERS = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+	/** Powers of 10 that are exact doubles */
+	private static final double[] DOUBLE_POWERS = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	/** Significant digits that always fit in a long */
+	private static final int MAX_DIGITS = 18;
+	/** Exponents are not accumulated past this, the result is 0 or infinite long before */
+	private static final int MAX_EXPONENT = 100_000;
+	/** Returned by the scanners on failure, out of the int range and of the float bits */
+	static final long INVALID = Long.MIN_VALUE;
+
+	private NumberParser() {}
+
+	/**
+	 * Converts {@code mantissa*10^exponent} to the nearest float when this can
+	 * be done exactly with a single operation.
+	 * @return the float, or NaN if the slow path must be used
+	 */
+	private static float toFloat(long mantissa, int exponent) {
+		if(mantissa == 0)
+			return 0;
+		if(mantissa < 1L << 24 && exponent >= -10 && exponent <= 10) {
+			// both operands are exact floats, the operation rounds correctly
+			return exponent < 0 ? mantissa / FLOAT_POWERS[-exponent] : mantissa * FLOAT_POWERS[exponent];
+		}
+		if(mantissa < 1L << 53 && exponent >= -22 && exponent <= 22) {
+			double d = exponent < 0 ? mantissa / DOUBLE_POWERS[-exponent] : mantissa * DOUBLE_POWERS[exponent];
+			// d is correctly rounded, rounding it again to a float is only wrong
+			// if d lies exactly halfway between two floats
+			if((Double.doubleToRawLongBits(d) & 0x1fffffffL) != 0x10000000L)
+				return (float) d;
+		}
+		return Float.NaN;
+	}
+
+	/** @return the scanned bits of a float */
+	private static long bits(float f) {
+		return Float.floatToRawIntBits(f) & 0xffffffffL;
+	}
+
+	/** @return the bits of NaN, or of an infinity of the given sign */
+	private static long special(boolean nan, boolean negative) {
+		return bits(nan ? Float.NaN : negative ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Parses a float from a range of a char sequence.
+	 * @param s the text to parse
+	 * @param from the index of the first char, inclusive
+	 * @param to the index of the last char, exclusive
+	 * @param fallback the value returned if the range is not a valid float
+	 * @return the parsed value, or {@code fallback}
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public static float parseFloat(CharSequence s, int from, int to, float fallback) {
+		long bits = scanFloat(s, from, to);
+		return bits == INVALID ? fallback : Float.intBitsToFloat((int) bits);
+	}
+
+	/** @return the bits of the float of the range, or {@link #INVALID} */
+	static long scanFloat(CharSequence s, int from, int to) {
+		Objects.checkFromToIndex(from, to, s.length());
+		int i = from;
+		boolean negative = false;
+		if(i < to && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+			negative = s.charAt(i++) == '-';
+		if(i < to && (s.charAt(i) == 'N' || s.charAt(i) == 'I')) {
+			String word = s.charAt(i) == 'N' ? "NaN" : "Infinity";
+			if(to-i != word.length())
+				return INVALID;
+			for(int k = 0; k < word.length(); k++) {
+				if(s.charAt(i+k) != word.charAt(k))
+					return INVALID;
+			}
+			return special(word.charAt(0) == 'N', negative);
+		}
+		long mantissa = 0;
+		int exponent = 0, significant = 0, digits = 0;
+		boolean truncated = false;
+		for(int d; i < to && (d = s.charAt(i) - '0') >= 0 && d <= 9; i++, digits++) {
+			if(significant < MAX_DIGITS) {
+				mantissa = mantissa*10 + d;
+				if(mantissa != 0) significant++;
+			} else {
+				exponent++;
+				truncated |= d != 0;
+			}
+		}
+		if(i < to && s.charAt(i) == '.') {
+			for(int d; ++i < to && (d = s.charAt(i) - '0') >= 0 && d <= 9; digits++) {
+				if(significant < MAX_DIGITS) {
+					mantissa = mantissa*10 + d;
+					exponent--;
+					if(mantissa != 0) significant++;
+				} else {
+					truncated |= d != 0;
+				}
+			}
+		}
+		if(digits == 0)
+			return INVALID;
+		if(i < to && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+			boolean negativeExponent = false;
+			if(++i < to && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+				negativeExponent = s.charAt(i++) == '-';
+			int e = 0, start = i;
+			for(int d; i < to && (d = s.charAt(i) - '0') >= 0 && d <= 9; i++)
+				e = Math.min(MAX_EXPONENT, e*10 + d);
+			if(i == start)
+				return INVALID;
+			exponent += negativeExponent ? -e : e;
+		}
+		if(i != to)
+			return INVALID;
+		float f = truncated ? Float.NaN : toFloat(mantissa, exponent);
+		if(f != f)
+			return bits(Float.parseFloat(s.subSequence(from, to).toString()));
+		return bits(negative ? -f : f);
+	}
+
+	/**
+	 * Parses a float from a range of ASCII bytes.
+	 * @param b the text to parse
+	 * @param from the index of the first byte, inclusive
+	 * @param to the index of the last byte, exclusive
+	 * @param fallback the value returned if the range is not a valid float
+	 * @return the parsed value, or {@code fallback}
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public static float parseFloat(byte[] b, int from, int to, float fallback) {
+		long bits = scanFloat(b, from, to);
+		return bits == INVALID ? fallback : Float.intBitsToFloat((int) bits);
+	}
+
+	/** @return the bits of the float of the range, or {@link #INVALID} */
+	static long scanFloat(byte[] b, int from, int to) {
+		Objects.checkFromToIndex(from, to, b.length);
+		int i = from;
+		boolean negative = false;
+		if(i < to && (b[i] == '-' || b[i] == '+'))
+			negative = b[i++] == '-';
+		if(i < to && (b[i] == 'N' || b[i] == 'I')) {
+			String word = b[i] == 'N' ? "NaN" : "Infinity";
+			if(to-i != word.length())
+				return INVALID;
+			for(int k = 0; k < word.length(); k++) {
+				if(b[i+k] != word.charAt(k))
+					return INVALID;
+			}
+			return special(word.charAt(0) == 'N', negative);
+		}
+		long mantissa = 0;
+		int exponent = 0, significant = 0, digits = 0;
+		boolean truncated = false;
+		for(int d; i < to && (d = b[i] - '0') >= 0 && d <= 9; i++, digits++) {
+			if(significant < MAX_DIGITS) {
+				mantissa = mantissa*10 + d;
+				if(mantissa != 0) significant++;
+			} else {
+				exponent++;
+				truncated |= d != 0;
+			}
+		}
+		if(i < to && b[i] == '.') {
+			for(int d; ++i < to && (d = b[i] - '0') >= 0 && d <= 9; digits++) {
+				if(significant < MAX_DIGITS) {
+					mantissa = mantissa*10 + d;
+					exponent--;
+					if(mantissa != 0) significant++;
+				} else {
+					truncated |= d != 0;
+				}
+			}
+		}
+		if(digits == 0)
+			return INVALID;
+		if(i < to && (b[i] == 'e' || b[i] == 'E')) {
+			boolean negativeExponent = false;
+			if(++i < to && (b[i] == '-' || b[i] == '+'))
+				negativeExponent = b[i++] == '-';
+			int e = 0, start = i;
+			for(int d; i < to && (d = b[i] - '0') >= 0 && d <= 9; i++)
+				e = Math.min(MAX_EXPONENT, e*10 + d);
+			if(i == start)
+				return INVALID;
+			exponent += negativeExponent ? -e : e;
+		}
+		if(i != to)
+			return INVALID;
+		float f = truncated ? Float.NaN : toFloat(mantissa, exponent);
+		if(f != f)
+			return bits(Float.parseFloat(new String(b, from, to-from, StandardCharsets.ISO_8859_1)));
+		return bits(negative ? -f : f);
+	}
+
+	/** Parses a whole char sequence, same as {@link #parseFloat(CharSequence, int, int, float)} */
+	public static float parseFloat(CharSequence s, float fallback) {
+		return parseFloat(s, 0, s.length(), fallback);
+	}
+
+	/**
+	 * Parses a float from a range of a char sequence.
+	 * @return the parsed value
+	 * @throws NumberFormatException if the range is not a valid float
+	 * @see #parseFloat(CharSequence, int, int, float)
+	 */
+	public static float parseFloat(CharSequence s, int from, int to) {
+		long bits = scanFloat(s, from, to);
+		if(bits == INVALID)
+			throw new NumberFormatException("Invalid float: \"" + s.subSequence(from, to) + "\"");
+		return Float.intBitsToFloat((int) bits);
+	}
+
+	/**
+	 * Parses a float from a range of ASCII bytes.
+	 * @return the parsed value
+	 * @throws NumberFormatException if the range is not a valid float
+	 * @see #parseFloat(byte[], int, int, float)
+	 */
+	public static float parseFloat(byte[] b, int from, int to) {
+		long bits = scanFloat(b, from, to);
+		if(bits == INVALID)
+			throw new NumberFormatException("Invalid float: \"" + new String(b, from, to-from, StandardCharsets.ISO_8859_1) + "\"");
+		return Float.intBitsToFloat((int) bits);
+	}
+
+	/** @return whether the range can be parsed as a float */
+	public static boolean isFloat(CharSequence s, int from, int to) {
+		return scanFloat(s, from, to) != INVALID;
+	}
+
+	/** @return whether the range can be parsed as a float */
+	public static boolean isFloat(byte[] b, int from, int to) {
+		return scanFloat(b, from, to) != INVALID;
+	}
+
+	/** @return whether the char sequence can be parsed as a float */
+	public static boolean isFloat(CharSequence s) {
+		return scanFloat(s, 0, s.length()) != INVALID;
+	}
+
+	private static long scanInt(CharSequence s, int from, int to) {
+		Objects.checkFromToIndex(from, to, s.length());
+		int i = from;
+		boolean negative = false;
+		if(i < to && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+			negative = s.charAt(i++) == '-';
+		if(i == to)
+			return INVALID;
+		long v = 0;
+		for(; i < to; i++) {
+			int d = s.charAt(i) - '0';
+			if(d < 0 || d > 9 || (v = v*10 + d) > 1L << 31)
+				return INVALID;
+		}
+		v = negative ? -v : v;
+		return v > Integer.MAX_VALUE ? INVALID : v;
+	}
+
+	private static long scanInt(byte[] b, int from, int to) {
+		Objects.checkFromToIndex(from, to, b.length);
+		int i = from;
+		boolean negative = false;
+		if(i < to && (b[i] == '-' || b[i] == '+'))
+			negative = b[i++] == '-';
+		if(i == to)
+			return INVALID;
+		long v = 0;
+		for(; i < to; i++) {
+			int d = b[i] - '0';
+			if(d < 0 || d > 9 || (v = v*10 + d) > 1L << 31)
+				return INVALID;
+		}
+		v = negative ? -v : v;
+		return v > Integer.MAX_VALUE ? INVALID : v;
+	}
+
+	/**
+	 * Parses a decimal int, {@code [+-]?digits}, from a range of a char sequence.
+	 * @param fallback the value returned if the range is not a valid int or
+	 *        overflows
+	 * @return the parsed value, or {@code fallback}
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public static int parseInt(CharSequence s, int from, int to, int fallback) {
+		long v = scanInt(s, from, to);
+		return v == INVALID ? fallback : (int) v;
+	}
+
+	/** Parses a decimal int from a range of ASCII bytes, same as {@link #parseInt(CharSequence, int, int, int)} */
+	public static int parseInt(byte[] b, int from, int to, int fallback) {
+		long v = scanInt(b, from, to);
+		return v == INVALID ? fallback : (int) v;
+	}
+
+	/**
+	 * Parses a decimal int from a range of a char sequence.
+	 * @return the parsed value
+	 * @throws NumberFormatException if the range is not a valid int or overflows
+	 */
+	public static int parseInt(CharSequence s, int from, int to) {
+		long v = scanInt(s, from, to);
+		if(v == INVALID)
+			throw new NumberFormatException("Invalid int: \"" + s.subSequence(from, to) + "\"");
+		return (int) v;
+	}
+
+	/**
+	 * Parses a decimal int from a range of ASCII bytes.
+	 * @return the parsed value
+	 * @throws NumberFormatException if the range is not a valid int or overflows
+	 */
+	public static int parseInt(byte[] b, int from, int to) {
+		long v = scanInt(b, from, to);
+		if(v == INVALID)
+			throw new NumberFormatException("Invalid int: \"" + new String(b, from, to-from, StandardCharsets.ISO_8859_1) + "\"");
+		return (int) v;
+	}
+
+	/** @return whether the range can be parsed as an int */
+	public static boolean isInt(CharSequence s, int from, int to) {
+		return scanInt(s, from, to) != INVALID;
+	}
+
+	/** @return whether the range can be parsed as an int */
+	public static boolean isInt(byte[] b, int from, int to) {
+		return scanInt(b, from, to) != INVALID;
+	}
+
+}
@@ -0,0 +1,620 @@
+package fr.wonder.commons.math.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import fr.wonder.commons.math.vectors.Vec2Buffer;
+import fr.wonder.commons.math.vectors.Vec2i;
+import fr.wonder.commons.math.vectors.Vec3Buffer;
+import fr.wonder.commons.math.vectors.Vec4Buffer;
+import fr.wonder.commons.math.vectors.Vec4i;
+
+/**
+ * A compact binary format for arrays of vectors, written to channels and
+ * read from {@link ByteBuffer}s, typically memory-mapped files.
+ * <p>
+ * A block holds {@code count} vectors of 1 to 4 components stored as a
+ * structure of arrays, behind a little-endian header of {@value #HEADER_SIZE}
+ * bytes:
+ * <pre>
+ * int  magic    'FWVC'
+ * byte version  1
+ * byte encoding see {@link Encoding}
+ * byte dimension
+ * byte bits     bits per component of quantized blocks, 0 otherwise
+ * long count    number of vectors
+ * long payload  number of bytes after the header
+ * long reserved
+ * </pre>
+ * The payload depends on the encoding:
+ * <ul>
+ * <li>{@link Encoding#FLOAT}, {@link Encoding#INT}: one lane of 4-byte values
+ * per component, lanes of mapped blocks can be used in place through
+ * {@link #floatLanes(ByteBuffer)} and {@link #intLanes(ByteBuffer)} without
+ * copying them to the heap</li>
+ * <li>{@link Encoding#QUANTIZED}: the bounding box ({@code dimension} floats
+ * of minimums then of maximums) followed by one bit-packed lane per component,
+ * each value mapped to {@code bits} bits within the box</li>
+ * <li>{@link Encoding#INT_DELTA}: for each vector, the zigzag-encoded
+ * differences with the previous one as variable-length ints, which takes one
+ * or two bytes per component for sorted or spatially coherent vectors</li>
+ * </ul>
+ * Blocks are self-delimiting, several can be written one after another in the
+ * same file. Reading methods advance the position of the given buffer past
+ * the block they read.
+ */
+public class VectorCodec {
+
+	/** Size of the header of a block, in bytes */
+	public static final int HEADER_SIZE = 32;
+	/** The greatest number of bits per component of quantized blocks */
+	public static final int MAX_QUANTIZATION_BITS = 24;
+
+	private static final int MAGIC = 'F' | 'W' << 8 | 'V' << 16 | 'C' << 24;
+	private static final int VERSION = 1;
+	/** Size of the buffer used to write to channels */
+	private static final int CHUNK = 1 << 16;
+
+	/** How the components of a block are stored */
+	public static enum Encoding {
+
+		/** Raw floats */
+		FLOAT,
+		/** Floats quantized to a fixed number of bits within their bounding box */
+		QUANTIZED,
+		/** Raw ints */
+		INT,
+		/** Differences between successive int vectors, as variable-length ints */
+		INT_DELTA;
+
+		private static final Encoding[] VALUES = values();
+
+	}
+
+	/** The header of a block */
+	public static class Header {
+
+		public final Encoding encoding;
+		public final int dimension, bits;
+		public final long count, payload;
+
+		private Header(Encoding encoding, int dimension, int bits, long count, long payload) {
+			this.encoding = encoding;
+			this.dimension = dimension;
+			this.bits = bits;
+			this.count = count;
+			this.payload = payload;
+		}
+
+	}
+
+	private VectorCodec() {}
+
+	/** Buffers writes to a channel */
+	private static class Output {
+
+		final WritableByteChannel channel;
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+
+		Output(WritableByteChannel channel) {
+			this.channel = Objects.requireNonNull(channel);
+		}
+
+		/** Makes room for at least {@code n} bytes, {@code n <= CHUNK} */
+		ByteBuffer reserve(int n) throws IOException {
+			if(buffer.remaining() < n)
+				flush();
+			return buffer;
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+
+		void header(Encoding encoding, int dimension, int bits, long count, long payload) throws IOException {
+			reserve(HEADER_SIZE)
+				.putInt(MAGIC)
+				.put((byte) VERSION)
+				.put((byte) encoding.ordinal())
+				.put((byte) dimension)
+				.put((byte) bits)
+				.putLong(count)
+				.putLong(payload)
+				.putLong(0);
+		}
+
+		void floats(float[] lane, int from, int to) throws IOException {
+			while(from < to) {
+				int n = Math.min(to-from, reserve(4).remaining() / 4);
+				buffer.asFloatBuffer().put(lane, from, n);
+				buffer.position(buffer.position() + n*4);
+				from += n;
+			}
+		}
+
+		void ints(int[] lane, int from, int to) throws IOException {
+			while(from < to) {
+				int n = Math.min(to-from, reserve(4).remaining() / 4);
+				buffer.asIntBuffer().put(lane, from, n);
+				buffer.position(buffer.position() + n*4);
+				from += n;
+			}
+		}
+
+	}
+
+	private static void checkLanes(float[][] lanes, int from, int to) {
+		if(lanes.length < 1 || lanes.length > 4)
+			throw new IllegalArgumentException("Invalid dimension: " + lanes.length);
+		for(float[] lane : lanes)
+			Objects.checkFromToIndex(from, to, lane.length);
+	}
+
+	private static void checkLanes(int[][] lanes, int from, int to) {
+		if(lanes.length < 1 || lanes.length > 4)
+			throw new IllegalArgumentException("Invalid dimension: " + lanes.length);
+		for(int[] lane : lanes)
+			Objects.checkFromToIndex(from, to, lane.length);
+	}
+
+	/**
+	 * Writes a block of raw floats.
+	 * @param out the channel to write to
+	 * @param lanes the components, 1 to 4 lanes of the same length
+	 * @param from the index of the first vector, inclusive
+	 * @param to the index of the last vector, exclusive
+	 * @throws IOException if the channel throws
+	 */
+	public static void writeFloats(WritableByteChannel out, float[][] lanes, int from, int to) throws IOException {
+		checkLanes(lanes, from, to);
+		Output o = new Output(out);
+		o.header(Encoding.FLOAT, lanes.length, 0, to-from, 4L*(to-from)*lanes.length);
+		for(float[] lane : lanes)
+			o.floats(lane, from, to);
+		o.flush();
+	}
+
+	/**
+	 * Writes a block of floats quantized to {@code bits} bits within their
+	 * bounding box, the error on each component is at most half of
+	 * {@code (max-min)/(2^bits-1)}, plus the rounding of the decoded float.
+	 * @param out the channel to write to
+	 * @param lanes the components, 1 to 4 lanes of the same length
+	 * @param from the index of the first vector, inclusive
+	 * @param to the index of the last vector, exclusive
+	 * @param bits the number of bits per component, 1 to {@link #MAX_QUANTIZATION_BITS}
+	 * @throws IOException if the channel throws
+	 * @throws IllegalArgumentException if {@code bits} is out of range or a
+	 *         value is not finite
+	 */
+	public static void writeQuantized(WritableByteChannel out, float[][] lanes, int from, int to, int bits) throws IOException {
+		checkLanes(lanes, from, to);
+		if(bits < 1 || bits > MAX_QUANTIZATION_BITS)
+			throw new IllegalArgumentException("Invalid number of bits: " + bits);
+		int dimension = lanes.length, count = to-from;
+		float[] min = new float[dimension], max = new float[dimension];
+		for(int c = 0; c < dimension; c++) {
+			float lo = Float.POSITIVE_INFINITY, hi = Float.NEGATIVE_INFINITY;
+			for(int i = from; i < to; i++) {
+				lo = Math.min(lo, lanes[c][i]);
+				hi = Math.max(hi, lanes[c][i]);
+			}
+			if(count > 0 && !(Float.isFinite(lo) && Float.isFinite(hi)))
+				throw new IllegalArgumentException("Cannot quantize non-finite values");
+			min[c] = count > 0 ? lo : 0;
+			max[c] = count > 0 ? hi : 0;
+		}
+		long laneBytes = ((long) count*bits + 7) / 8;
+		Output o = new Output(out);
+		o.header(Encoding.QUANTIZED, dimension, bits, count, 8L*dimension + laneBytes*dimension);
+		ByteBuffer b = o.reserve(8*dimension);
+		for(float m : min) b.putFloat(m);
+		for(float m : max) b.putFloat(m);
+		int levels = (1 << bits) - 1;
+		for(int c = 0; c < dimension; c++) {
+			double scale = max[c] > min[c] ? levels / ((double) max[c] - min[c]) : 0;
+			long acc = 0;
+			int pending = 0;
+			for(int i = from; i < to; i++) {
+				long q = (long) ((lanes[c][i] - (double) min[c]) * scale + .5);
+				acc |= Math.min(q, levels) << pending;
+				pending += bits;
+				while(pending >= 8) {
+					o.reserve(1).put((byte) acc);
+					acc >>>= 8;
+					pending -= 8;
+				}
+			}
+			if(pending > 0)
+				o.reserve(1).put((byte) acc);
+		}
+		o.flush();
+	}
+
+	/**
+	 * Writes a block of raw ints.
+	 * @param out the channel to write to
+	 * @param lanes the components, 1 to 4 lanes of the same length
+	 * @param from the index of the first vector, inclusive
+	 * @param to the index of the last vector, exclusive
+	 * @throws IOException if the channel throws
+	 */
+	public static void writeInts(WritableByteChannel out, int[][] lanes, int from, int to) throws IOException {
+		checkLanes(lanes, from, to);
+		Output o = new Output(out);
+		o.header(Encoding.INT, lanes.length, 0, to-from, 4L*(to-from)*lanes.length);
+		for(int[] lane : lanes)
+			o.ints(lane, from, to);
+		o.flush();
+	}
+
+	private static int zigzag(int d) {
+		return (d << 1) ^ (d >> 31);
+	}
+
+	private static int varintSize(int v) {
+		return v == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(v)) / 7;
+	}
+
+	/**
+	 * Writes a block of ints as differences between successive vectors. The
+	 * vectors can be in any order but the block is only compact when they are
+	 * sorted or when successive vectors are close to each other.
+	 * @param out the channel to write to
+	 * @param lanes the components, 1 to 4 lanes of the same length
+	 * @param from the index of the first vector, inclusive
+	 * @param to the index of the last vector, exclusive
+	 * @throws IOException if the channel throws
+	 */
+	public static void writeIntsDelta(WritableByteChannel out, int[][] lanes, int from, int to) throws IOException {
+		checkLanes(lanes, from, to);
+		long payload = 0;
+		for(int[] lane : lanes) {
+			for(int i = from, previous = 0; i < to; previous = lane[i++])
+				payload += varintSize(zigzag(lane[i] - previous));
+		}
+		Output o = new Output(out);
+		o.header(Encoding.INT_DELTA, lanes.length, 0, to-from, payload);
+		for(int i = from; i < to; i++) {
+			ByteBuffer b = o.reserve(5*lanes.length);
+			for(int[] lane : lanes) {
+				int v = zigzag(lane[i] - (i == from ? 0 : lane[i-1]));
+				while((v & ~0x7f) != 0) {
+					b.put((byte) (v | 0x80));
+					v >>>= 7;
+				}
+				b.put((byte) v);
+			}
+		}
+		o.flush();
+	}
+
+	/**
+	 * Reads the header of the block at the position of a buffer, without
+	 * moving it. The payload size is checked against the count, dimension and
+	 * encoding of the block, so that no array is allocated for more vectors
+	 * than the buffer holds.
+	 * @param in the buffer to read from
+	 * @return the header of the block
+	 * @throws IllegalArgumentException if the buffer does not contain a valid block header
+	 */
+	public static Header readHeader(ByteBuffer in) {
+		ByteBuffer b = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		if(b.remaining() < HEADER_SIZE || b.getInt() != MAGIC)
+			throw new IllegalArgumentException("Not a vector block");
+		int version = b.get(), encoding = b.get(), dimension = b.get(), bits = b.get();
+		long count = b.getLong(), payload = b.getLong();
+		if(version != VERSION)
+			throw new IllegalArgumentException("Unsupported block version: " + version);
+		if(encoding < 0 || encoding >= Encoding.VALUES.length || dimension < 1 || dimension > 4 ||
+				count < 0 || count > Integer.MAX_VALUE || payload < 0 || payload > b.remaining() - 8)
+			throw new IllegalArgumentException("Corrupted block header");
+		Header h = new Header(Encoding.VALUES[encoding], dimension, bits, count, payload);
+		checkPayload(h);
+		return h;
+	}
+
+	private static void checkPayload(Header h) {
+		if(h.encoding == Encoding.QUANTIZED ? h.bits < 1 || h.bits > MAX_QUANTIZATION_BITS : h.bits != 0)
+			throw new IllegalArgumentException("Corrupted block, invalid number of bits: " + h.bits);
+		long values = h.count*h.dimension;
+		switch(h.encoding) {
+		case FLOAT:
+		case INT:
+			checkSize(h, 4*values);
+			break;
+		case QUANTIZED:
+			checkSize(h, 8L*h.dimension + (h.count*h.bits + 7) / 8 * h.dimension);
+			break;
+		case INT_DELTA:
+			// varints take 1 to 5 bytes
+			if(h.payload < values || h.payload > 5*values)
+				throw new IllegalArgumentException("Corrupted block, payload of " + h.payload + " bytes for " + values + " values");
+			break;
+		}
+	}
+
+	/** Returns the payload of the block at the position of {@code in} and moves {@code in} past the block */
+	private static ByteBuffer payload(ByteBuffer in, Header h) {
+		int start = in.position() + HEADER_SIZE, end = Math.toIntExact(start + h.payload);
+		ByteBuffer payload = in.duplicate().position(start).limit(end).slice().order(ByteOrder.LITTLE_ENDIAN);
+		in.position(end);
+		return payload;
+	}
+
+	private static void checkSize(Header h, long expected) {
+		if(h.payload != expected)
+			throw new IllegalArgumentException("Corrupted block, payload of " + h.payload + " bytes instead of " + expected);
+	}
+
+	/**
+	 * Returns views of the lanes of a {@link Encoding#FLOAT} block, no data is
+	 * copied: if {@code in} is a mapped file the lanes read the file directly.
+	 * @param in the buffer to read from, its position is moved past the block
+	 * @return one buffer per component
+	 * @throws IllegalArgumentException if the block is invalid or of another encoding
+	 */
+	public static FloatBuffer[] floatLanes(ByteBuffer in) {
+		Header h = readHeader(in);
+		if(h.encoding != Encoding.FLOAT)
+			throw new IllegalArgumentException("Expected a FLOAT block, got " + h.encoding);
+		ByteBuffer payload = payload(in, h);
+		FloatBuffer[] lanes = new FloatBuffer[h.dimension];
+		for(int c = 0; c < h.dimension; c++)
+			lanes[c] = payload.position((int) (4*h.count*c)).limit((int) (4*h.count*(c+1))).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+		return lanes;
+	}
+
+	/**
+	 * Returns views of the lanes of an {@link Encoding#INT} block, no data is
+	 * copied: if {@code in} is a mapped file the lanes read the file directly.
+	 * @param in the buffer to read from, its position is moved past the block
+	 * @return one buffer per component
+	 * @throws IllegalArgumentException if the block is invalid or of another encoding
+	 */
+	public static IntBuffer[] intLanes(ByteBuffer in) {
+		Header h = readHeader(in);
+		if(h.encoding != Encoding.INT)
+			throw new IllegalArgumentException("Expected an INT block, got " + h.encoding);
+		ByteBuffer payload = payload(in, h);
+		IntBuffer[] lanes = new IntBuffer[h.dimension];
+		for(int c = 0; c < h.dimension; c++)
+			lanes[c] = payload.position((int) (4*h.count*c)).limit((int) (4*h.count*(c+1))).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		return lanes;
+	}
+
+	/**
+	 * Reads a {@link Encoding#FLOAT} or {@link Encoding#QUANTIZED} block into
+	 * heap arrays.
+	 * @param in the buffer to read from, its position is moved past the block
+	 * @return one array per component
+	 * @throws IllegalArgumentException if the block is invalid or not a float block
+	 */
+	public static float[][] readFloats(ByteBuffer in) {
+		Header h = readHeader(in);
+		int count = (int) h.count;
+		float[][] lanes = new float[h.dimension][count];
+		if(h.encoding == Encoding.FLOAT) {
+			FloatBuffer[] views = floatLanes(in);
+			for(int c = 0; c < h.dimension; c++)
+				views[c].get(lanes[c]);
+			return lanes;
+		}
+		if(h.encoding != Encoding.QUANTIZED)
+			throw new IllegalArgumentException("Expected a float block, got " + h.encoding);
+		long laneBytes = (h.count*h.bits + 7) / 8;
+		ByteBuffer payload = payload(in, h);
+		float[] min = new float[h.dimension], max = new float[h.dimension];
+		for(int c = 0; c < h.dimension; c++) min[c] = payload.getFloat();
+		for(int c = 0; c < h.dimension; c++) max[c] = payload.getFloat();
+		int levels = (1 << h.bits) - 1;
+		for(int c = 0; c < h.dimension; c++) {
+			double step = ((double) max[c] - min[c]) / levels;
+			int laneStart = payload.position();
+			long acc = 0;
+			int available = 0;
+			for(int i = 0; i < count; i++) {
+				while(available < h.bits) {
+					acc |= (payload.get() & 0xffL) << available;
+					available += 8;
+				}
+				lanes[c][i] = (float) (min[c] + (acc & levels) * step);
+				acc >>>= h.bits;
+				available -= h.bits;
+			}
+			payload.position((int) (laneStart + laneBytes));
+		}
+		return lanes;
+	}
+
+	/**
+	 * Reads an {@link Encoding#INT} or {@link Encoding#INT_DELTA} block into
+	 * heap arrays.
+	 * @param in the buffer to read from, its position is moved past the block
+	 * @return one array per component
+	 * @throws IllegalArgumentException if the block is invalid or not an int block
+	 */
+	public static int[][] readInts(ByteBuffer in) {
+		Header h = readHeader(in);
+		int count = (int) h.count;
+		int[][] lanes = new int[h.dimension][count];
+		if(h.encoding == Encoding.INT) {
+			IntBuffer[] views = intLanes(in);
+			for(int c = 0; c < h.dimension; c++)
+				views[c].get(lanes[c]);
+			return lanes;
+		}
+		if(h.encoding != Encoding.INT_DELTA)
+			throw new IllegalArgumentException("Expected an int block, got " + h.encoding);
+		ByteBuffer payload = payload(in, h);
+		try {
+			for(int i = 0; i < count; i++) {
+				for(int c = 0; c < h.dimension; c++) {
+					int v = 0, shift = 0, b;
+					do {
+						b = payload.get();
+						v |= (b & 0x7f) << shift;
+						shift += 7;
+					} while(b < 0 && shift < 35);
+					lanes[c][i] = (i == 0 ? 0 : lanes[c][i-1]) + ((v >>> 1) ^ -(v & 1));
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Corrupted block, truncated payload");
+		}
+		return lanes;
+	}
+
+	/**
+	 * Maps a whole file in memory, read-only and in little-endian order, so
+	 * that its blocks can be read with no heap copy of the file.
+	 * @param path the file to map, of at most 2GB
+	 * @return the mapped file
+	 * @throws IOException if the file cannot be read or is too large
+	 */
+	public static ByteBuffer map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Cannot map files of more than 2GB: " + path);
+			return channel.map(MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	/* typed helpers */
+
+	/** Writes a range of a buffer as a {@link Encoding#FLOAT} block */
+	public static void write(WritableByteChannel out, Vec2Buffer buffer, int from, int to) throws IOException {
+		writeFloats(out, new float[][] { buffer.x, buffer.y }, from, to);
+	}
+
+	/** Writes a range of a buffer as a {@link Encoding#FLOAT} block */
+	public static void write(WritableByteChannel out, Vec3Buffer buffer, int from, int to) throws IOException {
+		writeFloats(out, new float[][] { buffer.x, buffer.y, buffer.z }, from, to);
+	}
+
+	/** Writes a range of a buffer as a {@link Encoding#FLOAT} block */
+	public static void write(WritableByteChannel out, Vec4Buffer buffer, int from, int to) throws IOException {
+		writeFloats(out, new float[][] { buffer.x, buffer.y, buffer.z, buffer.w }, from, to);
+	}
+
+	/** Writes a range of a buffer as a {@link Encoding#QUANTIZED} block */
+	public static void writeQuantized(WritableByteChannel out, Vec2Buffer buffer, int from, int to, int bits) throws IOException {
+		writeQuantized(out, new float[][] { buffer.x, buffer.y }, from, to, bits);
+	}
+
+	/** Writes a range of a buffer as a {@link Encoding#QUANTIZED} block */
+	public static void writeQuantized(WritableByteChannel out, Vec3Buffer buffer, int from, int to, int bits) throws IOException {
+		writeQuantized(out, new float[][] { buffer.x, buffer.y, buffer.z }, from, to, bits);
+	}
+
+	/** Writes a range of a buffer as a {@link Encoding#QUANTIZED} block */
+	public static void writeQuantized(WritableByteChannel out, Vec4Buffer buffer, int from, int to, int bits) throws IOException {
+		writeQuantized(out, new float[][] { buffer.x, buffer.y, buffer.z, buffer.w }, from, to, bits);
+	}
+
+	private static int[][] lanes(Vec2i[] vectors, int off, int len) {
+		Objects.checkFromIndexSize(off, len, vectors.length);
+		int[][] lanes = new int[2][len];
+		for(int i = 0; i < len; i++) {
+			lanes[0][i] = vectors[off+i].x;
+			lanes[1][i] = vectors[off+i].y;
+		}
+		return lanes;
+	}
+
+	private static int[][] lanes(Vec4i[] vectors, int off, int len) {
+		Objects.checkFromIndexSize(off, len, vectors.length);
+		int[][] lanes = new int[4][len];
+		for(int i = 0; i < len; i++) {
+			lanes[0][i] = vectors[off+i].x;
+			lanes[1][i] = vectors[off+i].y;
+			lanes[2][i] = vectors[off+i].z;
+			lanes[3][i] = vectors[off+i].w;
+		}
+		return lanes;
+	}
+
+	/** Writes vectors as an {@link Encoding#INT} block */
+	public static void write(WritableByteChannel out, Vec2i[] vectors, int off, int len) throws IOException {
+		writeInts(out, lanes(vectors, off, len), 0, len);
+	}
+
+	/** Writes vectors as an {@link Encoding#INT} block */
+	public static void write(WritableByteChannel out, Vec4i[] vectors, int off, int len) throws IOException {
+		writeInts(out, lanes(vectors, off, len), 0, len);
+	}
+
+	/** Writes vectors as an {@link Encoding#INT_DELTA} block, see {@link #writeIntsDelta(WritableByteChannel, int[][], int, int)} */
+	public static void writeDelta(WritableByteChannel out, Vec2i[] vectors, int off, int len) throws IOException {
+		writeIntsDelta(out, lanes(vectors, off, len), 0, len);
+	}
+
+	/** Writes vectors as an {@link Encoding#INT_DELTA} block, see {@link #writeIntsDelta(WritableByteChannel, int[][], int, int)} */
+	public static void writeDelta(WritableByteChannel out, Vec4i[] vectors, int off, int len) throws IOException {
+		writeIntsDelta(out, lanes(vectors, off, len), 0, len);
+	}
+
+	private static float[][] readFloats(ByteBuffer in, int dimension) {
+		Header h = readHeader(in);
+		if(h.dimension != dimension)
+			throw new IllegalArgumentException("Expected vectors of dimension " + dimension + ", got " + h.dimension);
+		return readFloats(in);
+	}
+
+	private static int[][] readInts(ByteBuffer in, int dimension) {
+		Header h = readHeader(in);
+		if(h.dimension != dimension)
+			throw new IllegalArgumentException("Expected vectors of dimension " + dimension + ", got " + h.dimension);
+		return readInts(in);
+	}
+
+	/** Reads a float block of 2D vectors, see {@link #readFloats(ByteBuffer)} */
+	public static Vec2Buffer readVec2(ByteBuffer in) {
+		float[][] lanes = readFloats(in, 2);
+		return new Vec2Buffer(lanes[0], lanes[1]);
+	}
+
+	/** Reads a float block of 3D vectors, see {@link #readFloats(ByteBuffer)} */
+	public static Vec3Buffer readVec3(ByteBuffer in) {
+		float[][] lanes = readFloats(in, 3);
+		return new Vec3Buffer(lanes[0], lanes[1], lanes[2]);
+	}
+
+	/** Reads a float block of 4D vectors, see {@link #readFloats(ByteBuffer)} */
+	public static Vec4Buffer readVec4(ByteBuffer in) {
+		float[][] lanes = readFloats(in, 4);
+		return new Vec4Buffer(lanes[0], lanes[1], lanes[2], lanes[3]);
+	}
+
+	/** Reads an int block of 2D vectors, see {@link #readInts(ByteBuffer)} */
+	public static Vec2i[] readVec2i(ByteBuffer in) {
+		int[][] lanes = readInts(in, 2);
+		Vec2i[] vectors = new Vec2i[lanes[0].length];
+		for(int i = 0; i < vectors.length; i++)
+			vectors[i] = new Vec2i(lanes[0][i], lanes[1][i]);
+		return vectors;
+	}
+
+	/** Reads an int block of 4D vectors, see {@link #readInts(ByteBuffer)} */
+	public static Vec4i[] readVec4i(ByteBuffer in) {
+		int[][] lanes = readInts(in, 4);
+		Vec4i[] vectors = new Vec4i[lanes[0].length];
+		for(int i = 0; i < vectors.length; i++)
+			vectors[i] = new Vec4i(lanes[0][i], lanes[1][i], lanes[2][i], lanes[3][i]);
+		return vectors;
+	}
+
+}
@@ -0,0 +1,249 @@
+package fr.wonder.commons.math.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+import fr.wonder.commons.math.vectors.Vec2;
+import fr.wonder.commons.math.vectors.Vec2Buffer;
+import fr.wonder.commons.math.vectors.Vec3;
+import fr.wonder.commons.math.vectors.Vec3Buffer;
+import fr.wonder.commons.math.vectors.Vec4;
+import fr.wonder.commons.math.vectors.Vec4Buffer;
+
+/**
+ * Streams floats and vectors as delimited text, one vector per line, to a
+ * {@link Writer} or a {@link WritableByteChannel}.
+ * <p>
+ * Values are formatted with a {@link FloatFormat} into an internal buffer
+ * that is written out in chunks of about 8K characters, no string is created
+ * per value or per line. The output can be read back with
+ * {@link NumberFiles}, {@code NaN} and {@code Infinity} included, and is
+ * exactly the same floats with {@link FloatFormat#EXACT}.
+ * <p>
+ * Writers are not thread safe. Channels receive ASCII bytes.
+ */
+public class VectorWriter implements Closeable, Flushable {
+
+	/** Number of buffered characters before the buffer is written out */
+	private static final int BUFFER = 1 << 13;
+
+	private final Writer writer;
+	private final WritableByteChannel channel;
+	private final FloatFormat format;
+	private final String separator;
+	private final StringBuilder buffer = new StringBuilder(BUFFER + 256);
+	private char[] chars;
+	private ByteBuffer bytes;
+
+	private VectorWriter(Writer writer, WritableByteChannel channel, FloatFormat format, String separator) {
+		Objects.requireNonNull(format);
+		if(separator.isEmpty())
+			throw new IllegalArgumentException("Empty separator given.");
+		for(int i = 0; i < separator.length(); i++) {
+			if(separator.charAt(i) >= 128)
+				throw new IllegalArgumentException("Non-ASCII separator: \"" + separator + "\"");
+		}
+		this.writer = writer;
+		this.channel = channel;
+		this.format = format;
+		this.separator = separator;
+	}
+
+	/**
+	 * Creates a writer to a character stream.
+	 * @param out the stream to write to, closed with this writer
+	 * @param format the format of the values
+	 * @param separator the ASCII string written between the values of a line, {@code " "} or {@code ","} typically
+	 */
+	public VectorWriter(Writer out, FloatFormat format, String separator) {
+		this(Objects.requireNonNull(out), null, format, separator);
+	}
+
+	/** Creates a writer to a character stream, with space separated values in the {@link FloatFormat#EXACT} format */
+	public VectorWriter(Writer out) {
+		this(out, FloatFormat.EXACT, " ");
+	}
+
+	/**
+	 * Creates a writer to a byte channel.
+	 * @param out the channel to write to, closed with this writer
+	 * @param format the format of the values
+	 * @param separator the ASCII string written between the values of a line, {@code " "} or {@code ","} typically
+	 */
+	public VectorWriter(WritableByteChannel out, FloatFormat format, String separator) {
+		this(null, Objects.requireNonNull(out), format, separator);
+	}
+
+	/** Creates a writer to a byte channel, with space separated values in the {@link FloatFormat#EXACT} format */
+	public VectorWriter(WritableByteChannel out) {
+		this(out, FloatFormat.EXACT, " ");
+	}
+
+	private void value(float f, boolean first) {
+		if(!first)
+			buffer.append(separator);
+		format.appendTo(buffer, f);
+	}
+
+	private void endLine() throws IOException {
+		buffer.append('\n');
+		if(buffer.length() >= BUFFER)
+			drain();
+	}
+
+	/** Writes out the buffered characters */
+	private void drain() throws IOException {
+		int len = buffer.length();
+		if(len == 0)
+			return;
+		if(writer != null) {
+			if(chars == null || chars.length < len)
+				chars = new char[Math.max(len, BUFFER + 256)];
+			buffer.getChars(0, len, chars, 0);
+			writer.write(chars, 0, len);
+		} else {
+			if(bytes == null || bytes.capacity() < len)
+				bytes = ByteBuffer.allocate(Math.max(len, BUFFER + 256));
+			for(int i = 0; i < len; i++)
+				bytes.put((byte) buffer.charAt(i));
+			bytes.flip();
+			while(bytes.hasRemaining())
+				channel.write(bytes);
+			bytes.clear();
+		}
+		buffer.setLength(0);
+	}
+
+	/**
+	 * Writes values, one per line.
+	 * @return this writer
+	 * @throws IOException if the underlying stream throws
+	 */
+	public VectorWriter writeValues(float[] values, int off, int len) throws IOException {
+		Objects.checkFromIndexSize(off, len, values.length);
+		for(int i = off; i < off+len; i++) {
+			value(values[i], true);
+			endLine();
+		}
+		return this;
+	}
+
+	/**
+	 * Writes interleaved vectors, {@code x0 y0 z0 x1 y1 z1...} for 3D vectors,
+	 * one vector per line.
+	 * @param values the components of the vectors
+	 * @param off the index of the first component of the first vector
+	 * @param count the number of vectors
+	 * @param dimension the number of components of a vector
+	 * @return this writer
+	 * @throws IOException if the underlying stream throws
+	 */
+	public VectorWriter writeInterleaved(float[] values, int off, int count, int dimension) throws IOException {
+		if(dimension < 1)
+			throw new IllegalArgumentException("Invalid dimension: " + dimension);
+		Objects.checkFromIndexSize(off, Math.multiplyExact(count, dimension), values.length);
+		for(int i = 0, j = off; i < count; i++) {
+			for(int c = 0; c < dimension; c++)
+				value(values[j++], c == 0);
+			endLine();
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the range {@code [from, to[} of lanes as columns: line {@code i}
+	 * holds {@code lanes[0][i] lanes[1][i]...}.
+	 * @return this writer
+	 * @throws IOException if the underlying stream throws
+	 */
+	public VectorWriter writeLanes(float[][] lanes, int from, int to) throws IOException {
+		if(lanes.length == 0)
+			throw new IllegalArgumentException("Null or empty array given.");
+		for(float[] lane : lanes)
+			Objects.checkFromToIndex(from, to, lane.length);
+		for(int i = from; i < to; i++) {
+			for(int c = 0; c < lanes.length; c++)
+				value(lanes[c][i], c == 0);
+			endLine();
+		}
+		return this;
+	}
+
+	/** Writes the vectors {@code [from, to[} of a buffer, one per line */
+	public VectorWriter write(Vec2Buffer buffer, int from, int to) throws IOException {
+		return writeLanes(new float[][] { buffer.x, buffer.y }, from, to);
+	}
+
+	/** Writes the vectors {@code [from, to[} of a buffer, one per line */
+	public VectorWriter write(Vec3Buffer buffer, int from, int to) throws IOException {
+		return writeLanes(new float[][] { buffer.x, buffer.y, buffer.z }, from, to);
+	}
+
+	/** Writes the vectors {@code [from, to[} of a buffer, one per line */
+	public VectorWriter write(Vec4Buffer buffer, int from, int to) throws IOException {
+		return writeLanes(new float[][] { buffer.x, buffer.y, buffer.z, buffer.w }, from, to);
+	}
+
+	/** Writes vectors, one per line */
+	public VectorWriter write(Vec2[] vectors, int off, int len) throws IOException {
+		Objects.checkFromIndexSize(off, len, vectors.length);
+		for(int i = off; i < off+len; i++) {
+			value(vectors[i].x, true);
+			value(vectors[i].y, false);
+			endLine();
+		}
+		return this;
+	}
+
+	/** Writes vectors, one per line */
+	public VectorWriter write(Vec3[] vectors, int off, int len) throws IOException {
+		Objects.checkFromIndexSize(off, len, vectors.length);
+		for(int i = off; i < off+len; i++) {
+			value(vectors[i].x, true);
+			value(vectors[i].y, false);
+			value(vectors[i].z, false);
+			endLine();
+		}
+		return this;
+	}
+
+	/** Writes vectors, one per line */
+	public VectorWriter write(Vec4[] vectors, int off, int len) throws IOException {
+		Objects.checkFromIndexSize(off, len, vectors.length);
+		for(int i = off; i < off+len; i++) {
+			value(vectors[i].x, true);
+			value(vectors[i].y, false);
+			value(vectors[i].z, false);
+			value(vectors[i].w, false);
+			endLine();
+		}
+		return this;
+	}
+
+	/** Writes out the buffered text and flushes the underlying stream */
+	@Override
+	public void flush() throws IOException {
+		drain();
+		if(writer != null)
+			writer.flush();
+	}
+
+	/** Writes out the buffered text and closes the underlying stream */
+	@Override
+	public void close() throws IOException {
+		try {
+			drain();
+		} finally {
+			if(writer != null)
+				writer.close();
+			else
+				channel.close();
+		}
+	}
+
+}
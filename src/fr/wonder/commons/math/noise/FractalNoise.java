@@ -0,0 +1,87 @@
+package fr.wonder.commons.math.noise;
+
+/**
+ * Fractal Brownian motion (fBm): the sum of octaves of a base noise, each
+ * octave having a higher frequency and a lower amplitude than the previous
+ * one. This adds details at every scale, typically for terrains and clouds.
+ * <p>
+ * Octave {@code i} samples the base noise at {@code lacunarity^i} times the
+ * coordinates, with an amplitude of {@code gain^i}. The sum is divided by the
+ * sum of the amplitudes so that values stay in [-1,1]. Each octave is shifted
+ * by a constant offset so that lattice points of successive octaves do not
+ * line up at the origin.
+ */
+public class FractalNoise implements Noise {
+
+	/** Offset between the coordinates of successive octaves */
+	private static final float OCTAVE_OFFSET = 19.19f;
+
+	private final Noise base;
+	private final int octaves;
+	private final float lacunarity, gain;
+	/** The inverse of the sum of the amplitudes of the octaves */
+	private final float normalization;
+
+	/**
+	 * Creates a fractal noise.
+	 * @param base the noise summed at every octave
+	 * @param octaves the number of octaves, at least 1
+	 * @param lacunarity the frequency ratio between two octaves, usually 2
+	 * @param gain the amplitude ratio between two octaves, usually 1/2
+	 * @throws IllegalArgumentException if {@code octaves} is not positive
+	 */
+	public FractalNoise(Noise base, int octaves, float lacunarity, float gain) {
+		if(octaves < 1)
+			throw new IllegalArgumentException("Invalid number of octaves: " + octaves);
+		this.base = base;
+		this.octaves = octaves;
+		this.lacunarity = lacunarity;
+		this.gain = gain;
+		float sum = 0, amplitude = 1;
+		for(int i = 0; i < octaves; i++, amplitude *= gain)
+			sum += amplitude;
+		this.normalization = 1/sum;
+	}
+
+	/** Creates a fractal noise with a lacunarity of 2 and a gain of 1/2 */
+	public FractalNoise(Noise base, int octaves) {
+		this(base, octaves, 2, .5f);
+	}
+
+	@Override
+	public float get(float x, float y) {
+		float sum = 0, amplitude = 1, frequency = 1;
+		for(int i = 0; i < octaves; i++) {
+			float offset = i*OCTAVE_OFFSET;
+			sum += amplitude * base.get(x*frequency + offset, y*frequency + offset);
+			amplitude *= gain;
+			frequency *= lacunarity;
+		}
+		return sum*normalization;
+	}
+
+	@Override
+	public float get(float x, float y, float z) {
+		float sum = 0, amplitude = 1, frequency = 1;
+		for(int i = 0; i < octaves; i++) {
+			float offset = i*OCTAVE_OFFSET;
+			sum += amplitude * base.get(x*frequency + offset, y*frequency + offset, z*frequency + offset);
+			amplitude *= gain;
+			frequency *= lacunarity;
+		}
+		return sum*normalization;
+	}
+
+	@Override
+	public float get(float x, float y, float z, float w) {
+		float sum = 0, amplitude = 1, frequency = 1;
+		for(int i = 0; i < octaves; i++) {
+			float offset = i*OCTAVE_OFFSET;
+			sum += amplitude * base.get(x*frequency + offset, y*frequency + offset, z*frequency + offset, w*frequency + offset);
+			amplitude *= gain;
+			frequency *= lacunarity;
+		}
+		return sum*normalization;
+	}
+
+}
@@ -0,0 +1,130 @@
+package fr.wonder.commons.math.noise;
+
+import java.util.stream.IntStream;
+
+import fr.wonder.commons.math.vectors.Vec2;
+import fr.wonder.commons.math.vectors.Vec3;
+import fr.wonder.commons.math.vectors.Vec4;
+
+/**
+ * A coherent noise function of 2, 3 or 4 dimensions, with values in [-1,1].
+ * <p>
+ * Implementations are immutable and deterministic: two instances built with
+ * the same parameters and seed return the same values for the same
+ * coordinates, on every thread and in any evaluation order. Lattice values
+ * hash the lattice coordinates together with the seed through
+ * {@link fr.wonder.commons.math.Mathr#hash(int, int, int)} and
+ * {@link fr.wonder.commons.math.Mathr#hash(int, int, int, int)}, nested when
+ * there are more coordinates, 4D lattices use {@code hash(x, y, hash(z, w, seed))}:
+ * the noises have no period and the noises of two seeds are not shifted copies
+ * of each other.
+ * <p>
+ * The {@code fill} methods evaluate whole grids of samples, cutting them in
+ * tiles evaluated in parallel on the common fork-join pool.
+ *
+ * @see PerlinNoise
+ * @see SimplexNoise
+ * @see ValueNoise
+ * @see FractalNoise
+ */
+public interface Noise {
+
+	public float get(float x, float y);
+
+	public float get(float x, float y, float z);
+
+	public float get(float x, float y, float z, float w);
+
+	public default float get(Vec2 p) { return get(p.x, p.y); }
+	public default float get(Vec3 p) { return get(p.x, p.y, p.z); }
+	public default float get(Vec4 p) { return get(p.x, p.y, p.z, p.w); }
+
+	/**
+	 * Samples a 2D grid: {@code dst[x+y*width] = get(origin.x+x*step, origin.y+y*step)}.
+	 * @param dst the array to write the samples to, of length at least {@code width*height}
+	 * @param width the number of samples along x
+	 * @param height the number of samples along y
+	 * @param origin the coordinates of the first sample
+	 * @param step the distance between two samples
+	 */
+	public default void fill(float[] dst, int width, int height, Vec2 origin, float step) {
+		Tiles.check(dst, width, height, 1);
+		float ox = origin.x, oy = origin.y;
+		Tiles.forEach(width, height, 1, (x0, x1, y0, y1, z) -> {
+			for(int y = y0; y < y1; y++) {
+				float py = oy + y*step;
+				for(int x = x0; x < x1; x++)
+					dst[x+y*width] = get(ox + x*step, py);
+			}
+		});
+	}
+
+	/**
+	 * Samples a 3D grid:
+	 * {@code dst[x+(y+z*height)*width] = get(origin.x+x*step, origin.y+y*step, origin.z+z*step)}.
+	 * @param dst the array to write the samples to, of length at least {@code width*height*depth}
+	 * @param width the number of samples along x
+	 * @param height the number of samples along y
+	 * @param depth the number of samples along z
+	 * @param origin the coordinates of the first sample
+	 * @param step the distance between two samples
+	 */
+	public default void fill(float[] dst, int width, int height, int depth, Vec3 origin, float step) {
+		Tiles.check(dst, width, height, depth);
+		float ox = origin.x, oy = origin.y, oz = origin.z;
+		Tiles.forEach(width, height, depth, (x0, x1, y0, y1, z) -> {
+			float pz = oz + z*step;
+			for(int y = y0; y < y1; y++) {
+				float py = oy + y*step;
+				for(int x = x0; x < x1; x++)
+					dst[x+(y+z*height)*width] = get(ox + x*step, py, pz);
+			}
+		});
+	}
+
+	/**
+	 * Samples a 2D slice of the 3D noise, at {@code z = origin.z}, the layout
+	 * is the same as {@link #fill(float[], int, int, Vec2, float)}.
+	 */
+	public default void fill(float[] dst, int width, int height, Vec3 origin, float step) {
+		fill(dst, width, height, 1, origin, step);
+	}
+
+}
+
+/** Splits sample grids in tiles processed in parallel */
+final class Tiles {
+
+	/** Tiles are squares of this many samples per side */
+	private static final int TILE = 64;
+
+	@FunctionalInterface
+	interface TileAction {
+
+		void apply(int x0, int x1, int y0, int y1, int z);
+
+	}
+
+	private Tiles() {}
+
+	static void check(float[] dst, int width, int height, int depth) {
+		if(width < 0 || height < 0 || depth < 0)
+			throw new IllegalArgumentException("Negative grid size: " + width + "x" + height + "x" + depth);
+		if((long) width*height*depth > dst.length)
+			throw new IndexOutOfBoundsException("Grid of " + width + "x" + height + "x" + depth
+					+ " does not fit in an array of length " + dst.length);
+	}
+
+	static void forEach(int width, int height, int depth, TileAction action) {
+		int tilesX = (width+TILE-1) / TILE, tilesY = (height+TILE-1) / TILE;
+		int tiles = tilesX*tilesY*depth;
+		IntStream indices = IntStream.range(0, tiles);
+		if(tiles > 1)
+			indices = indices.parallel();
+		indices.forEach(t -> {
+			int tx = t % tilesX, ty = t / tilesX % tilesY, z = t / tilesX / tilesY;
+			action.apply(tx*TILE, Math.min(width, (tx+1)*TILE), ty*TILE, Math.min(height, (ty+1)*TILE), z);
+		});
+	}
+
+}
@@ -0,0 +1,112 @@
+package fr.wonder.commons.math.noise;
+
+import static fr.wonder.commons.math.Mathr.hash;
+
+import fr.wonder.commons.math.Mathf;
+
+/**
+ * Ken Perlin's improved gradient noise.
+ * <p>
+ * Each lattice point gets a pseudo-random gradient, the noise interpolates the
+ * dot products of the gradients of the surrounding lattice points with a
+ * quintic curve so that it is smooth (C2) everywhere. The noise is 0 on
+ * lattice points.
+ * <p>
+ * Evaluating a sample costs {@code 2^d} gradients in {@code d} dimensions, see
+ * {@link SimplexNoise} for a cheaper noise in 3 and 4 dimensions.
+ */
+public class PerlinNoise implements Noise {
+
+	/*
+	 * scales bringing the extrema of each dimension within [-1,1], the largest
+	 * values the gradients can add up to are 1, 1.0364 and 1.5366
+	 */
+	private static final float SCALE2 = 1, SCALE3 = .964f, SCALE4 = .65f;
+
+	private final int seed;
+
+	/**
+	 * Creates a Perlin noise, noises of different seeds are uncorrelated.
+	 * @param seed the seed of the noise
+	 */
+	public PerlinNoise(int seed) {
+		this.seed = seed;
+	}
+
+	static float fade(float t) {
+		return t*t*t*(t*(t*6-15)+10);
+	}
+
+	static float lerp(float t, float a, float b) {
+		return a + t*(b-a);
+	}
+
+	/** Dot product with one of 8 gradients, the diagonals and the axes */
+	static float grad(int h, float x, float y) {
+		h >>>= 29;
+		float u = h < 6 ? x : y, v = h < 4 ? y : 0;
+		return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
+	}
+
+	/** Dot product with one of 16 gradients, the 12 edges of a cube (4 repeated) */
+	static float grad(int h, float x, float y, float z) {
+		h >>>= 28;
+		float u = h < 8 ? x : y, v = h < 4 ? y : h == 12 || h == 14 ? x : z;
+		return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v);
+	}
+
+	/** Dot product with one of 32 gradients, the edges of a tesseract */
+	static float grad(int h, float x, float y, float z, float w) {
+		h >>>= 27;
+		float u = h < 24 ? x : y, v = h < 16 ? y : z, s = h < 8 ? z : w;
+		return ((h & 1) == 0 ? u : -u) + ((h & 2) == 0 ? v : -v) + ((h & 4) == 0 ? s : -s);
+	}
+
+	@Override
+	public float get(float x, float y) {
+		int ix = Mathf.floor(x), iy = Mathf.floor(y);
+		x -= ix;
+		y -= iy;
+		float u = fade(x), v = fade(y);
+		return SCALE2 * lerp(v,
+				lerp(u, grad(hash(ix, iy, seed), x, y), grad(hash(ix+1, iy, seed), x-1, y)),
+				lerp(u, grad(hash(ix, iy+1, seed), x, y-1), grad(hash(ix+1, iy+1, seed), x-1, y-1)));
+	}
+
+	@Override
+	public float get(float x, float y, float z) {
+		int ix = Mathf.floor(x), iy = Mathf.floor(y), iz = Mathf.floor(z);
+		x -= ix;
+		y -= iy;
+		z -= iz;
+		float u = fade(x), v = fade(y), w = fade(z);
+		return SCALE3 * lerp(w,
+				lerp(v,
+						lerp(u, grad(hash(ix, iy, iz, seed), x, y, z), grad(hash(ix+1, iy, iz, seed), x-1, y, z)),
+						lerp(u, grad(hash(ix, iy+1, iz, seed), x, y-1, z), grad(hash(ix+1, iy+1, iz, seed), x-1, y-1, z))),
+				lerp(v,
+						lerp(u, grad(hash(ix, iy, iz+1, seed), x, y, z-1), grad(hash(ix+1, iy, iz+1, seed), x-1, y, z-1)),
+						lerp(u, grad(hash(ix, iy+1, iz+1, seed), x, y-1, z-1), grad(hash(ix+1, iy+1, iz+1, seed), x-1, y-1, z-1))));
+	}
+
+	@Override
+	public float get(float x, float y, float z, float w) {
+		int ix = Mathf.floor(x), iy = Mathf.floor(y), iz = Mathf.floor(z), iw = Mathf.floor(w);
+		x -= ix;
+		y -= iy;
+		z -= iz;
+		w -= iw;
+		float u = fade(x), v = fade(y), s = fade(z), t = fade(w);
+		return SCALE4 * lerp(t,
+				lerp(s, square(ix, iy, hash(iz, iw, seed), x, y, z, w, u, v), square(ix, iy, hash(iz+1, iw, seed), x, y, z-1, w, u, v)),
+				lerp(s, square(ix, iy, hash(iz, iw+1, seed), x, y, z, w-1, u, v), square(ix, iy, hash(iz+1, iw+1, seed), x, y, z-1, w-1, u, v)));
+	}
+
+	/** Interpolates the 4 corners of the xy square of a 4D cell, {@code hzw} being the hash of its z, w and seed */
+	private static float square(int ix, int iy, int hzw, float x, float y, float z, float w, float u, float v) {
+		return lerp(v,
+				lerp(u, grad(hash(ix, iy, hzw), x, y, z, w), grad(hash(ix+1, iy, hzw), x-1, y, z, w)),
+				lerp(u, grad(hash(ix, iy+1, hzw), x, y-1, z, w), grad(hash(ix+1, iy+1, hzw), x-1, y-1, z, w)));
+	}
+
+}
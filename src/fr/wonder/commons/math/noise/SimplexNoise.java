@@ -0,0 +1,122 @@
+package fr.wonder.commons.math.noise;
+
+import static fr.wonder.commons.math.Mathr.hash;
+import static fr.wonder.commons.math.noise.PerlinNoise.grad;
+
+import fr.wonder.commons.math.Mathf;
+
+/**
+ * Ken Perlin's simplex noise, following the implementation of Stefan
+ * Gustavson ("Simplex noise demystified").
+ * <p>
+ * Space is tiled with simplices (triangles, tetrahedra...) instead of
+ * hypercubes, a sample only sums the contributions of the {@code d+1} corners
+ * of its simplex instead of the {@code 2^d} corners of a cube: simplex noise
+ * is cheaper than {@link PerlinNoise} in 3 and 4 dimensions and has fewer
+ * axis-aligned artifacts. It uses the same gradients as {@link PerlinNoise}.
+ */
+public class SimplexNoise implements Noise {
+
+	private static final float F2 = (float) ((Math.sqrt(3)-1)/2), G2 = (float) ((3-Math.sqrt(3))/6);
+	private static final float F3 = 1/3f, G3 = 1/6f;
+	private static final float F4 = (float) ((Math.sqrt(5)-1)/4), G4 = (float) ((5-Math.sqrt(5))/20);
+	/* scales bringing the extrema of each dimension close to [-1,1] */
+	private static final float SCALE2 = 70, SCALE3 = 32, SCALE4 = 27;
+
+	private final int seed;
+
+	/**
+	 * Creates a simplex noise, noises of different seeds are uncorrelated.
+	 * @param seed the seed of the noise
+	 */
+	public SimplexNoise(int seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public float get(float x, float y) {
+		// skew the input space to find the simplex cell
+		float s = (x+y)*F2;
+		int i = Mathf.floor(x+s), j = Mathf.floor(y+s);
+		float t = (i+j)*G2;
+		float x0 = x-(i-t), y0 = y-(j-t);
+		// the lower or upper triangle of the skewed square
+		int i1 = x0 > y0 ? 1 : 0, j1 = 1-i1;
+		float x1 = x0-i1+G2, y1 = y0-j1+G2;
+		float x2 = x0-1+2*G2, y2 = y0-1+2*G2;
+		return SCALE2 * (corner(hash(i, j, seed), x0, y0)
+				+ corner(hash(i+i1, j+j1, seed), x1, y1)
+				+ corner(hash(i+1, j+1, seed), x2, y2));
+	}
+
+	private static float corner(int h, float x, float y) {
+		float t = .5f - x*x - y*y;
+		if(t <= 0)
+			return 0;
+		t *= t;
+		return t*t*grad(h, x, y);
+	}
+
+	@Override
+	public float get(float x, float y, float z) {
+		float s = (x+y+z)*F3;
+		int i = Mathf.floor(x+s), j = Mathf.floor(y+s), k = Mathf.floor(z+s);
+		float t = (i+j+k)*G3;
+		float x0 = x-(i-t), y0 = y-(j-t), z0 = z-(k-t);
+		// the second and third corners of the tetrahedron, by order of the coordinates
+		int i1, j1, k1, i2, j2, k2;
+		if(x0 >= y0) {
+			if(y0 >= z0)      { i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0; }
+			else if(x0 >= z0) { i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1; }
+			else              { i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1; }
+		} else {
+			if(y0 < z0)       { i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1; }
+			else if(x0 < z0)  { i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1; }
+			else              { i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0; }
+		}
+		return SCALE3 * (corner(hash(i, j, k, seed), x0, y0, z0)
+				+ corner(hash(i+i1, j+j1, k+k1, seed), x0-i1+G3, y0-j1+G3, z0-k1+G3)
+				+ corner(hash(i+i2, j+j2, k+k2, seed), x0-i2+2*G3, y0-j2+2*G3, z0-k2+2*G3)
+				+ corner(hash(i+1, j+1, k+1, seed), x0-1+3*G3, y0-1+3*G3, z0-1+3*G3));
+	}
+
+	private static float corner(int h, float x, float y, float z) {
+		float t = .6f - x*x - y*y - z*z;
+		if(t <= 0)
+			return 0;
+		t *= t;
+		return t*t*grad(h, x, y, z);
+	}
+
+	@Override
+	public float get(float x, float y, float z, float w) {
+		float s = (x+y+z+w)*F4;
+		int i = Mathf.floor(x+s), j = Mathf.floor(y+s), k = Mathf.floor(z+s), l = Mathf.floor(w+s);
+		float t = (i+j+k+l)*G4;
+		float x0 = x-(i-t), y0 = y-(j-t), z0 = z-(k-t), w0 = w-(l-t);
+		// rank the coordinates, the n-th corner moves along the n greatest ones
+		int rx = 0, ry = 0, rz = 0, rw = 0;
+		if(x0 > y0) rx++; else ry++;
+		if(x0 > z0) rx++; else rz++;
+		if(x0 > w0) rx++; else rw++;
+		if(y0 > z0) ry++; else rz++;
+		if(y0 > w0) ry++; else rw++;
+		if(z0 > w0) rz++; else rw++;
+		float n = corner(i, j, k, l, x0, y0, z0, w0);
+		for(int c = 1; c < 4; c++) {
+			int ic = rx >= 4-c ? 1 : 0, jc = ry >= 4-c ? 1 : 0, kc = rz >= 4-c ? 1 : 0, lc = rw >= 4-c ? 1 : 0;
+			n += corner(i+ic, j+jc, k+kc, l+lc, x0-ic+c*G4, y0-jc+c*G4, z0-kc+c*G4, w0-lc+c*G4);
+		}
+		n += corner(i+1, j+1, k+1, l+1, x0-1+4*G4, y0-1+4*G4, z0-1+4*G4, w0-1+4*G4);
+		return SCALE4 * n;
+	}
+
+	private float corner(int i, int j, int k, int l, float x, float y, float z, float w) {
+		float t = .6f - x*x - y*y - z*z - w*w;
+		if(t <= 0)
+			return 0;
+		t *= t;
+		return t*t*grad(hash(i, j, hash(k, l, seed)), x, y, z, w);
+	}
+
+}
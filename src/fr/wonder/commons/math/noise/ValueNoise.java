@@ -0,0 +1,66 @@
+package fr.wonder.commons.math.noise;
+
+import static fr.wonder.commons.math.Mathr.hash;
+import static fr.wonder.commons.math.noise.PerlinNoise.fade;
+import static fr.wonder.commons.math.noise.PerlinNoise.lerp;
+
+import fr.wonder.commons.math.Mathf;
+
+/**
+ * Value noise: each lattice point gets a pseudo-random value in [-1,1[ and the
+ * noise interpolates the values of the surrounding lattice points with a
+ * quintic curve.
+ * <p>
+ * Value noise is the cheapest of the noises of this package but shows more
+ * visible lattice artifacts than gradient noises, it is mostly useful as a
+ * base for {@link FractalNoise} where the artifacts of the octaves average
+ * out.
+ */
+public class ValueNoise implements Noise {
+
+	private final int seed;
+
+	/**
+	 * Creates a value noise, noises of different seeds are uncorrelated.
+	 * @param seed the seed of the noise
+	 */
+	public ValueNoise(int seed) {
+		this.seed = seed;
+	}
+
+	/** @return the lattice value of hash {@code h}, in [-1,1[ */
+	private static float value(int h) {
+		return (h >> 8) * 0x1p-23f;
+	}
+
+	@Override
+	public float get(float x, float y) {
+		int ix = Mathf.floor(x), iy = Mathf.floor(y);
+		float u = fade(x-ix), v = fade(y-iy);
+		return square(ix, iy, seed, u, v);
+	}
+
+	/** Interpolates the 4 corners of the xy square of a cell, {@code h} being the seed or the hash of its other coordinates and the seed */
+	private static float square(int ix, int iy, int h, float u, float v) {
+		return lerp(v,
+				lerp(u, value(hash(ix, iy, h)), value(hash(ix+1, iy, h))),
+				lerp(u, value(hash(ix, iy+1, h)), value(hash(ix+1, iy+1, h))));
+	}
+
+	@Override
+	public float get(float x, float y, float z) {
+		int ix = Mathf.floor(x), iy = Mathf.floor(y), iz = Mathf.floor(z);
+		float u = fade(x-ix), v = fade(y-iy), s = fade(z-iz);
+		return lerp(s, square(ix, iy, hash(iz, seed), u, v), square(ix, iy, hash(iz+1, seed), u, v));
+	}
+
+	@Override
+	public float get(float x, float y, float z, float w) {
+		int ix = Mathf.floor(x), iy = Mathf.floor(y), iz = Mathf.floor(z), iw = Mathf.floor(w);
+		float u = fade(x-ix), v = fade(y-iy), s = fade(z-iz), t = fade(w-iw);
+		return lerp(t,
+				lerp(s, square(ix, iy, hash(iz, iw, seed), u, v), square(ix, iy, hash(iz+1, iw, seed), u, v)),
+				lerp(s, square(ix, iy, hash(iz, iw+1, seed), u, v), square(ix, iy, hash(iz+1, iw+1, seed), u, v)));
+	}
+
+}
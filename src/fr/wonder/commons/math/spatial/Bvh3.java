@@ -0,0 +1,439 @@
+package fr.wonder.commons.math.spatial;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.wonder.commons.math.io.FloatFormat;
+import fr.wonder.commons.math.vectors.Vec3;
+import fr.wonder.commons.math.vectors.Vec3Buffer;
+
+/**
+ * A static bounding volume hierarchy over triangles, for ray casts and box
+ * queries in logarithmic time.
+ * <p>
+ * Nodes are axis-aligned boxes stored in flat arrays, the two children of an
+ * inner node are stored next to each other. The tree is built top-down with
+ * the surface area heuristic evaluated over a few bins along the widest axis
+ * of the triangle centroids. Large subtrees are built in parallel using the
+ * common fork-join pool.
+ * <p>
+ * Triangles are identified by their index in the source index array (the
+ * triangle {@code t} has vertices {@code indices[3t..3t+2]}).
+ * <p>
+ * The hierarchy cannot be modified once built, queries write into caller-owned
+ * objects and never allocate, so they can safely run concurrently from many
+ * threads as long as each thread uses its own {@link Hit}.
+ */
+public class Bvh3 {
+
+	private static final int LEAF_SIZE = 4;
+	private static final int BINS = 12;
+	private static final float TRAVERSAL_COST = 1, INTERSECTION_COST = 1;
+	/** Subtrees with fewer triangles than this are built by the current thread */
+	private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+	/**
+	 * The result of a ray cast, owned by the caller and reused across queries.
+	 */
+	public static class Hit {
+
+		/** The id of the triangle hit, -1 if there is none */
+		public int triangle = -1;
+		/** The distance along the ray, in units of the ray direction length */
+		public float t;
+		/** Barycentric coordinates of the hit point, relative to vertices 1 and 2 */
+		public float u, v;
+
+		@Override
+		public String toString() {
+			return triangle < 0 ? "[no hit]" : "[triangle " + triangle + ", t=" + FloatFormat.VECTOR.format(t) + "]";
+		}
+
+	}
+
+	/** Triangle vertices in leaf order, 9 floats per triangle */
+	private final float[] triangles;
+	private final int[] triangleIds;
+	/** Node bounds, minXYZ then maxXYZ, 6 floats per node */
+	private final float[] nodeBounds;
+	/** Index of the first triangle of a leaf, or of the first child of an inner node */
+	private final int[] nodeStart;
+	/** Number of triangles of a leaf, 0 for inner nodes */
+	private final int[] nodeCount;
+	private final int triangleCount;
+
+	/* build-time data, released once the hierarchy is built */
+	private float[] primBounds, centroids;
+	private int[] order;
+	private AtomicInteger nextNode;
+
+	/**
+	 * Builds a hierarchy over indexed triangles.
+	 * @param vertices the triangle vertices
+	 * @param indices three vertex indices per triangle
+	 */
+	public Bvh3(Vec3Buffer vertices, int[] indices) {
+		if(indices.length % 3 != 0)
+			throw new IllegalArgumentException("Index count is not a multiple of 3");
+		int n = triangleCount = indices.length/3;
+		primBounds = new float[6*n];
+		centroids = new float[3*n];
+		order = new int[n];
+		float[] vx = vertices.x, vy = vertices.y, vz = vertices.z;
+		for(int t = 0; t < n; t++) {
+			int a = indices[3*t], b = indices[3*t+1], c = indices[3*t+2];
+			Objects.checkIndex(a, vertices.size);
+			Objects.checkIndex(b, vertices.size);
+			Objects.checkIndex(c, vertices.size);
+			primBounds[6*t  ] = Math.min(vx[a], Math.min(vx[b], vx[c]));
+			primBounds[6*t+1] = Math.min(vy[a], Math.min(vy[b], vy[c]));
+			primBounds[6*t+2] = Math.min(vz[a], Math.min(vz[b], vz[c]));
+			primBounds[6*t+3] = Math.max(vx[a], Math.max(vx[b], vx[c]));
+			primBounds[6*t+4] = Math.max(vy[a], Math.max(vy[b], vy[c]));
+			primBounds[6*t+5] = Math.max(vz[a], Math.max(vz[b], vz[c]));
+			for(int k = 0; k < 3; k++)
+				centroids[3*t+k] = (primBounds[6*t+k] + primBounds[6*t+3+k]) * .5f;
+			order[t] = t;
+		}
+		int maxNodes = Math.max(1, 2*n-1);
+		nodeBounds = new float[6*maxNodes];
+		nodeStart = new int[maxNodes];
+		nodeCount = new int[maxNodes];
+		nextNode = new AtomicInteger(1);
+		if(n < PARALLEL_THRESHOLD)
+			build(0, 0, n);
+		else
+			ForkJoinPool.commonPool().invoke(new BuildTask(0, 0, n));
+		triangles = new float[9*n];
+		triangleIds = order;
+		for(int i = 0; i < n; i++) {
+			int t = order[i];
+			for(int k = 0; k < 3; k++) {
+				int v = indices[3*t+k];
+				triangles[9*i+3*k  ] = vx[v];
+				triangles[9*i+3*k+1] = vy[v];
+				triangles[9*i+3*k+2] = vz[v];
+			}
+		}
+		primBounds = centroids = null;
+		order = null;
+		nextNode = null;
+	}
+
+	/**
+	 * Builds a hierarchy over indexed triangles.
+	 * @param vertices the triangle vertices
+	 * @param indices three vertex indices per triangle
+	 */
+	public Bvh3(Vec3[] vertices, int[] indices) {
+		this(new Vec3Buffer(vertices), indices);
+	}
+
+	/** @return the number of triangles in this hierarchy */
+	public int triangleCount() {
+		return triangleCount;
+	}
+
+	private class BuildTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int node, start, end;
+
+		BuildTask(int node, int start, int end) {
+			this.node = node;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if(end-start < PARALLEL_THRESHOLD) {
+				build(node, start, end);
+				return;
+			}
+			int mid = split(node, start, end);
+			if(mid < 0)
+				return;
+			int child = nodeStart[node];
+			invokeAll(new BuildTask(child, start, mid), new BuildTask(child+1, mid, end));
+		}
+
+	}
+
+	private void build(int node, int start, int end) {
+		int mid = split(node, start, end);
+		if(mid < 0)
+			return;
+		int child = nodeStart[node];
+		build(child, start, mid);
+		build(child+1, mid, end);
+	}
+
+	/**
+	 * Computes the bounds of a node and either makes it a leaf (returning -1) or
+	 * partitions its triangles, allocates its two children and returns the index
+	 * of the first triangle of the second child.
+	 */
+	private int split(int node, int start, int end) {
+		float bminX = Float.POSITIVE_INFINITY, bminY = bminX, bminZ = bminX;
+		float bmaxX = Float.NEGATIVE_INFINITY, bmaxY = bmaxX, bmaxZ = bmaxX;
+		float cminX = bminX, cminY = bminX, cminZ = bminX;
+		float cmaxX = bmaxX, cmaxY = bmaxX, cmaxZ = bmaxX;
+		for(int i = start; i < end; i++) {
+			int t = order[i];
+			bminX = Math.min(bminX, primBounds[6*t  ]); bmaxX = Math.max(bmaxX, primBounds[6*t+3]);
+			bminY = Math.min(bminY, primBounds[6*t+1]); bmaxY = Math.max(bmaxY, primBounds[6*t+4]);
+			bminZ = Math.min(bminZ, primBounds[6*t+2]); bmaxZ = Math.max(bmaxZ, primBounds[6*t+5]);
+			cminX = Math.min(cminX, centroids[3*t  ]); cmaxX = Math.max(cmaxX, centroids[3*t  ]);
+			cminY = Math.min(cminY, centroids[3*t+1]); cmaxY = Math.max(cmaxY, centroids[3*t+1]);
+			cminZ = Math.min(cminZ, centroids[3*t+2]); cmaxZ = Math.max(cmaxZ, centroids[3*t+2]);
+		}
+		nodeBounds[6*node  ] = bminX; nodeBounds[6*node+1] = bminY; nodeBounds[6*node+2] = bminZ;
+		nodeBounds[6*node+3] = bmaxX; nodeBounds[6*node+4] = bmaxY; nodeBounds[6*node+5] = bmaxZ;
+		int count = end-start;
+		if(count <= LEAF_SIZE)
+			return makeLeaf(node, start, count);
+		float ex = cmaxX-cminX, ey = cmaxY-cminY, ez = cmaxZ-cminZ;
+		int axis = ex >= ey && ex >= ez ? 0 : ey >= ez ? 1 : 2;
+		float cmin = axis == 0 ? cminX : axis == 1 ? cminY : cminZ;
+		float extent = axis == 0 ? ex : axis == 1 ? ey : ez;
+		int mid;
+		if(extent <= 0) {
+			// all centroids are the same, any partition is as good
+			mid = start + count/2;
+		} else {
+			float binScale = BINS / extent;
+			int[] binCount = new int[BINS];
+			float[] binBounds = new float[6*BINS];
+			for(int b = 0; b < BINS; b++)
+				resetBounds(binBounds, b);
+			for(int i = start; i < end; i++) {
+				int t = order[i];
+				int b = binOf(centroids[3*t+axis], cmin, binScale);
+				binCount[b]++;
+				growBounds(binBounds, b, primBounds, t);
+			}
+			// sweep to evaluate the SAH cost of splitting after each bin
+			float[] leftArea = new float[BINS-1];
+			int[] leftCount = new int[BINS-1];
+			float[] acc = new float[6];
+			resetBounds(acc, 0);
+			int c = 0;
+			for(int b = 0; b < BINS-1; b++) {
+				growBounds(acc, 0, binBounds, b);
+				c += binCount[b];
+				leftCount[b] = c;
+				leftArea[b] = c == 0 ? 0 : area(acc, 0);
+			}
+			resetBounds(acc, 0);
+			c = 0;
+			float bestCost = Float.POSITIVE_INFINITY;
+			int bestBin = -1;
+			for(int b = BINS-1; b > 0; b--) {
+				growBounds(acc, 0, binBounds, b);
+				c += binCount[b];
+				if(c == 0 || leftCount[b-1] == 0)
+					continue;
+				float cost = leftArea[b-1]*leftCount[b-1] + area(acc, 0)*c;
+				if(cost < bestCost) {
+					bestCost = cost;
+					bestBin = b-1;
+				}
+			}
+			float leafCost = INTERSECTION_COST * count;
+			float nodeArea = area(nodeBounds, node);
+			if(bestBin < 0) {
+				mid = start + count/2;
+			} else if(nodeArea > 0 && TRAVERSAL_COST + INTERSECTION_COST*bestCost/nodeArea >= leafCost && count <= 4*LEAF_SIZE) {
+				return makeLeaf(node, start, count);
+			} else {
+				mid = partition(start, end, axis, cmin, binScale, bestBin);
+			}
+		}
+		int child = nextNode.getAndAdd(2);
+		nodeStart[node] = child;
+		nodeCount[node] = 0;
+		return mid;
+	}
+
+	private int makeLeaf(int node, int start, int count) {
+		nodeStart[node] = start;
+		nodeCount[node] = count;
+		return -1;
+	}
+
+	private static int binOf(float centroid, float cmin, float binScale) {
+		return Math.min(BINS-1, (int) ((centroid-cmin)*binScale));
+	}
+
+	/** Moves the triangles whose bin is lower or equal to {@code splitBin} first */
+	private int partition(int start, int end, int axis, float cmin, float binScale, int splitBin) {
+		int i = start, j = end-1;
+		while(i <= j) {
+			if(binOf(centroids[3*order[i]+axis], cmin, binScale) <= splitBin) {
+				i++;
+			} else {
+				int t = order[i]; order[i] = order[j]; order[j] = t;
+				j--;
+			}
+		}
+		return i;
+	}
+
+	private static void resetBounds(float[] bounds, int b) {
+		bounds[6*b] = bounds[6*b+1] = bounds[6*b+2] = Float.POSITIVE_INFINITY;
+		bounds[6*b+3] = bounds[6*b+4] = bounds[6*b+5] = Float.NEGATIVE_INFINITY;
+	}
+
+	private static void growBounds(float[] bounds, int b, float[] other, int o) {
+		for(int k = 0; k < 3; k++) {
+			bounds[6*b+k] = Math.min(bounds[6*b+k], other[6*o+k]);
+			bounds[6*b+3+k] = Math.max(bounds[6*b+3+k], other[6*o+3+k]);
+		}
+	}
+
+	private static float area(float[] bounds, int b) {
+		float dx = bounds[6*b+3]-bounds[6*b], dy = bounds[6*b+4]-bounds[6*b+1], dz = bounds[6*b+5]-bounds[6*b+2];
+		return dx*dy + dy*dz + dz*dx;
+	}
+
+	/**
+	 * Finds the first triangle hit by the ray {@code origin + t*direction} with
+	 * {@code 0 <= t < tMax}. Triangles are hit from both sides.
+	 * @param hit the object to write the result to, its triangle is set to -1 if
+	 *            nothing is hit
+	 * @return true if a triangle was hit
+	 */
+	public boolean raycast(float ox, float oy, float oz, float dx, float dy, float dz, float tMax, Hit hit) {
+		hit.triangle = -1;
+		hit.t = tMax;
+		if(triangleCount == 0)
+			return false;
+		float idx = 1/dx, idy = 1/dy, idz = 1/dz;
+		raycast(0, ox, oy, oz, dx, dy, dz, idx, idy, idz, hit);
+		return hit.triangle >= 0;
+	}
+
+	public boolean raycast(Vec3 origin, Vec3 direction, float tMax, Hit hit) {
+		return raycast(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z, tMax, hit);
+	}
+
+	private void raycast(int node, float ox, float oy, float oz, float dx, float dy, float dz,
+			float idx, float idy, float idz, Hit hit) {
+		int count = nodeCount[node];
+		if(count > 0) {
+			int start = nodeStart[node];
+			for(int i = start; i < start+count; i++)
+				intersect(i, ox, oy, oz, dx, dy, dz, hit);
+			return;
+		}
+		int left = nodeStart[node], right = left+1;
+		float tl = entry(left, ox, oy, oz, idx, idy, idz, hit.t);
+		float tr = entry(right, ox, oy, oz, idx, idy, idz, hit.t);
+		if(tr < tl) {
+			int n = left; left = right; right = n;
+			float t = tl; tl = tr; tr = t;
+		}
+		if(tl < hit.t)
+			raycast(left, ox, oy, oz, dx, dy, dz, idx, idy, idz, hit);
+		if(tr < hit.t)
+			raycast(right, ox, oy, oz, dx, dy, dz, idx, idy, idz, hit);
+	}
+
+	/**
+	 * Slab test, returns the distance at which the ray enters the node or +inf.
+	 * <p>
+	 * A zero direction component gives infinite inverses, and NaN distances
+	 * when the origin lies on a plane of the box. NaNs fail the comparisons and
+	 * leave the interval unchanged, the ray then counts as inside that slab.
+	 */
+	private float entry(int node, float ox, float oy, float oz, float idx, float idy, float idz, float tMax) {
+		float tmin = 0, tmax = tMax;
+		float t1 = (nodeBounds[6*node  ]-ox)*idx, t2 = (nodeBounds[6*node+3]-ox)*idx;
+		float near = Math.min(t1, t2), far = Math.max(t1, t2);
+		tmin = near > tmin ? near : tmin; tmax = far < tmax ? far : tmax;
+		t1 = (nodeBounds[6*node+1]-oy)*idy; t2 = (nodeBounds[6*node+4]-oy)*idy;
+		near = Math.min(t1, t2); far = Math.max(t1, t2);
+		tmin = near > tmin ? near : tmin; tmax = far < tmax ? far : tmax;
+		t1 = (nodeBounds[6*node+2]-oz)*idz; t2 = (nodeBounds[6*node+5]-oz)*idz;
+		near = Math.min(t1, t2); far = Math.max(t1, t2);
+		tmin = near > tmin ? near : tmin; tmax = far < tmax ? far : tmax;
+		return tmin <= tmax && tmin < tMax ? tmin : Float.POSITIVE_INFINITY;
+	}
+
+	/** Moller-Trumbore intersection with the i-th stored triangle */
+	private void intersect(int i, float ox, float oy, float oz, float dx, float dy, float dz, Hit hit) {
+		float[] tr = triangles;
+		int o = 9*i;
+		float ax = tr[o], ay = tr[o+1], az = tr[o+2];
+		float e1x = tr[o+3]-ax, e1y = tr[o+4]-ay, e1z = tr[o+5]-az;
+		float e2x = tr[o+6]-ax, e2y = tr[o+7]-ay, e2z = tr[o+8]-az;
+		float px = dy*e2z - dz*e2y, py = dz*e2x - dx*e2z, pz = dx*e2y - dy*e2x;
+		float det = e1x*px + e1y*py + e1z*pz;
+		if(det == 0)
+			return;
+		float id = 1/det;
+		float sx = ox-ax, sy = oy-ay, sz = oz-az;
+		float u = (sx*px + sy*py + sz*pz)*id;
+		if(u < 0 || u > 1)
+			return;
+		float qx = sy*e1z - sz*e1y, qy = sz*e1x - sx*e1z, qz = sx*e1y - sy*e1x;
+		float v = (dx*qx + dy*qy + dz*qz)*id;
+		if(v < 0 || u+v > 1)
+			return;
+		float t = (e2x*qx + e2y*qy + e2z*qz)*id;
+		if(t >= 0 && t < hit.t) {
+			hit.t = t;
+			hit.u = u;
+			hit.v = v;
+			hit.triangle = triangleIds[i];
+		}
+	}
+
+	/**
+	 * Finds the triangles whose bounding box overlaps the given axis-aligned box.
+	 * <p>
+	 * At most {@code dest.length} ids are written, the returned count may be
+	 * greater in which case the caller may retry with a larger array.
+	 * @param dest the array to write the found triangle ids to
+	 * @return the number of triangles found
+	 */
+	public int queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] dest) {
+		if(triangleCount == 0)
+			return 0;
+		return queryBox(0, minX, minY, minZ, maxX, maxY, maxZ, dest, 0);
+	}
+
+	public int queryBox(Vec3 min, Vec3 max, int[] dest) {
+		return queryBox(min.x, min.y, min.z, max.x, max.y, max.z, dest);
+	}
+
+	private int queryBox(int node, float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] dest, int found) {
+		float[] b = nodeBounds;
+		int o = 6*node;
+		if(b[o] > maxX || b[o+1] > maxY || b[o+2] > maxZ || b[o+3] < minX || b[o+4] < minY || b[o+5] < minZ)
+			return found;
+		int count = nodeCount[node];
+		if(count == 0) {
+			found = queryBox(nodeStart[node], minX, minY, minZ, maxX, maxY, maxZ, dest, found);
+			return queryBox(nodeStart[node]+1, minX, minY, minZ, maxX, maxY, maxZ, dest, found);
+		}
+		float[] tr = triangles;
+		for(int i = nodeStart[node]; i < nodeStart[node]+count; i++) {
+			int t = 9*i;
+			float tminX = Math.min(tr[t], Math.min(tr[t+3], tr[t+6])), tmaxX = Math.max(tr[t], Math.max(tr[t+3], tr[t+6]));
+			float tminY = Math.min(tr[t+1], Math.min(tr[t+4], tr[t+7])), tmaxY = Math.max(tr[t+1], Math.max(tr[t+4], tr[t+7]));
+			float tminZ = Math.min(tr[t+2], Math.min(tr[t+5], tr[t+8])), tmaxZ = Math.max(tr[t+2], Math.max(tr[t+5], tr[t+8]));
+			if(tminX <= maxX && tminY <= maxY && tminZ <= maxZ && tmaxX >= minX && tmaxY >= minY && tmaxZ >= minZ) {
+				if(found < dest.length)
+					dest[found] = triangleIds[i];
+				found++;
+			}
+		}
+		return found;
+	}
+
+}
@@ -0,0 +1,256 @@
+package fr.wonder.commons.math.spatial;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Common storage of {@link HashGrid2} and {@link HashGrid3}.
+ * <p>
+ * Items are identified by an int id in {@code [0, capacity[}, typically their
+ * index in a vector buffer. Each non-empty cell holds the ids of its items,
+ * cells are found through a {@link Vec2iMap} keyed by their packed coordinates.
+ * Cells that become empty are kept so that items moving back and forth do not
+ * allocate, but not forever: they are dropped when they outnumber the
+ * non-empty cells, and a {@link #clear()} (thus a rebuild) drops the cells
+ * that were already empty. Items moving through unbounded space only keep the
+ * cells around their recent positions.
+ */
+abstract class HashGrid {
+	
+	/** Rebuilds of fewer items are not worth splitting across threads */
+	private static final int PARALLEL_THRESHOLD = 1 << 14;
+	/** Empty cells are always kept below this count */
+	private static final int MIN_TRIM = 32;
+	
+	static final class Cell {
+		
+		int[] ids = new int[4];
+		int count;
+		
+		void add(int id) {
+			if(count == ids.length)
+				ids = Arrays.copyOf(ids, count*2);
+			ids[count++] = id;
+		}
+		
+		void remove(int id) {
+			for(int i = 0; i < count; i++) {
+				if(ids[i] == id) {
+					ids[i] = ids[--count];
+					return;
+				}
+			}
+		}
+		
+	}
+	
+	protected final float cellSize, invCellSize;
+	protected final int capacity;
+	protected final Vec2iMap<Cell> cells = new Vec2iMap<>();
+	/** The packed key of the cell each item is in */
+	protected final long[] cellKeys;
+	protected final boolean[] present;
+	protected int size;
+	/** The number of cells that hold no item */
+	private int emptyCells;
+	
+	private long[] rebuildScratch = new long[0];
+	
+	protected HashGrid(float cellSize, int capacity) {
+		if(!(cellSize > 0))
+			throw new IllegalArgumentException("Invalid cell size: " + cellSize);
+		this.cellSize = cellSize;
+		this.invCellSize = 1/cellSize;
+		this.capacity = capacity;
+		this.cellKeys = new long[capacity];
+		this.present = new boolean[capacity];
+	}
+	
+	/** @return the side length of a cell */
+	public float getCellSize() {
+		return cellSize;
+	}
+	
+	/** @return the number of ids this grid can hold, ids range in {@code [0, capacity[} */
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/** @return the number of items in this grid */
+	public int size() {
+		return size;
+	}
+	
+	public boolean contains(int id) {
+		return present[id];
+	}
+	
+	/**
+	 * Removes an item from this grid.
+	 * @return true if the item was in the grid
+	 */
+	public boolean remove(int id) {
+		if(!present[id])
+			return false;
+		removeFromCell(id);
+		present[id] = false;
+		size--;
+		return true;
+	}
+	
+	/**
+	 * Removes every item. Cells that were already empty are dropped, the others
+	 * are kept for reuse by the next insertions or rebuild.
+	 */
+	public void clear() {
+		trim();
+		cells.forEach((x, y, cell) -> cell.count = 0);
+		emptyCells = cells.size();
+		Arrays.fill(present, false);
+		size = 0;
+	}
+	
+	/**
+	 * Drops the cells that hold no item. This is done automatically when they
+	 * outnumber the non-empty cells, call it to release their memory right away
+	 * after removing many items.
+	 */
+	public void trim() {
+		if(emptyCells == 0)
+			return;
+		long[] empty = new long[emptyCells];
+		int[] count = { 0 };
+		cells.forEach((x, y, cell) -> {
+			if(cell.count == 0)
+				empty[count[0]++] = Hashing.pack(x, y);
+		});
+		for(int i = 0; i < count[0]; i++)
+			cells.remove(Hashing.unpackX(empty[i]), Hashing.unpackY(empty[i]));
+		emptyCells = 0;
+	}
+	
+	/** Removes an item from its cell, dropping empty cells if there are too many */
+	private void removeFromCell(int id) {
+		Cell cell = cellOf(cellKeys[id]);
+		cell.remove(id);
+		if(cell.count == 0 && ++emptyCells > MIN_TRIM && 2*emptyCells > cells.size())
+			trim();
+	}
+	
+	/**
+	 * Returns the cell coordinate of a position along an axis, saturated to the
+	 * int range so that far positions and unbounded queries keep ordered ranges.
+	 */
+	protected int cell(float v) {
+		return (int) Math.floor(v*invCellSize);
+	}
+	
+	/**
+	 * Returns whether a query overlapping {@code cellCount} cells should check
+	 * every item rather than look its cells up, because the grid holds fewer
+	 * items than that. Counts are doubles so that unbounded queries (huge or
+	 * infinite radii) do not overflow.
+	 */
+	protected boolean checkAllItems(double cellCount) {
+		return cellCount > size;
+	}
+	
+	protected Cell cellOf(long key) {
+		return cells.get(Hashing.unpackX(key), Hashing.unpackY(key));
+	}
+	
+	protected void checkNew(int id) {
+		if(present[id])
+			throw new IllegalArgumentException("Id " + id + " is already in the grid");
+	}
+	
+	protected void checkPresent(int id) {
+		if(!present[id])
+			throw new IllegalArgumentException("Id " + id + " is not in the grid");
+	}
+	
+	/** Adds an item that is not in the grid yet to the cell of the given key */
+	protected void addToCell(int id, long key) {
+		int kx = Hashing.unpackX(key), ky = Hashing.unpackY(key);
+		Cell cell = cells.get(kx, ky);
+		if(cell == null)
+			cells.put(kx, ky, cell = new Cell());
+		else if(cell.count == 0)
+			emptyCells--;
+		cell.add(id);
+		cellKeys[id] = key;
+		present[id] = true;
+		size++;
+	}
+	
+	/** Moves an item that is in the grid to the cell of the given key */
+	protected void moveToCell(int id, long key) {
+		if(cellKeys[id] == key)
+			return;
+		removeFromCell(id);
+		size--;
+		addToCell(id, key);
+	}
+	
+	/**
+	 * Runs {@code action} for every index in {@code [from, to[}, in parallel if
+	 * there are enough of them. The action must only write to per-index slots.
+	 */
+	protected static void forRange(int from, int to, IntConsumer action) {
+		if(to-from < PARALLEL_THRESHOLD) {
+			for(int i = from; i < to; i++)
+				action.accept(i);
+		} else {
+			IntStream.range(from, to).parallel().forEach(action);
+		}
+	}
+	
+	/**
+	 * Fills the cells from the ids in {@code [from, to[} whose {@link #cellKeys}
+	 * have already been computed, the grid must have been cleared.
+	 * <p>
+	 * Ids are sorted by cell hash (in parallel for large inputs) so that each cell
+	 * is looked up once per run of its items instead of once per item.
+	 */
+	protected void fillCells(int from, int to) {
+		int n = to-from;
+		if(rebuildScratch.length < n)
+			rebuildScratch = new long[n];
+		long[] order = rebuildScratch;
+		forRange(from, to, i -> order[i-from] = ((long) (int) Hashing.mix(cellKeys[i]) << 32) | i);
+		if(n < PARALLEL_THRESHOLD)
+			Arrays.sort(order, 0, n);
+		else
+			Arrays.parallelSort(order, 0, n);
+		Cell cell = null;
+		long cellKey = 0;
+		for(int j = 0; j < n; j++) {
+			int id = (int) order[j];
+			long key = cellKeys[id];
+			if(cell == null || key != cellKey) {
+				cellKey = key;
+				int kx = Hashing.unpackX(key), ky = Hashing.unpackY(key);
+				cell = cells.get(kx, ky);
+				if(cell == null)
+					cells.put(kx, ky, cell = new Cell());
+				else if(cell.count == 0)
+					emptyCells--;
+			}
+			cell.add(id);
+			present[id] = true;
+		}
+		size = n;
+	}
+	
+	/**
+	 * Writes {@code id} at {@code dest[found]} if it fits.
+	 * @return {@code found+1}
+	 */
+	protected static int emit(int[] dest, int found, int id) {
+		if(found < dest.length)
+			dest[found] = id;
+		return found+1;
+	}
+	
+}
@@ -0,0 +1,179 @@
+package fr.wonder.commons.math.spatial;
+
+import java.util.Objects;
+
+import fr.wonder.commons.math.vectors.Vec2;
+import fr.wonder.commons.math.vectors.Vec2Buffer;
+
+/**
+ * A uniform grid over 2D points, meant for neighbour searches that would
+ * otherwise be O(n^2).
+ * <p>
+ * Items are identified by an int id in {@code [0, capacity[} (typically their
+ * index in a {@link Vec2Buffer}), the item at {@code (x,y)} lies in the cell
+ * {@code (floor(x/cellSize), floor(y/cellSize))}. Only non-empty cells are
+ * stored, in a hash table, so the grid is unbounded.
+ * <p>
+ * Items can be inserted, moved and removed incrementally or the whole grid can
+ * be rebuilt at once from a buffer, which is faster when most items move every
+ * frame. Queries write the ids they find into a caller-owned {@code int[]} and
+ * do not allocate.
+ * <p>
+ * Choose a cell size close to the typical query radius: queries visit every
+ * cell overlapping the query region, or check every item when the region
+ * overlaps more cells than there are items.
+ * <p>
+ * Concurrent queries are safe as long as the grid is not modified.
+ */
+public class HashGrid2 extends HashGrid {
+	
+	private final float[] px, py;
+	
+	/**
+	 * Creates an empty grid.
+	 * @param cellSize the side length of a cell
+	 * @param capacity the number of ids the grid can hold
+	 */
+	public HashGrid2(float cellSize, int capacity) {
+		super(cellSize, capacity);
+		this.px = new float[capacity];
+		this.py = new float[capacity];
+	}
+	
+	private long keyOf(float x, float y) {
+		return Hashing.pack(cell(x), cell(y));
+	}
+	
+	/**
+	 * Adds an item to the grid.
+	 * @throws IllegalArgumentException if the id is already in the grid
+	 */
+	public void insert(int id, float x, float y) {
+		checkNew(id);
+		px[id] = x;
+		py[id] = y;
+		addToCell(id, keyOf(x, y));
+	}
+	
+	public void insert(int id, Vec2 position) {
+		insert(id, position.x, position.y);
+	}
+	
+	/**
+	 * Updates the position of an item, this is cheap if the item stays in the same
+	 * cell.
+	 * @throws IllegalArgumentException if the id is not in the grid
+	 */
+	public void move(int id, float x, float y) {
+		checkPresent(id);
+		px[id] = x;
+		py[id] = y;
+		moveToCell(id, keyOf(x, y));
+	}
+	
+	public void move(int id, Vec2 position) {
+		move(id, position.x, position.y);
+	}
+	
+	/**
+	 * Clears this grid and inserts the positions of {@code [from, to[} with their
+	 * index as id. Large inputs are processed in parallel.
+	 */
+	public void rebuild(Vec2Buffer positions, int from, int to) {
+		Objects.checkFromToIndex(from, to, positions.size);
+		Objects.checkFromToIndex(from, to, capacity);
+		clear();
+		System.arraycopy(positions.x, from, px, from, to-from);
+		System.arraycopy(positions.y, from, py, from, to-from);
+		forRange(from, to, i -> cellKeys[i] = keyOf(px[i], py[i]));
+		fillCells(from, to);
+	}
+	
+	/**
+	 * Finds the items within {@code radius} of {@code (x,y)}.
+	 * <p>
+	 * At most {@code dest.length} ids are written, the returned count may be
+	 * greater in which case the caller may retry with a larger array.
+	 * @param dest the array to write the found ids to
+	 * @return the number of items found
+	 */
+	public int queryRadius(float x, float y, float radius, int[] dest) {
+		int minX = cell(x-radius), maxX = cell(x+radius);
+		int minY = cell(y-radius), maxY = cell(y+radius);
+		float r2 = radius*radius;
+		int found = 0;
+		if(checkAllItems(((double) maxX-minX+1) * ((double) maxY-minY+1))) {
+			for(int id = 0; id < capacity; id++) {
+				if(present[id] && withinRadius(id, x, y, r2))
+					found = emit(dest, found, id);
+			}
+			return found;
+		}
+		for(long cx = minX; cx <= maxX; cx++) {
+			for(long cy = minY; cy <= maxY; cy++) {
+				Cell cell = cells.get((int) cx, (int) cy);
+				if(cell == null)
+					continue;
+				for(int j = 0; j < cell.count; j++) {
+					int id = cell.ids[j];
+					if(withinRadius(id, x, y, r2))
+						found = emit(dest, found, id);
+				}
+			}
+		}
+		return found;
+	}
+	
+	public int queryRadius(Vec2 center, float radius, int[] dest) {
+		return queryRadius(center.x, center.y, radius, dest);
+	}
+	
+	/**
+	 * Finds the items inside the given axis-aligned box (bounds included).
+	 * <p>
+	 * At most {@code dest.length} ids are written, the returned count may be
+	 * greater in which case the caller may retry with a larger array.
+	 * @param dest the array to write the found ids to
+	 * @return the number of items found
+	 */
+	public int queryBox(float minX, float minY, float maxX, float maxY, int[] dest) {
+		int cminX = cell(minX), cmaxX = cell(maxX);
+		int cminY = cell(minY), cmaxY = cell(maxY);
+		int found = 0;
+		if(checkAllItems(((double) cmaxX-cminX+1) * ((double) cmaxY-cminY+1))) {
+			for(int id = 0; id < capacity; id++) {
+				if(present[id] && inBox(id, minX, minY, maxX, maxY))
+					found = emit(dest, found, id);
+			}
+			return found;
+		}
+		for(long cx = cminX; cx <= cmaxX; cx++) {
+			for(long cy = cminY; cy <= cmaxY; cy++) {
+				Cell cell = cells.get((int) cx, (int) cy);
+				if(cell == null)
+					continue;
+				for(int j = 0; j < cell.count; j++) {
+					int id = cell.ids[j];
+					if(inBox(id, minX, minY, maxX, maxY))
+						found = emit(dest, found, id);
+				}
+			}
+		}
+		return found;
+	}
+	
+	public int queryBox(Vec2 min, Vec2 max, int[] dest) {
+		return queryBox(min.x, min.y, max.x, max.y, dest);
+	}
+	
+	private boolean withinRadius(int id, float x, float y, float r2) {
+		float dx = px[id]-x, dy = py[id]-y;
+		return dx*dx + dy*dy <= r2;
+	}
+	
+	private boolean inBox(int id, float minX, float minY, float maxX, float maxY) {
+		float x = px[id], y = py[id];
+		return x >= minX && x <= maxX && y >= minY && y <= maxY;
+	}
+	
+}
@@ -0,0 +1,198 @@
+package fr.wonder.commons.math.spatial;
+
+import java.util.Objects;
+
+import fr.wonder.commons.math.vectors.Vec3;
+import fr.wonder.commons.math.vectors.Vec3Buffer;
+
+/**
+ * A uniform grid over 3D points, meant for neighbour searches that would
+ * otherwise be O(n^2).
+ * <p>
+ * Works like {@link HashGrid2}. Cell coordinates are packed on 21 bits each, so
+ * points should lie within {@code 2^20} cells of the origin along every axis,
+ * farther cells wrap around and share their items with other cells: queries
+ * stay correct but get slower. Queries overlapping more than {@code 2^21} cells
+ * along an axis would visit wrapped cells twice, they check every item
+ * instead, like queries overlapping more cells than there are items.
+ * <p>
+ * Concurrent queries are safe as long as the grid is not modified.
+ */
+public class HashGrid3 extends HashGrid {
+	
+	private static final long MASK21 = (1 << 21) - 1;
+	/** Number of distinct packed coordinates along an axis */
+	private static final long AXIS_CELLS = 1 << 21;
+	
+	private final float[] px, py, pz;
+	
+	/**
+	 * Creates an empty grid.
+	 * @param cellSize the side length of a cell
+	 * @param capacity the number of ids the grid can hold
+	 */
+	public HashGrid3(float cellSize, int capacity) {
+		super(cellSize, capacity);
+		this.px = new float[capacity];
+		this.py = new float[capacity];
+		this.pz = new float[capacity];
+	}
+	
+	private static long pack(int cx, int cy, int cz) {
+		return ((cx & MASK21) << 42) | ((cy & MASK21) << 21) | (cz & MASK21);
+	}
+	
+	private long keyOf(float x, float y, float z) {
+		return pack(cell(x), cell(y), cell(z));
+	}
+	
+	/**
+	 * Adds an item to the grid.
+	 * @throws IllegalArgumentException if the id is already in the grid
+	 */
+	public void insert(int id, float x, float y, float z) {
+		checkNew(id);
+		px[id] = x;
+		py[id] = y;
+		pz[id] = z;
+		addToCell(id, keyOf(x, y, z));
+	}
+	
+	public void insert(int id, Vec3 position) {
+		insert(id, position.x, position.y, position.z);
+	}
+	
+	/**
+	 * Updates the position of an item, this is cheap if the item stays in the same
+	 * cell.
+	 * @throws IllegalArgumentException if the id is not in the grid
+	 */
+	public void move(int id, float x, float y, float z) {
+		checkPresent(id);
+		px[id] = x;
+		py[id] = y;
+		pz[id] = z;
+		moveToCell(id, keyOf(x, y, z));
+	}
+	
+	public void move(int id, Vec3 position) {
+		move(id, position.x, position.y, position.z);
+	}
+	
+	/**
+	 * Clears this grid and inserts the positions of {@code [from, to[} with their
+	 * index as id. Large inputs are processed in parallel.
+	 */
+	public void rebuild(Vec3Buffer positions, int from, int to) {
+		Objects.checkFromToIndex(from, to, positions.size);
+		Objects.checkFromToIndex(from, to, capacity);
+		clear();
+		System.arraycopy(positions.x, from, px, from, to-from);
+		System.arraycopy(positions.y, from, py, from, to-from);
+		System.arraycopy(positions.z, from, pz, from, to-from);
+		forRange(from, to, i -> cellKeys[i] = keyOf(px[i], py[i], pz[i]));
+		fillCells(from, to);
+	}
+	
+	/**
+	 * Finds the items within {@code radius} of {@code (x,y,z)}.
+	 * <p>
+	 * At most {@code dest.length} ids are written, the returned count may be
+	 * greater in which case the caller may retry with a larger array.
+	 * @param dest the array to write the found ids to
+	 * @return the number of items found
+	 */
+	public int queryRadius(float x, float y, float z, float radius, int[] dest) {
+		int minX = cell(x-radius), maxX = cell(x+radius);
+		int minY = cell(y-radius), maxY = cell(y+radius);
+		int minZ = cell(z-radius), maxZ = cell(z+radius);
+		float r2 = radius*radius;
+		int found = 0;
+		if(checkAllItems(minX, maxX, minY, maxY, minZ, maxZ)) {
+			for(int id = 0; id < capacity; id++) {
+				if(present[id] && withinRadius(id, x, y, z, r2))
+					found = emit(dest, found, id);
+			}
+			return found;
+		}
+		for(long cx = minX; cx <= maxX; cx++) {
+			for(long cy = minY; cy <= maxY; cy++) {
+				for(long cz = minZ; cz <= maxZ; cz++) {
+					Cell cell = cellOf(pack((int) cx, (int) cy, (int) cz));
+					if(cell == null)
+						continue;
+					for(int j = 0; j < cell.count; j++) {
+						int id = cell.ids[j];
+						if(withinRadius(id, x, y, z, r2))
+							found = emit(dest, found, id);
+					}
+				}
+			}
+		}
+		return found;
+	}
+	
+	public int queryRadius(Vec3 center, float radius, int[] dest) {
+		return queryRadius(center.x, center.y, center.z, radius, dest);
+	}
+	
+	/**
+	 * Finds the items inside the given axis-aligned box (bounds included).
+	 * <p>
+	 * At most {@code dest.length} ids are written, the returned count may be
+	 * greater in which case the caller may retry with a larger array.
+	 * @param dest the array to write the found ids to
+	 * @return the number of items found
+	 */
+	public int queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] dest) {
+		int cminX = cell(minX), cmaxX = cell(maxX);
+		int cminY = cell(minY), cmaxY = cell(maxY);
+		int cminZ = cell(minZ), cmaxZ = cell(maxZ);
+		int found = 0;
+		if(checkAllItems(cminX, cmaxX, cminY, cmaxY, cminZ, cmaxZ)) {
+			for(int id = 0; id < capacity; id++) {
+				if(present[id] && inBox(id, minX, minY, minZ, maxX, maxY, maxZ))
+					found = emit(dest, found, id);
+			}
+			return found;
+		}
+		for(long cx = cminX; cx <= cmaxX; cx++) {
+			for(long cy = cminY; cy <= cmaxY; cy++) {
+				for(long cz = cminZ; cz <= cmaxZ; cz++) {
+					Cell cell = cellOf(pack((int) cx, (int) cy, (int) cz));
+					if(cell == null)
+						continue;
+					for(int j = 0; j < cell.count; j++) {
+						int id = cell.ids[j];
+						if(inBox(id, minX, minY, minZ, maxX, maxY, maxZ))
+							found = emit(dest, found, id);
+					}
+				}
+			}
+		}
+		return found;
+	}
+	
+	public int queryBox(Vec3 min, Vec3 max, int[] dest) {
+		return queryBox(min.x, min.y, min.z, max.x, max.y, max.z, dest);
+	}
+	
+	/** Also checks every item if packed coordinates would wrap within the range */
+	private boolean checkAllItems(int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+		long spanX = (long) maxX-minX+1, spanY = (long) maxY-minY+1, spanZ = (long) maxZ-minZ+1;
+		if(spanX > AXIS_CELLS || spanY > AXIS_CELLS || spanZ > AXIS_CELLS)
+			return true;
+		return checkAllItems((double) spanX * spanY * spanZ);
+	}
+	
+	private boolean withinRadius(int id, float x, float y, float z, float r2) {
+		float dx = px[id]-x, dy = py[id]-y, dz = pz[id]-z;
+		return dx*dx + dy*dy + dz*dz <= r2;
+	}
+	
+	private boolean inBox(int id, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		float x = px[id], y = py[id], z = pz[id];
+		return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+	}
+	
+}
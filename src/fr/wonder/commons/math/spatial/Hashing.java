@@ -0,0 +1,50 @@
+package fr.wonder.commons.math.spatial;
+
+/**
+ * Key packing and mixing functions shared by the open-addressing tables of
+ * this package.
+ */
+class Hashing {
+	
+	/** Packs two ints in a long, x in the high bits and y in the low bits */
+	static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+	
+	static int unpackX(long key) {
+		return (int) (key >> 32);
+	}
+	
+	static int unpackY(long key) {
+		return (int) key;
+	}
+	
+	/**
+	 * The 64 bits finalizer of MurmurHash3, consecutive grid coordinates end up
+	 * far apart which keeps linear probing sequences short.
+	 */
+	static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	
+	static long mix(long h1, long h2) {
+		return mix(h1 ^ mix(h2));
+	}
+	
+	/**
+	 * Returns the table capacity (a power of two) needed to hold {@code expected}
+	 * entries under the given load factor.
+	 */
+	static int capacityFor(int expected, float loadFactor) {
+		long needed = (long) Math.ceil(Math.max(2, expected) / loadFactor);
+		if(needed > 1 << 30)
+			throw new IllegalArgumentException("Too many entries: " + expected);
+		return Integer.highestOneBit((int) needed - 1) << 1;
+	}
+	
+}
@@ -0,0 +1,330 @@
+package fr.wonder.commons.math.spatial;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import fr.wonder.commons.math.vectors.Vec3;
+import fr.wonder.commons.math.vectors.Vec3Buffer;
+
+/**
+ * A static k-d tree over 3D points, for nearest neighbours and radius searches
+ * in logarithmic time.
+ * <p>
+ * The tree is implicit: points are reordered in flat arrays such that the
+ * median of every range {@code [lo, hi[} sits at {@code (lo+hi)/2}, with smaller
+ * coordinates on its left along the split axis of the node. No node objects
+ * are allocated, the tree costs 17 bytes per point.
+ * <p>
+ * Points are identified by their index in the source data. Large trees are
+ * built in parallel using the common fork-join pool, splitting each range at
+ * the median of its widest axis.
+ * <p>
+ * The tree cannot be modified once built, queries write into caller-owned
+ * arrays and never allocate, so they can safely run concurrently from many
+ * threads.
+ */
+public class KdTree3 {
+
+	/** Ranges smaller than this are built by the current thread */
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	private final float[] x, y, z;
+	private final int[] ids;
+	/** The split axis of the node whose median is at index i */
+	private final byte[] axis;
+	private final int size;
+
+	/**
+	 * Builds a tree over the points {@code [from, to[} of a buffer, the ids of the
+	 * points are their index in the buffer.
+	 */
+	public KdTree3(Vec3Buffer points, int from, int to) {
+		Objects.checkFromToIndex(from, to, points.size);
+		this.size = to-from;
+		this.x = new float[size];
+		this.y = new float[size];
+		this.z = new float[size];
+		this.ids = new int[size];
+		this.axis = new byte[size];
+		System.arraycopy(points.x, from, x, 0, size);
+		System.arraycopy(points.y, from, y, 0, size);
+		System.arraycopy(points.z, from, z, 0, size);
+		for(int i = 0; i < size; i++)
+			ids[i] = from+i;
+		build();
+	}
+
+	/**
+	 * Builds a tree over the given points, the ids of the points are their index
+	 * in the array.
+	 */
+	public KdTree3(Vec3[] points) {
+		this(new Vec3Buffer(points), 0, points.length);
+	}
+
+	/** @return the number of points in this tree */
+	public int size() {
+		return size;
+	}
+
+	private void build() {
+		if(size < PARALLEL_THRESHOLD)
+			build(0, size);
+		else
+			ForkJoinPool.commonPool().invoke(new BuildTask(0, size));
+	}
+
+	private class BuildTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int lo, hi;
+
+		BuildTask(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi-lo < PARALLEL_THRESHOLD) {
+				build(lo, hi);
+			} else {
+				int m = split(lo, hi);
+				invokeAll(new BuildTask(lo, m), new BuildTask(m+1, hi));
+			}
+		}
+
+	}
+
+	private void build(int lo, int hi) {
+		while(hi-lo > 1) {
+			int m = split(lo, hi);
+			build(lo, m);
+			lo = m+1;
+		}
+	}
+
+	/**
+	 * Chooses the widest axis of the range, places its median at the middle of
+	 * the range and returns the median index.
+	 */
+	private int split(int lo, int hi) {
+		float minX = x[lo], maxX = minX, minY = y[lo], maxY = minY, minZ = z[lo], maxZ = minZ;
+		for(int i = lo+1; i < hi; i++) {
+			minX = Math.min(minX, x[i]); maxX = Math.max(maxX, x[i]);
+			minY = Math.min(minY, y[i]); maxY = Math.max(maxY, y[i]);
+			minZ = Math.min(minZ, z[i]); maxZ = Math.max(maxZ, z[i]);
+		}
+		float ex = maxX-minX, ey = maxY-minY, ez = maxZ-minZ;
+		int a = ex >= ey && ex >= ez ? 0 : ey >= ez ? 1 : 2;
+		int m = (lo+hi) >>> 1;
+		select(coords(a), lo, hi-1, m);
+		axis[m] = (byte) a;
+		return m;
+	}
+
+	private float[] coords(int a) {
+		return a == 0 ? x : a == 1 ? y : z;
+	}
+
+	/**
+	 * Quickselect, places the k-th smallest value of {@code c[lo..hi]} at k with
+	 * smaller values before it and greater values after it. The partition is
+	 * three-way so that duplicate coordinates do not degrade it.
+	 */
+	private void select(float[] c, int lo, int hi, int k) {
+		while(hi > lo) {
+			float a = c[lo], b = c[(lo+hi) >>> 1], d = c[hi];
+			float pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), d));
+			int lt = lo, gt = hi, i = lo;
+			while(i <= gt) {
+				if(c[i] < pivot)
+					swap(lt++, i++);
+				else if(c[i] > pivot)
+					swap(i, gt--);
+				else
+					i++;
+			}
+			if(k < lt)
+				hi = lt-1;
+			else if(k > gt)
+				lo = gt+1;
+			else
+				return;
+		}
+	}
+
+	private void swap(int i, int j) {
+		float t;
+		t = x[i]; x[i] = x[j]; x[j] = t;
+		t = y[i]; y[i] = y[j]; y[j] = t;
+		t = z[i]; z[i] = z[j]; z[j] = t;
+		int id = ids[i]; ids[i] = ids[j]; ids[j] = id;
+	}
+
+	/**
+	 * Returns the id of the point closest to {@code (qx,qy,qz)}.
+	 * @return the id of the nearest point, or -1 if the tree is empty
+	 */
+	public int nearest(float qx, float qy, float qz) {
+		return size == 0 ? -1 : ids[nearest(0, size, qx, qy, qz, 0)];
+	}
+
+	public int nearest(Vec3 q) {
+		return nearest(q.x, q.y, q.z);
+	}
+
+	private float distSq(int i, float qx, float qy, float qz) {
+		float dx = x[i]-qx, dy = y[i]-qy, dz = z[i]-qz;
+		return dx*dx + dy*dy + dz*dz;
+	}
+
+	/** Returns the position of the nearest point among {@code best} and the range */
+	private int nearest(int lo, int hi, float qx, float qy, float qz, int best) {
+		float bestD2 = distSq(best, qx, qy, qz);
+		while(lo < hi) {
+			int m = (lo+hi) >>> 1;
+			float d2 = distSq(m, qx, qy, qz);
+			if(d2 < bestD2) {
+				best = m;
+				bestD2 = d2;
+			}
+			int a = axis[m];
+			float diff = a == 0 ? qx-x[m] : a == 1 ? qy-y[m] : qz-z[m];
+			if(diff < 0) {
+				best = nearest(lo, m, qx, qy, qz, best);
+				lo = m+1;
+			} else {
+				best = nearest(m+1, hi, qx, qy, qz, best);
+				hi = m;
+			}
+			bestD2 = distSq(best, qx, qy, qz);
+			if(diff*diff >= bestD2)
+				return best;
+		}
+		return best;
+	}
+
+	/**
+	 * Finds the {@code k} points closest to {@code (qx,qy,qz)}.
+	 * <p>
+	 * Results are written nearest first, {@code destIds[i]} is the id of the
+	 * i-th nearest point and {@code destDistSq[i]} its squared distance to the
+	 * query point. Both arrays must hold at least {@code k} values.
+	 * @return the number of points found, {@code min(k, size())}
+	 */
+	public int kNearest(float qx, float qy, float qz, int k, int[] destIds, float[] destDistSq) {
+		if(destIds.length < k || destDistSq.length < k)
+			throw new IllegalArgumentException("Destination arrays are smaller than k");
+		if(k <= 0)
+			return 0;
+		int count = kNearest(0, size, qx, qy, qz, k, destIds, destDistSq, 0);
+		// heap sort the max-heap so that the nearest point comes first
+		for(int n = count-1; n > 0; n--) {
+			swapHeap(destIds, destDistSq, 0, n);
+			siftDown(destIds, destDistSq, 0, n);
+		}
+		return count;
+	}
+
+	public int kNearest(Vec3 q, int k, int[] destIds, float[] destDistSq) {
+		return kNearest(q.x, q.y, q.z, k, destIds, destDistSq);
+	}
+
+	private int kNearest(int lo, int hi, float qx, float qy, float qz, int k, int[] heapIds, float[] heapDist, int count) {
+		while(lo < hi) {
+			int m = (lo+hi) >>> 1;
+			float d2 = distSq(m, qx, qy, qz);
+			if(count < k) {
+				// sift up the new point in the max-heap
+				int i = count++;
+				while(i > 0 && heapDist[(i-1)/2] < d2) {
+					heapIds[i] = heapIds[(i-1)/2];
+					heapDist[i] = heapDist[(i-1)/2];
+					i = (i-1)/2;
+				}
+				heapIds[i] = ids[m];
+				heapDist[i] = d2;
+			} else if(d2 < heapDist[0]) {
+				heapIds[0] = ids[m];
+				heapDist[0] = d2;
+				siftDown(heapIds, heapDist, 0, count);
+			}
+			int a = axis[m];
+			float diff = a == 0 ? qx-x[m] : a == 1 ? qy-y[m] : qz-z[m];
+			if(diff < 0) {
+				count = kNearest(lo, m, qx, qy, qz, k, heapIds, heapDist, count);
+				if(count == k && diff*diff >= heapDist[0])
+					return count;
+				lo = m+1;
+			} else {
+				count = kNearest(m+1, hi, qx, qy, qz, k, heapIds, heapDist, count);
+				if(count == k && diff*diff >= heapDist[0])
+					return count;
+				hi = m;
+			}
+		}
+		return count;
+	}
+
+	private static void siftDown(int[] heapIds, float[] heapDist, int i, int n) {
+		while(true) {
+			int l = 2*i+1, r = l+1, largest = i;
+			if(l < n && heapDist[l] > heapDist[largest]) largest = l;
+			if(r < n && heapDist[r] > heapDist[largest]) largest = r;
+			if(largest == i)
+				return;
+			swapHeap(heapIds, heapDist, i, largest);
+			i = largest;
+		}
+	}
+
+	private static void swapHeap(int[] heapIds, float[] heapDist, int i, int j) {
+		int id = heapIds[i]; heapIds[i] = heapIds[j]; heapIds[j] = id;
+		float d = heapDist[i]; heapDist[i] = heapDist[j]; heapDist[j] = d;
+	}
+
+	/**
+	 * Finds the points within {@code radius} of {@code (qx,qy,qz)}, in no
+	 * particular order.
+	 * <p>
+	 * At most {@code dest.length} ids are written, the returned count may be
+	 * greater in which case the caller may retry with a larger array.
+	 * @param dest the array to write the found ids to
+	 * @return the number of points found
+	 */
+	public int queryRadius(float qx, float qy, float qz, float radius, int[] dest) {
+		return queryRadius(0, size, qx, qy, qz, radius*radius, dest, 0);
+	}
+
+	public int queryRadius(Vec3 q, float radius, int[] dest) {
+		return queryRadius(q.x, q.y, q.z, radius, dest);
+	}
+
+	private int queryRadius(int lo, int hi, float qx, float qy, float qz, float r2, int[] dest, int found) {
+		while(lo < hi) {
+			int m = (lo+hi) >>> 1;
+			if(distSq(m, qx, qy, qz) <= r2) {
+				if(found < dest.length)
+					dest[found] = ids[m];
+				found++;
+			}
+			int a = axis[m];
+			float diff = a == 0 ? qx-x[m] : a == 1 ? qy-y[m] : qz-z[m];
+			boolean visitLeft = diff < 0 || diff*diff <= r2;
+			boolean visitRight = diff >= 0 || diff*diff <= r2;
+			if(visitLeft && visitRight) {
+				found = queryRadius(lo, m, qx, qy, qz, r2, dest, found);
+				lo = m+1;
+			} else if(visitLeft) {
+				hi = m;
+			} else {
+				lo = m+1;
+			}
+		}
+		return found;
+	}
+
+}
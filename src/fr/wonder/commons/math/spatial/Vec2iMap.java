@@ -0,0 +1,252 @@
+package fr.wonder.commons.math.spatial;
+
+import static fr.wonder.commons.math.spatial.Hashing.*;
+
+import java.util.Arrays;
+
+import fr.wonder.commons.math.vectors.Vec2i;
+
+/**
+ * A map from Vec2i keys to objects, specialized to avoid the boxing and
+ * hashing costs of a {@code HashMap<Vec2i, T>}.
+ * <p>
+ * Keys are packed into a long and stored in an open-addressing table with
+ * linear probing, hashed with a strong mixing function so that dense grid
+ * coordinates do not cluster. An entry costs about (8+4) bytes divided by the
+ * load factor (.75) instead of the 60+ bytes of a boxed {@code HashMap} entry.
+ * <p>
+ * Methods taking raw coordinates never allocate. This class is not thread safe.
+ */
+public class Vec2iMap<T> {
+	
+	private static final float LOAD_FACTOR = .75f;
+	private static final int DEFAULT_EXPECTED_SIZE = 16;
+	
+	/** Packed keys, 0 marks a free slot and the zero key is stored separately */
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int maxFill;
+	private int size;
+	
+	private boolean hasZeroKey;
+	private T zeroValue;
+	
+	/** Creates an empty map */
+	public Vec2iMap() {
+		this(DEFAULT_EXPECTED_SIZE);
+	}
+	
+	/**
+	 * Creates an empty map that can hold {@code expectedSize} entries
+	 * without resizing.
+	 */
+	public Vec2iMap(int expectedSize) {
+		allocate(capacityFor(expectedSize, LOAD_FACTOR));
+	}
+	
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity-1;
+		maxFill = (int) (capacity*LOAD_FACTOR);
+	}
+	
+	/** @return the number of entries */
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/** Removes all entries, the table capacity is kept. */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, null);
+		zeroValue = null;
+		hasZeroKey = false;
+		size = 0;
+	}
+	
+	/** Returns the slot of the given key, or -1 if it is absent. */
+	private int find(long k) {
+		int pos = (int) mix(k) & mask;
+		while(true) {
+			if(keys[pos] == 0)
+				return -1;
+			if(keys[pos] == k)
+				return pos;
+			pos = (pos+1) & mask;
+		}
+	}
+	
+	public boolean containsKey(int x, int y) {
+		long k = pack(x, y);
+		if(k == 0)
+			return hasZeroKey;
+		return find(k) >= 0;
+	}
+	
+	public boolean containsKey(Vec2i v) {
+		return containsKey(v.x, v.y);
+	}
+	
+	/**
+	 * Returns the value mapped to the given key, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int x, int y) {
+		long k = pack(x, y);
+		if(k == 0)
+			return zeroValue;
+		int pos = find(k);
+		return pos < 0 ? null : (T) values[pos];
+	}
+	
+	public T get(Vec2i v) {
+		return get(v.x, v.y);
+	}
+	
+	/**
+	 * Returns the value mapped to the given key, or {@code defaultValue} if there
+	 * is none.
+	 */
+	public T getOrDefault(int x, int y, T defaultValue) {
+		T value = get(x, y);
+		return value != null || containsKey(x, y) ? value : defaultValue;
+	}
+	
+	/**
+	 * Maps the given key to {@code value}.
+	 * @return the previously mapped value, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public T put(int x, int y, T value) {
+		long k = pack(x, y);
+		if(k == 0) {
+			T previous = zeroValue;
+			zeroValue = value;
+			if(!hasZeroKey) {
+				hasZeroKey = true;
+				size++;
+			}
+			return previous;
+		}
+		int pos = (int) mix(k) & mask;
+		while(true) {
+			if(keys[pos] == 0) {
+				keys[pos] = k;
+				values[pos] = value;
+				if(++size >= maxFill)
+					rehash(2*(mask+1));
+				return null;
+			}
+			if(keys[pos] == k) {
+				T previous = (T) values[pos];
+				values[pos] = value;
+				return previous;
+			}
+			pos = (pos+1) & mask;
+		}
+	}
+	
+	public T put(Vec2i v, T value) {
+		return put(v.x, v.y, value);
+	}
+	
+	/**
+	 * Removes the mapping of the given key.
+	 * @return the previously mapped value, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public T remove(int x, int y) {
+		long k = pack(x, y);
+		if(k == 0) {
+			if(!hasZeroKey)
+				return null;
+			T previous = zeroValue;
+			zeroValue = null;
+			hasZeroKey = false;
+			size--;
+			return previous;
+		}
+		int pos = find(k);
+		if(pos < 0)
+			return null;
+		T previous = (T) values[pos];
+		size--;
+		shiftKeys(pos);
+		return previous;
+	}
+	
+	public T remove(Vec2i v) {
+		return remove(v.x, v.y);
+	}
+	
+	/**
+	 * Removes the entry at {@code pos} by shifting back the following entries of
+	 * its probing sequence, so that no tombstone is needed.
+	 */
+	private void shiftKeys(int pos) {
+		int last, slot;
+		long c;
+		while(true) {
+			pos = ((last = pos) + 1) & mask;
+			while(true) {
+				c = keys[pos];
+				if(c == 0) {
+					keys[last] = 0;
+					values[last] = null;
+					return;
+				}
+				slot = (int) mix(c) & mask;
+				// stop if the entry at pos may be moved to last without leaving its probing sequence
+				if(last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos+1) & mask;
+			}
+			keys[last] = c;
+			values[last] = values[pos];
+		}
+	}
+	
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		for(int i = 0; i < oldKeys.length; i++) {
+			long k = oldKeys[i];
+			if(k == 0)
+				continue;
+			int pos = (int) mix(k) & mask;
+			while(keys[pos] != 0)
+				pos = (pos+1) & mask;
+			keys[pos] = k;
+			values[pos] = oldValues[i];
+		}
+	}
+	
+	/**
+	 * Visits every entry of this map, in no particular order. The map must not
+	 * be modified during the visit.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(Visitor<? super T> visitor) {
+		if(hasZeroKey)
+			visitor.accept(0, 0, zeroValue);
+		for(int i = 0; i <= mask; i++) {
+			if(keys[i] != 0)
+				visitor.accept(unpackX(keys[i]), unpackY(keys[i]), (T) values[i]);
+		}
+	}
+	
+	@FunctionalInterface
+	public static interface Visitor<T> {
+		
+		void accept(int x, int y, T value);
+		
+	}
+	
+}
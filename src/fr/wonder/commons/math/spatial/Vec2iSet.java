@@ -0,0 +1,206 @@
+package fr.wonder.commons.math.spatial;
+
+import static fr.wonder.commons.math.spatial.Hashing.*;
+
+import java.util.Arrays;
+
+import fr.wonder.commons.math.vectors.Vec2i;
+
+/**
+ * A set of Vec2is, specialized to avoid the boxing and
+ * hashing costs of a {@code HashSet<Vec2i>}.
+ * <p>
+ * Keys are packed into a long and stored in an open-addressing table with
+ * linear probing, hashed with a strong mixing function so that dense grid
+ * coordinates do not cluster. An entry costs about 8 bytes divided by the
+ * load factor (.75) instead of the 60+ bytes of a boxed {@code HashMap} entry.
+ * <p>
+ * Methods taking raw coordinates never allocate. This class is not thread safe.
+ */
+public class Vec2iSet {
+	
+	private static final float LOAD_FACTOR = .75f;
+	private static final int DEFAULT_EXPECTED_SIZE = 16;
+	
+	/** Packed keys, 0 marks a free slot and the zero key is stored separately */
+	private long[] keys;
+	private int mask;
+	private int maxFill;
+	private int size;
+	
+	private boolean hasZeroKey;
+	
+	/** Creates an empty set */
+	public Vec2iSet() {
+		this(DEFAULT_EXPECTED_SIZE);
+	}
+	
+	/**
+	 * Creates an empty set that can hold {@code expectedSize} entries
+	 * without resizing.
+	 */
+	public Vec2iSet(int expectedSize) {
+		allocate(capacityFor(expectedSize, LOAD_FACTOR));
+	}
+	
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		mask = capacity-1;
+		maxFill = (int) (capacity*LOAD_FACTOR);
+	}
+	
+	/** @return the number of entries */
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/** Removes all entries, the table capacity is kept. */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		hasZeroKey = false;
+		size = 0;
+	}
+	
+	/** Returns the slot of the given key, or -1 if it is absent. */
+	private int find(long k) {
+		int pos = (int) mix(k) & mask;
+		while(true) {
+			if(keys[pos] == 0)
+				return -1;
+			if(keys[pos] == k)
+				return pos;
+			pos = (pos+1) & mask;
+		}
+	}
+	
+	public boolean contains(int x, int y) {
+		long k = pack(x, y);
+		if(k == 0)
+			return hasZeroKey;
+		return find(k) >= 0;
+	}
+	
+	public boolean contains(Vec2i v) {
+		return contains(v.x, v.y);
+	}
+	
+	/**
+	 * Adds the given key to this set.
+	 * @return true if the key was not already present
+	 */
+	public boolean add(int x, int y) {
+		long k = pack(x, y);
+		if(k == 0) {
+			if(hasZeroKey)
+				return false;
+			hasZeroKey = true;
+			size++;
+			return true;
+		}
+		int pos = (int) mix(k) & mask;
+		while(true) {
+			if(keys[pos] == 0) {
+				keys[pos] = k;
+				if(++size >= maxFill)
+					rehash(2*(mask+1));
+				return true;
+			}
+			if(keys[pos] == k)
+				return false;
+			pos = (pos+1) & mask;
+		}
+	}
+	
+	public boolean add(Vec2i v) {
+		return add(v.x, v.y);
+	}
+	
+	/**
+	 * Removes the given key from this set.
+	 * @return true if the key was present
+	 */
+	public boolean remove(int x, int y) {
+		long k = pack(x, y);
+		if(k == 0) {
+			if(!hasZeroKey)
+				return false;
+			hasZeroKey = false;
+			size--;
+			return true;
+		}
+		int pos = find(k);
+		if(pos < 0)
+			return false;
+		size--;
+		shiftKeys(pos);
+		return true;
+	}
+	
+	public boolean remove(Vec2i v) {
+		return remove(v.x, v.y);
+	}
+	
+	/**
+	 * Removes the entry at {@code pos} by shifting back the following entries of
+	 * its probing sequence, so that no tombstone is needed.
+	 */
+	private void shiftKeys(int pos) {
+		int last, slot;
+		long c;
+		while(true) {
+			pos = ((last = pos) + 1) & mask;
+			while(true) {
+				c = keys[pos];
+				if(c == 0) {
+					keys[last] = 0;
+					return;
+				}
+				slot = (int) mix(c) & mask;
+				// stop if the entry at pos may be moved to last without leaving its probing sequence
+				if(last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos+1) & mask;
+			}
+			keys[last] = c;
+		}
+	}
+	
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		allocate(capacity);
+		for(int i = 0; i < oldKeys.length; i++) {
+			long k = oldKeys[i];
+			if(k == 0)
+				continue;
+			int pos = (int) mix(k) & mask;
+			while(keys[pos] != 0)
+				pos = (pos+1) & mask;
+			keys[pos] = k;
+		}
+	}
+	
+	/**
+	 * Visits every entry of this set, in no particular order. The set must not
+	 * be modified during the visit.
+	 */
+	public void forEach(Visitor visitor) {
+		if(hasZeroKey)
+			visitor.accept(0, 0);
+		for(int i = 0; i <= mask; i++) {
+			if(keys[i] != 0)
+				visitor.accept(unpackX(keys[i]), unpackY(keys[i]));
+		}
+	}
+	
+	@FunctionalInterface
+	public static interface Visitor {
+		
+		void accept(int x, int y);
+		
+	}
+	
+}
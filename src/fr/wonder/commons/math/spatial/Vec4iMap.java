@@ -0,0 +1,256 @@
+package fr.wonder.commons.math.spatial;
+
+import static fr.wonder.commons.math.spatial.Hashing.*;
+
+import java.util.Arrays;
+
+import fr.wonder.commons.math.vectors.Vec4i;
+
+/**
+ * A map from Vec4i keys to objects, specialized to avoid the boxing and
+ * hashing costs of a {@code HashMap<Vec4i, T>}.
+ * <p>
+ * Keys are packed into two longs and stored in an open-addressing table with
+ * linear probing, hashed with a strong mixing function so that dense grid
+ * coordinates do not cluster. An entry costs about (16+4) bytes divided by the
+ * load factor (.75) instead of the 60+ bytes of a boxed {@code HashMap} entry.
+ * <p>
+ * Methods taking raw coordinates never allocate. This class is not thread safe.
+ */
+public class Vec4iMap<T> {
+	
+	private static final float LOAD_FACTOR = .75f;
+	private static final int DEFAULT_EXPECTED_SIZE = 16;
+	
+	/** Packed keys, 0 marks a free slot and the zero key is stored separately */
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int maxFill;
+	private int size;
+	
+	private boolean hasZeroKey;
+	private T zeroValue;
+	
+	/** Creates an empty map */
+	public Vec4iMap() {
+		this(DEFAULT_EXPECTED_SIZE);
+	}
+	
+	/**
+	 * Creates an empty map that can hold {@code expectedSize} entries
+	 * without resizing.
+	 */
+	public Vec4iMap(int expectedSize) {
+		allocate(capacityFor(expectedSize, LOAD_FACTOR));
+	}
+	
+	private void allocate(int capacity) {
+		keys = new long[2*capacity];
+		values = new Object[capacity];
+		mask = capacity-1;
+		maxFill = (int) (capacity*LOAD_FACTOR);
+	}
+	
+	/** @return the number of entries */
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/** Removes all entries, the table capacity is kept. */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, null);
+		zeroValue = null;
+		hasZeroKey = false;
+		size = 0;
+	}
+	
+	/** Returns the slot of the given key, or -1 if it is absent. */
+	private int find(long k1, long k2) {
+		int pos = (int) mix(k1, k2) & mask;
+		while(true) {
+			if(keys[2*pos] == 0 && keys[2*pos+1] == 0)
+				return -1;
+			if(keys[2*pos] == k1 && keys[2*pos+1] == k2)
+				return pos;
+			pos = (pos+1) & mask;
+		}
+	}
+	
+	public boolean containsKey(int x, int y, int z, int w) {
+		long k1 = pack(x, y), k2 = pack(z, w);
+		if(k1 == 0 && k2 == 0)
+			return hasZeroKey;
+		return find(k1, k2) >= 0;
+	}
+	
+	public boolean containsKey(Vec4i v) {
+		return containsKey(v.x, v.y, v.z, v.w);
+	}
+	
+	/**
+	 * Returns the value mapped to the given key, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int x, int y, int z, int w) {
+		long k1 = pack(x, y), k2 = pack(z, w);
+		if(k1 == 0 && k2 == 0)
+			return zeroValue;
+		int pos = find(k1, k2);
+		return pos < 0 ? null : (T) values[pos];
+	}
+	
+	public T get(Vec4i v) {
+		return get(v.x, v.y, v.z, v.w);
+	}
+	
+	/**
+	 * Returns the value mapped to the given key, or {@code defaultValue} if there
+	 * is none.
+	 */
+	public T getOrDefault(int x, int y, int z, int w, T defaultValue) {
+		T value = get(x, y, z, w);
+		return value != null || containsKey(x, y, z, w) ? value : defaultValue;
+	}
+	
+	/**
+	 * Maps the given key to {@code value}.
+	 * @return the previously mapped value, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public T put(int x, int y, int z, int w, T value) {
+		long k1 = pack(x, y), k2 = pack(z, w);
+		if(k1 == 0 && k2 == 0) {
+			T previous = zeroValue;
+			zeroValue = value;
+			if(!hasZeroKey) {
+				hasZeroKey = true;
+				size++;
+			}
+			return previous;
+		}
+		int pos = (int) mix(k1, k2) & mask;
+		while(true) {
+			if(keys[2*pos] == 0 && keys[2*pos+1] == 0) {
+				keys[2*pos] = k1;
+				keys[2*pos+1] = k2;
+				values[pos] = value;
+				if(++size >= maxFill)
+					rehash(2*(mask+1));
+				return null;
+			}
+			if(keys[2*pos] == k1 && keys[2*pos+1] == k2) {
+				T previous = (T) values[pos];
+				values[pos] = value;
+				return previous;
+			}
+			pos = (pos+1) & mask;
+		}
+	}
+	
+	public T put(Vec4i v, T value) {
+		return put(v.x, v.y, v.z, v.w, value);
+	}
+	
+	/**
+	 * Removes the mapping of the given key.
+	 * @return the previously mapped value, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public T remove(int x, int y, int z, int w) {
+		long k1 = pack(x, y), k2 = pack(z, w);
+		if(k1 == 0 && k2 == 0) {
+			if(!hasZeroKey)
+				return null;
+			T previous = zeroValue;
+			zeroValue = null;
+			hasZeroKey = false;
+			size--;
+			return previous;
+		}
+		int pos = find(k1, k2);
+		if(pos < 0)
+			return null;
+		T previous = (T) values[pos];
+		size--;
+		shiftKeys(pos);
+		return previous;
+	}
+	
+	public T remove(Vec4i v) {
+		return remove(v.x, v.y, v.z, v.w);
+	}
+	
+	/**
+	 * Removes the entry at {@code pos} by shifting back the following entries of
+	 * its probing sequence, so that no tombstone is needed.
+	 */
+	private void shiftKeys(int pos) {
+		int last, slot;
+		long c1, c2;
+		while(true) {
+			pos = ((last = pos) + 1) & mask;
+			while(true) {
+				c1 = keys[2*pos]; c2 = keys[2*pos+1];
+				if(c1 == 0 && c2 == 0) {
+					keys[2*last] = 0;
+					keys[2*last+1] = 0;
+					values[last] = null;
+					return;
+				}
+				slot = (int) mix(c1, c2) & mask;
+				// stop if the entry at pos may be moved to last without leaving its probing sequence
+				if(last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos+1) & mask;
+			}
+			keys[2*last] = c1;
+			keys[2*last+1] = c2;
+			values[last] = values[pos];
+		}
+	}
+	
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		for(int i = 0; i < oldKeys.length/2; i++) {
+			long k1 = oldKeys[2*i], k2 = oldKeys[2*i+1];
+			if(k1 == 0 && k2 == 0)
+				continue;
+			int pos = (int) mix(k1, k2) & mask;
+			while(keys[2*pos] != 0 || keys[2*pos+1] != 0)
+				pos = (pos+1) & mask;
+			keys[2*pos] = k1;
+			keys[2*pos+1] = k2;
+			values[pos] = oldValues[i];
+		}
+	}
+	
+	/**
+	 * Visits every entry of this map, in no particular order. The map must not
+	 * be modified during the visit.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(Visitor<? super T> visitor) {
+		if(hasZeroKey)
+			visitor.accept(0, 0, 0, 0, zeroValue);
+		for(int i = 0; i <= mask; i++) {
+			if(keys[2*i] != 0 || keys[2*i+1] != 0)
+				visitor.accept(unpackX(keys[2*i]), unpackY(keys[2*i]), unpackX(keys[2*i+1]), unpackY(keys[2*i+1]), (T) values[i]);
+		}
+	}
+	
+	@FunctionalInterface
+	public static interface Visitor<T> {
+		
+		void accept(int x, int y, int z, int w, T value);
+		
+	}
+	
+}
@@ -0,0 +1,256 @@
+package fr.wonder.commons.math.vectors;
+
+import java.util.Objects;
+
+import fr.wonder.commons.math.io.FloatFormat;
+
+/**
+ * A 3x3 float matrix, {@code mRC} is the component at row R and column C.
+ * <p>
+ * Vectors are treated as columns, {@code M*v} transforms {@code v} by
+ * {@code M} and {@code A*B} applies {@code B} first.
+ * <p>
+ * Like vectors, operations without a destination parameter return new
+ * instances, the ones with a destination write into it (it may be one of the
+ * operands) and return it.
+ */
+public class Mat3 {
+
+	/** Float component of the matrix */
+	public float m00, m01, m02,
+				 m10, m11, m12,
+				 m20, m21, m22;
+
+	/** Default constructor, creates the identity matrix */
+	public Mat3() { identity(); }
+
+	/**
+	 * Copy constructor (copied, not pointer)
+	 * @param m the matrix to copy the components from
+	 */
+	public Mat3(Mat3 m) { set(m); }
+
+	/**
+	 * Component constructor, components are given row by row.
+	 */
+	public Mat3(float m00, float m01, float m02,
+				float m10, float m11, float m12,
+				float m20, float m21, float m22) {
+		set(m00, m01, m02, m10, m11, m12, m20, m21, m22);
+	}
+
+	/**
+	 * Sets the components of this matrix, row by row.
+	 * @return this instance
+	 */
+	public Mat3 set(float m00, float m01, float m02,
+					float m10, float m11, float m12,
+					float m20, float m21, float m22) {
+		this.m00 = m00; this.m01 = m01; this.m02 = m02;
+		this.m10 = m10; this.m11 = m11; this.m12 = m12;
+		this.m20 = m20; this.m21 = m21; this.m22 = m22;
+		return this;
+	}
+
+	/**
+	 * Copies the components of {@code m} into this matrix.
+	 * @return this instance
+	 */
+	public Mat3 set(Mat3 m) {
+		return set(m.m00, m.m01, m.m02, m.m10, m.m11, m.m12, m.m20, m.m21, m.m22);
+	}
+
+	/**
+	 * Sets this matrix to the identity.
+	 * @return this instance
+	 */
+	public Mat3 identity() {
+		return set(1, 0, 0, 0, 1, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Sets this matrix to a scaling matrix.
+	 * @return this instance
+	 */
+	public Mat3 setScale(float x, float y, float z) {
+		return set(x, 0, 0, 0, y, 0, 0, 0, z);
+	}
+
+	/**
+	 * Sets this matrix to a rotation of {@code angle} radians around
+	 * {@code axis}, which must be normalized.
+	 * <p>
+	 * Matrices are usually built once and applied many times so this method uses
+	 * {@link Math#sin(double)} and {@link Math#cos(double)} instead of the less
+	 * precise table lookups of {@code Mathf}.
+	 * @return this instance
+	 */
+	public Mat3 setRotation(Vec3 axis, float angle) {
+		float s = (float) Math.sin(angle), c = (float) Math.cos(angle), t = 1-c;
+		float x = axis.x, y = axis.y, z = axis.z;
+		return set(
+				t*x*x + c,   t*x*y - s*z, t*x*z + s*y,
+				t*x*y + s*z, t*y*y + c,   t*y*z - s*x,
+				t*x*z - s*y, t*y*z + s*x, t*z*z + c);
+	}
+
+	/** @return a new rotation matrix, see {@link #setRotation(Vec3, float)} */
+	public static Mat3 rotation(Vec3 axis, float angle) { return new Mat3().setRotation(axis, angle); }
+	/** @return a new scaling matrix */
+	public static Mat3 scale(float x, float y, float z) { return new Mat3().setScale(x, y, z); }
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new matrix that is {@code this*m}
+	 */
+	public Mat3 multiply(Mat3 m) { return multiply(m, new Mat3()); }
+
+	/**
+	 * Writes {@code this*m} into {@code dest}, which may be this instance or {@code m}.
+	 * @return {@code dest}
+	 */
+	public Mat3 multiply(Mat3 m, Mat3 dest) {
+		return dest.set(
+				m00*m.m00 + m01*m.m10 + m02*m.m20, m00*m.m01 + m01*m.m11 + m02*m.m21, m00*m.m02 + m01*m.m12 + m02*m.m22,
+				m10*m.m00 + m11*m.m10 + m12*m.m20, m10*m.m01 + m11*m.m11 + m12*m.m21, m10*m.m02 + m11*m.m12 + m12*m.m22,
+				m20*m.m00 + m21*m.m10 + m22*m.m20, m20*m.m01 + m21*m.m11 + m22*m.m21, m20*m.m02 + m21*m.m12 + m22*m.m22);
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new matrix that is the transpose of this instance
+	 */
+	public Mat3 transpose() { return transpose(new Mat3()); }
+
+	/**
+	 * Writes the transpose of this matrix into {@code dest}, which may be this instance.
+	 * @return {@code dest}
+	 */
+	public Mat3 transpose(Mat3 dest) {
+		return dest.set(m00, m10, m20, m01, m11, m21, m02, m12, m22);
+	}
+
+	public float determinant() {
+		return m00*(m11*m22 - m12*m21) - m01*(m10*m22 - m12*m20) + m02*(m10*m21 - m11*m20);
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new matrix that is the inverse of this instance
+	 * @throws ArithmeticException if this matrix is singular
+	 */
+	public Mat3 inverse() { return inverse(new Mat3()); }
+
+	/**
+	 * Writes the inverse of this matrix into {@code dest}, which may be this instance.
+	 * @return {@code dest}
+	 * @throws ArithmeticException if this matrix is singular
+	 */
+	public Mat3 inverse(Mat3 dest) {
+		float c00 = m11*m22 - m12*m21, c01 = m12*m20 - m10*m22, c02 = m10*m21 - m11*m20;
+		float det = m00*c00 + m01*c01 + m02*c02;
+		if(det == 0)
+			throw new ArithmeticException("Singular matrix");
+		float id = 1/det;
+		return dest.set(
+				c00*id, (m02*m21 - m01*m22)*id, (m01*m12 - m02*m11)*id,
+				c01*id, (m00*m22 - m02*m20)*id, (m02*m10 - m00*m12)*id,
+				c02*id, (m01*m20 - m00*m21)*id, (m00*m11 - m01*m10)*id);
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new vector that is {@code this*v}
+	 */
+	public Vec3 transform(Vec3 v) { return transform(v, new Vec3()); }
+
+	/**
+	 * Writes {@code this*v} into {@code dest}, which may be {@code v}.
+	 * @return {@code dest}
+	 */
+	public Vec3 transform(Vec3 v, Vec3 dest) {
+		return dest.set(
+				m00*v.x + m01*v.y + m02*v.z,
+				m10*v.x + m11*v.y + m12*v.z,
+				m20*v.x + m21*v.y + m22*v.z);
+	}
+
+	/**
+	 * Transforms {@code src[srcOff..srcOff+len[} into the existing vectors of
+	 * {@code dst[dstOff..dstOff+len[}, both ranges may be the same.
+	 */
+	public void transform(Vec3[] src, int srcOff, Vec3[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			transform(src[srcOff+i], dst[dstOff+i]);
+	}
+
+	/**
+	 * Transforms the vectors of {@code src} in range {@code [from, to[} into the
+	 * same range of {@code dst}, which may be {@code src}.
+	 */
+	public void transform(Vec3Buffer src, Vec3Buffer dst, int from, int to) {
+		Objects.checkFromToIndex(from, to, src.size);
+		Objects.checkFromToIndex(from, to, dst.size);
+		float a00 = m00, a01 = m01, a02 = m02;
+		float a10 = m10, a11 = m11, a12 = m12;
+		float a20 = m20, a21 = m21, a22 = m22;
+		float[] sx = src.x, sy = src.y, sz = src.z;
+		float[] dx = dst.x, dy = dst.y, dz = dst.z;
+		for(int i = from; i < to; i++) {
+			float x = sx[i], y = sy[i], z = sz[i];
+			dx[i] = a00*x + a01*y + a02*z;
+			dy[i] = a10*x + a11*y + a12*z;
+			dz[i] = a20*x + a21*y + a22*z;
+		}
+	}
+
+	/**
+	 * Returns true if the two objects are both Mat3 and each of their
+	 * components have the same value.
+	 * @param obj the other instance to check, may be null
+	 * @return true if obj is an instance of Mat3 with the same components
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof Mat3))
+			return false;
+		Mat3 m = (Mat3) obj;
+		return m00 == m.m00 && m01 == m.m01 && m02 == m.m02 &&
+				m10 == m.m10 && m11 == m.m11 && m12 == m.m12 &&
+				m20 == m.m20 && m21 == m.m21 && m22 == m.m22;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		h = h*31 + Float.floatToIntBits(m00); h = h*31 + Float.floatToIntBits(m01); h = h*31 + Float.floatToIntBits(m02);
+		h = h*31 + Float.floatToIntBits(m10); h = h*31 + Float.floatToIntBits(m11); h = h*31 + Float.floatToIntBits(m12);
+		h = h*31 + Float.floatToIntBits(m20); h = h*31 + Float.floatToIntBits(m21); h = h*31 + Float.floatToIntBits(m22);
+		return h;
+	}
+
+	/**
+	 * Returns a string of format [[row0] [row1] [row2]] with components in
+	 * scientific notations with 2 decimals, see {@link FloatFormat#VECTOR}.
+	 * @return a string representing this matrix
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(112).append('[');
+		appendRow(sb, m00, m01, m02).append(' ');
+		appendRow(sb, m10, m11, m12).append(' ');
+		appendRow(sb, m20, m21, m22);
+		return sb.append(']').toString();
+	}
+	
+	private static StringBuilder appendRow(StringBuilder sb, float a, float b, float c) {
+		sb.append('[');
+		FloatFormat.VECTOR.appendTo(sb, a).append(' ');
+		FloatFormat.VECTOR.appendTo(sb, b).append(' ');
+		FloatFormat.VECTOR.appendTo(sb, c);
+		return sb.append(']');
+	}
+
+}
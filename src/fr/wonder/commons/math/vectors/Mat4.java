@@ -0,0 +1,451 @@
+package fr.wonder.commons.math.vectors;
+
+import java.util.Objects;
+
+import fr.wonder.commons.math.io.FloatFormat;
+
+/**
+ * A 4x4 float matrix, {@code mRC} is the component at row R and column C.
+ * <p>
+ * Vectors are treated as columns, {@code M*v} transforms {@code v} by
+ * {@code M} and {@code A*B} applies {@code B} first. A Vec3 is transformed
+ * as a point {@code (x,y,z,1)} by the {@code transform} methods and as a
+ * direction {@code (x,y,z,0)} by the {@code transformDirection} methods.
+ * <p>
+ * Like vectors, operations without a destination parameter return new
+ * instances, the ones with a destination write into it (it may be one of the
+ * operands) and return it.
+ */
+public class Mat4 {
+
+	/** Float component of the matrix */
+	public float m00, m01, m02, m03,
+				 m10, m11, m12, m13,
+				 m20, m21, m22, m23,
+				 m30, m31, m32, m33;
+
+	/** Default constructor, creates the identity matrix */
+	public Mat4() { identity(); }
+
+	/**
+	 * Copy constructor (copied, not pointer)
+	 * @param m the matrix to copy the components from
+	 */
+	public Mat4(Mat4 m) { set(m); }
+
+	/**
+	 * Component constructor, components are given row by row.
+	 */
+	public Mat4(float m00, float m01, float m02, float m03,
+				float m10, float m11, float m12, float m13,
+				float m20, float m21, float m22, float m23,
+				float m30, float m31, float m32, float m33) {
+		set(m00, m01, m02, m03, m10, m11, m12, m13, m20, m21, m22, m23, m30, m31, m32, m33);
+	}
+
+	/**
+	 * Sets the components of this matrix, row by row.
+	 * @return this instance
+	 */
+	public Mat4 set(float m00, float m01, float m02, float m03,
+					float m10, float m11, float m12, float m13,
+					float m20, float m21, float m22, float m23,
+					float m30, float m31, float m32, float m33) {
+		this.m00 = m00; this.m01 = m01; this.m02 = m02; this.m03 = m03;
+		this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
+		this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
+		this.m30 = m30; this.m31 = m31; this.m32 = m32; this.m33 = m33;
+		return this;
+	}
+
+	/**
+	 * Copies the components of {@code m} into this matrix.
+	 * @return this instance
+	 */
+	public Mat4 set(Mat4 m) {
+		return set(m.m00, m.m01, m.m02, m.m03, m.m10, m.m11, m.m12, m.m13, m.m20, m.m21, m.m22, m.m23, m.m30, m.m31, m.m32, m.m33);
+	}
+
+	/**
+	 * Sets this matrix to the identity.
+	 * @return this instance
+	 */
+	public Mat4 identity() {
+		return set(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Sets this matrix to a translation matrix.
+	 * @return this instance
+	 */
+	public Mat4 setTranslation(float x, float y, float z) {
+		return set(1, 0, 0, x, 0, 1, 0, y, 0, 0, 1, z, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Sets this matrix to a scaling matrix.
+	 * @return this instance
+	 */
+	public Mat4 setScale(float x, float y, float z) {
+		return set(x, 0, 0, 0, 0, y, 0, 0, 0, 0, z, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Sets this matrix to the affine transformation {@code T*R*S}, that scales,
+	 * then rotates and finally translates.
+	 * @param translation the translation
+	 * @param rotation the rotation, should be orthonormal
+	 * @param scale the scale along each axis
+	 * @return this instance
+	 */
+	public Mat4 setTRS(Vec3 translation, Mat3 rotation, Vec3 scale) {
+		Mat3 r = rotation;
+		return set(
+				r.m00*scale.x, r.m01*scale.y, r.m02*scale.z, translation.x,
+				r.m10*scale.x, r.m11*scale.y, r.m12*scale.z, translation.y,
+				r.m20*scale.x, r.m21*scale.y, r.m22*scale.z, translation.z,
+				0, 0, 0, 1);
+	}
+
+	/**
+	 * Same as {@link #setTRS(Vec3, Mat3, Vec3)} with the rotation given as a
+	 * normalized quaternion.
+	 * @return this instance
+	 */
+	public Mat4 setTRS(Vec3 translation, Quat rotation, Vec3 scale) {
+		float x = rotation.x, y = rotation.y, z = rotation.z, w = rotation.w;
+		float xx = x*x, yy = y*y, zz = z*z;
+		float xy = x*y, xz = x*z, yz = y*z;
+		float wx = w*x, wy = w*y, wz = w*z;
+		return set(
+				(1 - 2*(yy + zz))*scale.x, 2*(xy - wz)*scale.y,       2*(xz + wy)*scale.z,       translation.x,
+				2*(xy + wz)*scale.x,       (1 - 2*(xx + zz))*scale.y, 2*(yz - wx)*scale.z,       translation.y,
+				2*(xz - wy)*scale.x,       2*(yz + wx)*scale.y,       (1 - 2*(xx + yy))*scale.z, translation.z,
+				0, 0, 0, 1);
+	}
+
+	/** @return a new translation matrix */
+	public static Mat4 translation(float x, float y, float z) { return new Mat4().setTranslation(x, y, z); }
+	/** @return a new scaling matrix */
+	public static Mat4 scale(float x, float y, float z) { return new Mat4().setScale(x, y, z); }
+	/** @return a new matrix, see {@link #setTRS(Vec3, Mat3, Vec3)} */
+	public static Mat4 trs(Vec3 translation, Mat3 rotation, Vec3 scale) { return new Mat4().setTRS(translation, rotation, scale); }
+	/** @return a new matrix, see {@link #setTRS(Vec3, Quat, Vec3)} */
+	public static Mat4 trs(Vec3 translation, Quat rotation, Vec3 scale) { return new Mat4().setTRS(translation, rotation, scale); }
+
+	/**
+	 * Returns whether the last row of this matrix is {@code (0,0,0,1)}, in which
+	 * case the {@code transformAffine} methods can be used instead of the
+	 * {@code transform} ones.
+	 * @return true if this matrix is affine
+	 */
+	public boolean isAffine() {
+		return m30 == 0 && m31 == 0 && m32 == 0 && m33 == 1;
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new matrix that is {@code this*m}
+	 */
+	public Mat4 multiply(Mat4 m) { return multiply(m, new Mat4()); }
+
+	/**
+	 * Writes {@code this*m} into {@code dest}, which may be this instance or {@code m}.
+	 * @return {@code dest}
+	 */
+	public Mat4 multiply(Mat4 m, Mat4 dest) {
+		return dest.set(
+				m00*m.m00 + m01*m.m10 + m02*m.m20 + m03*m.m30, m00*m.m01 + m01*m.m11 + m02*m.m21 + m03*m.m31, m00*m.m02 + m01*m.m12 + m02*m.m22 + m03*m.m32, m00*m.m03 + m01*m.m13 + m02*m.m23 + m03*m.m33,
+				m10*m.m00 + m11*m.m10 + m12*m.m20 + m13*m.m30, m10*m.m01 + m11*m.m11 + m12*m.m21 + m13*m.m31, m10*m.m02 + m11*m.m12 + m12*m.m22 + m13*m.m32, m10*m.m03 + m11*m.m13 + m12*m.m23 + m13*m.m33,
+				m20*m.m00 + m21*m.m10 + m22*m.m20 + m23*m.m30, m20*m.m01 + m21*m.m11 + m22*m.m21 + m23*m.m31, m20*m.m02 + m21*m.m12 + m22*m.m22 + m23*m.m32, m20*m.m03 + m21*m.m13 + m22*m.m23 + m23*m.m33,
+				m30*m.m00 + m31*m.m10 + m32*m.m20 + m33*m.m30, m30*m.m01 + m31*m.m11 + m32*m.m21 + m33*m.m31, m30*m.m02 + m31*m.m12 + m32*m.m22 + m33*m.m32, m30*m.m03 + m31*m.m13 + m32*m.m23 + m33*m.m33);
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new matrix that is the transpose of this instance
+	 */
+	public Mat4 transpose() { return transpose(new Mat4()); }
+
+	/**
+	 * Writes the transpose of this matrix into {@code dest}, which may be this instance.
+	 * @return {@code dest}
+	 */
+	public Mat4 transpose(Mat4 dest) {
+		return dest.set(m00, m10, m20, m30, m01, m11, m21, m31, m02, m12, m22, m32, m03, m13, m23, m33);
+	}
+
+	public float determinant() {
+		float s0 = m00*m11 - m10*m01, s1 = m00*m12 - m10*m02, s2 = m00*m13 - m10*m03;
+		float s3 = m01*m12 - m11*m02, s4 = m01*m13 - m11*m03, s5 = m02*m13 - m12*m03;
+		float c5 = m22*m33 - m32*m23, c4 = m21*m33 - m31*m23, c3 = m21*m32 - m31*m22;
+		float c2 = m20*m33 - m30*m23, c1 = m20*m32 - m30*m22, c0 = m20*m31 - m30*m21;
+		return s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new matrix that is the inverse of this instance
+	 * @throws ArithmeticException if this matrix is singular
+	 */
+	public Mat4 inverse() { return inverse(new Mat4()); }
+
+	/**
+	 * Writes the inverse of this matrix into {@code dest}, which may be this instance.
+	 * <p>
+	 * This uses the Laplace expansion over 2x2 sub-determinants.
+	 * @return {@code dest}
+	 * @throws ArithmeticException if this matrix is singular
+	 */
+	public Mat4 inverse(Mat4 dest) {
+		float s0 = m00*m11 - m10*m01, s1 = m00*m12 - m10*m02, s2 = m00*m13 - m10*m03;
+		float s3 = m01*m12 - m11*m02, s4 = m01*m13 - m11*m03, s5 = m02*m13 - m12*m03;
+		float c5 = m22*m33 - m32*m23, c4 = m21*m33 - m31*m23, c3 = m21*m32 - m31*m22;
+		float c2 = m20*m33 - m30*m23, c1 = m20*m32 - m30*m22, c0 = m20*m31 - m30*m21;
+		float det = s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+		if(det == 0)
+			throw new ArithmeticException("Singular matrix");
+		float id = 1/det;
+		return dest.set(
+				( m11*c5 - m12*c4 + m13*c3)*id, (-m01*c5 + m02*c4 - m03*c3)*id, ( m31*s5 - m32*s4 + m33*s3)*id, (-m21*s5 + m22*s4 - m23*s3)*id,
+				(-m10*c5 + m12*c2 - m13*c1)*id, ( m00*c5 - m02*c2 + m03*c1)*id, (-m30*s5 + m32*s2 - m33*s1)*id, ( m20*s5 - m22*s2 + m23*s1)*id,
+				( m10*c4 - m11*c2 + m13*c0)*id, (-m00*c4 + m01*c2 - m03*c0)*id, ( m30*s4 - m31*s2 + m33*s0)*id, (-m20*s4 + m21*s2 - m23*s0)*id,
+				(-m10*c3 + m11*c1 - m12*c0)*id, ( m00*c3 - m01*c1 + m02*c0)*id, (-m30*s3 + m31*s1 - m32*s0)*id, ( m20*s3 - m21*s1 + m22*s0)*id);
+	}
+
+	/**
+	 * Writes the upper-left 3x3 part of this matrix (its rotation and scale) into
+	 * {@code dest}.
+	 * @return {@code dest}
+	 */
+	public Mat3 getLinear(Mat3 dest) {
+		return dest.set(m00, m01, m02, m10, m11, m12, m20, m21, m22);
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new vector that is {@code this*v}
+	 */
+	public Vec4 transform(Vec4 v) { return transform(v, new Vec4()); }
+
+	/**
+	 * Writes {@code this*v} into {@code dest}, which may be {@code v}.
+	 * @return {@code dest}
+	 */
+	public Vec4 transform(Vec4 v, Vec4 dest) {
+		return dest.set(
+				m00*v.x + m01*v.y + m02*v.z + m03*v.w,
+				m10*v.x + m11*v.y + m12*v.z + m13*v.w,
+				m20*v.x + m21*v.y + m22*v.z + m23*v.w,
+				m30*v.x + m31*v.y + m32*v.z + m33*v.w);
+	}
+
+	/**
+	 * Transforms the point {@code v} and applies the projective divide.
+	 * Does not affect the used instance.
+	 * @return a new transformed vector
+	 */
+	public Vec3 transform(Vec3 v) { return transform(v, new Vec3()); }
+
+	/**
+	 * Transforms the point {@code v} and applies the projective divide, the
+	 * result is written into {@code dest} which may be {@code v}.
+	 * @return {@code dest}
+	 */
+	public Vec3 transform(Vec3 v, Vec3 dest) {
+		float iw = 1/(m30*v.x + m31*v.y + m32*v.z + m33);
+		return dest.set(
+				(m00*v.x + m01*v.y + m02*v.z + m03)*iw,
+				(m10*v.x + m11*v.y + m12*v.z + m13)*iw,
+				(m20*v.x + m21*v.y + m22*v.z + m23)*iw);
+	}
+
+	/**
+	 * Transforms the point {@code v} ignoring the last row of this matrix, the
+	 * result is written into {@code dest} which may be {@code v}.
+	 * <p>
+	 * This is only correct if this matrix {@link #isAffine() is affine}.
+	 * @return {@code dest}
+	 */
+	public Vec3 transformAffine(Vec3 v, Vec3 dest) {
+		return dest.set(
+				m00*v.x + m01*v.y + m02*v.z + m03,
+				m10*v.x + m11*v.y + m12*v.z + m13,
+				m20*v.x + m21*v.y + m22*v.z + m23);
+	}
+
+	/**
+	 * Transforms the direction {@code v}, which is not affected by translations,
+	 * the result is written into {@code dest} which may be {@code v}.
+	 * @return {@code dest}
+	 */
+	public Vec3 transformDirection(Vec3 v, Vec3 dest) {
+		return dest.set(
+				m00*v.x + m01*v.y + m02*v.z,
+				m10*v.x + m11*v.y + m12*v.z,
+				m20*v.x + m21*v.y + m22*v.z);
+	}
+
+	/**
+	 * Transforms the points {@code src[srcOff..srcOff+len[} into the existing
+	 * vectors of {@code dst[dstOff..dstOff+len[}, both ranges may be the same.
+	 * @see #transform(Vec3, Vec3)
+	 */
+	public void transform(Vec3[] src, int srcOff, Vec3[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			transform(src[srcOff+i], dst[dstOff+i]);
+	}
+
+	/**
+	 * Transforms the points {@code src[srcOff..srcOff+len[} into the existing
+	 * vectors of {@code dst[dstOff..dstOff+len[}, both ranges may be the same.
+	 * @see #transformAffine(Vec3, Vec3)
+	 */
+	public void transformAffine(Vec3[] src, int srcOff, Vec3[] dst, int dstOff, int len) {
+		Objects.checkFromIndexSize(srcOff, len, src.length);
+		Objects.checkFromIndexSize(dstOff, len, dst.length);
+		for(int i = 0; i < len; i++)
+			transformAffine(src[srcOff+i], dst[dstOff+i]);
+	}
+
+	/**
+	 * Transforms the points of {@code src} in range {@code [from, to[} into the
+	 * same range of {@code dst}, which may be {@code src}.
+	 * @see #transform(Vec3, Vec3)
+	 */
+	public void transform(Vec3Buffer src, Vec3Buffer dst, int from, int to) {
+		Objects.checkFromToIndex(from, to, src.size);
+		Objects.checkFromToIndex(from, to, dst.size);
+		float a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+		float a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+		float a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+		float a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+		float[] sx = src.x, sy = src.y, sz = src.z;
+		float[] dx = dst.x, dy = dst.y, dz = dst.z;
+		for(int i = from; i < to; i++) {
+			float x = sx[i], y = sy[i], z = sz[i];
+			float iw = 1/(a30*x + a31*y + a32*z + a33);
+			dx[i] = (a00*x + a01*y + a02*z + a03)*iw;
+			dy[i] = (a10*x + a11*y + a12*z + a13)*iw;
+			dz[i] = (a20*x + a21*y + a22*z + a23)*iw;
+		}
+	}
+
+	/**
+	 * Transforms the points of {@code src} in range {@code [from, to[} into the
+	 * same range of {@code dst}, which may be {@code src}.
+	 * @see #transformAffine(Vec3, Vec3)
+	 */
+	public void transformAffine(Vec3Buffer src, Vec3Buffer dst, int from, int to) {
+		Objects.checkFromToIndex(from, to, src.size);
+		Objects.checkFromToIndex(from, to, dst.size);
+		float a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+		float a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+		float a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+		float[] sx = src.x, sy = src.y, sz = src.z;
+		float[] dx = dst.x, dy = dst.y, dz = dst.z;
+		for(int i = from; i < to; i++) {
+			float x = sx[i], y = sy[i], z = sz[i];
+			dx[i] = a00*x + a01*y + a02*z + a03;
+			dy[i] = a10*x + a11*y + a12*z + a13;
+			dz[i] = a20*x + a21*y + a22*z + a23;
+		}
+	}
+
+	/**
+	 * Transforms the directions of {@code src} in range {@code [from, to[} into
+	 * the same range of {@code dst}, which may be {@code src}.
+	 * @see #transformDirection(Vec3, Vec3)
+	 */
+	public void transformDirection(Vec3Buffer src, Vec3Buffer dst, int from, int to) {
+		Objects.checkFromToIndex(from, to, src.size);
+		Objects.checkFromToIndex(from, to, dst.size);
+		float a00 = m00, a01 = m01, a02 = m02;
+		float a10 = m10, a11 = m11, a12 = m12;
+		float a20 = m20, a21 = m21, a22 = m22;
+		float[] sx = src.x, sy = src.y, sz = src.z;
+		float[] dx = dst.x, dy = dst.y, dz = dst.z;
+		for(int i = from; i < to; i++) {
+			float x = sx[i], y = sy[i], z = sz[i];
+			dx[i] = a00*x + a01*y + a02*z;
+			dy[i] = a10*x + a11*y + a12*z;
+			dz[i] = a20*x + a21*y + a22*z;
+		}
+	}
+
+	/**
+	 * Transforms the vectors of {@code src} in range {@code [from, to[} into the
+	 * same range of {@code dst}, which may be {@code src}.
+	 */
+	public void transform(Vec4Buffer src, Vec4Buffer dst, int from, int to) {
+		Objects.checkFromToIndex(from, to, src.size);
+		Objects.checkFromToIndex(from, to, dst.size);
+		float a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+		float a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+		float a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+		float a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+		float[] sx = src.x, sy = src.y, sz = src.z, sw = src.w;
+		float[] dx = dst.x, dy = dst.y, dz = dst.z, dw = dst.w;
+		for(int i = from; i < to; i++) {
+			float x = sx[i], y = sy[i], z = sz[i], w = sw[i];
+			dx[i] = a00*x + a01*y + a02*z + a03*w;
+			dy[i] = a10*x + a11*y + a12*z + a13*w;
+			dz[i] = a20*x + a21*y + a22*z + a23*w;
+			dw[i] = a30*x + a31*y + a32*z + a33*w;
+		}
+	}
+
+	/**
+	 * Returns true if the two objects are both Mat4 and each of their
+	 * components have the same value.
+	 * @param obj the other instance to check, may be null
+	 * @return true if obj is an instance of Mat4 with the same components
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof Mat4))
+			return false;
+		Mat4 m = (Mat4) obj;
+		return m00 == m.m00 && m01 == m.m01 && m02 == m.m02 && m03 == m.m03 &&
+				m10 == m.m10 && m11 == m.m11 && m12 == m.m12 && m13 == m.m13 &&
+				m20 == m.m20 && m21 == m.m21 && m22 == m.m22 && m23 == m.m23 &&
+				m30 == m.m30 && m31 == m.m31 && m32 == m.m32 && m33 == m.m33;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		h = h*31 + Float.floatToIntBits(m00); h = h*31 + Float.floatToIntBits(m01); h = h*31 + Float.floatToIntBits(m02); h = h*31 + Float.floatToIntBits(m03);
+		h = h*31 + Float.floatToIntBits(m10); h = h*31 + Float.floatToIntBits(m11); h = h*31 + Float.floatToIntBits(m12); h = h*31 + Float.floatToIntBits(m13);
+		h = h*31 + Float.floatToIntBits(m20); h = h*31 + Float.floatToIntBits(m21); h = h*31 + Float.floatToIntBits(m22); h = h*31 + Float.floatToIntBits(m23);
+		h = h*31 + Float.floatToIntBits(m30); h = h*31 + Float.floatToIntBits(m31); h = h*31 + Float.floatToIntBits(m32); h = h*31 + Float.floatToIntBits(m33);
+		return h;
+	}
+
+	/**
+	 * Returns a string of format [[row0] [row1] [row2] [row3]] with components in
+	 * scientific notations with 2 decimals, see {@link FloatFormat#VECTOR}.
+	 * @return a string representing this matrix
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(192).append('[');
+		appendRow(sb, m00, m01, m02, m03).append(' ');
+		appendRow(sb, m10, m11, m12, m13).append(' ');
+		appendRow(sb, m20, m21, m22, m23).append(' ');
+		appendRow(sb, m30, m31, m32, m33);
+		return sb.append(']').toString();
+	}
+	
+	private static StringBuilder appendRow(StringBuilder sb, float a, float b, float c, float d) {
+		sb.append('[');
+		FloatFormat.VECTOR.appendTo(sb, a).append(' ');
+		FloatFormat.VECTOR.appendTo(sb, b).append(' ');
+		FloatFormat.VECTOR.appendTo(sb, c).append(' ');
+		FloatFormat.VECTOR.appendTo(sb, d);
+		return sb.append(']');
+	}
+
+}
@@ -0,0 +1,365 @@
+package fr.wonder.commons.math.vectors;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import fr.wonder.commons.math.Approx;
+import fr.wonder.commons.math.Mathf;
+import fr.wonder.commons.math.io.FloatFormat;
+
+/**
+ * A quaternion {@code w + xi + yj + zk}, used to represent orientations.
+ * <p>
+ * Rotation quaternions are expected to be normalized, most methods do not check
+ * it. Like vectors, operations without a destination parameter return new
+ * instances, the ones with a destination write into it (it may be one of the
+ * operands) and return it.
+ * <p>
+ * Speed is favored over precision: normalization uses
+ * {@link Mathf#invSqrt(float)} (relative error below 2e-3) and angles go through
+ * the {@link Mathf#sin(float)} table (absolute error below 1e-3 with the
+ * default table, see {@link Mathf#getSinTable()}). The methods
+ * documenting a looser precision than {@link Math} say so.
+ */
+public class Quat {
+
+	/** Float component of the quaternion, w is the real part */
+	public float x, y, z, w;
+
+	/**
+	 * Default constructor, xyzw = xyzw
+	 * @param x i component of the quaternion
+	 * @param y j component of the quaternion
+	 * @param z k component of the quaternion
+	 * @param w real component of the quaternion
+	 */
+	public Quat(float x, float y, float z, float w) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+	}
+
+	/** Default constructor, creates the identity rotation */
+	public Quat() { this(0, 0, 0, 1); }
+	/**
+	 * Copy constructor, xyzw = q.xyzw (copied, not pointer)
+	 * @param q the quaternion to copy the components from
+	 */
+	public Quat(Quat q) { this(q.x, q.y, q.z, q.w); }
+
+	/**
+	 * Sets the components of this quaternion.
+	 * @return this instance
+	 */
+	public Quat set(float x, float y, float z, float w) { this.x = x; this.y = y; this.z = z; this.w = w; return this; }
+	/**
+	 * Copies the components of {@code q} into this quaternion.
+	 * @return this instance
+	 */
+	public Quat set(Quat q) { return set(q.x, q.y, q.z, q.w); }
+	/**
+	 * Sets this quaternion to the identity rotation.
+	 * @return this instance
+	 */
+	public Quat identity() { return set(0, 0, 0, 1); }
+
+	/**
+	 * Sets this quaternion to a rotation of {@code angle} radians around
+	 * {@code axis}, which must be normalized.
+	 * <p>
+	 * Uses {@link Mathf#sin(float)} and {@link Mathf#cos(float)}, components have
+	 * the absolute error of the sine table.
+	 * @return this instance
+	 */
+	public Quat setAxisAngle(Vec3 axis, float angle) {
+		float s = Mathf.sin(angle/2);
+		return set(axis.x*s, axis.y*s, axis.z*s, Mathf.cos(angle/2));
+	}
+
+	/** @return a new quaternion, see {@link #setAxisAngle(Vec3, float)} */
+	public static Quat fromAxisAngle(Vec3 axis, float angle) { return new Quat().setAxisAngle(axis, angle); }
+
+	/**
+	 * Extracts the rotation axis and angle of this normalized quaternion.
+	 * <p>
+	 * If the rotation angle is 0 the axis is arbitrary, (1,0,0) is written.
+	 * @param axisDest the vector to write the normalized rotation axis to
+	 * @return the rotation angle in radians, in range [0, 2PI]
+	 */
+	public float getAxisAngle(Vec3 axisDest) {
+		float cw = Mathf.clamp(w, -1, 1);
+		float s2 = 1 - cw*cw;
+		if(s2 <= 0) {
+			axisDest.set(1, 0, 0);
+			return 0;
+		}
+		float is = Mathf.invSqrt(s2);
+		axisDest.set(x*is, y*is, z*is);
+		return 2 * Mathf.acos(cw);
+	}
+
+	/**
+	 * Sets this quaternion to the rotation represented by {@code m}, which must be
+	 * a pure rotation matrix (orthonormal with determinant 1).
+	 * @return this instance
+	 */
+	public Quat setFromMatrix(Mat3 m) {
+		float trace = m.m00 + m.m11 + m.m22;
+		if(trace > 0) {
+			float s = .5f / Mathf.sqrt(trace + 1);
+			return set((m.m21 - m.m12)*s, (m.m02 - m.m20)*s, (m.m10 - m.m01)*s, .25f/s);
+		} else if(m.m00 > m.m11 && m.m00 > m.m22) {
+			float s = 2 * Mathf.sqrt(1 + m.m00 - m.m11 - m.m22);
+			return set(.25f*s, (m.m01 + m.m10)/s, (m.m02 + m.m20)/s, (m.m21 - m.m12)/s);
+		} else if(m.m11 > m.m22) {
+			float s = 2 * Mathf.sqrt(1 + m.m11 - m.m00 - m.m22);
+			return set((m.m01 + m.m10)/s, .25f*s, (m.m12 + m.m21)/s, (m.m02 - m.m20)/s);
+		} else {
+			float s = 2 * Mathf.sqrt(1 + m.m22 - m.m00 - m.m11);
+			return set((m.m02 + m.m20)/s, (m.m12 + m.m21)/s, .25f*s, (m.m10 - m.m01)/s);
+		}
+	}
+
+	/**
+	 * Writes the rotation matrix of this normalized quaternion into {@code dest}.
+	 * @return {@code dest}
+	 */
+	public Mat3 toMatrix(Mat3 dest) {
+		float xx = x*x, yy = y*y, zz = z*z;
+		float xy = x*y, xz = x*z, yz = y*z;
+		float wx = w*x, wy = w*y, wz = w*z;
+		return dest.set(
+				1 - 2*(yy + zz), 2*(xy - wz),     2*(xz + wy),
+				2*(xy + wz),     1 - 2*(xx + zz), 2*(yz - wx),
+				2*(xz - wy),     2*(yz + wx),     1 - 2*(xx + yy));
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new quaternion that is the Hamilton product {@code this*q}, the
+	 *         rotation {@code q} followed by {@code this}
+	 */
+	public Quat multiply(Quat q) { return multiply(q, new Quat()); }
+
+	/**
+	 * Writes the Hamilton product {@code this*q} into {@code dest}, which may be
+	 * this instance or {@code q}.
+	 * @return {@code dest}
+	 */
+	public Quat multiply(Quat q, Quat dest) {
+		return dest.set(
+				w*q.x + x*q.w + y*q.z - z*q.y,
+				w*q.y - x*q.z + y*q.w + z*q.x,
+				w*q.z + x*q.y - y*q.x + z*q.w,
+				w*q.w - x*q.x - y*q.y - z*q.z);
+	}
+
+	/**
+	 * Writes the conjugate of this quaternion into {@code dest}, which may be this
+	 * instance. For a normalized quaternion this is the inverse rotation.
+	 * @return {@code dest}
+	 */
+	public Quat conjugate(Quat dest) { return dest.set(-x, -y, -z, w); }
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new quaternion that is the conjugate of this instance
+	 */
+	public Quat conjugate() { return conjugate(new Quat()); }
+
+	public float lengthSquared() { return x*x + y*y + z*z + w*w; }
+
+	public static float dot(Quat a, Quat b) {
+		return a.x*b.x + a.y*b.y + a.z*b.z + a.w*b.w;
+	}
+
+	/**
+	 * Writes the normalized version of this quaternion into {@code dest}, which
+	 * may be this instance. Uses {@link Mathf#invSqrt(float)}.
+	 * @return {@code dest}
+	 */
+	public Quat normalized(Quat dest) {
+		float il = Mathf.invSqrt(lengthSquared());
+		return dest.set(x*il, y*il, z*il, w*il);
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new quaternion that is the normalized version of this instance
+	 */
+	public Quat normalized() { return normalized(new Quat()); }
+
+	/**
+	 * Affects the used instance, same as {@code normalized(this)}.
+	 * @return this instance
+	 */
+	public Quat normalizeLocal() { return normalized(this); }
+
+	/**
+	 * Rotates {@code v} by this normalized quaternion, the result is written into
+	 * {@code dest} which may be {@code v}.
+	 * @return {@code dest}
+	 */
+	public Vec3 rotate(Vec3 v, Vec3 dest) {
+		// v + 2w(q x v) + 2q x (q x v)
+		float tx = 2*(y*v.z - z*v.y);
+		float ty = 2*(z*v.x - x*v.z);
+		float tz = 2*(x*v.y - y*v.x);
+		return dest.set(
+				v.x + w*tx + y*tz - z*ty,
+				v.y + w*ty + z*tx - x*tz,
+				v.z + w*tz + x*ty - y*tx);
+	}
+
+	/**
+	 * Does not affect the used instance.
+	 * @return a new vector that is {@code v} rotated by this quaternion
+	 */
+	public Vec3 rotate(Vec3 v) { return rotate(v, new Vec3()); }
+
+	/**
+	 * Normalized linear interpolation between two rotations, taking the shortest
+	 * path. This is the cheapest interpolation but its angular velocity is not
+	 * constant, the error is small when {@code a} and {@code b} are close (as with
+	 * dense keyframes).
+	 * @param dest the quaternion to write the result to, may be {@code a} or {@code b}
+	 * @return {@code dest}
+	 */
+	public static Quat nlerp(Quat a, Quat b, float t, Quat dest) {
+		float s = dot(a, b) < 0 ? -t : t;
+		float r = 1-t;
+		return dest.set(a.x*r + b.x*s, a.y*r + b.y*s, a.z*r + b.z*s, a.w*r + b.w*s).normalizeLocal();
+	}
+
+	/**
+	 * Spherical linear interpolation between two rotations, taking the shortest
+	 * path.
+	 * <p>
+	 * The interpolation weights are computed with {@link Approx#ACCURATE}
+	 * sines, whose relative error stays near 1e-7 for the small angles close to
+	 * the nlerp threshold (the {@link Mathf#sin(float)} table would be off by
+	 * percents there). The result is renormalized so it stays a valid rotation,
+	 * the interpolated rotation is within 1e-5 radians of the exact slerp.
+	 * Nearly identical rotations fall back to {@link #nlerp(Quat, Quat, float, Quat)}.
+	 * @param dest the quaternion to write the result to, may be {@code a} or {@code b}
+	 * @return {@code dest}
+	 */
+	public static Quat slerp(Quat a, Quat b, float t, Quat dest) {
+		float d = dot(a, b);
+		float sign = 1;
+		if(d < 0) {
+			d = -d;
+			sign = -1;
+		}
+		if(d > .9995f)
+			return nlerp(a, b, t, dest);
+		float theta = Mathf.acos(d);
+		float is = 1/Approx.ACCURATE.sin(theta);
+		float wa = Approx.ACCURATE.sin((1-t)*theta)*is;
+		float wb = Approx.ACCURATE.sin(t*theta)*is*sign;
+		return dest.set(a.x*wa + b.x*wb, a.y*wa + b.y*wb, a.z*wa + b.z*wb, a.w*wa + b.w*wb).normalizeLocal();
+	}
+
+	/**
+	 * Bulk version of {@link #slerp(Quat, Quat, float, Quat)},
+	 * {@code dest[i] = slerp(a[i], b[i], t[i])} for i in {@code [off, off+len[}.
+	 * The {@code dest} quaternions must already exist.
+	 */
+	public static void slerp(Quat[] a, Quat[] b, float[] t, Quat[] dest, int off, int len) {
+		Objects.checkFromIndexSize(off, len, a.length);
+		Objects.checkFromIndexSize(off, len, b.length);
+		Objects.checkFromIndexSize(off, len, t.length);
+		Objects.checkFromIndexSize(off, len, dest.length);
+		for(int i = off; i < off+len; i++)
+			slerp(a[i], b[i], t[i], dest[i]);
+	}
+
+	/**
+	 * Bulk version of {@link #slerp(Quat, Quat, float, Quat)} over quaternions
+	 * stored as xyzw lanes, {@code dest[i] = slerp(a[i], b[i], t)} for i in range
+	 * {@code [from, to[}. {@code dest} may be {@code a} or {@code b}.
+	 */
+	public static void slerp(Vec4Buffer a, Vec4Buffer b, float t, Vec4Buffer dest, int from, int to) {
+		Objects.checkFromToIndex(from, to, a.size);
+		Objects.checkFromToIndex(from, to, b.size);
+		Objects.checkFromToIndex(from, to, dest.size);
+		Quat qa = new Quat(), qb = new Quat();
+		for(int i = from; i < to; i++) {
+			qa.set(a.x[i], a.y[i], a.z[i], a.w[i]);
+			qb.set(b.x[i], b.y[i], b.z[i], b.w[i]);
+			slerp(qa, qb, t, qa);
+			dest.x[i] = qa.x;
+			dest.y[i] = qa.y;
+			dest.z[i] = qa.z;
+			dest.w[i] = qa.w;
+		}
+	}
+
+	/**
+	 * Returns true if the two objects are both Quat and each of their
+	 * components have the same value. Note that {@code q} and {@code -q}
+	 * represent the same rotation but are not equal.
+	 * @param obj the other instance to check, may be null
+	 * @return true if obj is an instance of Quat and xyzw == obj.xyzw
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Quat &&
+				x == ((Quat) obj).x && y == ((Quat) obj).y &&
+				z == ((Quat) obj).z && w == ((Quat) obj).w;
+	}
+
+	@Override
+	public int hashCode() {
+		return (((31+Float.floatToIntBits(x))*31+Float.floatToIntBits(y))*31
+				+Float.floatToIntBits(z))*31+Float.floatToIntBits(w);
+	}
+
+	/**
+	 * Appends this quaternion to a builder, as {@code [x y z w]} with
+	 * the components written in the given format. Unlike {@link #toString()}
+	 * this does not create intermediate strings.
+	 * @param sb the builder to append to
+	 * @param format the format of the components
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb, FloatFormat format) {
+		sb.append('[');
+		format.appendTo(sb, x).append(' ');
+		format.appendTo(sb, y).append(' ');
+		format.appendTo(sb, z).append(' ');
+		format.appendTo(sb, w);
+		return sb.append(']');
+	}
+
+	/**
+	 * Appends this quaternion to any appendable, see {@link #appendTo(StringBuilder, FloatFormat)}.
+	 * @throws IOException if {@code out} throws
+	 */
+	public Appendable appendTo(Appendable out, FloatFormat format) throws IOException {
+		if(out instanceof StringBuilder)
+			return appendTo((StringBuilder) out, format);
+		return out.append(appendTo(new StringBuilder(64), format));
+	}
+
+	/**
+	 * Appends this quaternion in the format of {@link #toString()}.
+	 * @param sb the builder to append to
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		return appendTo(sb, FloatFormat.VECTOR);
+	}
+
+	/**
+	 * Returns a string of format [x, y, z, w] with xyzw in scientific
+	 * notations with 2 decimals, see {@link FloatFormat#VECTOR}.
+	 * @return a string representing this quaternion
+	 */
+	@Override
+	public String toString() {
+		return appendTo(new StringBuilder(64)).toString();
+	}
+
+}
@@ -1,6 +1,9 @@
 package fr.wonder.commons.math.vectors;
 
+import java.io.IOException;
+
 import fr.wonder.commons.math.Mathf;
+import fr.wonder.commons.math.io.FloatFormat;
 
 public class Vec2 {
 	
@@ -49,6 +52,57 @@ public class Vec2 {
 	 */
 	public Vec2 neg() { return new Vec2(-x, -y); }
 	
+	/**
+	 * Sets the components of this vector.
+	 * @return this instance
+	 */
+	public Vec2 set(float x, float y) { this.x = x; this.y = y; return this; }
+	/**
+	 * Copies the components of {@code v} into this vector.
+	 * @return this instance
+	 */
+	public Vec2 set(Vec2 v) { return set(v.x, v.y); }
+	
+	/**
+	 * Writes the sum of this vector and {@code v} into {@code dest}, which may be
+	 * this instance or {@code v}.
+	 * @param v the vector to add
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec2 add(Vec2 v, Vec2 dest) { return dest.set(x+v.x, y+v.y); }
+	/**
+	 * Writes the product of this vector and {@code f} into {@code dest}, which may be
+	 * this instance.
+	 * @param f the float to multiply the vector coordinates with
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec2 multiply(float f, Vec2 dest) { return dest.set(x*f, y*f); }
+	/**
+	 * Writes the negative of this vector into {@code dest}, which may be this instance.
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec2 neg(Vec2 dest) { return dest.set(-x, -y); }
+	
+	/**
+	 * Affects the used instance, same as {@code add(v, this)}.
+	 * @return this instance
+	 */
+	public Vec2 addLocal(Vec2 v) { return add(v, this); }
+	public Vec2 addLocal(float x, float y) { return set(this.x+x, this.y+y); }
+	/**
+	 * Affects the used instance, same as {@code multiply(f, this)}.
+	 * @return this instance
+	 */
+	public Vec2 multiplyLocal(float f) { return multiply(f, this); }
+	/**
+	 * Affects the used instance, same as {@code neg(this)}.
+	 * @return this instance
+	 */
+	public Vec2 negLocal() { return neg(this); }
+	
 	/**
 	 * Calculate the squared length of this vector,
 	 * <br>length^2 = x^2 + y^2 = dot(this,this)
@@ -72,6 +126,23 @@ public class Vec2 {
 		return new Vec2(x/l, y/l);
 	}
 	
+	/**
+	 * Writes the normalized version of this vector into {@code dest}, which may be
+	 * this instance.
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec2 normalized(Vec2 dest) {
+		float l = length();
+		return dest.set(x/l, y/l);
+	}
+	
+	/**
+	 * Affects the used instance, same as {@code normalized(this)}.
+	 * @return this instance
+	 */
+	public Vec2 normalizeLocal() { return normalized(this); }
+	
 	/**
 	 * Returns a new Vec2i which is the rounded version of this instance.
 	 * The float components are simply casted to their int version.
@@ -117,14 +188,48 @@ public class Vec2 {
 		return (31+Float.floatToIntBits(x))*31+Float.floatToIntBits(y);
 	}
 	
+	/**
+	 * Appends this vector to a builder, as {@code [x y]} with
+	 * the components written in the given format. Unlike {@link #toString()}
+	 * this does not create intermediate strings.
+	 * @param sb the builder to append to
+	 * @param format the format of the components
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb, FloatFormat format) {
+		sb.append('[');
+		format.appendTo(sb, x).append(' ');
+		format.appendTo(sb, y);
+		return sb.append(']');
+	}
+	
+	/**
+	 * Appends this vector to any appendable, see {@link #appendTo(StringBuilder, FloatFormat)}.
+	 * @throws IOException if {@code out} throws
+	 */
+	public Appendable appendTo(Appendable out, FloatFormat format) throws IOException {
+		if(out instanceof StringBuilder)
+			return appendTo((StringBuilder) out, format);
+		return out.append(appendTo(new StringBuilder(32), format));
+	}
+	
+	/**
+	 * Appends this vector in the format of {@link #toString()}.
+	 * @param sb the builder to append to
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		return appendTo(sb, FloatFormat.VECTOR);
+	}
+	
 	/**
 	 * Returns a string of format [x, y] with xy in scientific
-	 * notations with 2 decimals.
+	 * notations with 2 decimals, see {@link FloatFormat#VECTOR}.
 	 * @return a string representing this vector
 	 */
 	@Override
 	public String toString() {
-		return String.format("[%+.2e %+.2e]", x, y);
+		return appendTo(new StringBuilder(32)).toString();
 	}
 	
 }
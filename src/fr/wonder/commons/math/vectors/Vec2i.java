@@ -1,6 +1,9 @@
 package fr.wonder.commons.math.vectors;
 
+import java.io.IOException;
+
 import fr.wonder.commons.math.Mathf;
+import fr.wonder.commons.math.io.FloatFormat;
 
 public class Vec2i {
 	
@@ -60,6 +63,74 @@ public class Vec2i {
 	 * @return a new vector that components are the absolute of this instance coords
 	 */
 	public Vec2i abs() { return new Vec2i(Mathf.abs(x), Mathf.abs(y)); }
+	
+	/**
+	 * Sets the components of this vector.
+	 * @return this instance
+	 */
+	public Vec2i set(int x, int y) { this.x = x; this.y = y; return this; }
+	/**
+	 * Copies the components of {@code v} into this vector.
+	 * @return this instance
+	 */
+	public Vec2i set(Vec2i v) { return set(v.x, v.y); }
+	
+	/**
+	 * Writes the sum of this vector and {@code v} into {@code dest}, which may be
+	 * this instance or {@code v}.
+	 * @return {@code dest}
+	 */
+	public Vec2i add(Vec2i v, Vec2i dest) { return dest.set(x+v.x, y+v.y); }
+	/**
+	 * Writes the difference of this vector and {@code v} into {@code dest}, which
+	 * may be this instance or {@code v}.
+	 * @return {@code dest}
+	 */
+	public Vec2i sub(Vec2i v, Vec2i dest) { return dest.set(x-v.x, y-v.y); }
+	/**
+	 * Writes the product of this vector and {@code i} into {@code dest}, which may be
+	 * this instance.
+	 * @return {@code dest}
+	 */
+	public Vec2i multiply(int i, Vec2i dest) { return dest.set(x*i, y*i); }
+	/**
+	 * Writes the negative of this vector into {@code dest}, which may be this instance.
+	 * @return {@code dest}
+	 */
+	public Vec2i neg(Vec2i dest) { return dest.set(-x, -y); }
+	/**
+	 * Writes the absolute of this vector into {@code dest}, which may be this instance.
+	 * @return {@code dest}
+	 */
+	public Vec2i abs(Vec2i dest) { return dest.set(Mathf.abs(x), Mathf.abs(y)); }
+	
+	/**
+	 * Affects the used instance, same as {@code add(v, this)}.
+	 * @return this instance
+	 */
+	public Vec2i addLocal(Vec2i v) { return add(v, this); }
+	public Vec2i addLocal(int x, int y) { return set(this.x+x, this.y+y); }
+	/**
+	 * Affects the used instance, same as {@code sub(v, this)}.
+	 * @return this instance
+	 */
+	public Vec2i subLocal(Vec2i v) { return sub(v, this); }
+	public Vec2i subLocal(int x, int y) { return set(this.x-x, this.y-y); }
+	/**
+	 * Affects the used instance, same as {@code multiply(i, this)}.
+	 * @return this instance
+	 */
+	public Vec2i multiplyLocal(int i) { return multiply(i, this); }
+	/**
+	 * Affects the used instance, same as {@code neg(this)}.
+	 * @return this instance
+	 */
+	public Vec2i negLocal() { return neg(this); }
+	/**
+	 * Affects the used instance, same as {@code abs(this)}.
+	 * @return this instance
+	 */
+	public Vec2i absLocal() { return abs(this); }
 	/**
 	 * Calculate the squared length of this vector,
 	 * <br><code>length^2 = x^2 + y^2</code>
@@ -93,14 +164,48 @@ public class Vec2i {
 		return (31+x)*31+y;
 	}
 	
+	/**
+	 * Appends this vector to a builder, as {@code [x y]} with
+	 * the components written in the given format. Unlike {@link #toString()}
+	 * this does not create intermediate strings.
+	 * @param sb the builder to append to
+	 * @param format the format of the components
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb, FloatFormat format) {
+		sb.append('[');
+		format.appendTo(sb, (float) x).append(' ');
+		format.appendTo(sb, (float) y);
+		return sb.append(']');
+	}
+	
+	/**
+	 * Appends this vector to any appendable, see {@link #appendTo(StringBuilder, FloatFormat)}.
+	 * @throws IOException if {@code out} throws
+	 */
+	public Appendable appendTo(Appendable out, FloatFormat format) throws IOException {
+		if(out instanceof StringBuilder)
+			return appendTo((StringBuilder) out, format);
+		return out.append(appendTo(new StringBuilder(32), format));
+	}
+	
+	/**
+	 * Appends this vector in the format of {@link #toString()}.
+	 * @param sb the builder to append to
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		return appendTo(sb, FloatFormat.VECTOR);
+	}
+	
 	/**
 	 * Returns a string of format [x, y] with xy in scientific
-	 * notations with 2 decimals.
+	 * notations with 2 decimals, see {@link FloatFormat#VECTOR}.
 	 * @return a string representing this vector
 	 */
 	@Override
 	public String toString() {
-		return String.format("[%+.2e %+.2e]", (float)x, (float)y);
+		return appendTo(new StringBuilder(32)).toString();
 	}
 	
 }
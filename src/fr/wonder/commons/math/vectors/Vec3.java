@@ -1,6 +1,9 @@
 package fr.wonder.commons.math.vectors;
 
+import java.io.IOException;
+
 import fr.wonder.commons.math.Mathf;
+import fr.wonder.commons.math.io.FloatFormat;
 
 public class Vec3 {
 	
@@ -73,6 +76,57 @@ public class Vec3 {
 	 */
 	public Vec3 neg() { return new Vec3(-x, -y, -z); }
 	
+	/**
+	 * Sets the components of this vector.
+	 * @return this instance
+	 */
+	public Vec3 set(float x, float y, float z) { this.x = x; this.y = y; this.z = z; return this; }
+	/**
+	 * Copies the components of {@code v} into this vector.
+	 * @return this instance
+	 */
+	public Vec3 set(Vec3 v) { return set(v.x, v.y, v.z); }
+	
+	/**
+	 * Writes the sum of this vector and {@code v} into {@code dest}, which may be
+	 * this instance or {@code v}.
+	 * @param v the vector to add
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec3 add(Vec3 v, Vec3 dest) { return dest.set(x+v.x, y+v.y, z+v.z); }
+	/**
+	 * Writes the product of this vector and {@code f} into {@code dest}, which may be
+	 * this instance.
+	 * @param f the float to multiply the vector coordinates with
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec3 multiply(float f, Vec3 dest) { return dest.set(x*f, y*f, z*f); }
+	/**
+	 * Writes the negative of this vector into {@code dest}, which may be this instance.
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec3 neg(Vec3 dest) { return dest.set(-x, -y, -z); }
+	
+	/**
+	 * Affects the used instance, same as {@code add(v, this)}.
+	 * @return this instance
+	 */
+	public Vec3 addLocal(Vec3 v) { return add(v, this); }
+	public Vec3 addLocal(float x, float y, float z) { return set(this.x+x, this.y+y, this.z+z); }
+	/**
+	 * Affects the used instance, same as {@code multiply(f, this)}.
+	 * @return this instance
+	 */
+	public Vec3 multiplyLocal(float f) { return multiply(f, this); }
+	/**
+	 * Affects the used instance, same as {@code neg(this)}.
+	 * @return this instance
+	 */
+	public Vec3 negLocal() { return neg(this); }
+	
 	/**
 	 * Calculate the squared length of this vector,
 	 * <br>length^2 = x^2 + y^2 + z^2
@@ -95,6 +149,23 @@ public class Vec3 {
 		return new Vec3(x/l, y/l, z/l);
 	}
 	
+	/**
+	 * Writes the normalized version of this vector into {@code dest}, which may be
+	 * this instance.
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec3 normalized(Vec3 dest) {
+		float l = length();
+		return dest.set(x/l, y/l, z/l);
+	}
+	
+	/**
+	 * Affects the used instance, same as {@code normalized(this)}.
+	 * @return this instance
+	 */
+	public Vec3 normalizeLocal() { return normalized(this); }
+	
 	/**
 	 * Returns true if the two objects are both Vec3 and each of their
 	 * components have the same value. If obj is null this will return
@@ -116,14 +187,49 @@ public class Vec3 {
 		return ((31+Float.floatToIntBits(x))*31+Float.floatToIntBits(y))*31+Float.floatToIntBits(z);
 	}
 	
+	/**
+	 * Appends this vector to a builder, as {@code [x y z]} with
+	 * the components written in the given format. Unlike {@link #toString()}
+	 * this does not create intermediate strings.
+	 * @param sb the builder to append to
+	 * @param format the format of the components
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb, FloatFormat format) {
+		sb.append('[');
+		format.appendTo(sb, x).append(' ');
+		format.appendTo(sb, y).append(' ');
+		format.appendTo(sb, z);
+		return sb.append(']');
+	}
+	
+	/**
+	 * Appends this vector to any appendable, see {@link #appendTo(StringBuilder, FloatFormat)}.
+	 * @throws IOException if {@code out} throws
+	 */
+	public Appendable appendTo(Appendable out, FloatFormat format) throws IOException {
+		if(out instanceof StringBuilder)
+			return appendTo((StringBuilder) out, format);
+		return out.append(appendTo(new StringBuilder(48), format));
+	}
+	
+	/**
+	 * Appends this vector in the format of {@link #toString()}.
+	 * @param sb the builder to append to
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		return appendTo(sb, FloatFormat.VECTOR);
+	}
+	
 	/**
 	 * Returns a string of format [x, y, z] with xyz in scientific
-	 * notations with 2 decimals.
+	 * notations with 2 decimals, see {@link FloatFormat#VECTOR}.
 	 * @return a string representing this vector
 	 */
 	@Override
 	public String toString() {
-		return String.format("[%+.2e %+.2e %+.2e]", x, y, z);
+		return appendTo(new StringBuilder(48)).toString();
 	}
 	
 }
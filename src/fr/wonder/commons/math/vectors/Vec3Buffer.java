@@ -0,0 +1,329 @@
+package fr.wonder.commons.math.vectors;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import fr.wonder.commons.math.Mathb;
+import fr.wonder.commons.math.Mathf;
+
+/**
+ * A fixed-size array of Vec3s stored as a structure of arrays: each component
+ * lives in its own primitive {@code float[]} lane.
+ * <p>
+ * Compared to a {@code Vec3[]} this avoids one object per element and keeps
+ * components contiguous in memory. Bulk operations work on a range
+ * {@code [from, to[} and never allocate, single elements can be read and written
+ * through {@link #get(int, Vec3)} and {@link #set(int, Vec3)}.
+ * <p>
+ * Lanes are exposed so that callers can write their own kernels over them.
+ */
+public class Vec3Buffer {
+	
+	/** Component lanes, all of length {@link #size} */
+	public final float[] x, y, z;
+	/** Number of vectors in this buffer */
+	public final int size;
+	
+	/**
+	 * Creates a buffer of {@code size} zero vectors.
+	 * @param size the number of vectors
+	 */
+	public Vec3Buffer(int size) {
+		this.x = new float[size];
+		this.y = new float[size];
+		this.z = new float[size];
+		this.size = size;
+	}
+	
+	/**
+	 * Wraps existing lanes, no copy is made.
+	 * @throws IllegalArgumentException if the lanes do not have the same length
+	 */
+	public Vec3Buffer(float[] x, float[] y, float[] z) {
+		if(y.length != x.length || z.length != x.length)
+			throw new IllegalArgumentException("Lanes must have the same length");
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.size = x.length;
+	}
+	
+	/**
+	 * Creates a buffer holding a copy of the given vectors.
+	 * @param vectors the vectors to copy
+	 */
+	public Vec3Buffer(Vec3[] vectors) {
+		this(vectors.length);
+		for(int i = 0; i < size; i++)
+			set(i, vectors[i]);
+	}
+	
+	/**
+	 * Reads a single vector.
+	 * @param i the index of the vector
+	 * @param dest the vector to write the components to
+	 * @return {@code dest}
+	 */
+	public Vec3 get(int i, Vec3 dest) {
+		return dest.set(x[i], y[i], z[i]);
+	}
+	
+	/**
+	 * Reads a single vector into a new instance, prefer {@link #get(int, Vec3)}
+	 * in hot loops.
+	 * @param i the index of the vector
+	 * @return a new vector
+	 */
+	public Vec3 get(int i) {
+		return new Vec3(x[i], y[i], z[i]);
+	}
+	
+	public void set(int i, float x, float y, float z) {
+		this.x[i] = x;
+		this.y[i] = y;
+		this.z[i] = z;
+	}
+	
+	public void set(int i, Vec3 v) {
+		set(i, v.x, v.y, v.z);
+	}
+	
+	/**
+	 * Copies this buffer into a new array of vectors.
+	 * @return a new array of length {@link #size}
+	 */
+	public Vec3[] toArray() {
+		Vec3[] array = new Vec3[size];
+		for(int i = 0; i < size; i++)
+			array[i] = get(i);
+		return array;
+	}
+	
+	private void checkRange(int from, int to) {
+		Objects.checkFromToIndex(from, to, size);
+	}
+	
+	/** Sets every vector in range to {@code v}. */
+	public void fill(Vec3 v, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] = v.x;
+			y[i] = v.y;
+			z[i] = v.z;
+		}
+	}
+	
+	/** {@code this[i] += v[i]} for i in range, {@code v} may be this buffer. */
+	public void add(Vec3Buffer v, int from, int to) {
+		checkRange(from, to);
+		v.checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] += v.x[i];
+			y[i] += v.y[i];
+			z[i] += v.z[i];
+		}
+	}
+	
+	/** {@code this[i] += v} for i in range. */
+	public void add(Vec3 v, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] += v.x;
+			y[i] += v.y;
+			z[i] += v.z;
+		}
+	}
+	
+	/**
+	 * {@code this[i] += v[i]*f} for i in range, typically used to integrate
+	 * positions from velocities.
+	 */
+	public void addScaled(Vec3Buffer v, float f, int from, int to) {
+		checkRange(from, to);
+		v.checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] += v.x[i]*f;
+			y[i] += v.y[i]*f;
+			z[i] += v.z[i]*f;
+		}
+	}
+	
+	/** {@code this[i] *= f} for i in range. */
+	public void multiply(float f, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] *= f;
+			y[i] *= f;
+			z[i] *= f;
+		}
+	}
+	
+	/** {@code dest[i] = dot(this[i], v[i])} for i in range. */
+	public void dot(Vec3Buffer v, float[] dest, int from, int to) {
+		checkRange(from, to);
+		v.checkRange(from, to);
+		for(int i = from; i < to; i++)
+			dest[i] = x[i]*v.x[i] + y[i]*v.y[i] + z[i]*v.z[i];
+	}
+	
+	/** {@code dest[i] = this[i].lengthSquared()} for i in range. */
+	public void lengthSquared(float[] dest, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++)
+			dest[i] = x[i]*x[i] + y[i]*y[i] + z[i]*z[i];
+	}
+	
+	/** {@code dest[i] = this[i].length()} for i in range. */
+	public void length(float[] dest, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++)
+			dest[i] = Mathf.sqrt(x[i]*x[i] + y[i]*y[i] + z[i]*z[i]);
+	}
+	
+	/**
+	 * Normalizes every vector in range. Like {@link Vec3#normalized()}, zero
+	 * vectors produce NaN components.
+	 */
+	public void normalize(int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			float l = 1/Mathf.sqrt(x[i]*x[i] + y[i]*y[i] + z[i]*z[i]);
+			x[i] *= l;
+			y[i] *= l;
+			z[i] *= l;
+		}
+	}
+	
+	/**
+	 * {@code this[i] = lerp(a[i], b[i], t)} for i in range, {@code a} and
+	 * {@code b} may be this buffer.
+	 * @see Mathf#lerp(Vec3, Vec3, float)
+	 */
+	public void lerp(Vec3Buffer a, Vec3Buffer b, float t, int from, int to) {
+		checkRange(from, to);
+		a.checkRange(from, to);
+		b.checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] = (b.x[i]-a.x[i])*t+a.x[i];
+			y[i] = (b.y[i]-a.y[i])*t+a.y[i];
+			z[i] = (b.z[i]-a.z[i])*t+a.z[i];
+		}
+	}
+	
+	/** Clamps every component in range between {@code min} and {@code max}. */
+	public void clamp(float min, float max, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] = Mathf.clamp(x[i], min, max);
+			y[i] = Mathf.clamp(y[i], min, max);
+			z[i] = Mathf.clamp(z[i], min, max);
+		}
+	}
+	
+	/** Clamps every vector in range component-wise between {@code min} and {@code max}. */
+	public void clamp(Vec3 min, Vec3 max, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] = Mathf.clamp(x[i], min.x, max.x);
+			y[i] = Mathf.clamp(y[i], min.y, max.y);
+			z[i] = Mathf.clamp(z[i], min.z, max.z);
+		}
+	}
+	
+	/**
+	 * Computes the component-wise minimum of the vectors in range, that is the
+	 * lower corner of their bounding box.
+	 * @param dest the vector to write the result to
+	 * @return {@code dest}
+	 * @throws IllegalArgumentException if the range is empty
+	 */
+	public Vec3 min(int from, int to, Vec3 dest) {
+		checkRange(from, to);
+		if(from == to)
+			throw new IllegalArgumentException("Empty range given.");
+		float mx = x[from];
+		float my = y[from];
+		float mz = z[from];
+		for(int i = from+1; i < to; i++) {
+			mx = Mathf.min(mx, x[i]);
+			my = Mathf.min(my, y[i]);
+			mz = Mathf.min(mz, z[i]);
+		}
+		return dest.set(mx, my, mz);
+	}
+	
+	/**
+	 * Computes the component-wise maximum of the vectors in range, that is the
+	 * upper corner of their bounding box.
+	 * @param dest the vector to write the result to
+	 * @return {@code dest}
+	 * @throws IllegalArgumentException if the range is empty
+	 */
+	public Vec3 max(int from, int to, Vec3 dest) {
+		checkRange(from, to);
+		if(from == to)
+			throw new IllegalArgumentException("Empty range given.");
+		float mx = x[from];
+		float my = y[from];
+		float mz = z[from];
+		for(int i = from+1; i < to; i++) {
+			mx = Mathf.max(mx, x[i]);
+			my = Mathf.max(my, y[i]);
+			mz = Mathf.max(mz, z[i]);
+		}
+		return dest.set(mx, my, mz);
+	}
+	
+	/** Quantisation of the coordinates for {@link #sortMorton(int, int)}, keeps codes positive on 30 bits */
+	private static final int MORTON_MAX_3 = (1 << 10) - 1;
+	
+	/**
+	 * Reorders the vectors in range {@code [from, to[} along the Z-order curve
+	 * spanning their bounding box, so that vectors close in space end up close
+	 * in memory. Loops over neighbouring vectors then miss the cache much less
+	 * often.
+	 * <p>
+	 * Coordinates are quantised on 10 bits per axis so vectors very close to
+	 * each other may keep their relative order. The returned permutation gives
+	 * for each position {@code from+i} the index that the vector now stored
+	 * there had before sorting, it can be used to reorder data associated with
+	 * the vectors the same way.
+	 * 
+	 * @return the permutation applied, of length {@code to-from}
+	 */
+	public int[] sortMorton(int from, int to) {
+		checkRange(from, to);
+		int count = to-from;
+		int[] perm = new int[count];
+		if(count == 0)
+			return perm;
+		Vec3 min = min(from, to, new Vec3()), max = max(from, to, new Vec3());
+		float sx = max.x > min.x ? MORTON_MAX_3 / (max.x-min.x) : 0;
+		float sy = max.y > min.y ? MORTON_MAX_3 / (max.y-min.y) : 0;
+		float sz = max.z > min.z ? MORTON_MAX_3 / (max.z-min.z) : 0;
+		// sort (code, index) pairs packed in longs, codes are positive so the
+		// natural order of the longs is the order of the codes
+		long[] keys = new long[count];
+		for(int i = from; i < to; i++) {
+			int qx = Math.min(MORTON_MAX_3, (int) ((x[i]-min.x)*sx));
+			int qy = Math.min(MORTON_MAX_3, (int) ((y[i]-min.y)*sy));
+			int qz = Math.min(MORTON_MAX_3, (int) ((z[i]-min.z)*sz));
+			keys[i-from] = (long) Mathb.morton3(qx, qy, qz) << 32 | (i-from);
+		}
+		Arrays.parallelSort(keys);
+		for(int i = 0; i < count; i++)
+			perm[i] = from + (int) keys[i];
+		float[] tmp = new float[count];
+		System.arraycopy(x, from, tmp, 0, count);
+		for(int i = 0; i < count; i++)
+			x[from+i] = tmp[perm[i]-from];
+		System.arraycopy(y, from, tmp, 0, count);
+		for(int i = 0; i < count; i++)
+			y[from+i] = tmp[perm[i]-from];
+		System.arraycopy(z, from, tmp, 0, count);
+		for(int i = 0; i < count; i++)
+			z[from+i] = tmp[perm[i]-from];
+		return perm;
+	}
+	
+}
@@ -0,0 +1,122 @@
+package fr.wonder.commons.math.vectors;
+
+import java.util.Objects;
+
+import fr.wonder.commons.math.Mathb;
+
+/**
+ * A fixed-size array of Vec3s stored with half-precision components, see
+ * {@link Mathb#toHalf(float)}: each component lives in its own
+ * {@code short[]} lane.
+ * <p>
+ * This takes half the memory of a {@link Vec3Buffer}, for data that does not need
+ * more than about 3 significant digits such as normals or colors. Components
+ * are converted when they are read and written, values beyond
+ * {@link Mathb#HALF_MAX} become infinite. Bulk conversions from and to
+ * {@link Vec3Buffer}s work on a range {@code [from, to[} and never allocate.
+ */
+public class Vec3HalfBuffer {
+	
+	/** Component lanes holding half-precision bits, all of length {@link #size} */
+	public final short[] x, y, z;
+	/** Number of vectors in this buffer */
+	public final int size;
+	
+	/**
+	 * Creates a buffer of {@code size} zero vectors.
+	 * @param size the number of vectors
+	 */
+	public Vec3HalfBuffer(int size) {
+		this.x = new short[size];
+		this.y = new short[size];
+		this.z = new short[size];
+		this.size = size;
+	}
+	
+	/**
+	 * Wraps existing lanes of half-precision bits, no copy is made.
+	 * @throws IllegalArgumentException if the lanes do not have the same length
+	 */
+	public Vec3HalfBuffer(short[] x, short[] y, short[] z) {
+		if(y.length != x.length || z.length != x.length)
+			throw new IllegalArgumentException("Lanes must have the same length");
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.size = x.length;
+	}
+	
+	/**
+	 * Creates a buffer holding a half-precision copy of the given vectors.
+	 * @param vectors the vectors to convert
+	 */
+	public Vec3HalfBuffer(Vec3Buffer vectors) {
+		this(vectors.size);
+		encode(vectors, 0, size);
+	}
+	
+	/**
+	 * Reads a single vector.
+	 * @param i the index of the vector
+	 * @param dest the vector to write the components to
+	 * @return {@code dest}
+	 */
+	public Vec3 get(int i, Vec3 dest) {
+		return dest.set(Mathb.fromHalf(x[i]), Mathb.fromHalf(y[i]), Mathb.fromHalf(z[i]));
+	}
+	
+	/**
+	 * Reads a single vector into a new instance, prefer {@link #get(int, Vec3)}
+	 * in hot loops.
+	 * @param i the index of the vector
+	 * @return a new vector
+	 */
+	public Vec3 get(int i) {
+		return get(i, new Vec3());
+	}
+	
+	/** Writes a single vector, rounding its components to half precision */
+	public void set(int i, float x, float y, float z) {
+		this.x[i] = Mathb.toHalf(x);
+		this.y[i] = Mathb.toHalf(y);
+		this.z[i] = Mathb.toHalf(z);
+	}
+	
+	/** Writes a single vector, rounding its components to half precision */
+	public void set(int i, Vec3 v) {
+		set(i, v.x, v.y, v.z);
+	}
+	
+	private void checkRange(int from, int to) {
+		Objects.checkFromToIndex(from, to, size);
+	}
+	
+	/** {@code this[i] = v[i]} for i in range, rounded to half precision. */
+	public void encode(Vec3Buffer v, int from, int to) {
+		checkRange(from, to);
+		Objects.checkFromToIndex(from, to, v.size);
+		Mathb.toHalf(v.x, from, x, from, to-from);
+		Mathb.toHalf(v.y, from, y, from, to-from);
+		Mathb.toHalf(v.z, from, z, from, to-from);
+	}
+	
+	/** {@code dest[i] = this[i]} for i in range, this is exact. */
+	public void decode(Vec3Buffer dest, int from, int to) {
+		checkRange(from, to);
+		Objects.checkFromToIndex(from, to, dest.size);
+		Mathb.fromHalf(x, from, dest.x, from, to-from);
+		Mathb.fromHalf(y, from, dest.y, from, to-from);
+		Mathb.fromHalf(z, from, dest.z, from, to-from);
+	}
+	
+	/**
+	 * Converts this buffer to a full-precision buffer.
+	 * @return a new buffer of length {@link #size}
+	 */
+	public Vec3Buffer toVec3Buffer() {
+		Vec3Buffer buffer = new Vec3Buffer(size);
+		decode(buffer, 0, size);
+		return buffer;
+	}
+	
+}
@@ -1,6 +1,9 @@
 package fr.wonder.commons.math.vectors;
 
+import java.io.IOException;
+
 import fr.wonder.commons.math.Mathf;
+import fr.wonder.commons.math.io.FloatFormat;
 
 public class Vec4 {
 
@@ -45,7 +48,7 @@ public class Vec4 {
 	 * @param v the vector to add
 	 * @return a new vector that is the sum of the 2 parameters
 	 */
-	public Vec4 add(Vec4 v) { return new Vec4(x+v.x, y+v.y, z+v.z, z+v.z); }
+	public Vec4 add(Vec4 v) { return new Vec4(x+v.x, y+v.y, z+v.z, w+v.w); }
 	public Vec4 add(float x, float y, float z, float w) { return new Vec4(this.x+x, this.y+y, this.z+z, this.w+w); }
 	/**
 	 * Does not affect the used instance.
@@ -59,6 +62,57 @@ public class Vec4 {
 	 */
 	public Vec4 neg() { return new Vec4(-x, -y, -z, -w); }
 	
+	/**
+	 * Sets the components of this vector.
+	 * @return this instance
+	 */
+	public Vec4 set(float x, float y, float z, float w) { this.x = x; this.y = y; this.z = z; this.w = w; return this; }
+	/**
+	 * Copies the components of {@code v} into this vector.
+	 * @return this instance
+	 */
+	public Vec4 set(Vec4 v) { return set(v.x, v.y, v.z, v.w); }
+	
+	/**
+	 * Writes the sum of this vector and {@code v} into {@code dest}, which may be
+	 * this instance or {@code v}.
+	 * @param v the vector to add
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec4 add(Vec4 v, Vec4 dest) { return dest.set(x+v.x, y+v.y, z+v.z, w+v.w); }
+	/**
+	 * Writes the product of this vector and {@code f} into {@code dest}, which may be
+	 * this instance.
+	 * @param f the float to multiply the vector coordinates with
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec4 multiply(float f, Vec4 dest) { return dest.set(x*f, y*f, z*f, w*f); }
+	/**
+	 * Writes the negative of this vector into {@code dest}, which may be this instance.
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec4 neg(Vec4 dest) { return dest.set(-x, -y, -z, -w); }
+	
+	/**
+	 * Affects the used instance, same as {@code add(v, this)}.
+	 * @return this instance
+	 */
+	public Vec4 addLocal(Vec4 v) { return add(v, this); }
+	public Vec4 addLocal(float x, float y, float z, float w) { return set(this.x+x, this.y+y, this.z+z, this.w+w); }
+	/**
+	 * Affects the used instance, same as {@code multiply(f, this)}.
+	 * @return this instance
+	 */
+	public Vec4 multiplyLocal(float f) { return multiply(f, this); }
+	/**
+	 * Affects the used instance, same as {@code neg(this)}.
+	 * @return this instance
+	 */
+	public Vec4 negLocal() { return neg(this); }
+	
 	/**
 	 * Calculate the squared length of this vector,
 	 * <br>length^2 = x^2 + y^2 + z^2 + w^2
@@ -81,6 +135,23 @@ public class Vec4 {
 		return new Vec4(x/l, y/l, z/l, w/l);
 	}
 	
+	/**
+	 * Writes the normalized version of this vector into {@code dest}, which may be
+	 * this instance.
+	 * @param dest the vector the result is written to
+	 * @return {@code dest}
+	 */
+	public Vec4 normalized(Vec4 dest) {
+		float l = length();
+		return dest.set(x/l, y/l, z/l, w/l);
+	}
+	
+	/**
+	 * Affects the used instance, same as {@code normalized(this)}.
+	 * @return this instance
+	 */
+	public Vec4 normalizeLocal() { return normalized(this); }
+	
 	/**
 	 * Returns true if the two objects are both Vec4 and each of their
 	 * components have the same value. If obj is null this will return
@@ -104,13 +175,49 @@ public class Vec4 {
 				+Float.floatToIntBits(z))*31+Float.floatToIntBits(w);
 	}
 	
+	/**
+	 * Appends this vector to a builder, as {@code [x y z w]} with
+	 * the components written in the given format. Unlike {@link #toString()}
+	 * this does not create intermediate strings.
+	 * @param sb the builder to append to
+	 * @param format the format of the components
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb, FloatFormat format) {
+		sb.append('[');
+		format.appendTo(sb, x).append(' ');
+		format.appendTo(sb, y).append(' ');
+		format.appendTo(sb, z).append(' ');
+		format.appendTo(sb, w);
+		return sb.append(']');
+	}
+	
+	/**
+	 * Appends this vector to any appendable, see {@link #appendTo(StringBuilder, FloatFormat)}.
+	 * @throws IOException if {@code out} throws
+	 */
+	public Appendable appendTo(Appendable out, FloatFormat format) throws IOException {
+		if(out instanceof StringBuilder)
+			return appendTo((StringBuilder) out, format);
+		return out.append(appendTo(new StringBuilder(64), format));
+	}
+	
+	/**
+	 * Appends this vector in the format of {@link #toString()}.
+	 * @param sb the builder to append to
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		return appendTo(sb, FloatFormat.VECTOR);
+	}
+	
 	/**
 	 * Returns a string of format [x, y, z, w] with xyzw in scientific
-	 * notations with 2 decimals.
+	 * notations with 2 decimals, see {@link FloatFormat#VECTOR}.
 	 * @return a string representing this vector
 	 */
 	@Override
 	public String toString() {
-		return String.format("[%+.2e %+.2e %+.2e %+.2e]", x, y, z, w);
+		return appendTo(new StringBuilder(64)).toString();
 	}
 }
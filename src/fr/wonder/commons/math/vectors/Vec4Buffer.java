@@ -0,0 +1,291 @@
+package fr.wonder.commons.math.vectors;
+
+import java.util.Objects;
+
+import fr.wonder.commons.math.Mathf;
+
+/**
+ * A fixed-size array of Vec4s stored as a structure of arrays: each component
+ * lives in its own primitive {@code float[]} lane.
+ * <p>
+ * Compared to a {@code Vec4[]} this avoids one object per element and keeps
+ * components contiguous in memory. Bulk operations work on a range
+ * {@code [from, to[} and never allocate, single elements can be read and written
+ * through {@link #get(int, Vec4)} and {@link #set(int, Vec4)}.
+ * <p>
+ * Lanes are exposed so that callers can write their own kernels over them.
+ */
+public class Vec4Buffer {
+	
+	/** Component lanes, all of length {@link #size} */
+	public final float[] x, y, z, w;
+	/** Number of vectors in this buffer */
+	public final int size;
+	
+	/**
+	 * Creates a buffer of {@code size} zero vectors.
+	 * @param size the number of vectors
+	 */
+	public Vec4Buffer(int size) {
+		this.x = new float[size];
+		this.y = new float[size];
+		this.z = new float[size];
+		this.w = new float[size];
+		this.size = size;
+	}
+	
+	/**
+	 * Wraps existing lanes, no copy is made.
+	 * @throws IllegalArgumentException if the lanes do not have the same length
+	 */
+	public Vec4Buffer(float[] x, float[] y, float[] z, float[] w) {
+		if(y.length != x.length || z.length != x.length || w.length != x.length)
+			throw new IllegalArgumentException("Lanes must have the same length");
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+		this.size = x.length;
+	}
+	
+	/**
+	 * Creates a buffer holding a copy of the given vectors.
+	 * @param vectors the vectors to copy
+	 */
+	public Vec4Buffer(Vec4[] vectors) {
+		this(vectors.length);
+		for(int i = 0; i < size; i++)
+			set(i, vectors[i]);
+	}
+	
+	/**
+	 * Reads a single vector.
+	 * @param i the index of the vector
+	 * @param dest the vector to write the components to
+	 * @return {@code dest}
+	 */
+	public Vec4 get(int i, Vec4 dest) {
+		return dest.set(x[i], y[i], z[i], w[i]);
+	}
+	
+	/**
+	 * Reads a single vector into a new instance, prefer {@link #get(int, Vec4)}
+	 * in hot loops.
+	 * @param i the index of the vector
+	 * @return a new vector
+	 */
+	public Vec4 get(int i) {
+		return new Vec4(x[i], y[i], z[i], w[i]);
+	}
+	
+	public void set(int i, float x, float y, float z, float w) {
+		this.x[i] = x;
+		this.y[i] = y;
+		this.z[i] = z;
+		this.w[i] = w;
+	}
+	
+	public void set(int i, Vec4 v) {
+		set(i, v.x, v.y, v.z, v.w);
+	}
+	
+	/**
+	 * Copies this buffer into a new array of vectors.
+	 * @return a new array of length {@link #size}
+	 */
+	public Vec4[] toArray() {
+		Vec4[] array = new Vec4[size];
+		for(int i = 0; i < size; i++)
+			array[i] = get(i);
+		return array;
+	}
+	
+	private void checkRange(int from, int to) {
+		Objects.checkFromToIndex(from, to, size);
+	}
+	
+	/** Sets every vector in range to {@code v}. */
+	public void fill(Vec4 v, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] = v.x;
+			y[i] = v.y;
+			z[i] = v.z;
+			w[i] = v.w;
+		}
+	}
+	
+	/** {@code this[i] += v[i]} for i in range, {@code v} may be this buffer. */
+	public void add(Vec4Buffer v, int from, int to) {
+		checkRange(from, to);
+		v.checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] += v.x[i];
+			y[i] += v.y[i];
+			z[i] += v.z[i];
+			w[i] += v.w[i];
+		}
+	}
+	
+	/** {@code this[i] += v} for i in range. */
+	public void add(Vec4 v, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] += v.x;
+			y[i] += v.y;
+			z[i] += v.z;
+			w[i] += v.w;
+		}
+	}
+	
+	/**
+	 * {@code this[i] += v[i]*f} for i in range, typically used to integrate
+	 * positions from velocities.
+	 */
+	public void addScaled(Vec4Buffer v, float f, int from, int to) {
+		checkRange(from, to);
+		v.checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] += v.x[i]*f;
+			y[i] += v.y[i]*f;
+			z[i] += v.z[i]*f;
+			w[i] += v.w[i]*f;
+		}
+	}
+	
+	/** {@code this[i] *= f} for i in range. */
+	public void multiply(float f, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] *= f;
+			y[i] *= f;
+			z[i] *= f;
+			w[i] *= f;
+		}
+	}
+	
+	/** {@code dest[i] = dot(this[i], v[i])} for i in range. */
+	public void dot(Vec4Buffer v, float[] dest, int from, int to) {
+		checkRange(from, to);
+		v.checkRange(from, to);
+		for(int i = from; i < to; i++)
+			dest[i] = x[i]*v.x[i] + y[i]*v.y[i] + z[i]*v.z[i] + w[i]*v.w[i];
+	}
+	
+	/** {@code dest[i] = this[i].lengthSquared()} for i in range. */
+	public void lengthSquared(float[] dest, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++)
+			dest[i] = x[i]*x[i] + y[i]*y[i] + z[i]*z[i] + w[i]*w[i];
+	}
+	
+	/** {@code dest[i] = this[i].length()} for i in range. */
+	public void length(float[] dest, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++)
+			dest[i] = Mathf.sqrt(x[i]*x[i] + y[i]*y[i] + z[i]*z[i] + w[i]*w[i]);
+	}
+	
+	/**
+	 * Normalizes every vector in range. Like {@link Vec4#normalized()}, zero
+	 * vectors produce NaN components.
+	 */
+	public void normalize(int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			float l = 1/Mathf.sqrt(x[i]*x[i] + y[i]*y[i] + z[i]*z[i] + w[i]*w[i]);
+			x[i] *= l;
+			y[i] *= l;
+			z[i] *= l;
+			w[i] *= l;
+		}
+	}
+	
+	/**
+	 * {@code this[i] = lerp(a[i], b[i], t)} for i in range, {@code a} and
+	 * {@code b} may be this buffer.
+	 * @see Mathf#lerp(Vec4, Vec4, float)
+	 */
+	public void lerp(Vec4Buffer a, Vec4Buffer b, float t, int from, int to) {
+		checkRange(from, to);
+		a.checkRange(from, to);
+		b.checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] = (b.x[i]-a.x[i])*t+a.x[i];
+			y[i] = (b.y[i]-a.y[i])*t+a.y[i];
+			z[i] = (b.z[i]-a.z[i])*t+a.z[i];
+			w[i] = (b.w[i]-a.w[i])*t+a.w[i];
+		}
+	}
+	
+	/** Clamps every component in range between {@code min} and {@code max}. */
+	public void clamp(float min, float max, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] = Mathf.clamp(x[i], min, max);
+			y[i] = Mathf.clamp(y[i], min, max);
+			z[i] = Mathf.clamp(z[i], min, max);
+			w[i] = Mathf.clamp(w[i], min, max);
+		}
+	}
+	
+	/** Clamps every vector in range component-wise between {@code min} and {@code max}. */
+	public void clamp(Vec4 min, Vec4 max, int from, int to) {
+		checkRange(from, to);
+		for(int i = from; i < to; i++) {
+			x[i] = Mathf.clamp(x[i], min.x, max.x);
+			y[i] = Mathf.clamp(y[i], min.y, max.y);
+			z[i] = Mathf.clamp(z[i], min.z, max.z);
+			w[i] = Mathf.clamp(w[i], min.w, max.w);
+		}
+	}
+	
+	/**
+	 * Computes the component-wise minimum of the vectors in range, that is the
+	 * lower corner of their bounding box.
+	 * @param dest the vector to write the result to
+	 * @return {@code dest}
+	 * @throws IllegalArgumentException if the range is empty
+	 */
+	public Vec4 min(int from, int to, Vec4 dest) {
+		checkRange(from, to);
+		if(from == to)
+			throw new IllegalArgumentException("Empty range given.");
+		float mx = x[from];
+		float my = y[from];
+		float mz = z[from];
+		float mw = w[from];
+		for(int i = from+1; i < to; i++) {
+			mx = Mathf.min(mx, x[i]);
+			my = Mathf.min(my, y[i]);
+			mz = Mathf.min(mz, z[i]);
+			mw = Mathf.min(mw, w[i]);
+		}
+		return dest.set(mx, my, mz, mw);
+	}
+	
+	/**
+	 * Computes the component-wise maximum of the vectors in range, that is the
+	 * upper corner of their bounding box.
+	 * @param dest the vector to write the result to
+	 * @return {@code dest}
+	 * @throws IllegalArgumentException if the range is empty
+	 */
+	public Vec4 max(int from, int to, Vec4 dest) {
+		checkRange(from, to);
+		if(from == to)
+			throw new IllegalArgumentException("Empty range given.");
+		float mx = x[from];
+		float my = y[from];
+		float mz = z[from];
+		float mw = w[from];
+		for(int i = from+1; i < to; i++) {
+			mx = Mathf.max(mx, x[i]);
+			my = Mathf.max(my, y[i]);
+			mz = Mathf.max(mz, z[i]);
+			mw = Mathf.max(mw, w[i]);
+		}
+		return dest.set(mx, my, mz, mw);
+	}
+	
+}
@@ -1,6 +1,9 @@
 package fr.wonder.commons.math.vectors;
 
+import java.io.IOException;
+
 import fr.wonder.commons.math.Mathf;
+import fr.wonder.commons.math.io.FloatFormat;
 
 public class Vec4i {
 
@@ -39,7 +42,7 @@ public class Vec4i {
 	 * @param v the vector to add
 	 * @return a new vector that is the sum of the 2 parameters
 	 */
-	public Vec4i add(Vec4i v) { return new Vec4i(x+v.x, y+v.y, z+v.z, z+v.z); }
+	public Vec4i add(Vec4i v) { return new Vec4i(x+v.x, y+v.y, z+v.z, w+v.w); }
 	public Vec4i add(int x, int y, int z, int w) { return new Vec4i(this.x+x, this.y+y, this.z+z, this.w+w); }
 	/**
 	 * Does not affect the used instance.
@@ -53,6 +56,52 @@ public class Vec4i {
 	 */
 	public Vec4i neg() { return new Vec4i(-x, -y, -z, -w); }
 	
+	/**
+	 * Sets the components of this vector.
+	 * @return this instance
+	 */
+	public Vec4i set(int x, int y, int z, int w) { this.x = x; this.y = y; this.z = z; this.w = w; return this; }
+	/**
+	 * Copies the components of {@code v} into this vector.
+	 * @return this instance
+	 */
+	public Vec4i set(Vec4i v) { return set(v.x, v.y, v.z, v.w); }
+	
+	/**
+	 * Writes the sum of this vector and {@code v} into {@code dest}, which may be
+	 * this instance or {@code v}.
+	 * @return {@code dest}
+	 */
+	public Vec4i add(Vec4i v, Vec4i dest) { return dest.set(x+v.x, y+v.y, z+v.z, w+v.w); }
+	/**
+	 * Writes the product of this vector and {@code f} into {@code dest}, which may be
+	 * this instance.
+	 * @return {@code dest}
+	 */
+	public Vec4i multiply(int f, Vec4i dest) { return dest.set(x*f, y*f, z*f, w*f); }
+	/**
+	 * Writes the negative of this vector into {@code dest}, which may be this instance.
+	 * @return {@code dest}
+	 */
+	public Vec4i neg(Vec4i dest) { return dest.set(-x, -y, -z, -w); }
+	
+	/**
+	 * Affects the used instance, same as {@code add(v, this)}.
+	 * @return this instance
+	 */
+	public Vec4i addLocal(Vec4i v) { return add(v, this); }
+	public Vec4i addLocal(int x, int y, int z, int w) { return set(this.x+x, this.y+y, this.z+z, this.w+w); }
+	/**
+	 * Affects the used instance, same as {@code multiply(f, this)}.
+	 * @return this instance
+	 */
+	public Vec4i multiplyLocal(int f) { return multiply(f, this); }
+	/**
+	 * Affects the used instance, same as {@code neg(this)}.
+	 * @return this instance
+	 */
+	public Vec4i negLocal() { return neg(this); }
+	
 	/**
 	 * Calculate the squared length of this vector,
 	 * <br>length^2 = x^2 + y^2 + z^2 + w^2
@@ -88,14 +137,50 @@ public class Vec4i {
 		return ((((31+x)*31+y)*31+z)*31+w);
 	}
 	
+	/**
+	 * Appends this vector to a builder, as {@code [x y z w]} with
+	 * the components written in the given format. Unlike {@link #toString()}
+	 * this does not create intermediate strings.
+	 * @param sb the builder to append to
+	 * @param format the format of the components
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb, FloatFormat format) {
+		sb.append('[');
+		format.appendTo(sb, (float) x).append(' ');
+		format.appendTo(sb, (float) y).append(' ');
+		format.appendTo(sb, (float) z).append(' ');
+		format.appendTo(sb, (float) w);
+		return sb.append(']');
+	}
+	
+	/**
+	 * Appends this vector to any appendable, see {@link #appendTo(StringBuilder, FloatFormat)}.
+	 * @throws IOException if {@code out} throws
+	 */
+	public Appendable appendTo(Appendable out, FloatFormat format) throws IOException {
+		if(out instanceof StringBuilder)
+			return appendTo((StringBuilder) out, format);
+		return out.append(appendTo(new StringBuilder(64), format));
+	}
+	
+	/**
+	 * Appends this vector in the format of {@link #toString()}.
+	 * @param sb the builder to append to
+	 * @return {@code sb}
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		return appendTo(sb, FloatFormat.VECTOR);
+	}
+	
 	/**
 	 * Returns a string of format [x, y, z, w] with xyzw in scientific
-	 * notations with 2 decimals.
+	 * notations with 2 decimals, see {@link FloatFormat#VECTOR}.
 	 * @return a string representing this vector
 	 */
 	@Override
 	public String toString() {
-		return String.format("[%+.2e %+.2e %+.2e %+.2e]", x, y, z, w);
+		return appendTo(new StringBuilder(64)).toString();
 	}
 	
 }
@@ -1,6 +1,11 @@
 module fr.wonder.commons.math {
 	
+	requires static jdk.incubator.vector;
+	
 	exports fr.wonder.commons.math;
 	exports fr.wonder.commons.math.vectors;
+	exports fr.wonder.commons.math.spatial;
+	exports fr.wonder.commons.math.noise;
+	exports fr.wonder.commons.math.io;
 	
 }
\ No newline at end of file